@@ -0,0 +1,13 @@
+<%@ page import="org.opencms.jsp.*, org.opencms.main.*, org.opencms.security.*" %><%
+
+	// usage statistics of the core caches, as text or with "format=json" as JSON 
+	CmsJspActionElement jsp = new CmsJspActionElement(pageContext, request, response);
+	OpenCms.getRoleManager().checkRole(jsp.getCmsObject(), CmsRole.WORKPLACE_MANAGER);
+	if ("json".equals(request.getParameter("format"))) {
+		response.setContentType("application/json; charset=UTF-8");
+		out.print(OpenCms.getMemoryMonitor().getCacheStatisticsAsJson().toString(4));
+	} else {
+		response.setContentType("text/plain; charset=UTF-8");
+		out.print(OpenCms.getMemoryMonitor().getCacheStatisticsAsText());
+	}
+%>
\ No newline at end of file
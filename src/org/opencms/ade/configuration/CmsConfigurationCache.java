@@ -79,8 +79,11 @@ class CmsConfigurationCache {
     /** The configuration files which have been changed but not read yet. */
     private Map<String, CmsUUID> m_configurationsToRead = new HashMap<String, CmsUUID>();
 
-    /** The cached content types for folders. */
-    private Map<String, String> m_folderTypes = new HashMap<String, String>();
+    /** The cached content types for folders, replaced as a whole when changed. */
+    private volatile Map<String, String> m_folderTypes = Collections.emptyMap();
+
+    /** The path index of the site configurations, replaced as a whole when the configurations change. */
+    private volatile CmsConfigurationPathIndex m_index = CmsConfigurationPathIndex.EMPTY;
 
     /** The merged configuration from all the modules. */
     private CmsADEConfigData m_moduleConfiguration;
@@ -91,6 +94,9 @@ class CmsConfigurationCache {
     /** The configurations from the sitemap / VFS. */
     private Map<String, CmsADEConfigData> m_siteConfigurations = new HashMap<String, CmsADEConfigData>();
 
+    /** Flag which indicates that there are changed configuration files which have not been read yet. */
+    private volatile boolean m_updatesPending;
+
     /** 
      * Creates a new cache instance.<p>
      * 
@@ -148,11 +154,11 @@ class CmsConfigurationCache {
      * 
      * @return the detail pages for that type 
      */
-    protected synchronized List<String> getDetailPages(String type) {
+    protected List<String> getDetailPages(String type) {
 
-        readRemainingConfigurations();
+        checkRemainingConfigurations();
         List<String> result = new ArrayList<String>();
-        for (CmsADEConfigData configData : m_siteConfigurations.values()) {
+        for (CmsADEConfigData configData : m_index.getConfigurations()) {
             for (CmsDetailPageInfo pageInfo : configData.getDetailPagesForType(type)) {
                 result.add(pageInfo.getUri());
             }
@@ -175,9 +181,9 @@ class CmsConfigurationCache {
      * @param rootPath the path of a resource 
      * @return the parent folder content type 
      */
-    protected synchronized String getParentFolderType(String rootPath) {
+    protected String getParentFolderType(String rootPath) {
 
-        readRemainingConfigurations();
+        checkRemainingConfigurations();
         String parent = CmsResource.getParentFolder(rootPath);
         if (parent == null) {
             return null;
@@ -201,26 +207,13 @@ class CmsConfigurationCache {
      * @param path a root path  
      * @return the configuration data for the given path, or null if none was found 
      */
-    protected synchronized CmsADEConfigData getSiteConfigData(String path) {
+    protected CmsADEConfigData getSiteConfigData(String path) {
 
         if (path == null) {
             return null;
         }
-        readRemainingConfigurations();
-        String normalizedPath = CmsStringUtil.joinPaths("/", path, "/");
-        List<String> prefixes = new ArrayList<String>();
-        for (String key : m_siteConfigurations.keySet()) {
-            if (normalizedPath.startsWith(CmsStringUtil.joinPaths("/", key, "/"))) {
-                prefixes.add(key);
-            }
-        }
-        if (prefixes.size() == 0) {
-            return null;
-        }
-        Collections.sort(prefixes);
-        // for any two prefixes of a string, one is a prefix of the other. so the alphabetically last
-        // prefix is the longest prefix of all.
-        return m_siteConfigurations.get(prefixes.get(prefixes.size() - 1));
+        checkRemainingConfigurations();
+        return m_index.getLongestPrefixMatch(path);
     }
 
     /**
@@ -229,6 +222,7 @@ class CmsConfigurationCache {
     protected synchronized void initialize() {
 
         m_siteConfigurations.clear();
+        updateIndex();
         try {
             List<CmsResource> configFileCandidates = m_cms.readResources(
                 "/",
@@ -258,16 +252,17 @@ class CmsConfigurationCache {
     protected synchronized void initializeFolderTypes() throws CmsException {
 
         LOG.info("Computing folder types for detail pages...");
-        m_folderTypes.clear();
+        Map<String, String> newFolderTypes = new HashMap<String, String>();
         List<CmsADEConfigData> configDataObjects = new ArrayList<CmsADEConfigData>(m_siteConfigurations.values());
         for (CmsADEConfigData configData : configDataObjects) {
             Map<String, String> folderTypes = configData.getFolderTypes();
-            m_folderTypes.putAll(folderTypes);
+            newFolderTypes.putAll(folderTypes);
         }
         if (m_moduleConfiguration != null) {
             Map<String, String> folderTypes = m_moduleConfiguration.getFolderTypes();
-            m_folderTypes.putAll(folderTypes);
+            newFolderTypes.putAll(folderTypes);
         }
+        m_folderTypes = Collections.unmodifiableMap(newFolderTypes);
     }
 
     /**
@@ -278,9 +273,9 @@ class CmsConfigurationCache {
      * 
      * @return true if the resource is configured as a detail page 
      */
-    protected synchronized boolean isDetailPage(CmsObject cms, CmsResource resource) {
+    protected boolean isDetailPage(CmsObject cms, CmsResource resource) {
 
-        readRemainingConfigurations();
+        checkRemainingConfigurations();
         CmsResource folder;
         if (resource.isFile()) {
             if (!CmsResourceTypeXmlContainerPage.isContainerPage(resource)) {
@@ -297,7 +292,7 @@ class CmsConfigurationCache {
         }
         List<CmsDetailPageInfo> allDetailPages = new ArrayList<CmsDetailPageInfo>();
         // First collect all detail page infos 
-        for (CmsADEConfigData configData : m_siteConfigurations.values()) {
+        for (CmsADEConfigData configData : m_index.getConfigurations()) {
             List<CmsDetailPageInfo> detailPageInfos = configData.getAllDetailPages();
             allDetailPages.addAll(detailPageInfos);
         }
@@ -424,6 +419,7 @@ class CmsConfigurationCache {
             LOG.info("Removing module configuration " + rootPath);
             synchronized (this) {
                 m_configurationsToRead.put(MODULE_CONFIG_KEY, CmsUUID.getNullUUID());
+                m_updatesPending = true;
             }
         }
 
@@ -489,11 +485,13 @@ class CmsConfigurationCache {
                 // is queried.
                 LOG.info("Changed configuration file " + rootPath + "(" + structureId + "), will be read later");
                 m_configurationsToRead.put(rootPath, structureId);
+                m_updatesPending = true;
             }
         } else if (isModuleConfiguration(rootPath, type)) {
             LOG.info("Changed module configuration file " + rootPath + "(" + structureId + ")");
             synchronized (this) {
                 m_configurationsToRead.put(MODULE_CONFIG_KEY, CmsUUID.getNullUUID());
+                m_updatesPending = true;
             }
         }
     }
@@ -514,6 +512,19 @@ class CmsConfigurationCache {
         }
     }
 
+    /**
+     * Reads the configuration files which have changed but not been read yet, if there are any.<p>
+     * 
+     * The lock is only acquired if there are pending changes, so that lookups in the up to date 
+     * cache can proceed concurrently.<p>
+     */
+    private void checkRemainingConfigurations() {
+
+        if (m_updatesPending) {
+            readRemainingConfigurations();
+        }
+    }
+
     /**
      * Reads the configuration files which have changed but not been read yet.<p>
      */
@@ -521,6 +532,7 @@ class CmsConfigurationCache {
 
         if (m_configurationsToRead.isEmpty()) {
             // do not initialize folder types if there were no changes!
+            m_updatesPending = false;
             return;
         }
         for (Map.Entry<String, CmsUUID> entry : m_configurationsToRead.entrySet()) {
@@ -548,6 +560,7 @@ class CmsConfigurationCache {
             }
         }
         m_configurationsToRead.clear();
+        updateIndex();
         // Methods which recursively call this method must be called after this point,
         // because it will lead to an infinite recursion otherwise.
 
@@ -558,6 +571,7 @@ class CmsConfigurationCache {
         } catch (CmsRuntimeException e) {
             LOG.warn(e.getLocalizedMessage(), e);
         }
+        m_updatesPending = false;
     }
 
     /**
@@ -569,6 +583,15 @@ class CmsConfigurationCache {
 
         m_configurationsToRead.remove(rootPath);
         m_siteConfigurations.remove(rootPath);
+        updateIndex();
+    }
+
+    /**
+     * Replaces the path index with a new one for the current site configurations.<p>
+     */
+    private void updateIndex() {
+
+        m_index = new CmsConfigurationPathIndex(m_siteConfigurations);
     }
 
 }
@@ -0,0 +1,168 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.ade.configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable path index of the sitemap configurations, used for finding the configuration which is responsible
+ * for a given root path.<p>
+ * 
+ * The configurations are stored in a tree with one node per path segment, so the longest matching base path
+ * of a root path is found by walking down the tree once, in time proportional to the depth of the path.
+ * Since instances are never modified after construction, they can be read concurrently without locking; 
+ * when the configurations change, a new index is created and replaces the old one.<p>
+ * 
+ * @since 8.5.0
+ */
+final class CmsConfigurationPathIndex {
+
+    /**
+     * A node of the path tree.<p>
+     */
+    private static final class Node {
+
+        /** The child nodes by path segment, or null if this node has no children. */
+        Map<String, Node> m_children;
+
+        /** The configuration with the path of this node as base path, or null. */
+        CmsADEConfigData m_config;
+
+        /**
+         * Returns the child node for the given path segment, creating it if necessary.<p>
+         * 
+         * @param segment the path segment 
+         * 
+         * @return the child node 
+         */
+        Node getOrCreateChild(String segment) {
+
+            if (m_children == null) {
+                m_children = new HashMap<String, Node>();
+            }
+            Node child = m_children.get(segment);
+            if (child == null) {
+                child = new Node();
+                m_children.put(segment, child);
+            }
+            return child;
+        }
+    }
+
+    /** The index without any configurations. */
+    static final CmsConfigurationPathIndex EMPTY = new CmsConfigurationPathIndex(
+        Collections.<String, CmsADEConfigData> emptyMap());
+
+    /** The indexed configurations. */
+    private final List<CmsADEConfigData> m_configurations;
+
+    /** The root node of the path tree. */
+    private final Node m_root;
+
+    /**
+     * Creates a new index for the given configurations.<p>
+     * 
+     * @param configurations the sitemap configurations by base path 
+     */
+    CmsConfigurationPathIndex(Map<String, CmsADEConfigData> configurations) {
+
+        m_root = new Node();
+        for (Map.Entry<String, CmsADEConfigData> entry : configurations.entrySet()) {
+            String path = entry.getKey();
+            Node node = m_root;
+            int start = 0;
+            int length = path.length();
+            while (start < length) {
+                int end = path.indexOf('/', start);
+                if (end == -1) {
+                    end = length;
+                }
+                if (end > start) {
+                    node = node.getOrCreateChild(path.substring(start, end));
+                }
+                start = end + 1;
+            }
+            node.m_config = entry.getValue();
+        }
+        m_configurations = Collections.unmodifiableList(new ArrayList<CmsADEConfigData>(configurations.values()));
+    }
+
+    /**
+     * Returns all indexed configurations.<p>
+     * 
+     * @return the unmodifiable list of all indexed configurations 
+     */
+    List<CmsADEConfigData> getConfigurations() {
+
+        return m_configurations;
+    }
+
+    /**
+     * Returns the configuration with the longest base path which is a prefix of the given root path.<p>
+     * 
+     * Only complete path segments are matched, so a configuration for /a/b applies to /a/b and /a/b/c, 
+     * but not to /a/bc.<p>
+     * 
+     * @param path a root path 
+     * 
+     * @return the best matching configuration, or null if there is none 
+     */
+    CmsADEConfigData getLongestPrefixMatch(String path) {
+
+        Node node = m_root;
+        CmsADEConfigData result = node.m_config;
+        int start = 0;
+        int length = path.length();
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+            if (end > start) {
+                if (node.m_children == null) {
+                    break;
+                }
+                node = node.m_children.get(path.substring(start, end));
+                if (node == null) {
+                    break;
+                }
+                if (node.m_config != null) {
+                    result = node.m_config;
+                }
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+
+}
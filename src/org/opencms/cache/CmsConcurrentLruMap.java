@@ -0,0 +1,539 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A size bounded map with approximate LRU eviction that can be used concurrently
+ * without any global lock.<p>
+ *
+ * The entries are stored in a {@link ConcurrentHashMap}, so reads never block.
+ * Eviction uses the "clock" (second chance) algorithm: every entry is appended to a
+ * lock-free queue when it is added, a read only sets the "referenced" flag of the entry.
+ * If the map grows beyond its maximum size, the writing thread takes entries from the head of the queue,
+ * entries that have been referenced since they were last examined get a second chance and are
+ * appended to the tail again, the first unreferenced entry is evicted.<p>
+ *
+ * This is a drop-in replacement for a synchronized {@link org.apache.commons.collections.map.LRUMap}
+ * in the caches of the {@link org.opencms.monitor.CmsMemoryMonitor}.
+ * Other than the <code>LRUMap</code>, this map does not support <code>null</code> keys,
+ * and the maximum size might be exceeded by a few entries for a short time if many threads
+ * are writing at once.<p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ *
+ * @since 8.5.0
+ */
+public class CmsConcurrentLruMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * A map entry, also used as element of the eviction queue.<p>
+     *
+     * @param <K> the type of the key
+     * @param <V> the type of the value
+     */
+    private static final class Node<K, V> implements Map.Entry<K, V> {
+
+        /** State flag indicating that the node is contained in the eviction queue. */
+        static final int QUEUED = 1;
+
+        /** State flag indicating that the node has already been removed from the map. */
+        static final int REMOVED = 2;
+
+        /** The updater for the state of the nodes. */
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Node> STATE = AtomicIntegerFieldUpdater.newUpdater(
+            Node.class,
+            "m_state");
+
+        /** The key. */
+        final K m_key;
+
+        /** Flag indicating that this node has been read since it was last examined by the eviction. */
+        volatile boolean m_referenced;
+
+        /** The state flags of this node. */
+        volatile int m_state;
+
+        /** The value. */
+        volatile V m_value;
+
+        /**
+         * Creates a new node.<p>
+         *
+         * @param key the key
+         * @param value the value
+         */
+        Node(K key, V value) {
+
+            m_key = key;
+            m_value = value;
+        }
+
+        /**
+         * Clears the {@link #QUEUED} flag after this node has been taken from the eviction queue.<p>
+         *
+         * @return <code>true</code> if this node was a removed node in the eviction queue before
+         */
+        boolean clearQueued() {
+
+            while (true) {
+                int state = m_state;
+                if ((state & QUEUED) == 0) {
+                    return false;
+                }
+                if (STATE.compareAndSet(this, state, state & ~QUEUED)) {
+                    return state == (QUEUED | REMOVED);
+                }
+            }
+        }
+
+        /**
+         * @see java.util.Map.Entry#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object obj) {
+
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>)obj;
+            V value = m_value;
+            return m_key.equals(other.getKey())
+                && ((value == null) ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        /**
+         * @see java.util.Map.Entry#getKey()
+         */
+        public K getKey() {
+
+            return m_key;
+        }
+
+        /**
+         * @see java.util.Map.Entry#getValue()
+         */
+        public V getValue() {
+
+            return m_value;
+        }
+
+        /**
+         * @see java.util.Map.Entry#hashCode()
+         */
+        @Override
+        public int hashCode() {
+
+            V value = m_value;
+            return m_key.hashCode() ^ ((value == null) ? 0 : value.hashCode());
+        }
+
+        /**
+         * Returns if this node has already been removed from the map.<p>
+         *
+         * @return <code>true</code> if this node has already been removed from the map
+         */
+        boolean isRemoved() {
+
+            return (m_state & REMOVED) != 0;
+        }
+
+        /**
+         * Sets the given state flag.<p>
+         *
+         * @param flag the flag to set, either {@link #QUEUED} or {@link #REMOVED}
+         *
+         * @return <code>true</code> if this node has become a removed node in the eviction queue by this call
+         */
+        boolean setState(int flag) {
+
+            while (true) {
+                int state = m_state;
+                if ((state & flag) != 0) {
+                    return false;
+                }
+                if (STATE.compareAndSet(this, state, state | flag)) {
+                    return (state | flag) == (QUEUED | REMOVED);
+                }
+            }
+        }
+
+        /**
+         * @see java.util.Map.Entry#setValue(java.lang.Object)
+         */
+        public V setValue(V value) {
+
+            V old = m_value;
+            m_value = value;
+            return old;
+        }
+
+        /**
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+
+            return m_key + "=" + m_value;
+        }
+    }
+
+    /** The default maximum size, same as for the {@link org.apache.commons.collections.map.LRUMap}. */
+    public static final int DEFAULT_MAX_SIZE = 100;
+
+    /** The entry set view. */
+    private transient Set<Map.Entry<K, V>> m_entrySet;
+
+    /** The eviction queue. */
+    private final ConcurrentLinkedQueue<Node<K, V>> m_evictionQueue;
+
+    /** The map storing the entries. */
+    private final ConcurrentHashMap<K, Node<K, V>> m_map;
+
+    /** The maximum size of this map. */
+    private final int m_maxSize;
+
+    /** The current number of entries. */
+    private final AtomicInteger m_size;
+
+    /** The number of nodes in the eviction queue which have already been removed from the map. */
+    private final AtomicInteger m_staleNodes;
+
+    /**
+     * Creates a new map with the default maximum size of 100 entries.<p>
+     */
+    public CmsConcurrentLruMap() {
+
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a new map with the given maximum size.<p>
+     *
+     * @param maxSize the maximum number of entries in this map
+     */
+    public CmsConcurrentLruMap(int maxSize) {
+
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize: " + maxSize);
+        }
+        m_maxSize = maxSize;
+        m_map = new ConcurrentHashMap<K, Node<K, V>>(
+            Math.min(maxSize, 1 << 16) + 1,
+            0.75f,
+            Math.max(16, Runtime.getRuntime().availableProcessors() * 4));
+        m_evictionQueue = new ConcurrentLinkedQueue<Node<K, V>>();
+        m_size = new AtomicInteger();
+        m_staleNodes = new AtomicInteger();
+    }
+
+    /**
+     * @see java.util.AbstractMap#clear()
+     */
+    @Override
+    public void clear() {
+
+        // remove the entries one by one to keep the size counter exact in case of concurrent writes
+        Iterator<K> it = m_map.keySet().iterator();
+        while (it.hasNext()) {
+            remove(it.next());
+        }
+        // only drop the removed nodes, entries put concurrently must stay in the eviction queue
+        purgeStaleNodes();
+    }
+
+    /**
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return m_map.containsKey(key);
+    }
+
+    /**
+     * @see java.util.AbstractMap#entrySet()
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+
+        if (m_entrySet == null) {
+            m_entrySet = new AbstractSet<Map.Entry<K, V>>() {
+
+                @Override
+                public void clear() {
+
+                    CmsConcurrentLruMap.this.clear();
+                }
+
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+
+                    final Iterator<Node<K, V>> nodes = m_map.values().iterator();
+                    return new Iterator<Map.Entry<K, V>>() {
+
+                        private Node<K, V> m_current;
+
+                        public boolean hasNext() {
+
+                            return nodes.hasNext();
+                        }
+
+                        public Map.Entry<K, V> next() {
+
+                            m_current = nodes.next();
+                            return m_current;
+                        }
+
+                        public void remove() {
+
+                            if (m_current == null) {
+                                throw new IllegalStateException();
+                            }
+                            removeNode(m_current);
+                            m_current = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+
+                    return CmsConcurrentLruMap.this.size();
+                }
+            };
+        }
+        return m_entrySet;
+    }
+
+    /**
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @Override
+    public V get(Object key) {
+
+        Node<K, V> node = m_map.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (!node.m_referenced) {
+            // only write if necessary, avoids cache line contention on hot entries
+            node.m_referenced = true;
+        }
+        return node.m_value;
+    }
+
+    /**
+     * Returns the maximum number of entries of this map.<p>
+     *
+     * @return the maximum number of entries of this map
+     */
+    public int maxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V put(K key, V value) {
+
+        Node<K, V> node = new Node<K, V>(key, value);
+        while (true) {
+            Node<K, V> old = m_map.putIfAbsent(key, node);
+            if (old == null) {
+                break;
+            }
+            // just replace the value, the node keeps its position in the eviction queue
+            old.m_referenced = true;
+            V result = old.setValue(value);
+            if (m_map.get(key) == old) {
+                return result;
+            }
+            // the node has been removed concurrently, so the new value would be lost: add a new node
+        }
+        enqueue(node);
+        if (m_size.incrementAndGet() > m_maxSize) {
+            evict();
+        }
+        return null;
+    }
+
+    /**
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    @Override
+    public V remove(Object key) {
+
+        Node<K, V> node = m_map.remove(key);
+        if (node == null) {
+            return null;
+        }
+        nodeRemoved(node);
+        return node.m_value;
+    }
+
+    /**
+     * @see java.util.AbstractMap#size()
+     */
+    @Override
+    public int size() {
+
+        return m_size.get();
+    }
+
+    /**
+     * Called after an entry has been evicted from this map because the maximum size was exceeded.<p>
+     * 
+     * The default implementation does nothing, subclasses may override this to keep statistics.<p>
+     * 
+     * @param key the key of the evicted entry
+     * @param value the value of the evicted entry
+     */
+    protected void onEviction(K key, V value) {
+
+        // noop
+    }
+
+    /**
+     * Evicts entries until the size of this map is not larger than the maximum size.<p>
+     */
+    private void evict() {
+
+        // limit the second chances, so that concurrent readers can not keep us spinning forever
+        int secondChances = m_maxSize;
+        while (m_size.get() > m_maxSize) {
+            Node<K, V> node = m_evictionQueue.poll();
+            if ((node != null) && node.clearQueued()) {
+                m_staleNodes.decrementAndGet();
+            }
+            if (node == null) {
+                // the queue has been cleared concurrently, evict arbitrary entries
+                Iterator<Node<K, V>> it = m_map.values().iterator();
+                if (!it.hasNext()) {
+                    return;
+                }
+                Node<K, V> victim = it.next();
+                if (m_map.remove(victim.m_key, victim)) {
+                    // the victim is not counted as stale node unless it is still queued by a concurrent put
+                    nodeRemoved(victim);
+                    onEviction(victim.m_key, victim.m_value);
+                }
+                continue;
+            }
+            if (node.isRemoved()) {
+                continue;
+            }
+            if (node.m_referenced && (secondChances > 0)) {
+                secondChances--;
+                node.m_referenced = false;
+                enqueue(node);
+                continue;
+            }
+            if (m_map.remove(node.m_key, node)) {
+                node.setState(Node.REMOVED);
+                m_size.decrementAndGet();
+                onEviction(node.m_key, node.m_value);
+            }
+        }
+    }
+
+    /**
+     * Appends the given node to the eviction queue.<p>
+     *
+     * @param node the node to append
+     */
+    private void enqueue(Node<K, V> node) {
+
+        // set the flag first, so that the node is always flagged when it is taken from the queue
+        if (node.setState(Node.QUEUED)) {
+            // the node has been removed concurrently
+            m_staleNodes.incrementAndGet();
+        }
+        m_evictionQueue.offer(node);
+    }
+
+    /**
+     * Updates the counters after a node has been removed from the map by other means than eviction.<p>
+     *
+     * @param node the removed node
+     */
+    private void nodeRemoved(Node<K, V> node) {
+
+        m_size.decrementAndGet();
+        // only nodes which are still in the eviction queue are stale
+        if (node.setState(Node.REMOVED) && (m_staleNodes.incrementAndGet() > m_maxSize)) {
+            // purge removed nodes from the eviction queue, otherwise it could grow without bounds
+            purgeStaleNodes();
+        }
+    }
+
+    /**
+     * Removes all nodes from the eviction queue which have already been removed from the map.<p>
+     */
+    private void purgeStaleNodes() {
+
+        Iterator<Node<K, V>> it = m_evictionQueue.iterator();
+        while (it.hasNext()) {
+            Node<K, V> node = it.next();
+            if (node.isRemoved()) {
+                it.remove();
+                if (node.clearQueued()) {
+                    m_staleNodes.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the given node from the map, if it is still mapped.<p>
+     *
+     * @param node the node to remove
+     */
+    private void removeNode(Node<K, V> node) {
+
+        if (m_map.remove(node.m_key, node)) {
+            nodeRemoved(node);
+        }
+    }
+}
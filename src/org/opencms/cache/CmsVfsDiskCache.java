@@ -62,6 +62,9 @@ public class CmsVfsDiskCache {
      * 
      * If the required parent folders do not exists, they are also created.<p>
      * 
+     * The content is written to a temporary file first, which is then renamed, so that 
+     * concurrent readers of the file (e.g. streaming it to a client) never see a partially written file.<p>
+     * 
      * @param rfsName the RFS name of the file to save the content in
      * @param content the content of the file to save
      * 
@@ -78,9 +81,24 @@ public class CmsVfsDiskCache {
             p.mkdirs();
         }
         // write file contents
-        FileOutputStream fs = new FileOutputStream(f);
-        fs.write(content);
-        fs.close();
+        File tmp = File.createTempFile("~" + f.getName() + ".", ".tmp", p);
+        FileOutputStream fs = new FileOutputStream(tmp);
+        try {
+            fs.write(content);
+        } finally {
+            fs.close();
+        }
+        if (!tmp.renameTo(f)) {
+            // on some platforms an existing file can not be replaced by renaming
+            f.delete();
+            if (!tmp.renameTo(f)) {
+                tmp.delete();
+                throw new IOException(Messages.get().getBundle().key(
+                    Messages.ERR_RENAME_CACHE_FILE_2,
+                    tmp.getAbsolutePath(),
+                    f.getAbsolutePath()));
+            }
+        }
         return f;
     }
 
@@ -95,16 +113,10 @@ public class CmsVfsDiskCache {
      */
     public byte[] getCacheContent(String rfsName, long dateLastModified) {
 
-        dateLastModified = simplifyDateLastModified(dateLastModified);
         try {
-            File f = new File(rfsName);
-            if (f.exists()) {
-                if (f.lastModified() != dateLastModified) {
-                    // last modification time different, remove cached file in RFS
-                    f.delete();
-                } else {
-                    return CmsFileUtil.readFile(f);
-                }
+            File f = getCacheFile(rfsName, dateLastModified);
+            if (f != null) {
+                return CmsFileUtil.readFile(f);
             }
         } catch (IOException e) {
             // unable to read content
@@ -112,6 +124,33 @@ public class CmsVfsDiskCache {
         return null;
     }
 
+    /**
+     * Returns the requested file in the disk cache, or <code>null</code> if the
+     * file is not found in the cache, or is found but outdated.<p>
+     * 
+     * Use this instead of {@link #getCacheContent(String, long)} to stream the cached file 
+     * without reading it into memory.<p>
+     * 
+     * @param rfsName the file RFS name to look up in the cache 
+     * @param dateLastModified the date of last modification for the cache
+     * 
+     * @return the requested file in the VFS disk cache, or <code>null</code> 
+     */
+    public File getCacheFile(String rfsName, long dateLastModified) {
+
+        dateLastModified = simplifyDateLastModified(dateLastModified);
+        File f = new File(rfsName);
+        if (f.exists()) {
+            if (f.lastModified() != dateLastModified) {
+                // last modification time different, remove cached file in RFS
+                f.delete();
+            } else {
+                return f;
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns the RFS name to use for caching the given VFS resource with parameters in the disk cache.<p>  
      * 
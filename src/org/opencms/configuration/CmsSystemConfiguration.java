@@ -84,6 +84,12 @@ import org.dom4j.Element;
  */
 public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
 
+    /** The attribute name for the cache backend. */
+    public static final String A_BACKEND = "backend";
+
+    /** The attribute name for the compact node. */
+    public static final String A_COMPACT = "compact";
+
     /** The attribute name for the deleted node. */
     public static final String A_DELETED = "deleted";
 
@@ -141,6 +147,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the browser-based node. */
     public static final String N_BROWSER_BASED = "browser-based";
 
+    /** The node name for a cache-backend node. */
+    public static final String N_CACHE_BACKEND = "cache-backend";
+
+    /** The node name for the cache-backends node. */
+    public static final String N_CACHE_BACKENDS = "cache-backends";
+
     /** The node name for the cache-enabled node. */
     public static final String N_CACHE_ENABLED = "cache-enabled";
 
@@ -324,9 +336,15 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the context project name. */
     public static final String N_PROJECT = "project";
 
+    /** The node name for the publish chunk size. */
+    public static final String N_PUBLISHCHUNKSIZE = "publish-chunk-size";
+
     /** The node name for the "publishhistory" section. */
     public static final String N_PUBLISHMANAGER = "publishmanager";
 
+    /** The node name for the number of publish threads. */
+    public static final String N_PUBLISHTHREADS = "publish-threads";
+
     /** The node name for the "publishhistory" section. */
     public static final String N_QUEUEPERSISTANCE = "queue-persistance";
 
@@ -489,6 +507,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the workplace-server node. */
     public static final String N_WORKPLACE_SERVER = "workplace-server";
 
+    /** The node name for the xmlcontents node. */
+    public static final String N_XMLCONTENTS = "xmlcontents";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSystemConfiguration.class);
 
@@ -1048,6 +1069,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_CONTAINERPAGE_ONLINE,
             "setContainerPageOnlineSize",
             0);
+        String cacheBackendsPath = "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_CACHE_BACKENDS;
+        digester.addCallMethod(cacheBackendsPath, "setDefaultCacheBackend", 1);
+        digester.addCallParam(cacheBackendsPath, 0, A_DEFAULT);
+        digester.addCallMethod(cacheBackendsPath + "/" + N_CACHE_BACKEND, "addCacheBackend", 2);
+        digester.addCallParam(cacheBackendsPath + "/" + N_CACHE_BACKEND, 0, A_TYPE);
+        digester.addCallParam(cacheBackendsPath + "/" + N_CACHE_BACKEND, 1, A_BACKEND);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_RESULTCACHE, "setCacheSettings");
 
         // set the notification time
@@ -1082,6 +1109,14 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_QUEUESHUTDOWNTIME,
             "setPublishQueueShutdowntime",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_PUBLISHTHREADS,
+            "setPublishThreads",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_PUBLISHCHUNKSIZE,
+            "setPublishChunkSize",
+            0);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER, "setPublishManager");
 
         // add rule for session storage provider
@@ -1121,6 +1156,11 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_OFFLINE);
         digester.addCallMethod(adeCachePath + "/" + N_GROUPCONTAINERS, "setGroupContainerOnlineSize", 1);
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_ONLINE);
+        // online XML content cache
+        digester.addCallMethod(adeCachePath + "/" + N_XMLCONTENTS, "setXmlContentOnlineSize", 1);
+        digester.addCallParam(adeCachePath + "/" + N_XMLCONTENTS, 0, A_ONLINE);
+        digester.addCallMethod(adeCachePath + "/" + N_XMLCONTENTS, "setXmlContentCompact", 1);
+        digester.addCallParam(adeCachePath + "/" + N_XMLCONTENTS, 0, A_COMPACT);
         // set the settings
         digester.addSetNext(adeCachePath, "setAdeCacheSettings");
 
@@ -1458,6 +1498,16 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         }
         cacheElement.addElement(N_SIZE_ACLS).setText(Integer.toString(m_cacheSettings.getAclCacheSize()));
         cacheElement.addElement(N_SIZE_PERMISSIONS).setText(Integer.toString(m_cacheSettings.getPermissionCacheSize()));
+        if (!CmsCacheSettings.CACHE_BACKEND_LRU.equals(m_cacheSettings.getDefaultCacheBackend())
+            || !m_cacheSettings.getConfiguredCacheBackends().isEmpty()) {
+            Element cacheBackendsElement = cacheElement.addElement(N_CACHE_BACKENDS);
+            cacheBackendsElement.addAttribute(A_DEFAULT, m_cacheSettings.getDefaultCacheBackend());
+            for (Map.Entry<String, String> entry : m_cacheSettings.getConfiguredCacheBackends().entrySet()) {
+                Element cacheBackendElement = cacheBackendsElement.addElement(N_CACHE_BACKEND);
+                cacheBackendElement.addAttribute(A_TYPE, entry.getKey());
+                cacheBackendElement.addAttribute(A_BACKEND, entry.getValue());
+            }
+        }
 
         // content notification settings
         if ((m_notificationTime != null) || (m_notificationProject != null)) {
@@ -1485,6 +1535,11 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 String.valueOf(m_publishManager.isPublishQueuePersistanceEnabled()));
             pubHistElement.addElement(N_QUEUESHUTDOWNTIME).setText(
                 String.valueOf(m_publishManager.getPublishQueueShutdowntime()));
+            // optional nodes for parallel publishing
+            pubHistElement.addElement(N_PUBLISHTHREADS).setText(
+                String.valueOf(m_publishManager.getPublishThreads()));
+            pubHistElement.addElement(N_PUBLISHCHUNKSIZE).setText(
+                String.valueOf(m_publishManager.getPublishChunkSize()));
         }
 
         // session storage provider
@@ -1534,6 +1589,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 groupContainerCacheElem.addAttribute(A_OFFLINE, ""
                     + getAdeCacheSettings().getGroupContainerOfflineSize());
                 groupContainerCacheElem.addAttribute(A_ONLINE, "" + getAdeCacheSettings().getGroupContainerOnlineSize());
+                // online XML content cache
+                Element xmlContentCacheElem = cacheElem.addElement(N_XMLCONTENTS);
+                xmlContentCacheElem.addAttribute(A_ONLINE, "" + getAdeCacheSettings().getXmlContentOnlineSize());
+                xmlContentCacheElem.addAttribute(A_COMPACT, "" + getAdeCacheSettings().isXmlContentCompact());
             }
         }
 
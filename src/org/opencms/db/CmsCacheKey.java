@@ -48,6 +48,12 @@ public class CmsCacheKey implements I_CmsCacheKey {
     /** Cache key for a list of sub-folders of a folder. */
     public static final String CACHE_KEY_SUBFOLDERS = "_folders_";
 
+    /** Cache key for a list of resources read from a folder with a filter. */
+    public static final String CACHE_KEY_SUBFILTERED = "_filtered_";
+
+    /** Cache key for a list of resources with a given property. */
+    public static final String CACHE_KEY_SUBPROPERTY = "_property_";
+
     /**
      * Constructor to create a new instance of CmsCacheKey.<p>
      */
@@ -89,23 +95,20 @@ public class CmsCacheKey implements I_CmsCacheKey {
     /**
      * @see org.opencms.db.I_CmsCacheKey#getCacheKeyForUserPermissions(java.lang.String, org.opencms.db.CmsDbContext, org.opencms.file.CmsResource, org.opencms.security.CmsPermissionSet)
      */
-    public String getCacheKeyForUserPermissions(
+    public CmsCompositeCacheKey getCacheKeyForUserPermissions(
         String prefix,
         CmsDbContext context,
         CmsResource resource,
         CmsPermissionSet requiredPermissions) {
 
         if (!context.getProjectId().isNullUUID()) {
-            return "";
+            return CmsCompositeCacheKey.EMPTY;
         }
-        StringBuffer cacheBuffer = new StringBuffer(64);
-        cacheBuffer.append(prefix);
-        cacheBuffer.append('_');
-        cacheBuffer.append(context.currentUser().getName());
-        cacheBuffer.append(context.currentProject().isOnlineProject() ? "_0_" : "_1_");
-        cacheBuffer.append(requiredPermissions.getPermissionString());
-        cacheBuffer.append('_');
-        cacheBuffer.append(resource.getStructureId().toString());
-        return cacheBuffer.toString();
+        return CmsCompositeCacheKey.forPermissions(
+            prefix,
+            context.currentUser().getId(),
+            context.currentProject().isOnlineProject(),
+            requiredPermissions,
+            resource.getStructureId());
     }
 }
@@ -27,6 +27,11 @@
 
 package org.opencms.db;
 
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
 /**
  * The settings of the OpenCms memory monitor.<p>
  * 
@@ -34,12 +39,24 @@ package org.opencms.db;
  */
 public class CmsCacheSettings {
 
+    /** Name of the cache backend using a concurrent map with approximate LRU eviction, reads are lock free. */
+    public static final String CACHE_BACKEND_CONCURRENT = "concurrent";
+
+    /** Name of the cache backend using a synchronized LRU map. */
+    public static final String CACHE_BACKEND_LRU = "lru";
+
     /** The size of the memory monitor's cache for ACLs. */
     private int m_aclCacheSize;
 
+    /** The configured cache backends, mapped by cache type name. */
+    private Map<String, String> m_cacheBackends = new TreeMap<String, String>();
+
     /** The name of the class to generate cache keys. */
     private String m_cacheKeyGenerator;
 
+    /** The cache backend used for all cache types without explicitly configured backend. */
+    private String m_defaultCacheBackend = CACHE_BACKEND_LRU;
+
     /** The size of the memory monitor's cache for groups. */
     private int m_groupCacheSize;
 
@@ -84,6 +101,22 @@ public class CmsCacheSettings {
         super();
     }
 
+    /**
+     * Sets the backend to use for the given cache type.<p>
+     * 
+     * Unknown backend names are ignored, so the default backend is used in this case.<p>
+     * 
+     * @param cacheType the name of the cache type, see {@link org.opencms.monitor.CmsMemoryMonitor.CacheType}
+     * @param backend the name of the backend, either {@link #CACHE_BACKEND_LRU} or {@link #CACHE_BACKEND_CONCURRENT}
+     */
+    public void addCacheBackend(String cacheType, String backend) {
+
+        String name = getBackendName(backend);
+        if ((cacheType != null) && (name != null)) {
+            m_cacheBackends.put(cacheType.trim().toUpperCase(Locale.ENGLISH), name);
+        }
+    }
+
     /**
      * Returns the size of the memory monitor's cache for ACLs.<p>
      *
@@ -94,6 +127,19 @@ public class CmsCacheSettings {
         return m_aclCacheSize;
     }
 
+    /**
+     * Returns the backend to use for the given cache type.<p>
+     * 
+     * @param cacheType the name of the cache type, see {@link org.opencms.monitor.CmsMemoryMonitor.CacheType}
+     * 
+     * @return the name of the backend, either {@link #CACHE_BACKEND_LRU} or {@link #CACHE_BACKEND_CONCURRENT}
+     */
+    public String getCacheBackend(String cacheType) {
+
+        String backend = m_cacheBackends.get(cacheType);
+        return (backend != null) ? backend : m_defaultCacheBackend;
+    }
+
     /**
      * Returns the name of the class to generate cache keys.<p>
      *
@@ -104,6 +150,16 @@ public class CmsCacheSettings {
         return m_cacheKeyGenerator;
     }
 
+    /**
+     * Returns the explicitly configured cache backends, mapped by cache type name.<p>
+     * 
+     * @return the explicitly configured cache backends
+     */
+    public Map<String, String> getConfiguredCacheBackends() {
+
+        return Collections.unmodifiableMap(m_cacheBackends);
+    }
+
     /**
      * Returns the size of the memory monitor's cache for organizational units.<p>
      *
@@ -152,6 +208,16 @@ public class CmsCacheSettings {
         return m_rolesCacheSize;
     }
 
+    /**
+     * Returns the cache backend used for all cache types without explicitly configured backend.<p>
+     * 
+     * @return the name of the default cache backend
+     */
+    public String getDefaultCacheBackend() {
+
+        return m_defaultCacheBackend;
+    }
+
     /**
      * Returns the size of the memory monitor's cache for groups.<p>
      *
@@ -304,6 +370,19 @@ public class CmsCacheSettings {
         m_cacheKeyGenerator = classname;
     }
 
+    /**
+     * Sets the cache backend used for all cache types without explicitly configured backend.<p>
+     * 
+     * @param backend the name of the backend, either {@link #CACHE_BACKEND_LRU} or {@link #CACHE_BACKEND_CONCURRENT}
+     */
+    public void setDefaultCacheBackend(String backend) {
+
+        String name = getBackendName(backend);
+        if (name != null) {
+            m_defaultCacheBackend = name;
+        }
+    }
+
     /**
      * Sets the size of the memory monitor's cache for groups.<p>
      *
@@ -424,6 +503,25 @@ public class CmsCacheSettings {
         m_userGroupsCacheSize = getIntValue(size, 256);
     }
 
+    /**
+     * Returns the normalized name of the given backend, or <code>null</code> if the backend is unknown.<p>
+     * 
+     * @param backend the backend name to check
+     * 
+     * @return the normalized name of the given backend, or <code>null</code>
+     */
+    private String getBackendName(String backend) {
+
+        if (backend == null) {
+            return null;
+        }
+        String name = backend.trim().toLowerCase(Locale.ENGLISH);
+        if (CACHE_BACKEND_LRU.equals(name) || CACHE_BACKEND_CONCURRENT.equals(name)) {
+            return name;
+        }
+        return null;
+    }
+
     /**
      * Turns a string into an int.<p>
      * 
@@ -0,0 +1,336 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.monitor.I_CmsMemoryMonitorable;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.util.CmsUUID;
+
+/**
+ * Immutable cache key composed of the values that identify an entry of the permission, property or resource caches.<p>
+ * 
+ * Creating a key does not copy or concatenate any of its components, and the hash code is computed only once, 
+ * so looking up a cached value only costs the allocation of this small key object.<p>
+ * 
+ * Keys are created with the static factory methods, two keys are equal if all of their components are equal.<p>
+ * 
+ * @since 8.5.0
+ */
+public final class CmsCompositeCacheKey implements I_CmsMemoryMonitorable {
+
+    /** The key used if the value must not be cached. */
+    public static final CmsCompositeCacheKey EMPTY = new CmsCompositeCacheKey(
+        null,
+        0,
+        0L,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null);
+
+    /** The cache id of the resource filter. */
+    private final String m_filter;
+
+    /** The flags. */
+    private final int m_flags;
+
+    /** The hash code. */
+    private final int m_hashCode;
+
+    /** An additional name, like a property name. */
+    private final String m_name;
+
+    /** An additional number, like a time offset or a permission set. */
+    private final long m_number;
+
+    /** The root path of the resource. */
+    private final String m_path;
+
+    /** The structure id of the resource. */
+    private final CmsUUID m_resourceId;
+
+    /** The type of the key, used to distinguish different kinds of keys in the same cache. */
+    private final String m_type;
+
+    /** The id of the user. */
+    private final CmsUUID m_userId;
+
+    /** An additional value, like a property value. */
+    private final String m_value;
+
+    /**
+     * Creates a new cache key.<p>
+     * 
+     * @param type the type of the key
+     * @param flags the flags
+     * @param number an additional number
+     * @param userId the id of the user
+     * @param resourceId the structure id of the resource
+     * @param path the root path of the resource
+     * @param filter the cache id of the resource filter
+     * @param name an additional name
+     * @param value an additional value
+     */
+    private CmsCompositeCacheKey(
+        String type,
+        int flags,
+        long number,
+        CmsUUID userId,
+        CmsUUID resourceId,
+        String path,
+        String filter,
+        String name,
+        String value) {
+
+        m_type = type;
+        m_flags = flags;
+        m_number = number;
+        m_userId = userId;
+        m_resourceId = resourceId;
+        m_path = path;
+        m_filter = filter;
+        m_name = name;
+        m_value = value;
+        int hash = flags;
+        hash = (31 * hash) + (int)(number ^ (number >>> 32));
+        hash = (31 * hash) + hashCode(type);
+        hash = (31 * hash) + hashCode(userId);
+        hash = (31 * hash) + hashCode(resourceId);
+        hash = (31 * hash) + hashCode(path);
+        hash = (31 * hash) + hashCode(filter);
+        hash = (31 * hash) + hashCode(name);
+        hash = (31 * hash) + hashCode(value);
+        m_hashCode = hash;
+    }
+
+    /**
+     * Returns the key for a list of resources.<p>
+     * 
+     * @param type the type of the list, to distinguish different kinds of lists
+     * @param userId the id of the user the list has been read for
+     * @param online <code>true</code> if the list has been read in the Online project
+     * @param flags additional flags, depending on the type
+     * @param number an additional number, depending on the type
+     * @param filter the cache id of the resource filter, or <code>null</code>
+     * @param rootPath the root path of the parent folder
+     * @param name an additional name, depending on the type, or <code>null</code>
+     * @param value an additional value, depending on the type, or <code>null</code>
+     * 
+     * @return the cache key
+     */
+    public static CmsCompositeCacheKey forList(
+        String type,
+        CmsUUID userId,
+        boolean online,
+        int flags,
+        long number,
+        String filter,
+        String rootPath,
+        String name,
+        String value) {
+
+        return new CmsCompositeCacheKey(
+            type,
+            (flags << 1) | (online ? 1 : 0),
+            number,
+            userId,
+            null,
+            rootPath,
+            filter,
+            name,
+            value);
+    }
+
+    /**
+     * Returns the key for a single value cached for a resource path, like a resource or a list of properties.<p>
+     * 
+     * @param type the type of the key, or <code>null</code>
+     * @param flag an additional flag, depending on the type
+     * @param online <code>true</code> if the value has been read in the Online project
+     * @param rootPath the root path of the resource
+     * 
+     * @return the cache key
+     */
+    public static CmsCompositeCacheKey forPath(String type, boolean flag, boolean online, String rootPath) {
+
+        return new CmsCompositeCacheKey(
+            type,
+            (flag ? 2 : 0) | (online ? 1 : 0),
+            0L,
+            null,
+            null,
+            rootPath,
+            null,
+            null,
+            null);
+    }
+
+    /**
+     * Returns the key for a single property of a resource.<p>
+     * 
+     * @param type the type of the key, or <code>null</code>
+     * @param search <code>true</code> if the property has been searched on the parent folders as well
+     * @param online <code>true</code> if the property has been read in the Online project
+     * @param rootPath the root path of the resource
+     * @param name the name of the property
+     * 
+     * @return the cache key
+     */
+    public static CmsCompositeCacheKey forProperty(
+        String type,
+        boolean search,
+        boolean online,
+        String rootPath,
+        String name) {
+
+        return new CmsCompositeCacheKey(
+            type,
+            (search ? 2 : 0) | (online ? 1 : 0),
+            0L,
+            null,
+            null,
+            rootPath,
+            null,
+            name,
+            null);
+    }
+
+    /**
+     * Returns the key for the result of a permission check.<p>
+     * 
+     * @param type the type of the permission check
+     * @param userId the id of the user
+     * @param online <code>true</code> if the permissions have been checked in the Online project
+     * @param requiredPermissions the required permissions
+     * @param structureId the structure id of the resource
+     * 
+     * @return the cache key
+     */
+    public static CmsCompositeCacheKey forPermissions(
+        String type,
+        CmsUUID userId,
+        boolean online,
+        CmsPermissionSet requiredPermissions,
+        CmsUUID structureId) {
+
+        long permissions = ((long)requiredPermissions.getAllowedPermissions() << 32)
+            | (requiredPermissions.getDeniedPermissions() & 0xFFFFFFFFL);
+        return new CmsCompositeCacheKey(type, online ? 1 : 0, permissions, userId, structureId, null, null, null, null);
+    }
+
+    /**
+     * Null safe equality check.<p>
+     * 
+     * @param a the first object
+     * @param b the second object
+     * 
+     * @return <code>true</code> if both objects are <code>null</code> or equal
+     */
+    private static boolean equals(Object a, Object b) {
+
+        return (a == b) || ((a != null) && a.equals(b));
+    }
+
+    /**
+     * Null safe hash code.<p>
+     * 
+     * @param o the object
+     * 
+     * @return the hash code of the object, or 0 for <code>null</code>
+     */
+    private static int hashCode(Object o) {
+
+        return o == null ? 0 : o.hashCode();
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CmsCompositeCacheKey)) {
+            return false;
+        }
+        CmsCompositeCacheKey other = (CmsCompositeCacheKey)obj;
+        return (m_hashCode == other.m_hashCode)
+            && (m_flags == other.m_flags)
+            && (m_number == other.m_number)
+            && equals(m_path, other.m_path)
+            && equals(m_resourceId, other.m_resourceId)
+            && equals(m_userId, other.m_userId)
+            && equals(m_type, other.m_type)
+            && equals(m_filter, other.m_filter)
+            && equals(m_name, other.m_name)
+            && equals(m_value, other.m_value);
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMemoryMonitorable#getMemorySize()
+     */
+    public int getMemorySize() {
+
+        // the components are shared with the cached objects, only count the key object itself
+        return 64;
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+
+        return m_hashCode;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer result = new StringBuffer(128);
+        result.append(m_type).append('_');
+        result.append(m_flags).append('_');
+        result.append(m_number).append('_');
+        result.append(m_userId).append('_');
+        result.append(m_resourceId).append('_');
+        result.append(m_filter).append('_');
+        result.append(m_name).append('_');
+        result.append(m_value).append('_');
+        result.append(m_path);
+        return result.toString();
+    }
+
+}
@@ -106,10 +106,13 @@ import org.opencms.security.I_CmsPermissionHandler;
 import org.opencms.security.I_CmsPrincipal;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsStripedLock;
 import org.opencms.util.CmsUUID;
 import org.opencms.util.PrintfFormat;
 import org.opencms.workplace.commons.CmsProgressThread;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -124,6 +127,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -300,6 +304,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** Key to indicate update of structure state. */
     public static final int UPDATE_STRUCTURE_STATE = 2;
 
+    /** The number of locks used to serialize the creation of resources. */
+    private static final int CREATE_RESOURCE_LOCK_STRIPES = 64;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsDriverManager.class);
 
@@ -315,6 +322,15 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The list of initialized JDBC pools. */
     private List<PoolingDriver> m_connectionPools;
 
+    /** The locks to serialize the creation of resources in the same folder or with the same resource id. */
+    private CmsStripedLock m_createResourceLocks = new CmsStripedLock(CREATE_RESOURCE_LOCK_STRIPES);
+
+    /** Lock to exclude the creation of resources while a project is published, creation only uses the read lock. */
+    private ReentrantReadWriteLock m_createResourcePublishLock = new ReentrantReadWriteLock();
+
+    /** The db context factory. */
+    private I_CmsDbContextFactory m_dbContextFactory;
+
     /** The history driver. */
     private I_CmsHistoryDriver m_historyDriver;
 
@@ -327,8 +343,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The lock manager. */
     private CmsLockManager m_lockManager;
 
-    /** The log entry cache. */
-    private List<CmsLogEntry> m_log = new ArrayList<CmsLogEntry>();
+    /** The log entry cache, synchronized since entries may be added by several publish threads. */
+    private List<CmsLogEntry> m_log = Collections.synchronizedList(new ArrayList<CmsLogEntry>());
 
     /** Local reference to the memory monitor to avoid multiple lookups through the OpenCms singleton. */
     private CmsMemoryMonitor m_monitor;
@@ -729,42 +745,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             return;
         }
 
-        // duplicate logic from CmsSecurityManager#hasPermissions() because lock state can't be ignored
-        // if another user has locked the file, the current user can never get WRITE permissions with the default check
-        int denied = 0;
-
-        // check if the current user is vfs manager
-        boolean canIgnorePermissions = m_securityManager.hasRoleForResource(
-            dbc,
-            dbc.currentUser(),
-            CmsRole.VFS_MANAGER,
-            resource);
-        // if the resource type is jsp
-        // write is only allowed for developers
-        if (!canIgnorePermissions && (CmsResourceTypeJsp.isJsp(resource))) {
-            if (!m_securityManager.hasRoleForResource(dbc, dbc.currentUser(), CmsRole.DEVELOPER, resource)) {
-                denied |= CmsPermissionSet.PERMISSION_WRITE;
-            }
-        }
-        CmsPermissionSetCustom permissions;
-        if (canIgnorePermissions) {
-            // if the current user is administrator, anything is allowed
-            permissions = new CmsPermissionSetCustom(~0);
-        } else {
-            // otherwise, get the permissions from the access control list
-            permissions = getPermissions(dbc, resource, dbc.currentUser());
-        }
-        // revoke the denied permissions
-        permissions.denyPermissions(denied);
-        // now check if write permission is granted
-        if ((CmsPermissionSet.ACCESS_WRITE.getPermissions() & permissions.getPermissions()) != CmsPermissionSet.ACCESS_WRITE.getPermissions()) {
-            // check failed, throw exception
-            m_securityManager.checkPermissions(
-                dbc.getRequestContext(),
-                resource,
-                CmsPermissionSet.ACCESS_WRITE,
-                I_CmsPermissionHandler.PERM_DENIED);
-        }
+        checkLockChangePermissions(dbc, resource);
         // if we got here write permission is granted on the target
 
         // remove the old lock
@@ -929,6 +910,59 @@ public final class CmsDriverManager implements I_CmsEventListener {
         writeResource(dbc, clone);
     }
 
+    /**
+     * Checks if the current user is allowed to change the lock of a resource,
+     * that is to "steal" the lock from another user.<p>
+     * 
+     * @param dbc the current database context
+     * @param resource the resource to check
+     * 
+     * @throws CmsException if something goes wrong
+     * @throws CmsSecurityException if the current user has no write permissions on the resource
+     * 
+     * @see #changeLock(CmsDbContext, CmsResource, CmsLockType)
+     */
+    public void checkLockChangePermissions(CmsDbContext dbc, CmsResource resource)
+    throws CmsException, CmsSecurityException {
+
+        // duplicate logic from CmsSecurityManager#hasPermissions() because lock state can't be ignored
+        // if another user has locked the file, the current user can never get WRITE permissions with the default check
+        int denied = 0;
+
+        // check if the current user is vfs manager
+        boolean canIgnorePermissions = m_securityManager.hasRoleForResource(
+            dbc,
+            dbc.currentUser(),
+            CmsRole.VFS_MANAGER,
+            resource);
+        // if the resource type is jsp
+        // write is only allowed for developers
+        if (!canIgnorePermissions && (CmsResourceTypeJsp.isJsp(resource))) {
+            if (!m_securityManager.hasRoleForResource(dbc, dbc.currentUser(), CmsRole.DEVELOPER, resource)) {
+                denied |= CmsPermissionSet.PERMISSION_WRITE;
+            }
+        }
+        CmsPermissionSetCustom permissions;
+        if (canIgnorePermissions) {
+            // if the current user is administrator, anything is allowed
+            permissions = new CmsPermissionSetCustom(~0);
+        } else {
+            // otherwise, get the permissions from the access control list
+            permissions = getPermissions(dbc, resource, dbc.currentUser());
+        }
+        // revoke the denied permissions
+        permissions.denyPermissions(denied);
+        // now check if write permission is granted
+        if ((CmsPermissionSet.ACCESS_WRITE.getPermissions() & permissions.getPermissions()) != CmsPermissionSet.ACCESS_WRITE.getPermissions()) {
+            // check failed, throw exception
+            m_securityManager.checkPermissions(
+                dbc.getRequestContext(),
+                resource,
+                CmsPermissionSet.ACCESS_WRITE,
+                I_CmsPermissionHandler.PERM_DENIED);
+        }
+    }
+
     /**
      * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
      */
@@ -1545,6 +1579,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
      * the created resource will be made a sibling of the existing resource,
      * and both will share the new content.<p>
      * 
+     * Resources are created in parallel, unless they are created in the same parent folder
+     * or share the same resource id. No resources are created while a publish job is prepared
+     * by {@link #publishProject(CmsObject, CmsDbContext, CmsPublishList, I_CmsReport)}.<p>
+     * 
      * @param dbc the current database context
      * @param resourcePath the name of the resource to create (full path)
      * @param resource the new resource to create
@@ -1558,7 +1596,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
      * 
      * @throws CmsException if something goes wrong
      */
-    public synchronized CmsResource createResource(
+    public CmsResource createResource(
         CmsDbContext dbc,
         String resourcePath,
         CmsResource resource,
@@ -1571,6 +1609,13 @@ public final class CmsDriverManager implements I_CmsEventListener {
             resourcePath = CmsFileUtil.addTrailingSeparator(resourcePath);
         }
 
+        // resources are not created while a project is published, but creation in different folders runs in parallel
+        m_createResourcePublishLock.readLock().lock();
+        // the name checks below must not interleave with the creation of a resource with the same name or id,
+        // the database has no unique constraint on the resource path, so these locks are the only guard
+        String lockedFolder = CmsResource.getParentFolder(resourcePath);
+        CmsUUID lockedResourceId = resource.getResourceId().isNullUUID() ? null : resource.getResourceId();
+        int[] lockedStripes = m_createResourceLocks.lock(lockedFolder, lockedResourceId);
         try {
             // need to provide the parent folder id for resource creation
             String parentFolderName = CmsResource.getParentFolder(resourcePath);
@@ -1660,7 +1705,27 @@ public final class CmsDriverManager implements I_CmsEventListener {
                         // semantic change: the current resource is moved to L&F and the imported resource will overwrite the old one                
                         // will leave the resource with state deleted, 
                         // but it does not matter, since the state will be set later again
-                        moveToLostAndFound(dbc, currentResourceByName, false);
+                        // "lost and found" creates resources in other folders, a nested call could not wait for
+                        // their locks without risking a deadlock, so the locks are released and acquired again
+                        m_createResourceLocks.unlock(lockedStripes);
+                        lockedStripes = null;
+                        try {
+                            moveToLostAndFound(dbc, currentResourceByName, false);
+                        } finally {
+                            lockedStripes = m_createResourceLocks.lock(lockedFolder, lockedResourceId);
+                        }
+                        // another resource with the same name may have been created in the meantime
+                        try {
+                            CmsResource movedResourceByName = readResource(dbc, resourcePath, CmsResourceFilter.ALL);
+                            if (!movedResourceByName.getStructureId().equals(currentResourceByName.getStructureId())) {
+                                throw new CmsVfsResourceAlreadyExistsException(
+                                    org.opencms.db.generic.Messages.get().container(
+                                        org.opencms.db.generic.Messages.ERR_RESOURCE_WITH_NAME_ALREADY_EXISTS_1,
+                                        dbc.removeSiteRoot(resource.getRootPath())));
+                            }
+                        } catch (CmsVfsResourceNotFoundException e) {
+                            // the moved resource was new and has been removed completely
+                        }
                     }
                 }
                 if (!overwrite) {
@@ -1863,9 +1928,35 @@ public final class CmsDriverManager implements I_CmsEventListener {
                     new String[] {resource.getRootPath()}), false);
             }
         } finally {
-            // clear the internal caches
-            m_monitor.clearAccessControlListCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            try {
+                // clear the internal caches
+                m_monitor.flushCache(
+                    CmsMemoryMonitor.CacheType.ACL,
+                    CmsMemoryMonitor.CacheType.HAS_ROLE,
+                    CmsMemoryMonitor.CacheType.ROLE_LIST);
+                if (importCase) {
+                    // an imported resource may reuse the id of an existing resource
+                    m_monitor.flushCache(
+                        CmsMemoryMonitor.CacheType.PERMISSION,
+                        CmsMemoryMonitor.CacheType.RESOURCE,
+                        CmsMemoryMonitor.CacheType.RESOURCE_LIST,
+                        CmsMemoryMonitor.CacheType.PROPERTY,
+                        CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+                } else {
+                    flushCache(
+                        dbc,
+                        (newResource != null) ? newResource : resource,
+                        CmsMemoryMonitor.CacheType.PERMISSION,
+                        CmsMemoryMonitor.CacheType.RESOURCE,
+                        CmsMemoryMonitor.CacheType.RESOURCE_LIST,
+                        CmsMemoryMonitor.CacheType.PROPERTY,
+                        CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+                }
+            } finally {
+                // release the locks before the event is fired, the listeners may take some time
+                m_createResourceLocks.unlock(lockedStripes);
+                m_createResourcePublishLock.readLock().unlock();
+            }
 
             if (newResource != null) {
                 // fire an event that a new resource has been created
@@ -2194,7 +2285,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         } finally {
             // clear the driver manager cache
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            flushCache(dbc, resource, CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
 
             // fire an event that all properties of a resource have been deleted
             OpenCms.fireCmsEvent(new CmsEvent(
@@ -3022,11 +3113,19 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         // flush all caches
-        m_monitor.clearAccessControlListCache();
         m_monitor.flushCache(
-            CmsMemoryMonitor.CacheType.PROPERTY,
-            CmsMemoryMonitor.CacheType.PROPERTY_LIST,
+            CmsMemoryMonitor.CacheType.ACL,
+            CmsMemoryMonitor.CacheType.HAS_ROLE,
+            CmsMemoryMonitor.CacheType.ROLE_LIST,
             CmsMemoryMonitor.CacheType.PROJECT_RESOURCES);
+        flushCache(
+            dbc,
+            resource,
+            CmsMemoryMonitor.CacheType.PERMISSION,
+            CmsMemoryMonitor.CacheType.RESOURCE,
+            CmsMemoryMonitor.CacheType.RESOURCE_LIST,
+            CmsMemoryMonitor.CacheType.PROPERTY,
+            CmsMemoryMonitor.CacheType.PROPERTY_LIST);
 
         OpenCms.fireCmsEvent(new CmsEvent(
             I_CmsEventListener.EVENT_RESOURCE_DELETED,
@@ -3781,6 +3880,16 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return m_subscriptionDriver.getDateLastVisitedBy(dbc, poolName, user, resource);
     }
 
+    /**
+     * Returns the db context factory.<p>
+     * 
+     * @return the db context factory
+     */
+    public I_CmsDbContextFactory getDbContextFactory() {
+
+        return m_dbContextFactory;
+    }
+
     /**
      * Returns all groups of the given organizational unit.<p>
      *
@@ -4990,6 +5099,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
         // store local reference to the memory monitor to avoid multiple lookups through the OpenCms singelton
         m_monitor = OpenCms.getMemoryMonitor();
+        m_dbContextFactory = dbContextFactory;
 
         CmsSystemConfiguration systemConfiguation = (CmsSystemConfiguration)configurationManager.getConfiguration(CmsSystemConfiguration.class);
         CmsCacheSettings settings = systemConfiguation.getCacheSettings();
@@ -5227,7 +5337,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public void lockResource(CmsDbContext dbc, CmsResource resource, CmsLockType type) throws CmsException {
 
         // update the resource cache
-        m_monitor.clearResourceCache();
+        m_monitor.flushCache(CmsMemoryMonitor.CacheType.HAS_ROLE, CmsMemoryMonitor.CacheType.ROLE_LIST);
+        flushCache(dbc, resource, CmsMemoryMonitor.CacheType.RESOURCE, CmsMemoryMonitor.CacheType.RESOURCE_LIST);
 
         CmsProject project = dbc.currentProject();
 
@@ -5240,7 +5351,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         // we must also clear the permission cache
-        m_monitor.flushCache(CmsMemoryMonitor.CacheType.PERMISSION);
+        flushCache(dbc, resource, CmsMemoryMonitor.CacheType.PERMISSION);
 
         // fire resource modification event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -5546,12 +5657,20 @@ public final class CmsDriverManager implements I_CmsEventListener {
         // move lock 
         m_lockManager.moveResource(source.getRootPath(), destRes.getRootPath());
 
-        // flush all relevant caches
-        m_monitor.clearAccessControlListCache();
+        // flush all relevant caches, for the old and the new path
         m_monitor.flushCache(
-            CmsMemoryMonitor.CacheType.PROPERTY,
-            CmsMemoryMonitor.CacheType.PROPERTY_LIST,
+            CmsMemoryMonitor.CacheType.ACL,
+            CmsMemoryMonitor.CacheType.HAS_ROLE,
+            CmsMemoryMonitor.CacheType.ROLE_LIST,
             CmsMemoryMonitor.CacheType.PROJECT_RESOURCES);
+        CmsMemoryMonitor.CacheType[] pathCaches = new CmsMemoryMonitor.CacheType[] {
+            CmsMemoryMonitor.CacheType.PERMISSION,
+            CmsMemoryMonitor.CacheType.RESOURCE,
+            CmsMemoryMonitor.CacheType.RESOURCE_LIST,
+            CmsMemoryMonitor.CacheType.PROPERTY,
+            CmsMemoryMonitor.CacheType.PROPERTY_LIST};
+        flushCache(dbc, source, pathCaches);
+        flushCache(dbc, destRes, pathCaches);
 
         List<CmsResource> resources = new ArrayList<CmsResource>(4);
         // source
@@ -5906,57 +6025,40 @@ public final class CmsDriverManager implements I_CmsEventListener {
         CmsPublishList publishList,
         I_CmsReport report) throws CmsException {
 
-        // check the parent folders
-        checkParentFolders(dbc, publishList);
-        ensureSubResourcesOfMovedFoldersPublished(cms, dbc, publishList);
-
+        // resources must not be created while the publish list is locked and enqueued
+        m_createResourcePublishLock.writeLock().lock();
         try {
-            // fire an event that a project is to be published
-            Map<String, Object> eventData = new HashMap<String, Object>();
-            eventData.put(I_CmsEventListener.KEY_REPORT, report);
-            eventData.put(I_CmsEventListener.KEY_PUBLISHLIST, publishList);
-            eventData.put(I_CmsEventListener.KEY_PROJECTID, dbc.currentProject().getUuid());
-            eventData.put(I_CmsEventListener.KEY_DBCONTEXT, dbc);
-            CmsEvent beforePublishEvent = new CmsEvent(I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT, eventData);
-            OpenCms.fireCmsEvent(beforePublishEvent);
-        } catch (Throwable t) {
-            if (report != null) {
-                report.addError(t);
-                report.println(t);
-            }
-            if (LOG.isErrorEnabled()) {
-                LOG.error(t.getLocalizedMessage(), t);
-            }
-        }
+            // check the parent folders
+            checkParentFolders(dbc, publishList);
+            ensureSubResourcesOfMovedFoldersPublished(cms, dbc, publishList);
 
-        // lock all resources with the special publish lock
-        Iterator<CmsResource> itResources = new ArrayList<CmsResource>(publishList.getAllResources()).iterator();
-        while (itResources.hasNext()) {
-            CmsResource resource = itResources.next();
-            CmsLock lock = m_lockManager.getLock(dbc, resource, false);
-            if (lock.getSystemLock().isUnlocked() && lock.isLockableBy(dbc.currentUser())) {
-                if (getLock(dbc, resource).getEditionLock().isNullLock()) {
-                    lockResource(dbc, resource, CmsLockType.PUBLISH);
-                } else {
-                    changeLock(dbc, resource, CmsLockType.PUBLISH);
+            try {
+                // fire an event that a project is to be published
+                Map<String, Object> eventData = new HashMap<String, Object>();
+                eventData.put(I_CmsEventListener.KEY_REPORT, report);
+                eventData.put(I_CmsEventListener.KEY_PUBLISHLIST, publishList);
+                eventData.put(I_CmsEventListener.KEY_PROJECTID, dbc.currentProject().getUuid());
+                eventData.put(I_CmsEventListener.KEY_DBCONTEXT, dbc);
+                CmsEvent beforePublishEvent = new CmsEvent(I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT, eventData);
+                OpenCms.fireCmsEvent(beforePublishEvent);
+            } catch (Throwable t) {
+                if (report != null) {
+                    report.addError(t);
+                    report.println(t);
                 }
-            } else if (lock.getSystemLock().isPublish()) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(Messages.get().getBundle().key(
-                        Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
-                        dbc.removeSiteRoot(resource.getRootPath())));
+                if (LOG.isErrorEnabled()) {
+                    LOG.error(t.getLocalizedMessage(), t);
                 }
-                // remove files that are already waiting to be published
-                publishList.remove(resource);
-                continue;
-            } else {
-                // this is needed to fix TestPublishIsssues#testPublishScenarioE
-                changeLock(dbc, resource, CmsLockType.PUBLISH);
             }
-            // now re-check the lock state
-            lock = m_lockManager.getLock(dbc, resource, false);
-            if (!lock.getSystemLock().isPublish()) {
-                if (report != null) {
+
+            // lock all resources with the special publish lock
+            List<CmsResource> resources = new ArrayList<CmsResource>(publishList.getAllResources());
+            List<CmsResource> rejectedResources = m_lockManager.addPublishLocks(dbc, resources);
+            Iterator<CmsResource> itResources = rejectedResources.iterator();
+            while (itResources.hasNext()) {
+                CmsResource resource = itResources.next();
+                // no publish lock has been set on rejected resources, so a publish lock belongs to another publish job
+                if (!m_lockManager.getLock(dbc, resource, false).getSystemLock().isPublish() && (report != null)) {
                     report.println(
                         Messages.get().container(
                             Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
@@ -5968,35 +6070,62 @@ public final class CmsDriverManager implements I_CmsEventListener {
                         Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
                         dbc.removeSiteRoot(resource.getRootPath())));
                 }
-                // remove files that could not be locked
+                // remove files that are already waiting to be published or could not be locked
                 publishList.remove(resource);
             }
-        }
+            resources.removeAll(new HashSet<CmsResource>(rejectedResources));
+            if (!resources.isEmpty()) {
+                // do the work that is done by lockResource(CmsDbContext, CmsResource, CmsLockType) for every resource
+                m_monitor.flushCache(CmsMemoryMonitor.CacheType.HAS_ROLE, CmsMemoryMonitor.CacheType.ROLE_LIST);
+                CmsProject project = dbc.currentProject();
+                itResources = resources.iterator();
+                while (itResources.hasNext()) {
+                    CmsResource resource = itResources.next();
+                    flushCache(
+                        dbc,
+                        resource,
+                        CmsMemoryMonitor.CacheType.RESOURCE,
+                        CmsMemoryMonitor.CacheType.RESOURCE_LIST,
+                        CmsMemoryMonitor.CacheType.PERMISSION);
+                    if (!resource.getState().isUnchanged() && !resource.getState().isKeep()) {
+                        // update the project flag of a modified resource as "last modified inside the current project"
+                        getVfsDriver(dbc).writeLastModifiedProjectId(dbc, project, project.getUuid(), resource);
+                    }
+                    // fire resource modification event
+                    Map<String, Object> data = new HashMap<String, Object>(2);
+                    data.put(I_CmsEventListener.KEY_RESOURCE, resource);
+                    data.put(I_CmsEventListener.KEY_CHANGE, new Integer(NOTHING_CHANGED));
+                    OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, data));
+                }
+            }
 
-        // enqueue the publish job
-        CmsException enqueueException = null;
-        try {
-            m_publishEngine.enqueuePublishJob(cms, publishList, report);
-        } catch (CmsException exc) {
-            enqueueException = exc;
-        }
+            // enqueue the publish job
+            CmsException enqueueException = null;
+            try {
+                m_publishEngine.enqueuePublishJob(cms, publishList, report);
+            } catch (CmsException exc) {
+                enqueueException = exc;
+            }
 
-        // if an exception was raised, remove the publish locks
-        // and throw the exception again
-        if (enqueueException != null) {
-            itResources = publishList.getAllResources().iterator();
-            while (itResources.hasNext()) {
-                CmsResource resource = itResources.next();
-                CmsLock lock = m_lockManager.getLock(dbc, resource, false);
-                if (lock.getSystemLock().isPublish()
-                    && lock.getSystemLock().isOwnedInProjectBy(
-                        cms.getRequestContext().getCurrentUser(),
-                        cms.getRequestContext().getCurrentProject())) {
-                    unlockResource(dbc, resource, true, true);
+            // if an exception was raised, remove the publish locks
+            // and throw the exception again
+            if (enqueueException != null) {
+                itResources = publishList.getAllResources().iterator();
+                while (itResources.hasNext()) {
+                    CmsResource resource = itResources.next();
+                    CmsLock lock = m_lockManager.getLock(dbc, resource, false);
+                    if (lock.getSystemLock().isPublish()
+                        && lock.getSystemLock().isOwnedInProjectBy(
+                            cms.getRequestContext().getCurrentUser(),
+                            cms.getRequestContext().getCurrentProject())) {
+                        unlockResource(dbc, resource, true, true);
+                    }
                 }
-            }
 
-            throw enqueueException;
+                throw enqueueException;
+            }
+        } finally {
+            m_createResourcePublishLock.writeLock().unlock();
         }
     }
 
@@ -6206,32 +6335,34 @@ public final class CmsDriverManager implements I_CmsEventListener {
         boolean getFiles,
         boolean checkPermissions) throws CmsException {
 
-        String cacheKey = null;
+        CmsCompositeCacheKey cacheKey = null;
         List<CmsResource> resourceList = null;
         if (m_monitor.isEnabled(CmsMemoryMonitor.CacheType.RESOURCE_LIST)) { // check this here to skip the complex cache key generation
-            String time = "";
+            long time = 0;
             if (checkPermissions) {
                 // ensure correct caching if site time offset is set
                 if ((dbc.getRequestContext() != null)
                     && (OpenCms.getSiteManager().getSiteForSiteRoot(dbc.getRequestContext().getSiteRoot()) != null)) {
-                    time += OpenCms.getSiteManager().getSiteForSiteRoot(dbc.getRequestContext().getSiteRoot()).getSiteMatcher().getTimeOffset();
+                    time = OpenCms.getSiteManager().getSiteForSiteRoot(dbc.getRequestContext().getSiteRoot()).getSiteMatcher().getTimeOffset();
                 }
             }
             // try to get the sub resources from the cache
-            cacheKey = getCacheKey(
-                new String[] {
-                    dbc.currentUser().getName(),
-                    getFolders
-                    ? (getFiles ? CmsCacheKey.CACHE_KEY_SUBALL : CmsCacheKey.CACHE_KEY_SUBFOLDERS)
-                    : CmsCacheKey.CACHE_KEY_SUBFILES,
-                    checkPermissions ? "+" + time : "-",
-                    filter.getCacheId(),
-                    resource.getRootPath()},
-                dbc);
+            cacheKey = getResourceListCacheKey(
+                dbc,
+                getFolders
+                ? (getFiles ? CmsCacheKey.CACHE_KEY_SUBALL : CmsCacheKey.CACHE_KEY_SUBFOLDERS)
+                : CmsCacheKey.CACHE_KEY_SUBFILES,
+                checkPermissions,
+                time,
+                filter.getCacheId(),
+                resource.getRootPath(),
+                null,
+                null);
 
             resourceList = m_monitor.getCachedResourceList(cacheKey);
         }
         if ((resourceList == null) || !dbc.getProjectId().isNullUUID()) {
+            long start = System.nanoTime();
             // read the result form the database
             resourceList = getVfsDriver(dbc).readChildResources(
                 dbc,
@@ -6246,14 +6377,50 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
             // cache the sub resources
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.recordLoadTime(CmsMemoryMonitor.CacheType.RESOURCE_LIST, System.nanoTime() - start);
+                m_monitor.cacheResourceList(
+                    cacheKey,
+                    resourceList,
+                    resource.getRootPath(),
+                    dbc.currentProject().isOnlineProject());
             }
         }
 
+        updateContextListingDependency(dbc, resource, false);
         // we must always apply the result filter and update the context dates
         return updateContextDates(dbc, resourceList, filter);
     }
 
+    /**
+     * Reads the binary content of a file resource as a stream.<p>
+     * 
+     * In contrast to {@link #readFile(CmsDbContext, CmsResource)}, the content is not read into memory
+     * by the VFS driver. The returned stream may hold resources like a temporary file, so it must always be closed.<p>
+     * 
+     * @param dbc the current database context
+     * @param resource the file resource (this may also be an historical version of the resource)
+     * 
+     * @return the content of the file as a stream
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsResource resource) throws CmsException {
+
+        if (resource.isFolder()) {
+            throw new CmsVfsResourceNotFoundException(Messages.get().container(
+                Messages.ERR_ACCESS_FOLDER_AS_FILE_1,
+                dbc.removeSiteRoot(resource.getRootPath())));
+        }
+        if (resource instanceof I_CmsHistoryResource) {
+            // the history driver has no streaming access
+            return new ByteArrayInputStream(getHistoryDriver(dbc).readContent(
+                dbc,
+                resource.getResourceId(),
+                ((I_CmsHistoryResource)resource).getPublishTag()));
+        }
+        return getVfsDriver(dbc).readContentStream(dbc, dbc.currentProject().getUuid(), resource.getResourceId());
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      * 
@@ -6843,13 +7010,15 @@ public final class CmsDriverManager implements I_CmsEventListener {
         CmsUUID projectId = getProjectIdForContext(dbc);
 
         // key to cache the resources
-        String cacheKey = getCacheKey(null, false, projectId, cp);
+        CmsCompositeCacheKey cacheKey = getCacheKey(null, false, projectId, cp);
         // the current resource
         CmsResource currentResource = m_monitor.getCachedResource(cacheKey);
         if ((currentResource == null) || !dbc.getProjectId().isNullUUID()) {
+            long start = System.nanoTime();
             currentResource = getVfsDriver(dbc).readFolder(dbc, projectId, cp);
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResource(cacheKey, currentResource);
+                m_monitor.recordLoadTime(CmsMemoryMonitor.CacheType.RESOURCE, System.nanoTime() - start);
+                m_monitor.cacheResource(cacheKey, currentResource, cp, CmsProject.isOnlineProject(projectId));
             }
         }
 
@@ -6873,9 +7042,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
             cacheKey = getCacheKey(null, false, projectId, cp);
             currentResource = m_monitor.getCachedResource(cacheKey);
             if ((currentResource == null) || !dbc.getProjectId().isNullUUID()) {
+                long start = System.nanoTime();
                 currentResource = getVfsDriver(dbc).readFolder(dbc, projectId, cp);
                 if (dbc.getProjectId().isNullUUID()) {
-                    m_monitor.cacheResource(cacheKey, currentResource);
+                    m_monitor.recordLoadTime(CmsMemoryMonitor.CacheType.RESOURCE, System.nanoTime() - start);
+                    m_monitor.cacheResource(cacheKey, currentResource, cp, CmsProject.isOnlineProject(projectId));
                 }
             }
 
@@ -6900,9 +7071,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
             cacheKey = getCacheKey(null, false, projectId, cp);
             currentResource = m_monitor.getCachedResource(cacheKey);
             if ((currentResource == null) || !dbc.getProjectId().isNullUUID()) {
+                long start = System.nanoTime();
                 currentResource = getVfsDriver(dbc).readResource(dbc, projectId, cp, filter.includeDeleted());
                 if (dbc.getProjectId().isNullUUID()) {
-                    m_monitor.cacheResource(cacheKey, currentResource);
+                    m_monitor.recordLoadTime(CmsMemoryMonitor.CacheType.RESOURCE, System.nanoTime() - start);
+                    m_monitor.cacheResource(cacheKey, currentResource, cp, CmsProject.isOnlineProject(projectId));
                 }
             }
 
@@ -7056,17 +7229,38 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public CmsProperty readPropertyObject(CmsDbContext dbc, CmsResource resource, String key, boolean search)
     throws CmsException {
 
-        // use the list reading method to obtain all properties for the resource
-        List<CmsProperty> properties = readPropertyObjects(dbc, resource, search);
-        // create a lookup propertry object and look this up in the result map
-        int i = properties.indexOf(new CmsProperty(key, null, null));
-        CmsProperty result;
-        if (i >= 0) {
-            // property has been found in the map
-            result = properties.get(i);
+        // check if we have the result already cached
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        String rootPath = resource.getRootPath();
+        boolean online = CmsProject.isOnlineProject(projectId);
+        CmsCompositeCacheKey cacheKey = CmsCompositeCacheKey.forProperty(
+            CACHE_ALL_PROPERTIES,
+            search,
+            online,
+            rootPath,
+            key);
+        CmsProperty result = null;
+        if (dbc.getProjectId().isNullUUID()) {
+            result = m_monitor.getCachedProperty(cacheKey);
+        }
+        if (result != null) {
+            updateContextDependencies(dbc, rootPath, search);
         } else {
-            // property is not defined, return NULL property
-            result = CmsProperty.getNullProperty();
+            // use the list reading method to obtain all properties for the resource
+            List<CmsProperty> properties = readPropertyObjects(dbc, resource, search);
+            // create a lookup propertry object and look this up in the result map
+            int i = properties.indexOf(new CmsProperty(key, null, null));
+            if (i >= 0) {
+                // property has been found in the map
+                result = properties.get(i);
+            } else {
+                // property is not defined, return NULL property
+                result = CmsProperty.getNullProperty();
+            }
+            if (dbc.getProjectId().isNullUUID()) {
+                // the entry is indexed by the path of the resource, so it is also removed if a parent folder changes
+                m_monitor.cacheProperty(cacheKey, result, rootPath, online);
+            }
         }
         // ensure the result value is not frozen
         return result.cloneAsProperty();
@@ -7094,11 +7288,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // check if we have the result already cached
         CmsUUID projectId = getProjectIdForContext(dbc);
-        String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, search, projectId, resource.getRootPath());
+        String rootPath = resource.getRootPath();
+        updateContextDependencies(dbc, rootPath, search);
+        CmsCompositeCacheKey cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, search, projectId, rootPath);
 
         List<CmsProperty> properties = m_monitor.getCachedPropertyList(cacheKey);
 
         if ((properties == null) || !dbc.getProjectId().isNullUUID()) {
+            long start = System.nanoTime();
             // result not cached, let's look it up in the DB
             if (search) {
                 boolean cont;
@@ -7141,7 +7338,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
             CmsProperty.setFrozen(properties);
             if (dbc.getProjectId().isNullUUID()) {
                 // store the result in the cache if needed
-                m_monitor.cachePropertyList(cacheKey, properties);
+                m_monitor.recordLoadTime(CmsMemoryMonitor.CacheType.PROPERTY_LIST, System.nanoTime() - start);
+                m_monitor.cachePropertyList(cacheKey, properties, rootPath, CmsProject.isOnlineProject(projectId));
             }
         }
 
@@ -7338,14 +7536,19 @@ public final class CmsDriverManager implements I_CmsEventListener {
         boolean readTree) throws CmsException, CmsDataAccessException {
 
         // try to get the sub resources from the cache
-        String cacheKey = getCacheKey(new String[] {
-            dbc.currentUser().getName(),
+        CmsCompositeCacheKey cacheKey = getResourceListCacheKey(
+            dbc,
+            CmsCacheKey.CACHE_KEY_SUBFILTERED,
+            readTree,
+            0,
             filter.getCacheId(),
-            readTree ? "+" : "-",
-            parent.getRootPath()}, dbc);
+            parent.getRootPath(),
+            null,
+            null);
 
         List<CmsResource> resourceList = m_monitor.getCachedResourceList(cacheKey);
         if ((resourceList == null) || !dbc.getProjectId().isNullUUID()) {
+            long start = System.nanoTime();
             // read the result from the database
             resourceList = getVfsDriver(dbc).readResourceTree(
                 dbc,
@@ -7373,9 +7576,15 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
             // store the result in the resourceList cache
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.recordLoadTime(CmsMemoryMonitor.CacheType.RESOURCE_LIST, System.nanoTime() - start);
+                m_monitor.cacheResourceList(
+                    cacheKey,
+                    resourceList,
+                    parent.getRootPath(),
+                    dbc.currentProject().isOnlineProject());
             }
         }
+        updateContextListingDependency(dbc, parent, readTree);
         // we must always apply the result filter and update the context dates
         return updateContextDates(dbc, resourceList, filter);
     }
@@ -7426,23 +7635,18 @@ public final class CmsDriverManager implements I_CmsEventListener {
         String value,
         CmsResourceFilter filter) throws CmsException {
 
-        String cacheKey;
-        if (value == null) {
-            cacheKey = getCacheKey(new String[] {
-                dbc.currentUser().getName(),
-                folder.getRootPath(),
-                propertyDefinition,
-                filter.getCacheId()}, dbc);
-        } else {
-            cacheKey = getCacheKey(new String[] {
-                dbc.currentUser().getName(),
-                folder.getRootPath(),
-                propertyDefinition,
-                value,
-                filter.getCacheId()}, dbc);
-        }
+        CmsCompositeCacheKey cacheKey = getResourceListCacheKey(
+            dbc,
+            CmsCacheKey.CACHE_KEY_SUBPROPERTY,
+            false,
+            0,
+            filter.getCacheId(),
+            folder.getRootPath(),
+            propertyDefinition,
+            value);
         List<CmsResource> resourceList = m_monitor.getCachedResourceList(cacheKey);
         if ((resourceList == null) || !dbc.getProjectId().isNullUUID()) {
+            long start = System.nanoTime();
             // first read the property definition
             CmsPropertyDefinition propDef = readPropertyDefinition(dbc, propertyDefinition);
             // now read the list of resources that have a value set for the property definition
@@ -7456,7 +7660,12 @@ public final class CmsDriverManager implements I_CmsEventListener {
             resourceList = filterPermissions(dbc, resourceList, filter);
             // store the result in the resourceList cache
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.recordLoadTime(CmsMemoryMonitor.CacheType.RESOURCE_LIST, System.nanoTime() - start);
+                m_monitor.cacheResourceList(
+                    cacheKey,
+                    resourceList,
+                    folder.getRootPath(),
+                    dbc.currentProject().isOnlineProject());
             }
         }
         // we must always apply the result filter and update the context dates
@@ -8020,7 +8229,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         if ((properties != null) && !properties.isEmpty()) {
             // write the properties
             getVfsDriver(dbc).writePropertyObjects(dbc, dbc.currentProject(), resource, properties);
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            flushCache(dbc, resource, CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
         }
 
         // update the resource state
@@ -8043,7 +8252,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
         deleteRelationsWithSiblings(dbc, resource);
 
         // clear the cache
-        m_monitor.clearResourceCache();
+        m_monitor.flushCache(CmsMemoryMonitor.CacheType.HAS_ROLE, CmsMemoryMonitor.CacheType.ROLE_LIST);
+        flushCache(dbc, resource, CmsMemoryMonitor.CacheType.RESOURCE, CmsMemoryMonitor.CacheType.RESOURCE_LIST);
 
         if ((properties != null) && !properties.isEmpty()) {
             // resource and properties were modified
@@ -8748,13 +8958,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
     throws CmsException {
 
         // update the resource cache
-        m_monitor.clearResourceCache();
+        m_monitor.flushCache(CmsMemoryMonitor.CacheType.HAS_ROLE, CmsMemoryMonitor.CacheType.ROLE_LIST);
+        flushCache(dbc, resource, CmsMemoryMonitor.CacheType.RESOURCE, CmsMemoryMonitor.CacheType.RESOURCE_LIST);
 
         // now update lock status
         m_lockManager.removeResource(dbc, resource, force, removeSystemLock);
 
         // we must also clear the permission cache
-        m_monitor.flushCache(CmsMemoryMonitor.CacheType.PERMISSION);
+        flushCache(dbc, resource, CmsMemoryMonitor.CacheType.PERMISSION);
 
         // fire resource modification event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8926,8 +9137,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
         if (m_log.isEmpty()) {
             return;
         }
-        List<CmsLogEntry> log = new ArrayList<CmsLogEntry>(m_log);
-        m_log.clear();
+        List<CmsLogEntry> log;
+        synchronized (m_log) {
+            log = new ArrayList<CmsLogEntry>(m_log);
+            m_log.clear();
+        }
         m_projectDriver.log(dbc, log);
     }
 
@@ -9450,8 +9664,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         } finally {
             // update the driver manager cache
-            m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.HAS_ROLE, CmsMemoryMonitor.CacheType.ROLE_LIST);
+            flushCache(
+                dbc,
+                resource,
+                CmsMemoryMonitor.CacheType.RESOURCE,
+                CmsMemoryMonitor.CacheType.RESOURCE_LIST,
+                CmsMemoryMonitor.CacheType.PROPERTY,
+                CmsMemoryMonitor.CacheType.PROPERTY_LIST);
 
             // fire an event that a property of a resource has been modified
             Map<String, Object> data = new HashMap<String, Object>();
@@ -9531,8 +9751,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         } finally {
             // update the driver manager cache
-            m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.HAS_ROLE, CmsMemoryMonitor.CacheType.ROLE_LIST);
+            flushCache(
+                dbc,
+                resource,
+                CmsMemoryMonitor.CacheType.RESOURCE,
+                CmsMemoryMonitor.CacheType.RESOURCE_LIST,
+                CmsMemoryMonitor.CacheType.PROPERTY,
+                CmsMemoryMonitor.CacheType.PROPERTY_LIST);
 
             // fire an event that the properties of a resource have been modified
             OpenCms.fireCmsEvent(new CmsEvent(
@@ -9894,6 +10120,16 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return numberedName;
     }
 
+    /**
+     * Returns the locks to serialize the creation of resources, keyed by parent folder and resource id.<p>
+     * 
+     * @return the locks to serialize the creation of resources
+     */
+    protected CmsStripedLock getCreateResourceLocks() {
+
+        return m_createResourceLocks;
+    }
+
     /**
      * Returns the lock manager instance.<p>
      * 
@@ -10311,6 +10547,27 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Flushes the entries of the given caches which belong to the given resource or a resource below it.<p>
+     * 
+     * If the resource has siblings, the caches are flushed completely, since the siblings share 
+     * resource data and properties, but are cached under different paths.<p>
+     * 
+     * @param dbc the current database context
+     * @param resource the changed resource, if <code>null</code> the caches are flushed completely
+     * @param types the cache types to flush
+     * 
+     * @see CmsMemoryMonitor#flushCache(String, boolean, org.opencms.monitor.CmsMemoryMonitor.CacheType[])
+     */
+    private void flushCache(CmsDbContext dbc, CmsResource resource, CmsMemoryMonitor.CacheType... types) {
+
+        if ((resource == null) || (resource.getSiblingCount() > 1)) {
+            m_monitor.flushCache(types);
+        } else {
+            m_monitor.flushCache(resource.getRootPath(), dbc.currentProject().isOnlineProject(), types);
+        }
+    }
+
     /**
      * Returns the access control list of a given resource.<p>
      * 
@@ -10416,17 +10673,15 @@ public final class CmsDriverManager implements I_CmsEventListener {
      * @param projectId the project for which to generate the key
      * @param resource the resource for which to generate the key
      * 
-     * @return String a cache key build from the provided information
+     * @return a cache key build from the provided information
      */
-    private String getCacheKey(String prefix, boolean flag, CmsUUID projectId, String resource) {
+    private CmsCompositeCacheKey getCacheKey(String prefix, boolean flag, CmsUUID projectId, String resource) {
 
-        StringBuffer b = new StringBuffer(64);
-        if (prefix != null) {
-            b.append(prefix);
-            b.append(flag ? '+' : '-');
-        }
-        b.append(CmsProject.isOnlineProject(projectId) ? '+' : '-');
-        return b.append(resource).toString();
+        return CmsCompositeCacheKey.forPath(
+            prefix,
+            (prefix != null) && flag,
+            CmsProject.isOnlineProject(projectId),
+            resource);
     }
 
     /**
@@ -10474,6 +10729,45 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return projectId;
     }
 
+    /**
+     * Returns the cache key for a list of resources read by the current user.<p>
+     * 
+     * @param dbc the database context for which to generate the key
+     * @param type the type of the resource list
+     * @param flag an additional flag, depending on the type
+     * @param number an additional number, depending on the type
+     * @param filter the cache id of the resource filter 
+     * @param rootPath the root path of the folder the list has been read from
+     * @param name an additional name, depending on the type, or <code>null</code>
+     * @param value an additional value, depending on the type, or <code>null</code>
+     * 
+     * @return the cache key
+     */
+    private CmsCompositeCacheKey getResourceListCacheKey(
+        CmsDbContext dbc,
+        String type,
+        boolean flag,
+        long number,
+        String filter,
+        String rootPath,
+        String name,
+        String value) {
+
+        if (!dbc.getProjectId().isNullUUID()) {
+            return CmsCompositeCacheKey.EMPTY;
+        }
+        return CmsCompositeCacheKey.forList(
+            type,
+            dbc.currentUser().getId(),
+            dbc.currentProject().isOnlineProject(),
+            flag ? 1 : 0,
+            number,
+            filter,
+            rootPath,
+            name,
+            value);
+    }
+
     /**
      * Returns if and what state needs to be updated.<p>
      * 
@@ -11169,6 +11463,47 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Records the properties of the given resource as dependency of the current users context, 
+     * if the dependencies of the context are recorded.<p>
+     * 
+     * @param dbc the current database context
+     * @param rootPath the root path of the resource the properties are read from
+     * @param search <code>true</code> if the properties of all parent folders are read as well
+     */
+    private void updateContextDependencies(CmsDbContext dbc, String rootPath, boolean search) {
+
+        CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+        if ((info != null) && info.isRecordingDependencies()) {
+            info.addDependency(rootPath);
+            if (search) {
+                String parent = CmsResource.getParentFolder(rootPath);
+                while (parent != null) {
+                    info.addDependency(parent);
+                    parent = CmsResource.getParentFolder(parent);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the list of sub resources of the given folder as dependency of the current users context, 
+     * if the dependencies of the context are recorded.<p>
+     * 
+     * This is required to find the pages that must be updated if a resource is created in the folder.<p>
+     * 
+     * @param dbc the current database context
+     * @param folder the folder the sub resources are read from
+     * @param readTree <code>true</code> if all resources in the tree below the folder are read
+     */
+    private void updateContextListingDependency(CmsDbContext dbc, CmsResource folder, boolean readTree) {
+
+        CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+        if (info != null) {
+            info.addListingDependency(folder.getRootPath(), readTree);
+        }
+    }
+
     /**
      * Updates the state of a resource, depending on the <code>resourceState</code> parameter.<p>
      * 
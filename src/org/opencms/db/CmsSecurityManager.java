@@ -88,6 +88,7 @@ import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -1065,7 +1066,7 @@ public final class CmsSecurityManager {
      * 
      * @see org.opencms.file.types.I_CmsResourceType#createResource(CmsObject, CmsSecurityManager, String, byte[], List)
      */
-    public synchronized CmsResource createResource(
+    public CmsResource createResource(
         CmsRequestContext context,
         String resourcename,
         int type,
@@ -3815,6 +3816,32 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads the binary content of a file resource as a stream.<p>
+     * 
+     * The returned stream may hold resources like a temporary file, so it must always be closed.<p>
+     *
+     * @param context the current request context
+     * @param resource the file resource to read the content for
+     * 
+     * @return the content of the file as a stream
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    public InputStream readContentStream(CmsRequestContext context, CmsResource resource) throws CmsException {
+
+        InputStream result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readContentStream(dbc, resource);
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_READ_FILE_1, context.getSitePath(resource)), e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      * 
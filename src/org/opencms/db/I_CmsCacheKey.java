@@ -71,7 +71,7 @@ public interface I_CmsCacheKey {
      * 
      * @return a cache key that is unique for the set of parameters
      */
-    String getCacheKeyForUserPermissions(
+    CmsCompositeCacheKey getCacheKeyForUserPermissions(
         String prefix,
         CmsDbContext context,
         CmsResource resource,
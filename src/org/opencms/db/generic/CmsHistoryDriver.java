@@ -907,7 +907,7 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
                     res.getString(m_sqlManager.readQuery("C_PRINCIPALS_HISTORY_DESCRIPTION")),
                     res.getString(m_sqlManager.readQuery("C_PRINCIPALS_HISTORY_EMAIL")),
                     res.getString(m_sqlManager.readQuery("C_PRINCIPALS_HISTORY_TYPE")),
-                    new CmsUUID(res.getString(m_sqlManager.readQuery("C_PRINCIPALS_HISTORY_USERDELETED"))),
+                    m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_PRINCIPALS_HISTORY_USERDELETED")),
                     res.getLong(m_sqlManager.readQuery("C_PRINCIPALS_HISTORY_DATEDELETED")));
                 while (res.next()) {
                     // do nothing only move through all rows because of mssql odbc driver
@@ -1174,7 +1174,7 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
 
             if (res.next()) {
                 propDef = new CmsPropertyDefinition(
-                    new CmsUUID(res.getString(m_sqlManager.readQuery("C_PROPERTYDEF_ID"))),
+                    m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_PROPERTYDEF_ID")),
                     res.getString(m_sqlManager.readQuery("C_PROPERTYDEF_NAME")),
                     CmsPropertyDefinition.CmsPropertyType.valueOf(res.getInt(m_sqlManager.readQuery("C_PROPERTYDEF_TYPE"))));
                 while (res.next()) {
@@ -1411,6 +1411,9 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
 
         try {
             conn = m_sqlManager.getConnection(dbc);
+            // all values are written with one batch, this saves a round trip to the database for every value
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_PROPERTIES_HISTORY_CREATE");
+            boolean hasValues = false;
             for (Map.Entry<CmsProperty, CmsPropertyDefinition> entry : propDefs.entrySet()) {
 
                 for (int i = 0; i < 2; i++) {
@@ -1435,19 +1438,19 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
                         }
                     }
 
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_PROPERTIES_HISTORY_CREATE");
-
                     stmt.setString(1, resource.getStructureId().toString());
                     stmt.setString(2, entry.getValue().getId().toString());
                     stmt.setString(3, id.toString());
                     stmt.setInt(4, mappingType);
                     stmt.setString(5, m_sqlManager.validateEmpty(value));
                     stmt.setInt(6, publishTag);
-
-                    stmt.executeUpdate();
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
+                    stmt.addBatch();
+                    hasValues = true;
                 }
             }
+            if (hasValues) {
+                stmt.executeBatch();
+            }
         } catch (SQLException e) {
             throw new CmsDbSqlException(Messages.get().container(
                 Messages.ERR_GENERIC_SQL_1,
@@ -1738,16 +1741,16 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
     protected CmsHistoryProject internalCreateProject(ResultSet res, List resources) throws SQLException {
 
         String ou = CmsOrganizationalUnit.removeLeadingSeparator(res.getString(m_sqlManager.readQuery("C_PROJECTS_PROJECT_OU_0")));
-        CmsUUID publishedById = new CmsUUID(res.getString(m_sqlManager.readQuery("C_PROJECT_PUBLISHED_BY_0")));
-        CmsUUID userId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_PROJECTS_USER_ID_0")));
+        CmsUUID publishedById = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_PROJECT_PUBLISHED_BY_0"));
+        CmsUUID userId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_PROJECTS_USER_ID_0"));
         return new CmsHistoryProject(
             res.getInt(m_sqlManager.readQuery("C_PROJECTS_PUBLISH_TAG_0")),
-            new CmsUUID(res.getString(m_sqlManager.readQuery("C_PROJECTS_PROJECT_ID_0"))),
+            m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_PROJECTS_PROJECT_ID_0")),
             ou + res.getString(m_sqlManager.readQuery("C_PROJECTS_PROJECT_NAME_0")),
             res.getString(m_sqlManager.readQuery("C_PROJECTS_PROJECT_DESCRIPTION_0")),
             userId,
-            new CmsUUID(res.getString(m_sqlManager.readQuery("C_PROJECTS_GROUP_ID_0"))),
-            new CmsUUID(res.getString(m_sqlManager.readQuery("C_PROJECTS_MANAGERGROUP_ID_0"))),
+            m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_PROJECTS_GROUP_ID_0")),
+            m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_PROJECTS_MANAGERGROUP_ID_0")),
             res.getLong(m_sqlManager.readQuery("C_PROJECTS_DATE_CREATED_0")),
             CmsProject.CmsProjectType.valueOf(res.getInt(m_sqlManager.readQuery("C_PROJECTS_PROJECT_TYPE_0"))),
             res.getLong(m_sqlManager.readQuery("C_PROJECT_PUBLISHDATE_0")),
@@ -1769,8 +1772,8 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         int resourceVersion = res.getInt(m_sqlManager.readQuery("C_RESOURCES_VERSION"));
         int structureVersion = res.getInt(m_sqlManager.readQuery("C_RESOURCES_STRUCTURE_VERSION"));
         int tagId = res.getInt(m_sqlManager.readQuery("C_RESOURCES_PUBLISH_TAG"));
-        CmsUUID structureId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_STRUCTURE_ID")));
-        CmsUUID resourceId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_ID")));
+        CmsUUID structureId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_STRUCTURE_ID"));
+        CmsUUID resourceId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_RESOURCE_ID"));
         String resourcePath = res.getString(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_PATH"));
         int resourceType = res.getInt(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_TYPE"));
         int resourceFlags = res.getInt(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_FLAGS"));
@@ -1784,9 +1787,9 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         long dateReleased = res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_RELEASED"));
         long dateExpired = res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_EXPIRED"));
         int resourceSize = res.getInt(m_sqlManager.readQuery("C_RESOURCES_SIZE"));
-        CmsUUID userLastModified = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_LASTMODIFIED")));
-        CmsUUID userCreated = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_CREATED")));
-        CmsUUID parentId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_HISTORY_PARENTID")));
+        CmsUUID userLastModified = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_USER_LASTMODIFIED"));
+        CmsUUID userCreated = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_USER_CREATED"));
+        CmsUUID parentId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_HISTORY_PARENTID"));
         long dateContent = res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_CONTENT"));
 
         boolean isFolder = resourcePath.endsWith("/");
@@ -1855,7 +1858,7 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         int structureVersion = histRes.getStructureVersion() - versionOffset;
         int tagId = res.getInt(m_sqlManager.readQuery("C_RESOURCES_PUBLISH_TAG"));
         CmsUUID structureId = histRes.getStructureId();
-        CmsUUID resourceId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_ID")));
+        CmsUUID resourceId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_RESOURCE_ID"));
         int resourceType = res.getInt(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_TYPE"));
         int resourceFlags = res.getInt(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_FLAGS"));
         CmsUUID projectLastModified = new CmsUUID(
@@ -1866,8 +1869,8 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         long dateReleased = histRes.getDateReleased();
         long dateExpired = histRes.getDateExpired();
         int resourceSize = res.getInt(m_sqlManager.readQuery("C_RESOURCES_SIZE"));
-        CmsUUID userLastModified = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_LASTMODIFIED")));
-        CmsUUID userCreated = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_CREATED")));
+        CmsUUID userLastModified = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_USER_LASTMODIFIED"));
+        CmsUUID userCreated = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_USER_CREATED"));
         // here we could use the path/parent id for the sibling where the modification really occurred
         String resourcePath = histRes.getRootPath();
         CmsUUID parentId = histRes.getParentId();
@@ -72,6 +72,7 @@ import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.publish.CmsPublishJobInfoBean;
 import org.opencms.relations.CmsRelationFilter;
+import org.opencms.report.CmsBufferedReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.security.I_CmsPrincipal;
@@ -92,10 +93,21 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 
@@ -1552,9 +1564,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
         int publishedFolderCount = 0;
         int deletedFolderCount = 0;
-        int publishedFileCount = 0;
-        Set<CmsUUID> publishedContentIds = new HashSet<CmsUUID>();
-        Set<CmsUUID> publishedIds = new HashSet<CmsUUID>();
+        // the sets and the file counter are shared by the publish threads in case of parallel publishing
+        AtomicInteger publishedFileCount = new AtomicInteger();
+        Set<CmsUUID> publishedContentIds = Collections.synchronizedSet(new HashSet<CmsUUID>());
+        Set<CmsUUID> publishedIds = Collections.synchronizedSet(new HashSet<CmsUUID>());
 
         try {
 
@@ -1675,7 +1688,6 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             ///////////////////////////////////////////////////////////////////////////////////////
             // publish changed/new/deleted files
 
-            publishedFileCount = 0;
             int filesSize = publishList.getFileList().size();
 
             if (filesSize > 0) {
@@ -1696,47 +1708,33 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             Set<CmsUUID> changedAndDeletedResourceIds = Sets.intersection(deletedResourceIds, changedResourceIds);
             dbc.setAttribute(CmsDriverManager.KEY_CHANGED_AND_DELETED, changedAndDeletedResourceIds);
 
-            Iterator<CmsResource> itFiles = publishList.getFileList().iterator();
-            while (itFiles.hasNext()) {
-                CmsResource currentResource = itFiles.next();
-                try {
-                    // bounce the current publish task through all project drivers
-                    projectDriver.publishFile(
+            int publishThreads = OpenCms.getPublishManager().getPublishThreads();
+            int chunkSize = OpenCms.getPublishManager().getPublishChunkSize();
+            if ((publishThreads > 1) && (filesSize > chunkSize)) {
+                publishFilesParallel(
+                    dbc,
+                    report,
+                    onlineProject,
+                    publishList,
+                    publishedContentIds,
+                    publishedIds,
+                    publishedFileCount,
+                    publishThreads,
+                    chunkSize,
+                    publishTag);
+            } else {
+                for (CmsResource currentResource : publishList.getFileList()) {
+                    publishListedFile(
                         dbc,
                         report,
-                        ++publishedFileCount,
+                        publishedFileCount.incrementAndGet(),
                         filesSize,
                         onlineProject,
                         currentResource,
                         publishedContentIds,
+                        publishedIds,
                         publishList.getPublishHistoryId(),
                         publishTag);
-
-                    CmsResourceState state = currentResource.getState();
-                    if (!state.isDeleted()) {
-                        // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
-                        internalResetResourceState(dbc, currentResource);
-                    }
-
-                    // unlock it
-                    m_driverManager.unlockResource(dbc, currentResource, true, true);
-                    // log it
-                    CmsLogEntryType type = state.isNew() ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW : (state.isDeleted()
-                    ? CmsLogEntryType.RESOURCE_PUBLISHED_DELETED
-                    : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED);
-                    m_driverManager.log(dbc, new CmsLogEntry(
-                        dbc,
-                        currentResource.getStructureId(),
-                        type,
-                        new String[] {currentResource.getRootPath()}), true);
-
-                    publishedIds.add(currentResource.getStructureId());
-                    dbc.pop();
-                } catch (Throwable t) {
-                    dbc.report(
-                        report,
-                        Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, currentResource.getRootPath()),
-                        t);
                 }
             }
 
@@ -1823,7 +1821,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             // reset vfs driver internal info after publishing
             m_driverManager.getVfsDriver(dbc).publishVersions(dbc, null, false);
             Object[] msgArgs = new Object[] {
-                String.valueOf(publishedFileCount),
+                String.valueOf(publishedFileCount.get()),
                 String.valueOf(publishedFolderCount),
                 String.valueOf(deletedFolderCount),
                 report.formatRuntime()};
@@ -2270,8 +2268,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             res = stmt.executeQuery();
 
             while (res.next()) {
-                CmsUUID structureId = new CmsUUID(res.getString("STRUCTURE_ID"));
-                CmsUUID resourceId = new CmsUUID(res.getString("RESOURCE_ID"));
+                CmsUUID structureId = m_sqlManager.getUUID(res, "STRUCTURE_ID");
+                CmsUUID resourceId = m_sqlManager.getUUID(res, "RESOURCE_ID");
                 String rootPath = res.getString("RESOURCE_PATH");
                 int resourceState = res.getInt("RESOURCE_STATE");
                 int resourceType = res.getInt("RESOURCE_TYPE");
@@ -2808,10 +2806,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
     protected CmsPublishJobInfoBean createPublishJobInfoBean(ResultSet res) throws SQLException {
 
         return new CmsPublishJobInfoBean(
-            new CmsUUID(res.getString("HISTORY_ID")),
-            new CmsUUID(res.getString("PROJECT_ID")),
+            m_sqlManager.getUUID(res, "HISTORY_ID"),
+            m_sqlManager.getUUID(res, "PROJECT_ID"),
             res.getString("PROJECT_NAME"),
-            new CmsUUID(res.getString("USER_ID")),
+            m_sqlManager.getUUID(res, "USER_ID"),
             res.getString("PUBLISH_LOCALE"),
             res.getInt("PUBLISH_FLAGS"),
             res.getInt("RESOURCE_COUNT"),
@@ -2910,6 +2908,83 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return conditions.toString();
     }
 
+    /**
+     * Splits the files of a publish list into the chunks which are published by one thread each.<p>
+     * 
+     * All files that share a resource id or a root path, offline or online, are put into the same 
+     * chunk in the order of the publish list. So siblings, and moved, deleted or replaced files and 
+     * new files created at their former path, are published in the same order as by a single thread. 
+     * To find the online path and resource id, the online version of every file that is not new is read.<p>
+     * 
+     * @param dbc the current database context
+     * @param files the files to publish
+     * @param chunkSize the number of files after which a new chunk is started
+     * 
+     * @return the chunks to publish
+     * 
+     * @throws CmsDataAccessException if reading an online resource fails
+     */
+    protected List<List<CmsResource>> getPublishChunks(CmsDbContext dbc, List<CmsResource> files, int chunkSize)
+    throws CmsDataAccessException {
+
+        // union find over the indexes of the files, joining all files with a common key
+        int[] parents = new int[files.size()];
+        Map<Object, Integer> firstFileOfKey = new HashMap<Object, Integer>();
+        List<Object> keys = new ArrayList<Object>(4);
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+            CmsResource file = files.get(i);
+            keys.clear();
+            keys.add(file.getResourceId());
+            keys.add(file.getRootPath());
+            if (!file.getState().isNew()) {
+                try {
+                    CmsResource onlineFile = m_driverManager.getVfsDriver(dbc).readResource(
+                        dbc,
+                        CmsProject.ONLINE_PROJECT_ID,
+                        file.getStructureId(),
+                        true);
+                    keys.add(onlineFile.getResourceId());
+                    keys.add(onlineFile.getRootPath());
+                } catch (CmsVfsResourceNotFoundException e) {
+                    // the file does not exist online
+                }
+            }
+            for (Object key : keys) {
+                Integer other = firstFileOfKey.get(key);
+                if (other == null) {
+                    firstFileOfKey.put(key, Integer.valueOf(i));
+                } else {
+                    parents[getPublishGroup(parents, i)] = getPublishGroup(parents, other.intValue());
+                }
+            }
+        }
+        // collect the groups, keeping the order of the publish list
+        Map<Integer, List<CmsResource>> groups = new LinkedHashMap<Integer, List<CmsResource>>();
+        for (int i = 0; i < parents.length; i++) {
+            Integer group = Integer.valueOf(getPublishGroup(parents, i));
+            List<CmsResource> groupFiles = groups.get(group);
+            if (groupFiles == null) {
+                groupFiles = new ArrayList<CmsResource>(1);
+                groups.put(group, groupFiles);
+            }
+            groupFiles.add(files.get(i));
+        }
+        List<List<CmsResource>> chunks = new ArrayList<List<CmsResource>>();
+        List<CmsResource> chunk = new ArrayList<CmsResource>(chunkSize);
+        for (List<CmsResource> groupFiles : groups.values()) {
+            chunk.addAll(groupFiles);
+            if (chunk.size() >= chunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<CmsResource>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
     /**
      * Creates a new project from the current row of the given result set.<p>
      * 
@@ -2923,12 +2998,12 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
         String ou = CmsOrganizationalUnit.removeLeadingSeparator(res.getString(m_sqlManager.readQuery("C_PROJECTS_PROJECT_OU_0")));
         return new CmsProject(
-            new CmsUUID(res.getString(m_sqlManager.readQuery("C_PROJECTS_PROJECT_ID_0"))),
+            m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_PROJECTS_PROJECT_ID_0")),
             ou + res.getString(m_sqlManager.readQuery("C_PROJECTS_PROJECT_NAME_0")),
             res.getString(m_sqlManager.readQuery("C_PROJECTS_PROJECT_DESCRIPTION_0")),
-            new CmsUUID(res.getString(m_sqlManager.readQuery("C_PROJECTS_USER_ID_0"))),
-            new CmsUUID(res.getString(m_sqlManager.readQuery("C_PROJECTS_GROUP_ID_0"))),
-            new CmsUUID(res.getString(m_sqlManager.readQuery("C_PROJECTS_MANAGERGROUP_ID_0"))),
+            m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_PROJECTS_USER_ID_0")),
+            m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_PROJECTS_GROUP_ID_0")),
+            m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_PROJECTS_MANAGERGROUP_ID_0")),
             res.getInt(m_sqlManager.readQuery("C_PROJECTS_PROJECT_FLAGS_0")),
             res.getLong(m_sqlManager.readQuery("C_PROJECTS_DATE_CREATED_0")),
             CmsProject.CmsProjectType.valueOf(res.getInt(m_sqlManager.readQuery("C_PROJECTS_PROJECT_TYPE_0"))));
@@ -2961,9 +3036,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
      */
     protected CmsLogEntry internalReadLogEntry(ResultSet res) throws SQLException {
 
-        CmsUUID userId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_LOG_USER_ID")));
+        CmsUUID userId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_LOG_USER_ID"));
         long date = res.getLong(m_sqlManager.readQuery("C_LOG_DATE"));
-        CmsUUID structureId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_LOG_STRUCTURE_ID")));
+        CmsUUID structureId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_LOG_STRUCTURE_ID"));
         CmsLogEntryType type = CmsLogEntryType.valueOf(res.getInt(m_sqlManager.readQuery("C_LOG_TYPE")));
         String[] data = CmsStringUtil.splitAsArray(res.getString(m_sqlManager.readQuery("C_LOG_DATA")), '|');
         return new CmsLogEntry(userId, date, structureId, type, data);
@@ -3527,6 +3602,197 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         }
     }
 
+    /**
+     * Publishes the files of the publish list with several threads.<p>
+     * 
+     * Siblings share their content and version information, and a moved, deleted or replaced file 
+     * may free the online path or resource id a new file is published to. So all files which share 
+     * a resource id or a path, offline or online, are published by the same thread in the order of 
+     * the publish list, see {@link #getPublishChunks(CmsDbContext, List, int)}. The files are distributed 
+     * to the threads in chunks of the given size. Every thread uses its own database context and 
+     * writes its report output for one file at once. The first error stops all threads 
+     * and is thrown after all threads have finished.<p>
+     * 
+     * @param dbc the current database context
+     * @param report the report to write to
+     * @param onlineProject the online project
+     * @param publishList the publish list
+     * @param publishedContentIds the ids of the already published contents
+     * @param publishedIds the ids of the published resources
+     * @param publishedFileCount the counter for the published files
+     * @param publishThreads the maximum number of threads to use
+     * @param chunkSize the number of files that are handed to a thread at once
+     * @param publishTag the publish tag
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    protected void publishFilesParallel(
+        final CmsDbContext dbc,
+        final I_CmsReport report,
+        final CmsProject onlineProject,
+        final CmsPublishList publishList,
+        final Set<CmsUUID> publishedContentIds,
+        final Set<CmsUUID> publishedIds,
+        final AtomicInteger publishedFileCount,
+        int publishThreads,
+        int chunkSize,
+        final int publishTag) throws CmsException {
+
+        List<List<CmsResource>> chunks = getPublishChunks(dbc, publishList.getFileList(), chunkSize);
+
+        final int filesSize = publishList.getFileList().size();
+        final Object changedAndDeleted = dbc.getAttribute(CmsDriverManager.KEY_CHANGED_AND_DELETED);
+        final AtomicBoolean failed = new AtomicBoolean();
+        final AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+            Math.min(publishThreads, chunks.size()),
+            new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    return new Thread(r, "OpenCms: Publish " + threadCount.incrementAndGet());
+                }
+            });
+        try {
+            List<Future<Object>> results = new ArrayList<Future<Object>>(chunks.size());
+            for (final List<CmsResource> resources : chunks) {
+                results.add(executor.submit(new Callable<Object>() {
+
+                    public Object call() throws Exception {
+
+                        CmsDbContext threadDbc = m_driverManager.getDbContextFactory().getDbContext(
+                            dbc.getRequestContext());
+                        threadDbc.setProjectId(dbc.getProjectId());
+                        threadDbc.setAttribute(CmsDriverManager.KEY_CHANGED_AND_DELETED, changedAndDeleted);
+                        CmsBufferedReport threadReport = new CmsBufferedReport(report);
+                        try {
+                            for (CmsResource resource : resources) {
+                                if (failed.get()) {
+                                    // another thread has failed, stop publishing
+                                    break;
+                                }
+                                try {
+                                    publishListedFile(
+                                        threadDbc,
+                                        threadReport,
+                                        publishedFileCount.incrementAndGet(),
+                                        filesSize,
+                                        onlineProject,
+                                        resource,
+                                        publishedContentIds,
+                                        publishedIds,
+                                        publishList.getPublishHistoryId(),
+                                        publishTag);
+                                } catch (CmsException e) {
+                                    failed.set(true);
+                                    throw e;
+                                } finally {
+                                    threadReport.flush();
+                                }
+                            }
+                        } finally {
+                            threadDbc.clear();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            CmsException error = null;
+            for (Future<Object> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    if (error == null) {
+                        error = (e.getCause() instanceof CmsException)
+                        ? (CmsException)e.getCause()
+                        : new CmsDataAccessException(Messages.get().container(
+                            Messages.ERR_ERROR_PUBLISHING_FILE_1,
+                            ""), e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    failed.set(true);
+                    throw new CmsDataAccessException(
+                        Messages.get().container(Messages.ERR_PUBLISH_FILES_INTERRUPTED_0),
+                        e);
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Publishes a file of the publish list, then resets its state, unlocks and logs it.<p>
+     * 
+     * @param dbc the current database context
+     * @param report the report to write to
+     * @param m the number of the file in the publish list
+     * @param n the number of files in the publish list
+     * @param onlineProject the online project
+     * @param currentResource the file to publish
+     * @param publishedContentIds the ids of the already published contents
+     * @param publishedIds the ids of the published resources, the id of the file is added
+     * @param publishHistoryId the publish history id
+     * @param publishTag the publish tag
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    protected void publishListedFile(
+        CmsDbContext dbc,
+        I_CmsReport report,
+        int m,
+        int n,
+        CmsProject onlineProject,
+        CmsResource currentResource,
+        Set<CmsUUID> publishedContentIds,
+        Set<CmsUUID> publishedIds,
+        CmsUUID publishHistoryId,
+        int publishTag) throws CmsException {
+
+        try {
+            // bounce the current publish task through all project drivers
+            m_driverManager.getProjectDriver(dbc).publishFile(
+                dbc,
+                report,
+                m,
+                n,
+                onlineProject,
+                currentResource,
+                publishedContentIds,
+                publishHistoryId,
+                publishTag);
+
+            CmsResourceState state = currentResource.getState();
+            if (!state.isDeleted()) {
+                // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
+                internalResetResourceState(dbc, currentResource);
+            }
+
+            // unlock it
+            m_driverManager.unlockResource(dbc, currentResource, true, true);
+            // log it
+            CmsLogEntryType type = state.isNew() ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW : (state.isDeleted()
+            ? CmsLogEntryType.RESOURCE_PUBLISHED_DELETED
+            : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED);
+            m_driverManager.log(dbc, new CmsLogEntry(
+                dbc,
+                currentResource.getStructureId(),
+                type,
+                new String[] {currentResource.getRootPath()}), true);
+
+            publishedIds.add(currentResource.getStructureId());
+            dbc.pop();
+        } catch (Throwable t) {
+            dbc.report(
+                report,
+                Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, currentResource.getRootPath()),
+                t);
+        }
+    }
+
     /**
      * Publishes a new file.<p>
      * 
@@ -3645,4 +3911,23 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
         m_driverManager.getVfsDriver(dbc).updateRelations(dbc, onlineProject, offlineResource);
     }
+
+    /**
+     * Returns the group of a file while splitting the files of a publish list into chunks.<p>
+     * 
+     * @param parents the union find parent indexes of the files
+     * @param file the index of the file
+     * 
+     * @return the index of the file representing the group
+     */
+    private static int getPublishGroup(int[] parents, int file) {
+
+        int i = file;
+        while (parents[i] != i) {
+            // path halving
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
 }
\ No newline at end of file
@@ -37,6 +37,7 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -188,6 +189,42 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
     }
 
+    /**
+     * Retrieves the value of the designated column in the current row of this ResultSet object as 
+     * a stream of uninterpreted bytes.<p>
+     * 
+     * In contrast to {@link #getBytes(ResultSet, String)}, the column value is not materialized on the heap,
+     * so the stream must be read before the result set is closed. Overwrite this method if another 
+     * database server requires a different handling of byte attributes in tables.<p>
+     * 
+     * @param res the result set
+     * @param attributeName the name of the table attribute
+     * 
+     * @return the column value; if the value is SQL NULL, the value returned is null 
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    public InputStream getBinaryStream(ResultSet res, String attributeName) throws SQLException {
+
+        return res.getBinaryStream(attributeName);
+    }
+
+    /**
+     * Prepares a statement that reads a large binary value, so that the JDBC driver does not read 
+     * the complete result into memory when the query is executed.<p>
+     * 
+     * This default implementation does nothing. Overwrite this method if the JDBC driver of 
+     * another database server needs a special fetch mode for streaming.<p>
+     * 
+     * @param stmt the statement, which must not have been executed yet
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    public void setStreamingFetchMode(PreparedStatement stmt) throws SQLException {
+
+        // noop
+    }
+
     /**
      * Retrieves the value of the designated column in the current row of this ResultSet object as 
      * a byte array in the Java programming language.<p>
@@ -293,6 +330,39 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         return con.prepareStatement(query);
     }
 
+    /**
+     * Retrieves the value of the designated column in the current row of this ResultSet object as 
+     * a UUID.<p>
+     * 
+     * The column may either contain the String representation of the UUID, or its 16 bytes 
+     * in a binary column. The column is read only once, the type of the value decides how it is converted. 
+     * Overwrite this method if another database server requires a different handling of UUID attributes 
+     * in tables.<p>
+     * 
+     * Like <code>new CmsUUID(res.getString(attributeName))</code>, this method does not accept SQL NULL values.<p>
+     * 
+     * @param res the result set
+     * @param attributeName the name of the table attribute
+     * 
+     * @return the column value
+     * 
+     * @throws SQLException if a database access error occurs
+     * @throws NullPointerException if the value is SQL NULL
+     */
+    public CmsUUID getUUID(ResultSet res, String attributeName) throws SQLException {
+
+        Object value = res.getObject(attributeName);
+        if (value instanceof byte[]) {
+            byte[] bytes = (byte[])value;
+            if (bytes.length == 16) {
+                return new CmsUUID(bytes);
+            }
+            // the String representation stored in a binary column
+            return new CmsUUID(res.getString(attributeName));
+        }
+        return new CmsUUID((value != null) ? value.toString() : null);
+    }
+
     /**
      * Initializes this SQL manager.<p>
      * 
@@ -937,9 +937,9 @@ public class CmsSubscriptionDriver implements I_CmsDriver, I_CmsSubscriptionDriv
      */
     protected CmsVisitEntry internalReadVisitEntry(ResultSet res) throws SQLException {
 
-        CmsUUID userId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_VISIT_USER_ID")));
+        CmsUUID userId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_VISIT_USER_ID"));
         long date = res.getLong(m_sqlManager.readQuery("C_VISIT_DATE"));
-        CmsUUID structureId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_VISIT_STRUCTURE_ID")));
+        CmsUUID structureId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_VISIT_STRUCTURE_ID"));
         return new CmsVisitEntry(userId, date, structureId);
     }
 
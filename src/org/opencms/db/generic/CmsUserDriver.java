@@ -2128,7 +2128,7 @@ public class CmsUserDriver implements I_CmsUserDriver {
      */
     protected CmsAccessControlEntry internalCreateAce(ResultSet res) throws SQLException {
 
-        return internalCreateAce(res, new CmsUUID(res.getString(m_sqlManager.readQuery("C_ACCESS_RESOURCE_ID_0"))));
+        return internalCreateAce(res, m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_ACCESS_RESOURCE_ID_0")));
     }
 
     /**
@@ -2145,7 +2145,7 @@ public class CmsUserDriver implements I_CmsUserDriver {
 
         return new CmsAccessControlEntry(
             newId,
-            new CmsUUID(res.getString(m_sqlManager.readQuery("C_ACCESS_PRINCIPAL_ID_0"))),
+            m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_ACCESS_PRINCIPAL_ID_0")),
             res.getInt(m_sqlManager.readQuery("C_ACCESS_ACCESS_ALLOWED_0")),
             res.getInt(m_sqlManager.readQuery("C_ACCESS_ACCESS_DENIED_0")),
             res.getInt(m_sqlManager.readQuery("C_ACCESS_ACCESS_FLAGS_0")));
@@ -2370,8 +2370,8 @@ public class CmsUserDriver implements I_CmsUserDriver {
         String ou = CmsOrganizationalUnit.removeLeadingSeparator(res.getString(m_sqlManager.readQuery("C_GROUPS_GROUP_OU_0")));
         String description = res.getString(m_sqlManager.readQuery("C_GROUPS_GROUP_DESCRIPTION_0"));
         return new CmsGroup(
-            new CmsUUID(res.getString(m_sqlManager.readQuery("C_GROUPS_GROUP_ID_0"))),
-            new CmsUUID(res.getString(m_sqlManager.readQuery("C_GROUPS_PARENT_GROUP_ID_0"))),
+            m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_GROUPS_GROUP_ID_0")),
+            m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_GROUPS_PARENT_GROUP_ID_0")),
             ou + res.getString(m_sqlManager.readQuery("C_GROUPS_GROUP_NAME_0")),
             description,
             res.getInt(m_sqlManager.readQuery("C_GROUPS_GROUP_FLAGS_0")));
@@ -2481,7 +2481,7 @@ public class CmsUserDriver implements I_CmsUserDriver {
 
         String userName = res.getString(m_sqlManager.readQuery("C_USERS_USER_NAME_0"));
         String ou = CmsOrganizationalUnit.removeLeadingSeparator(res.getString(m_sqlManager.readQuery("C_USERS_USER_OU_0")));
-        CmsUUID userId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_USERS_USER_ID_0")));
+        CmsUUID userId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_USERS_USER_ID_0"));
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_DBG_CREATE_USER_1, userName));
@@ -32,6 +32,7 @@ import org.opencms.configuration.CmsParameterConfiguration;
 import org.opencms.db.CmsDbConsistencyException;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
+import org.opencms.db.CmsDbIoException;
 import org.opencms.db.CmsDbSqlException;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsPreparedStatementIntParameter;
@@ -74,6 +75,12 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -86,7 +93,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 
 /**
@@ -113,7 +122,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
      * 
      * @see #publishVersions(CmsDbContext, CmsResource, boolean) 
      */
-    protected List m_resOp = new ArrayList();
+    protected Set<CmsUUID> m_resOp = Collections.newSetFromMap(new ConcurrentHashMap<CmsUUID, Boolean>());
 
     /** The sql manager. */
     protected CmsSqlManager m_sqlManager;
@@ -284,8 +293,8 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
      */
     public CmsFile createFile(ResultSet res, CmsUUID projectId) throws SQLException {
 
-        CmsUUID structureId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_STRUCTURE_ID")));
-        CmsUUID resourceId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_ID")));
+        CmsUUID structureId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_STRUCTURE_ID"));
+        CmsUUID resourceId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_RESOURCE_ID"));
         int resourceType = res.getInt(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_TYPE"));
         String resourcePath = res.getString(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_PATH"));
         int resourceFlags = res.getInt(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_FLAGS"));
@@ -296,8 +305,8 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         long dateReleased = res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_RELEASED"));
         long dateExpired = res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_EXPIRED"));
         int resourceSize = res.getInt(m_sqlManager.readQuery("C_RESOURCES_SIZE"));
-        CmsUUID userCreated = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_CREATED")));
-        CmsUUID userLastModified = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_LASTMODIFIED")));
+        CmsUUID userCreated = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_USER_CREATED"));
+        CmsUUID userLastModified = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_USER_LASTMODIFIED"));
         byte[] content = m_sqlManager.getBytes(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
         int siblingCount = res.getInt(m_sqlManager.readQuery("C_RESOURCES_SIBLING_COUNT"));
         long dateContent = res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_CONTENT"));
@@ -342,8 +351,8 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         CmsUUID resProjectId = null;
 
-        CmsUUID structureId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_STRUCTURE_ID")));
-        CmsUUID resourceId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_ID")));
+        CmsUUID structureId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_STRUCTURE_ID"));
+        CmsUUID resourceId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_RESOURCE_ID"));
         String resourcePath = res.getString(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_PATH"));
         int resourceType = res.getInt(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_TYPE"));
         int resourceFlags = res.getInt(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_FLAGS"));
@@ -354,9 +363,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         long dateReleased = res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_RELEASED"));
         long dateExpired = res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_EXPIRED"));
         int resourceSize = res.getInt(m_sqlManager.readQuery("C_RESOURCES_SIZE"));
-        CmsUUID userCreated = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_CREATED")));
-        CmsUUID userLastModified = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_LASTMODIFIED")));
-        CmsUUID lockedInProject = new CmsUUID(res.getString("LOCKED_IN_PROJECT"));
+        CmsUUID userCreated = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_USER_CREATED"));
+        CmsUUID userLastModified = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_USER_LASTMODIFIED"));
+        CmsUUID lockedInProject = m_sqlManager.getUUID(res, "LOCKED_IN_PROJECT");
         int siblingCount = res.getInt(m_sqlManager.readQuery("C_RESOURCES_SIBLING_COUNT"));
         long dateContent = res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_CONTENT"));
         int resourceVersion = res.getInt(m_sqlManager.readQuery("C_RESOURCES_VERSION"));
@@ -399,8 +408,8 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     public CmsFolder createFolder(ResultSet res, CmsUUID projectId, boolean hasProjectIdInResultSet)
     throws SQLException {
 
-        CmsUUID structureId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_STRUCTURE_ID")));
-        CmsUUID resourceId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_ID")));
+        CmsUUID structureId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_STRUCTURE_ID"));
+        CmsUUID resourceId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_RESOURCE_ID"));
         String resourcePath = res.getString(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_PATH"));
         int resourceType = res.getInt(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_TYPE"));
         int resourceFlags = res.getInt(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_FLAGS"));
@@ -410,9 +419,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         long dateLastModified = res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_LASTMODIFIED"));
         long dateReleased = res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_RELEASED"));
         long dateExpired = res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_EXPIRED"));
-        CmsUUID userCreated = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_CREATED")));
-        CmsUUID userLastModified = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_LASTMODIFIED")));
-        CmsUUID resProjectId = new CmsUUID(res.getString("LOCKED_IN_PROJECT"));
+        CmsUUID userCreated = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_USER_CREATED"));
+        CmsUUID userLastModified = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_USER_LASTMODIFIED"));
+        CmsUUID resProjectId = m_sqlManager.getUUID(res, "LOCKED_IN_PROJECT");
         int resourceVersion = res.getInt(m_sqlManager.readQuery("C_RESOURCES_VERSION"));
         int structureVersion = res.getInt(m_sqlManager.readQuery("C_RESOURCES_STRUCTURE_VERSION"));
         int resourceSize = res.getInt(m_sqlManager.readQuery("C_RESOURCES_SIZE"));
@@ -798,8 +807,8 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
      */
     public CmsResource createResource(ResultSet res, CmsUUID projectId) throws SQLException {
 
-        CmsUUID structureId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_STRUCTURE_ID")));
-        CmsUUID resourceId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_ID")));
+        CmsUUID structureId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_STRUCTURE_ID"));
+        CmsUUID resourceId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_RESOURCE_ID"));
         String resourcePath = res.getString(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_PATH"));
         int resourceType = res.getInt(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_TYPE"));
         int resourceFlags = res.getInt(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_FLAGS"));
@@ -818,8 +827,8 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             resourcePath = CmsFileUtil.addTrailingSeparator(resourcePath);
         }
         long dateContent = isFolder ? -1 : res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_CONTENT"));
-        CmsUUID userCreated = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_CREATED")));
-        CmsUUID userLastModified = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_LASTMODIFIED")));
+        CmsUUID userCreated = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_USER_CREATED"));
+        CmsUUID userLastModified = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RESOURCES_USER_LASTMODIFIED"));
         int siblingCount = res.getInt(m_sqlManager.readQuery("C_RESOURCES_SIBLING_COUNT"));
         int resourceVersion = res.getInt(m_sqlManager.readQuery("C_RESOURCES_VERSION"));
         int structureVersion = res.getInt(m_sqlManager.readQuery("C_RESOURCES_STRUCTURE_VERSION"));
@@ -1531,8 +1540,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         int resVersion = ((Integer)versions.get("resource")).intValue();
 
         if (resOp) {
-            if (resource.getSiblingCount() > 1) {
-                m_resOp.add(resource.getResourceId());
+            if ((resource.getSiblingCount() > 1) && !m_resOp.add(resource.getResourceId())) {
+                // the resource version has already been updated for another sibling by a concurrent publish thread
+                return;
             }
             resVersion++;
         }
@@ -1680,6 +1690,85 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStream(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        Connection conn = null;
+        File contentFile = null;
+        InputStream result = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT");
+            } else {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_OFFLINE_FILES_CONTENT");
+            }
+            stmt.setString(1, resourceId.toString());
+            m_sqlManager.setStreamingFetchMode(stmt);
+            res = stmt.executeQuery();
+
+            if (res.next()) {
+                InputStream content = m_sqlManager.getBinaryStream(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+                if (content == null) {
+                    // SQL NULL
+                    return new ByteArrayInputStream(new byte[0]);
+                }
+                // copy the content to a temporary file, so the connection is released before the content is read,
+                // a slow client must not keep a connection of the pool
+                contentFile = File.createTempFile("opencms-content.", ".tmp");
+                OutputStream out = new FileOutputStream(contentFile);
+                try {
+                    IOUtils.copy(content, out);
+                } finally {
+                    content.close();
+                    out.close();
+                }
+                final File deleteFile = contentFile;
+                result = new FileInputStream(contentFile) {
+
+                    /**
+                     * @see java.io.FileInputStream#close()
+                     */
+                    @Override
+                    public void close() throws IOException {
+
+                        try {
+                            super.close();
+                        } finally {
+                            deleteFile.delete();
+                        }
+                    }
+                };
+            } else {
+                throw new CmsVfsResourceNotFoundException(Messages.get().container(
+                    Messages.ERR_READ_CONTENT_WITH_RESOURCE_ID_2,
+                    resourceId,
+                    Boolean.valueOf(projectId.equals(CmsProject.ONLINE_PROJECT_ID))));
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } catch (IOException e) {
+            throw new CmsDbIoException(Messages.get().container(
+                Messages.ERR_READ_CONTENT_WITH_RESOURCE_ID_2,
+                resourceId,
+                Boolean.valueOf(projectId.equals(CmsProject.ONLINE_PROJECT_ID))), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+            if ((result == null) && (contentFile != null)) {
+                contentFile.delete();
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -1809,7 +1898,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             // if result set exists - return it
             if (res.next()) {
                 propDef = new CmsPropertyDefinition(
-                    new CmsUUID(res.getString(m_sqlManager.readQuery("C_PROPERTYDEF_ID"))),
+                    m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_PROPERTYDEF_ID")),
                     res.getString(m_sqlManager.readQuery("C_PROPERTYDEF_NAME")),
                     CmsPropertyDefinition.CmsPropertyType.valueOf(res.getInt(m_sqlManager.readQuery("C_PROPERTYDEF_TYPE"))));
                 while (res.next()) {
@@ -1848,7 +1937,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             res = stmt.executeQuery();
             while (res.next()) {
                 propertyDefinitions.add(new CmsPropertyDefinition(
-                    new CmsUUID(res.getString(m_sqlManager.readQuery("C_PROPERTYDEF_ID"))),
+                    m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_PROPERTYDEF_ID")),
                     res.getString(m_sqlManager.readQuery("C_PROPERTYDEF_NAME")),
                     CmsPropertyDefinition.CmsPropertyType.valueOf(res.getInt(m_sqlManager.readQuery("C_PROPERTYDEF_TYPE")))));
             }
@@ -3581,9 +3670,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
      */
     protected CmsRelation internalReadRelation(ResultSet res) throws SQLException {
 
-        CmsUUID sourceId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RELATION_SOURCE_ID")));
+        CmsUUID sourceId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RELATION_SOURCE_ID"));
         String sourcePath = res.getString(m_sqlManager.readQuery("C_RELATION_SOURCE_PATH"));
-        CmsUUID targetId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RELATION_TARGET_ID")));
+        CmsUUID targetId = m_sqlManager.getUUID(res, m_sqlManager.readQuery("C_RELATION_TARGET_ID"));
         String targetPath = res.getString(m_sqlManager.readQuery("C_RELATION_TARGET_PATH"));
         int type = res.getInt(m_sqlManager.readQuery("C_RELATION_TYPE"));
         return new CmsRelation(sourceId, sourcePath, targetId, targetPath, CmsRelationType.valueOf(type));
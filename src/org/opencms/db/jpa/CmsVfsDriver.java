@@ -95,6 +95,8 @@ import org.opencms.util.CmsPair;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -104,6 +106,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceException;
@@ -396,7 +399,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
      * 
      * @see #publishVersions(CmsDbContext, CmsResource, boolean) 
      */
-    protected List<CmsUUID> m_resOp = new ArrayList<CmsUUID>();
+    protected Set<CmsUUID> m_resOp = Collections.newSetFromMap(new ConcurrentHashMap<CmsUUID, Boolean>());
 
     /** The sql manager. */
     protected CmsSqlManager m_sqlManager;
@@ -1736,8 +1739,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         int resVersion = versions.get("resource").intValue();
 
         if (resOp) {
-            if (resource.getSiblingCount() > 1) {
-                m_resOp.add(resource.getResourceId());
+            if ((resource.getSiblingCount() > 1) && !m_resOp.add(resource.getResourceId())) {
+                // the resource version has already been updated for another sibling by a concurrent publish thread
+                return;
             }
             resVersion++;
         }
@@ -1873,6 +1877,16 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes == null ? EMPTY_BLOB : byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStream(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException {
+
+        // JPA materializes the content attribute anyway, so there is nothing to gain by streaming here
+        return new ByteArrayInputStream(readContent(dbc, projectId, resourceId));
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -27,6 +27,9 @@
 
 package org.opencms.db.mysql;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
 /**
  * MySQL implementation of the SQL manager.<p>
  * 
@@ -49,4 +52,19 @@ public class CmsSqlManager extends org.opencms.db.generic.CmsSqlManager {
         loadQueryProperties(QUERY_PROPERTIES);
     }
 
+    /**
+     * Sets the fetch size of the statement to <code>Integer.MIN_VALUE</code>.<p>
+     * 
+     * By default, MySQL Connector/J reads the complete result into memory. A forward only, read only 
+     * statement with this fetch size streams the result row by row instead, so a large file content 
+     * is not held in memory. No other statement can be executed on the connection until the 
+     * result set has been closed.<p>
+     * 
+     * @see org.opencms.db.generic.CmsSqlManager#setStreamingFetchMode(java.sql.PreparedStatement)
+     */
+    @Override
+    public void setStreamingFetchMode(PreparedStatement stmt) throws SQLException {
+
+        stmt.setFetchSize(Integer.MIN_VALUE);
+    }
 }
\ No newline at end of file
@@ -63,6 +63,8 @@ import org.opencms.util.CmsUUID;
 import org.opencms.workplace.CmsWorkplace;
 import org.opencms.xml.content.CmsNumberSuffixNameSequence;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -2185,6 +2187,33 @@ public final class CmsObject {
         return m_securityManager.readBestUrlName(m_context, id, locale, defaultLocales);
     }
 
+    /**
+     * Reads the binary content of a file resource as a stream.<p>
+     * 
+     * Use this instead of {@link #readFile(CmsResource)} to deliver or copy large files without 
+     * reading the complete content into memory. The returned stream may hold resources like a temporary file, 
+     * so it must always be closed, preferably in a <code>finally</code> block.<p>
+     * 
+     * As with {@link #readFile(CmsResource)}, no resource filter is applied.<p>
+     * 
+     * @param resource the file resource to read the content for
+     * 
+     * @return the content of the file as a stream
+     * 
+     * @throws CmsException if the content could not be read for any reason
+     */
+    public InputStream readContentStream(CmsResource resource) throws CmsException {
+
+        if (resource instanceof CmsFile) {
+            byte[] contents = ((CmsFile)resource).getContents();
+            if ((contents != null) && (contents.length > 0)) {
+                // file has the contents already available
+                return new ByteArrayInputStream(contents);
+            }
+        }
+        return m_securityManager.readContentStream(m_context, resource);
+    }
+
     /**
      * Returns the default resource for the given folder.<p>
      * <ol>
@@ -38,9 +38,11 @@ import org.opencms.util.CmsCollectionsGenericWrapper;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.servlet.ServletException;
 
@@ -89,6 +91,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** The "last modified" date for this Flex cache entry. */
     private long m_dateLastModified;
 
+    /** The root paths of the resources read to create this entry, or <code>null</code> if not recorded. */
+    private Set<String> m_dependencies;
+
     /** The list of items for this resource. */
     private List<Object> m_elements;
 
@@ -263,6 +268,19 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the root paths of the resources that were read to create this entry.<p>
+     * 
+     * Nested includes are not contained, since they are included again when the entry is delivered.<p>
+     * 
+     * @return the root paths of the resources that were read to create this entry, 
+     *      or <code>null</code> if they were not recorded
+     */
+    public Set<String> getDependencies() {
+
+        return m_dependencies;
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
      */
@@ -396,6 +414,16 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         }
     }
 
+    /**
+     * Sets the root paths of the resources that were read to create this entry.<p>
+     * 
+     * @param dependencies the root paths of the resources that were read to create this entry
+     */
+    public void setDependencies(Set<String> dependencies) {
+
+        m_dependencies = (dependencies != null) ? Collections.unmodifiableSet(new HashSet<String>(dependencies)) : null;
+    }
+
     /**
      * Sets the expiration date of this Flex cache entry exactly to the 
      * given time.<p>
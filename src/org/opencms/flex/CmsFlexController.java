@@ -32,7 +32,9 @@ import org.opencms.file.CmsResource;
 import org.opencms.main.CmsLog;
 import org.opencms.util.CmsRequestUtil;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.Vector;
 
 import javax.servlet.ServletRequest;
@@ -52,6 +54,12 @@ public class CmsFlexController {
     /** Constant for the controller request attribute name. */
     public static final String ATTRIBUTE_NAME = "org.opencms.flex.CmsFlexController";
 
+    /** 
+     * Request context attribute name to enable the recording of the dependencies of a request,
+     * the value must be <code>{@link Boolean#TRUE}</code>.<p>
+     */
+    public static final String ATTRIBUTE_RECORD_DEPENDENCIES = "org.opencms.flex.CmsFlexController.recordDependencies";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexController.class);
 
@@ -180,6 +188,25 @@ public class CmsFlexController {
         return (CmsFlexController)req.getAttribute(ATTRIBUTE_NAME);
     }
 
+    /**
+     * Returns the dependencies that were recorded while a resource was loaded with the given OpenCms user context.<p>
+     * 
+     * The dependencies are only recorded if the request context attribute 
+     * <code>{@link #ATTRIBUTE_RECORD_DEPENDENCIES}</code> was set before the resource was loaded.<p>
+     * 
+     * @param cms the OpenCms user context the resource was loaded with
+     * 
+     * @return the root paths of the resources read while loading, or <code>null</code> if nothing was recorded
+     */
+    public static Set<String> getRecordedDependencies(CmsObject cms) {
+
+        Object info = cms.getRequestContext().getAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED);
+        if (info instanceof CmsFlexRequestContextInfo) {
+            return ((CmsFlexRequestContextInfo)info).getDependencies();
+        }
+        return null;
+    }
+
     /**
      * Provides access to a root cause Exception that might have occurred in a complex include scenario.<p>
      * 
@@ -469,6 +496,21 @@ public class CmsFlexController {
         return (m_flexContextInfoList.get(pos)).getDateLastModified();
     }
 
+    /**
+     * Returns the root paths of all resources read during the current include, 
+     * or <code>null</code> if dependencies are not recorded for this request.<p>
+     * 
+     * @return the root paths of all resources read during the current include
+     */
+    public Set<String> getDependencies() {
+
+        int pos = m_flexContextInfoList.size() - 1;
+        if (pos < 0) {
+            return null;
+        }
+        return (m_flexContextInfoList.get(pos)).getDependencies();
+    }
+
     /**
      * Returns the size of the response stack.<p>
      * 
@@ -521,6 +563,16 @@ public class CmsFlexController {
         return m_res;
     }
 
+    /**
+     * Returns <code>true</code> if the dependencies of this request are recorded.<p>
+     * 
+     * @return <code>true</code> if the dependencies of this request are recorded
+     */
+    public boolean isRecordingDependencies() {
+
+        return !m_flexContextInfoList.isEmpty() && (m_flexContextInfoList.get(0)).isRecordingDependencies();
+    }
+
     /**
      * Returns <code>true</code> if the controller does not yet contain any requests.<p>
      * 
@@ -598,7 +650,14 @@ public class CmsFlexController {
 
         m_flexRequestList.add(req);
         m_flexResponseList.add(res);
-        m_flexContextInfoList.add(new CmsFlexRequestContextInfo());
+        boolean recordDependencies;
+        if (m_flexContextInfoList.isEmpty()) {
+            recordDependencies = Boolean.TRUE.equals(m_cmsObject.getRequestContext().getAttribute(
+                ATTRIBUTE_RECORD_DEPENDENCIES));
+        } else {
+            recordDependencies = isRecordingDependencies();
+        }
+        m_flexContextInfoList.add(new CmsFlexRequestContextInfo(recordDependencies));
         updateRequestContextInfo();
     }
 
@@ -676,6 +735,22 @@ public class CmsFlexController {
         (m_flexContextInfoList.get(pos)).updateDates(dateLastModified, dateExpires);
     }
 
+    /**
+     * Adds the given root paths to the dependencies of the current include, 
+     * if the dependencies of this request are recorded.<p>
+     * 
+     * @param rootPaths the root paths to add
+     */
+    public void updateDependencies(Collection<String> rootPaths) {
+
+        int pos = m_flexContextInfoList.size() - 1;
+        if (pos < 0) {
+            // ensure a valid position is used
+            return;
+        }
+        (m_flexContextInfoList.get(pos)).addDependencies(rootPaths);
+    }
+
     /**
      * Updates the context info of the request context.<p>
      */
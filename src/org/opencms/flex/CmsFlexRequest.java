@@ -68,6 +68,9 @@ public class CmsFlexRequest extends HttpServletRequestWrapper {
     /** Request parameter for FlexCache commands. */
     public static final String PARAMETER_FLEX = "_flex";
 
+    /** Request parameter defined by the JSP specification to compile a JSP without executing it. */
+    public static final String PARAMETER_JSP_PRECOMPILE = "jsp_precompile";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexRequest.class);
 
@@ -131,6 +134,8 @@ public class CmsFlexRequest extends HttpServletRequestWrapper {
         m_isOnline = cms.getRequestContext().getCurrentProject().isOnlineProject();
         String[] params = req.getParameterValues(PARAMETER_FLEX);
         boolean nocachepara = CmsHistoryResourceHandler.isHistoryRequest(req);
+        // precompile requests produce no output, so the result must never be cached
+        nocachepara |= m_parameters.containsKey(PARAMETER_JSP_PRECOMPILE);
         boolean dorecompile = false;
         if (params != null) {
             if (OpenCms.getRoleManager().hasRole(cms, CmsRole.WORKPLACE_MANAGER)) {
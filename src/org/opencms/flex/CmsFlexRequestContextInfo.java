@@ -29,6 +29,11 @@ package org.opencms.flex;
 
 import org.opencms.file.CmsResource;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * Contains information about the OpenCms request context required by the 
  * Flex implementation.<p>
@@ -38,23 +43,87 @@ import org.opencms.file.CmsResource;
  * Information about the "last modified" and "expire" times of VFS resources are 
  * stored in this Object.<p> 
  * 
+ * If requested, the root paths of all VFS resources read in this request context are recorded 
+ * as well, this is used by the static export to find the exported files that depend on a resource.<p>
+ * 
  * @since 6.0.0 
  */
 public class CmsFlexRequestContextInfo {
 
+    /** Suffix of the dependency recorded for reading the direct sub resources of a folder. */
+    public static final String DEPENDENCY_LISTING_SUFFIX = "*";
+
+    /** Suffix of the dependency recorded for reading all resources in the tree below a folder. */
+    public static final String DEPENDENCY_TREE_LISTING_SUFFIX = "**";
+
     /** The currently calculated "expires" date for this request context .*/
     private long m_dateExpires;
 
     /** The currently calculated "last modified" date for this request context.  */
     private long m_dateLastModified;
 
+    /** The root paths of the resources this context depends on, or <code>null</code> if not recorded. */
+    private Set<String> m_dependencies;
+
     /**
      * Public constructor.<p>
      */
     public CmsFlexRequestContextInfo() {
 
+        this(false);
+    }
+
+    /**
+     * Creates a new context info, which optionally records the dependencies of this context.<p>
+     * 
+     * @param recordDependencies if <code>true</code>, the root paths of all resources read are recorded
+     */
+    public CmsFlexRequestContextInfo(boolean recordDependencies) {
+
         // by default the expiration date is the max long value
         m_dateExpires = CmsResource.DATE_EXPIRED_DEFAULT;
+        if (recordDependencies) {
+            m_dependencies = new HashSet<String>();
+        }
+    }
+
+    /**
+     * Adds the given root paths to the dependencies of this context, if dependencies are recorded.<p>
+     * 
+     * @param rootPaths the root paths to add
+     */
+    public void addDependencies(Collection<String> rootPaths) {
+
+        if ((m_dependencies != null) && (rootPaths != null)) {
+            m_dependencies.addAll(rootPaths);
+        }
+    }
+
+    /**
+     * Adds the given root path to the dependencies of this context, if dependencies are recorded.<p>
+     * 
+     * @param rootPath the root path to add
+     */
+    public void addDependency(String rootPath) {
+
+        if (m_dependencies != null) {
+            m_dependencies.add(rootPath);
+        }
+    }
+
+    /**
+     * Adds a dependency on the list of sub resources of the given folder, if dependencies are recorded.<p>
+     * 
+     * @param folderRootPath the root path of the folder
+     * @param readTree <code>true</code> if all resources in the tree below the folder were read, 
+     *      <code>false</code> if only the direct sub resources were read
+     */
+    public void addListingDependency(String folderRootPath, boolean readTree) {
+
+        if (m_dependencies != null) {
+            String suffix = readTree ? DEPENDENCY_TREE_LISTING_SUFFIX : DEPENDENCY_LISTING_SUFFIX;
+            m_dependencies.add(folderRootPath + suffix);
+        }
     }
 
     /**
@@ -77,6 +146,30 @@ public class CmsFlexRequestContextInfo {
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the root paths of the resources this context depends on.<p>
+     * 
+     * @return the root paths of the resources this context depends on, 
+     *      or <code>null</code> if dependencies are not recorded
+     */
+    public Set<String> getDependencies() {
+
+        if (m_dependencies == null) {
+            return null;
+        }
+        return Collections.unmodifiableSet(m_dependencies);
+    }
+
+    /**
+     * Returns <code>true</code> if the dependencies of this context are recorded.<p>
+     * 
+     * @return <code>true</code> if the dependencies of this context are recorded
+     */
+    public boolean isRecordingDependencies() {
+
+        return m_dependencies != null;
+    }
+
     /**
      * Merges this context info with the values from the other context info.<p>
      *  
@@ -86,6 +179,7 @@ public class CmsFlexRequestContextInfo {
 
         updateDateLastModified(other.getDateLastModified());
         updateDateExpires(other.getDateExpires());
+        addDependencies(other.m_dependencies);
     }
 
     /**
@@ -139,12 +233,14 @@ public class CmsFlexRequestContextInfo {
      * "expires" date with the values from a given resource.<p>
      * 
      * The "expires" date is the calculated from the given date values 
-     * of resource release and expiration and also the current time.<p>
+     * of resource release and expiration and also the current time.
+     * If dependencies are recorded, the root path of the resource is added to them.<p>
      * 
      * @param resource the resource to use for updating the context values
      */
     public void updateFromResource(CmsResource resource) {
 
+        addDependency(resource.getRootPath());
         // first set the last modification date
         updateDateLastModified(resource.getDateLastModified());
         // now use both release and expiration date from the resource to update the expires info
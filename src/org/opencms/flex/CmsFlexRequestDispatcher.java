@@ -299,6 +299,10 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
             if (f_req.isCacheable()) {
                 // caching is on, check if requested resource is already in cache            
                 entry = cache.get(w_req.getCmsCacheKey());
+                if ((entry != null) && controller.isRecordingDependencies() && (entry.getDependencies() == null)) {
+                    // the dependencies are required but were not recorded for the cached entry, so create it again
+                    entry = null;
+                }
                 if (entry != null) {
                     // the target is already in the cache
                     try {
@@ -308,6 +312,7 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                                 m_vfsTarget));
                         }
                         controller.updateDates(entry.getDateLastModified(), entry.getDateExpires());
+                        controller.updateDependencies(entry.getDependencies());
                         entry.service(w_req, w_res);
                     } catch (CmsException e) {
                         Throwable t;
@@ -434,6 +439,7 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                         entry.setDateLastModified(controller.getDateLastModified());
                         entry.setDateExpires(controller.getDateExpires());
                     }
+                    entry.setDependencies(controller.getDependencies());
                     cache.put(w_res.getCmsCacheKey(), entry, variation);
                 } else {
                     // result can not be cached, do not use "last modified" optimization
@@ -33,6 +33,7 @@ import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -376,6 +377,16 @@ public class CmsJspNavBuilder {
         CmsResourceFilter resourceFilter) {
 
         folder = CmsResource.getFolderPath(folder);
+        CmsJspNavigationCache cache = OpenCms.getNavigationCache();
+        if (cache != null) {
+            try {
+                return cache.getNavigationForFolder(m_cms, folder, includeInvisible, resourceFilter);
+            } catch (Exception e) {
+                // should never happen
+                LOG.error(e.getLocalizedMessage(), e);
+                return Collections.<CmsJspNavElement> emptyList();
+            }
+        }
         List<CmsJspNavElement> result = new ArrayList<CmsJspNavElement>();
 
         List<CmsResource> resources;
@@ -0,0 +1,480 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.jsp;
+
+import org.opencms.cache.CmsConcurrentLruMap;
+import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.flex.CmsFlexRequestContextInfo;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.util.CmsRequestUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Caches the navigation data of folders for the {@link CmsJspNavBuilder}.<p>
+ * 
+ * For every folder, the cache keeps the child resources together with their properties, 
+ * sorted by navigation position. This data is read with administrator permissions and 
+ * shared by all requests, the resource filter and the read permissions of the current user 
+ * are applied each time the navigation elements for a request are created.<p>
+ * 
+ * Since the folders are cached by root path, the cache serves all sites. The online and offline 
+ * data is cached separately. Only the folders that contain changed resources are removed from 
+ * the cache when resources are modified or published.<p>
+ * 
+ * @since 8.5.0
+ */
+public class CmsJspNavigationCache implements I_CmsEventListener {
+
+    /**
+     * The navigation data of a resource.<p>
+     */
+    private static final class Entry {
+
+        /** The properties of the resource. */
+        final Map<String, String> m_properties;
+
+        /** The resource. */
+        final CmsResource m_resource;
+
+        /**
+         * Creates a new navigation data entry.<p>
+         * 
+         * @param resource the resource
+         * @param properties the properties of the resource
+         */
+        Entry(CmsResource resource, Map<String, String> properties) {
+
+            m_resource = resource;
+            m_properties = Collections.unmodifiableMap(properties);
+        }
+    }
+
+    /**
+     * The cached folders of either the online or the offline project.<p>
+     */
+    private static final class FolderCache {
+
+        /** The cached navigation data, by folder root path. */
+        private final Map<String, List<Entry>> m_folders;
+
+        /** The version, incremented whenever cached data is removed. */
+        private final AtomicInteger m_version = new AtomicInteger();
+
+        /**
+         * Creates a new folder cache.<p>
+         * 
+         * @param size the maximum number of cached folders
+         */
+        FolderCache(int size) {
+
+            m_folders = new CmsConcurrentLruMap<String, List<Entry>>(size);
+        }
+
+        /**
+         * Removes all cached folders.<p>
+         */
+        void clear() {
+
+            m_version.incrementAndGet();
+            m_folders.clear();
+        }
+
+        /**
+         * Returns the cached navigation data of a folder.<p>
+         * 
+         * @param rootPath the root path of the folder
+         * 
+         * @return the cached navigation data, or <code>null</code> if the folder is not cached
+         */
+        List<Entry> get(String rootPath) {
+
+            return m_folders.get(rootPath);
+        }
+
+        /**
+         * Returns the map of cached folders.<p>
+         * 
+         * @return the map of cached folders
+         */
+        Map<String, List<Entry>> getFolders() {
+
+            return m_folders;
+        }
+
+        /**
+         * Returns the current version.<p>
+         * 
+         * @return the current version
+         */
+        int getVersion() {
+
+            return m_version.get();
+        }
+
+        /**
+         * Caches the navigation data of a folder, unless cached data has been removed
+         * since the given version was read.<p>
+         * 
+         * @param rootPath the root path of the folder
+         * @param entries the navigation data
+         * @param version the version read before the navigation data was read
+         */
+        void put(String rootPath, List<Entry> entries, int version) {
+
+            m_folders.put(rootPath, entries);
+            if (m_version.get() != version) {
+                // the data may be outdated
+                m_folders.remove(rootPath);
+            }
+        }
+
+        /**
+         * Removes the folders affected by a change of the given resource.<p>
+         * 
+         * @param rootPath the root path of the changed resource
+         * @param subtree <code>true</code> if the resource is a folder that has been moved or deleted
+         */
+        void remove(String rootPath, boolean subtree) {
+
+            m_version.incrementAndGet();
+            String parent = CmsResource.getParentFolder(rootPath);
+            if (parent != null) {
+                m_folders.remove(parent);
+            }
+            if (subtree) {
+                String folder = CmsResource.getFolderPath(rootPath);
+                Iterator<String> it = m_folders.keySet().iterator();
+                while (it.hasNext()) {
+                    if (it.next().startsWith(folder)) {
+                        it.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /** The maximum number of cached folders, for both the online and the offline project. */
+    private static final int CACHE_SIZE = 5000;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsJspNavigationCache.class);
+
+    /** The CMS context with administrator permissions. */
+    private CmsObject m_adminCms;
+
+    /** The cached offline folders. */
+    private FolderCache m_offlineFolders;
+
+    /** The cached online folders. */
+    private FolderCache m_onlineFolders;
+
+    /**
+     * Creates a new navigation cache.<p>
+     * 
+     * @param adminCms a CMS context with administrator permissions
+     * @param memoryMonitor the memory monitor
+     */
+    public CmsJspNavigationCache(CmsObject adminCms, CmsMemoryMonitor memoryMonitor) {
+
+        m_adminCms = adminCms;
+        m_onlineFolders = new FolderCache(CACHE_SIZE);
+        m_offlineFolders = new FolderCache(CACHE_SIZE);
+        if (memoryMonitor != null) {
+            memoryMonitor.register(getClass().getName() + ".online", m_onlineFolders.getFolders());
+            memoryMonitor.register(getClass().getName() + ".offline", m_offlineFolders.getFolders());
+        }
+        OpenCms.addCmsEventListener(this, new int[] {
+            I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCES_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_CREATED,
+            I_CmsEventListener.EVENT_RESOURCE_MOVED,
+            I_CmsEventListener.EVENT_RESOURCE_DELETED,
+            I_CmsEventListener.EVENT_PROPERTY_MODIFIED,
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+            I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES});
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_CREATED:
+                Object change = event.getData().get(I_CmsEventListener.KEY_CHANGE);
+                if ((change != null) && change.equals(new Integer(CmsDriverManager.NOTHING_CHANGED))) {
+                    // skip lock & unlock
+                    return;
+                }
+                uncacheResource((CmsResource)event.getData().get(I_CmsEventListener.KEY_RESOURCE), false);
+                break;
+
+            case I_CmsEventListener.EVENT_PROPERTY_MODIFIED:
+                uncacheResource((CmsResource)event.getData().get(I_CmsEventListener.KEY_RESOURCE), false);
+                break;
+
+            case I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCES_MODIFIED:
+                uncacheResources(
+                    CmsCollectionsGenericWrapper.<CmsResource> list(event.getData().get(
+                        I_CmsEventListener.KEY_RESOURCES)),
+                    false);
+                break;
+
+            case I_CmsEventListener.EVENT_RESOURCE_MOVED:
+            case I_CmsEventListener.EVENT_RESOURCE_DELETED:
+                uncacheResources(
+                    CmsCollectionsGenericWrapper.<CmsResource> list(event.getData().get(
+                        I_CmsEventListener.KEY_RESOURCES)),
+                    true);
+                break;
+
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                uncachePublishedResources((String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
+                break;
+
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                m_onlineFolders.clear();
+                m_offlineFolders.clear();
+                break;
+
+            case I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES:
+                m_onlineFolders.clear();
+                break;
+
+            case I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES:
+                m_offlineFolders.clear();
+                break;
+
+            default:
+                // noop
+                break;
+        }
+    }
+
+    /**
+     * Collects the navigation elements of the resources in the given folder.<p>
+     * 
+     * Only resources that match the given filter and that the current user is allowed to read 
+     * are included.<p>
+     * 
+     * @param cms the current CMS context
+     * @param folder the site path of the folder
+     * @param includeInvisible <code>true</code> to include elements not visible in navigation
+     * @param resourceFilter the filter to use for the resources
+     * 
+     * @return a sorted (ascending to navigation position) list of navigation elements
+     * 
+     * @throws CmsException if something goes wrong reading the folder
+     */
+    public List<CmsJspNavElement> getNavigationForFolder(
+        CmsObject cms,
+        String folder,
+        boolean includeInvisible,
+        CmsResourceFilter resourceFilter) throws CmsException {
+
+        CmsRequestContext context = cms.getRequestContext();
+        CmsResource folderResource = cms.readResource(folder, CmsResourceFilter.ALL);
+        List<Entry> entries = getEntries(context.getCurrentProject(), folderResource.getRootPath());
+
+        Object info = context.getAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED);
+        CmsFlexRequestContextInfo flexInfo = null;
+        if (info instanceof CmsFlexRequestContextInfo) {
+            flexInfo = (CmsFlexRequestContextInfo)info;
+            flexInfo.addListingDependency(folderResource.getRootPath(), false);
+        }
+        CmsResourceFilter permissionFilter = resourceFilter.requireTimerange()
+        ? resourceFilter.addExcludeTimerange()
+        : resourceFilter;
+        List<CmsJspNavElement> result = new ArrayList<CmsJspNavElement>(entries.size());
+        for (Entry entry : entries) {
+            CmsResource resource = entry.m_resource;
+            if (flexInfo != null) {
+                // must also include invalid resources since a resource may be invalid because of release / expiration date
+                flexInfo.updateFromResource(resource);
+            }
+            if (!resourceFilter.isValid(context, resource)
+                || !cms.hasPermissions(resource, CmsPermissionSet.ACCESS_READ, true, permissionFilter)) {
+                continue;
+            }
+            String sitePath = context.removeSiteRoot(resource.getRootPath());
+            int level = CmsResource.getPathLevel(sitePath);
+            if (resource.isFolder()) {
+                level--;
+            }
+            // the element gets its own copy of the shared data, since callers may change both
+            CmsJspNavElement element = new CmsJspNavElement(
+                sitePath,
+                (CmsResource)resource.clone(),
+                new HashMap<String, String>(entry.m_properties),
+                level);
+            if (includeInvisible || element.isInNavigation()) {
+                result.add(element);
+            }
+        }
+        // the entries are already sorted
+        return result;
+    }
+
+    /**
+     * Returns the navigation data of the resources in a folder, reading it if it is not cached yet.<p>
+     * 
+     * @param project the current project
+     * @param rootPath the root path of the folder
+     * 
+     * @return the navigation data of the resources in the folder
+     * 
+     * @throws CmsException if something goes wrong reading the resources
+     */
+    private List<Entry> getEntries(CmsProject project, String rootPath) throws CmsException {
+
+        FolderCache cache = project.isOnlineProject() ? m_onlineFolders : m_offlineFolders;
+        List<Entry> entries = cache.get(rootPath);
+        if (entries != null) {
+            return entries;
+        }
+        int version = cache.getVersion();
+        CmsObject cms = OpenCms.initCmsObject(m_adminCms);
+        cms.getRequestContext().setCurrentProject(project);
+        cms.getRequestContext().setSiteRoot("");
+        List<CmsResource> resources = cms.getResourcesInFolder(rootPath, CmsResourceFilter.ALL);
+        List<CmsJspNavElement> elements = new ArrayList<CmsJspNavElement>(resources.size());
+        for (CmsResource resource : resources) {
+            Map<String, String> properties = CmsProperty.toMap(cms.readPropertyObjects(resource, false));
+            elements.add(new CmsJspNavElement(resource.getRootPath(), resource, properties));
+        }
+        Collections.sort(elements);
+        entries = new ArrayList<Entry>(elements.size());
+        for (CmsJspNavElement element : elements) {
+            entries.add(new Entry(element.getResource(), element.getProperties()));
+        }
+        entries = Collections.unmodifiableList(entries);
+        cache.put(rootPath, entries, version);
+        return entries;
+    }
+
+    /**
+     * Removes the folders affected by the resources of a publish job from the online cache.<p>
+     * 
+     * @param publishId the publish history id
+     */
+    private void uncachePublishedResources(String publishId) {
+
+        if (publishId == null) {
+            m_onlineFolders.clear();
+            return;
+        }
+        try {
+            List<CmsPublishedResource> publishedResources = m_adminCms.readPublishedResources(new CmsUUID(publishId));
+            if (publishedResources.isEmpty()) {
+                // not a normal publish process, so clear the whole cache to be on the safe side
+                m_onlineFolders.clear();
+                return;
+            }
+            for (CmsPublishedResource resource : publishedResources) {
+                if (resource.getSiblingCount() > 1) {
+                    // the properties of other siblings may have changed as well
+                    m_onlineFolders.clear();
+                    return;
+                }
+                boolean subtree = resource.isFolder() && (resource.getState().isDeleted() || resource.isMoved());
+                m_onlineFolders.remove(resource.getRootPath(), subtree);
+            }
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            m_onlineFolders.clear();
+        }
+    }
+
+    /**
+     * Removes the folders affected by a change of the given offline resource.<p>
+     * 
+     * @param resource the changed resource
+     * @param moved <code>true</code> if the resource has been moved or deleted
+     */
+    private void uncacheResource(CmsResource resource, boolean moved) {
+
+        if (resource == null) {
+            return;
+        }
+        if (resource.getSiblingCount() > 1) {
+            // the properties of other siblings may have changed as well
+            m_offlineFolders.clear();
+            return;
+        }
+        m_offlineFolders.remove(resource.getRootPath(), moved && resource.isFolder());
+    }
+
+    /**
+     * Removes the folders affected by a change of the given offline resources.<p>
+     * 
+     * @param resources the changed resources
+     * @param moved <code>true</code> if the resources have been moved or deleted
+     */
+    private void uncacheResources(List<CmsResource> resources, boolean moved) {
+
+        if (resources == null) {
+            m_offlineFolders.clear();
+            return;
+        }
+        for (CmsResource resource : resources) {
+            uncacheResource(resource, moved);
+        }
+    }
+}
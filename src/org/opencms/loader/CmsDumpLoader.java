@@ -35,11 +35,21 @@ import org.opencms.flex.CmsFlexController;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.util.CmsByteRange;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.workplace.CmsWorkplaceManager;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
 import java.util.Locale;
 
@@ -58,15 +68,27 @@ import javax.servlet.http.HttpServletResponse;
  */
 public class CmsDumpLoader implements I_CmsResourceLoader {
 
+    /** The configuration parameter for the minimum size of files that are streamed from the VFS. */
+    public static final String CONFIGURATION_STREAMING_THRESHOLD = "streaming.threshold";
+
+    /** The default minimum size of files that are streamed from the VFS (1 MB). */
+    public static final long DEFAULT_STREAMING_THRESHOLD = 1024 * 1024;
+
     /** The id of this loader. */
     public static final int RESOURCE_LOADER_ID = 1;
 
+    /** The size of the buffer used to copy streamed content. */
+    private static final int BUFFER_SIZE = 8192;
+
     /** The maximum age for dumped contents in the clients cache. */
     private static long m_clientCacheMaxAge;
 
     /** The resource loader configuration. */
     private CmsParameterConfiguration m_configuration;
 
+    /** The minimum size of files that are streamed from the VFS instead of being read into memory. */
+    private long m_streamingThreshold = DEFAULT_STREAMING_THRESHOLD;
+
     /**
      * The constructor of the class is empty and does nothing.<p>
      */
@@ -175,11 +197,18 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
         } else {
             m_clientCacheMaxAge = Long.parseLong(String.valueOf(maxAge));
         }
+        String threshold = m_configuration.getString(CONFIGURATION_STREAMING_THRESHOLD, null);
+        if (threshold != null) {
+            m_streamingThreshold = Long.parseLong(threshold.trim());
+        }
 
         if (CmsLog.INIT.isInfoEnabled()) {
             if (maxAge != null) {
                 CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_CLIENT_CACHE_MAX_AGE_1, maxAge));
             }
+            CmsLog.INIT.info(Messages.get().getBundle().key(
+                Messages.INIT_STREAMING_THRESHOLD_1,
+                String.valueOf(m_streamingThreshold)));
             CmsLog.INIT.info(Messages.get().getBundle().key(
                 Messages.INIT_LOADER_INITIALIZED_1,
                 this.getClass().getName()));
@@ -229,33 +258,40 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
             return;
         }
 
+        boolean hasContents = (resource instanceof CmsFile) && (((CmsFile)resource).getContents() != null);
+        if (!hasContents && (m_streamingThreshold >= 0) && (resource.getLength() >= m_streamingThreshold)) {
+            // large file, stream the content from the database instead of reading it into memory
+            setCacheHeaders(resource, req, res);
+            InputStream in = cms.readContentStream(resource);
+            try {
+                if (in instanceof FileInputStream) {
+                    // the driver has copied the content to the RFS, so it can be sent without copying it to the heap
+                    sendChannel(req, res, ((FileInputStream)in).getChannel(), resource.getDateLastModified());
+                } else {
+                    sendStream(req, res, in, resource.getLength(), resource.getDateLastModified());
+                }
+            } finally {
+                in.close();
+            }
+            return;
+        }
+
         // make sure we have the file contents available
         CmsFile file = cms.readFile(resource);
 
+        setCacheHeaders(file, req, res);
+        if (req.getHeader(CmsRequestUtil.HEADER_RANGE) != null) {
+            // the client requested only a part of the content
+            InputStream in = new ByteArrayInputStream(file.getContents());
+            sendStream(req, res, in, file.getContents().length, file.getDateLastModified());
+            return;
+        }
+
         // set response status to "200 - OK" (required for static export "on-demand")
         res.setStatus(HttpServletResponse.SC_OK);
         // set content length header
         res.setContentLength(file.getContents().length);
-
-        if (CmsWorkplaceManager.isWorkplaceUser(req)) {
-            // prevent caching for Workplace users
-            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, System.currentTimeMillis());
-            CmsRequestUtil.setNoCacheHeaders(res);
-        } else {
-            // set date last modified header
-            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, file.getDateLastModified());
-
-            // set "Expires" only if cache control is not already set
-            if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
-                long expireTime = resource.getDateExpired();
-                if (expireTime == CmsResource.DATE_EXPIRED_DEFAULT) {
-                    expireTime--;
-                    // flex controller will automatically reduce this to a reasonable value
-                }
-                // now set "Expires" header        
-                CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
-            }
-        }
+        res.setHeader(CmsRequestUtil.HEADER_ACCEPT_RANGES, "bytes");
 
         service(cms, file, req, res);
     }
@@ -301,4 +337,239 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
         }
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Sends the content of the given file channel to the client, or the part of it requested by a "Range" header.<p>
+     * 
+     * The content is transferred by the channel, so it is never read into the heap. The channel is not closed 
+     * by this method. The caching headers must already have been set, e.g. by {@link #setCacheHeaders}.<p>
+     * 
+     * @param req the current request
+     * @param res the current response
+     * @param channel the channel of the file to send
+     * @param dateLastModified the date of last modification of the content, used to validate a "If-Range" header
+     * 
+     * @throws IOException in case of errors reading the file or writing the response
+     */
+    protected void sendChannel(
+        HttpServletRequest req,
+        HttpServletResponse res,
+        FileChannel channel,
+        long dateLastModified) throws IOException {
+
+        long length = channel.size();
+        CmsByteRange range = sendRangeHeaders(req, res, length, dateLastModified);
+        if ((range != null) && !range.isSatisfiable()) {
+            return;
+        }
+        long position = range == null ? 0 : range.getStart();
+        long count = range == null ? length : range.getLength();
+        WritableByteChannel out = Channels.newChannel(res.getOutputStream());
+        while (count > 0) {
+            long transferred = channel.transferTo(position, count, out);
+            if (transferred <= 0) {
+                // the file has been truncated meanwhile
+                break;
+            }
+            position += transferred;
+            count -= transferred;
+        }
+    }
+
+    /**
+     * Sends the given RFS file to the client, or the part of it requested by a "Range" header.<p>
+     * 
+     * The file is transferred by its channel, so its content is never read into the heap. The caching 
+     * headers must already have been set, e.g. by {@link #setCacheHeaders}.<p>
+     * 
+     * @param req the current request
+     * @param res the current response
+     * @param file the file to send
+     * @param dateLastModified the date of last modification of the content, used to validate a "If-Range" header
+     * 
+     * @throws IOException in case of errors reading the file or writing the response
+     */
+    protected void sendFile(HttpServletRequest req, HttpServletResponse res, File file, long dateLastModified)
+    throws IOException {
+
+        FileInputStream in = new FileInputStream(file);
+        try {
+            sendChannel(req, res, in.getChannel(), dateLastModified);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Sends the content of the given stream to the client, or the part of it requested by a "Range" header.<p>
+     * 
+     * The content is copied with a small buffer, so it is never completely held in the heap. 
+     * The stream is not closed by this method. The caching headers must already have been set, 
+     * e.g. by {@link #setCacheHeaders}.<p>
+     * 
+     * @param req the current request
+     * @param res the current response
+     * @param in the stream to read the content from
+     * @param length the length of the content
+     * @param dateLastModified the date of last modification of the content, used to validate a "If-Range" header
+     * 
+     * @throws IOException in case of errors reading the content or writing the response
+     */
+    protected void sendStream(
+        HttpServletRequest req,
+        HttpServletResponse res,
+        InputStream in,
+        long length,
+        long dateLastModified) throws IOException {
+
+        CmsByteRange range = sendRangeHeaders(req, res, length, dateLastModified);
+        if ((range != null) && !range.isSatisfiable()) {
+            return;
+        }
+        long count = length;
+        if (range != null) {
+            skipFully(in, range.getStart());
+            count = range.getLength();
+        }
+        OutputStream out = res.getOutputStream();
+        byte[] buffer = new byte[(int)Math.min(BUFFER_SIZE, Math.max(count, 1))];
+        while (count > 0) {
+            int read = in.read(buffer, 0, (int)Math.min(buffer.length, count));
+            if (read < 0) {
+                // the content is shorter than expected
+                break;
+            }
+            out.write(buffer, 0, read);
+            count -= read;
+        }
+    }
+
+    /**
+     * Sets the "Last-Modified" and "Expires" headers for the given resource,
+     * or prevents caching if the request was send by a workplace user.<p>
+     * 
+     * @param resource the delivered resource
+     * @param req the current request
+     * @param res the current response
+     */
+    protected void setCacheHeaders(CmsResource resource, HttpServletRequest req, HttpServletResponse res) {
+
+        if (CmsWorkplaceManager.isWorkplaceUser(req)) {
+            // prevent caching for Workplace users
+            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, System.currentTimeMillis());
+            CmsRequestUtil.setNoCacheHeaders(res);
+        } else {
+            // set date last modified header
+            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, resource.getDateLastModified());
+
+            // set "Expires" only if cache control is not already set
+            if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
+                long expireTime = resource.getDateExpired();
+                if (expireTime == CmsResource.DATE_EXPIRED_DEFAULT) {
+                    expireTime--;
+                    // flex controller will automatically reduce this to a reasonable value
+                }
+                // now set "Expires" header        
+                CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
+            }
+        }
+    }
+
+    /**
+     * Returns the range requested by the "Range" header of the given request.<p>
+     * 
+     * A "Range" header is ignored if the request has a "If-Range" header that does not match 
+     * the given date of last modification, since the client then requires the complete, changed content.<p>
+     * 
+     * @param req the current request
+     * @param length the length of the content
+     * @param dateLastModified the date of last modification of the content
+     * 
+     * @return the requested range, or <code>null</code> if the complete content should be send
+     */
+    private CmsByteRange getRequestedRange(HttpServletRequest req, long length, long dateLastModified) {
+
+        String rangeHeader = req.getHeader(CmsRequestUtil.HEADER_RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        if (req.getHeader(CmsRequestUtil.HEADER_IF_RANGE) != null) {
+            long ifRange;
+            try {
+                ifRange = req.getDateHeader(CmsRequestUtil.HEADER_IF_RANGE);
+            } catch (IllegalArgumentException e) {
+                // an entity tag, which is not supported
+                return null;
+            }
+            // HTTP dates have a resolution of seconds
+            if ((ifRange / 1000) != (dateLastModified / 1000)) {
+                return null;
+            }
+        }
+        return CmsByteRange.parse(rangeHeader, length);
+    }
+
+    /**
+     * Sets the status and the content headers for sending content of the given length,
+     * depending on the range requested by the client.<p>
+     * 
+     * @param req the current request
+     * @param res the current response
+     * @param length the length of the content
+     * @param dateLastModified the date of last modification of the content
+     * 
+     * @return the requested range, or <code>null</code> if the complete content must be send
+     */
+    private CmsByteRange sendRangeHeaders(
+        HttpServletRequest req,
+        HttpServletResponse res,
+        long length,
+        long dateLastModified) {
+
+        res.setHeader(CmsRequestUtil.HEADER_ACCEPT_RANGES, "bytes");
+        CmsByteRange range = getRequestedRange(req, length, dateLastModified);
+        long count = length;
+        if (range == null) {
+            // set response status to "200 - OK" (required for static export "on-demand")
+            res.setStatus(HttpServletResponse.SC_OK);
+        } else if (!range.isSatisfiable()) {
+            res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, range.getContentRange());
+            count = 0;
+        } else {
+            res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, range.getContentRange());
+            count = range.getLength();
+        }
+        if (count <= Integer.MAX_VALUE) {
+            res.setContentLength((int)count);
+        } else {
+            // the servlet API only supports int content lengths
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_LENGTH, String.valueOf(count));
+        }
+        return range;
+    }
+
+    /**
+     * Skips the given number of bytes of the stream.<p>
+     * 
+     * @param in the stream
+     * @param count the number of bytes to skip
+     * 
+     * @throws IOException in case of errors reading the stream, or if the stream has less bytes
+     */
+    private void skipFully(InputStream in, long count) throws IOException {
+
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                // skip may return 0 before the end of the stream is reached
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+}
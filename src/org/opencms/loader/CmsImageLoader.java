@@ -29,6 +29,7 @@ package org.opencms.loader;
 
 import org.opencms.cache.CmsVfsNameBasedDiskCache;
 import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
@@ -38,10 +39,27 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.scheduler.jobs.CmsImageCacheCleanupJob;
+import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -58,6 +76,14 @@ import org.apache.commons.logging.Log;
  * For example, to scale an image to exact 800x600 pixel with center fitting and a background color of grey, 
  * the following parameter String can be used: <code>w:800,h:600,t:0,c:c0c0c0</code>.<p> 
  * 
+ * Scaled versions which are not cached yet are created by a bounded pool of worker threads, 
+ * concurrent requests for the same version wait for the same scaling operation. 
+ * If the pool is saturated, either the original image is served or the request is answered 
+ * with "503 - Service unavailable", see {@link #CONFIGURATION_SCALING_FALLBACK}.<p>
+ * 
+ * The image variants configured with {@link #CONFIGURATION_SCALING_VARIANTS} are created in the 
+ * background after an image has been published, so that the first request for them is served from the disk cache.<p>
+ * 
  * @since 6.2.0 
  */
 public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener {
@@ -77,6 +103,30 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The configuration parameter for the OpenCms XML configuration to enable the image scaling. */
     public static final String CONFIGURATION_SCALING_ENABLED = "image.scaling.enabled";
 
+    /** 
+     * The configuration parameter for the OpenCms XML configuration to set what happens 
+     * if the image scaling is saturated, either {@link #SCALING_FALLBACK_ORIGINAL} or {@link #SCALING_FALLBACK_UNAVAILABLE}. 
+     */
+    public static final String CONFIGURATION_SCALING_FALLBACK = "image.scaling.fallback";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the number of waiting scale operations. */
+    public static final String CONFIGURATION_SCALING_QUEUE_SIZE = "image.scaling.queuesize";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the number of image scaling threads. */
+    public static final String CONFIGURATION_SCALING_THREADS = "image.scaling.threads";
+
+    /** 
+     * The configuration parameter for the OpenCms XML configuration to set the image variants (scale parameters, 
+     * separated by <code>|</code>) which are created when an image is published. 
+     */
+    public static final String CONFIGURATION_SCALING_VARIANTS = "image.scaling.variants";
+
+    /** The default number of waiting image scale operations. */
+    public static final int DEFAULT_SCALING_QUEUE_SIZE = 20;
+
+    /** The default number of image scaling threads. */
+    public static final int DEFAULT_SCALING_THREADS = 2;
+
     /** Default name for the image cache repository. */
     public static final String IMAGE_REPOSITORY_DEFAULT = "/WEB-INF/imagecache/";
 
@@ -86,6 +136,12 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The id of this loader. */
     public static final int RESOURCE_LOADER_ID_IMAGE_LOADER = 2;
 
+    /** Fallback if the image scaling is saturated: Serve the original image. */
+    public static final String SCALING_FALLBACK_ORIGINAL = "original";
+
+    /** Fallback if the image scaling is saturated: Send "503 - Service unavailable". */
+    public static final String SCALING_FALLBACK_UNAVAILABLE = "unavailable";
+
     /** The log object for this class. */
     protected static final Log LOG = CmsLog.getLog(CmsImageLoader.class);
 
@@ -98,15 +154,39 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The maximum image size (width * height) to apply image blurring when down scaling (setting this to high may cause "out of memory" errors). */
     protected static int m_maxBlurSize = CmsImageScaler.SCALE_DEFAULT_MAX_BLUR_SIZE;
 
+    /** The thread pool for scaling images. */
+    protected static ThreadPoolExecutor m_scalingPool;
+
+    /** The currently running image scale operations, by cache name. */
+    protected static final ConcurrentHashMap<String, FutureTask<byte[]>> m_scalingTasks = new ConcurrentHashMap<String, FutureTask<byte[]>>();
+
+    /** The thread for creating the configured image variants of published images. */
+    protected static ThreadPoolExecutor m_variantPool;
+
     /** The disk cache to use for saving scaled image versions. */
     protected static CmsVfsNameBasedDiskCache m_vfsDiskCache;
 
+    /** Request attribute to indicate the image must be scaled even if the image scaling is saturated. */
+    private static final String ATTRIBUTE_NO_FALLBACK = CmsImageLoader.class.getName() + ".noFallback";
+
     /** The name of the configured image cache repository. */
     protected String m_imageRepositoryFolder;
 
     /** The maximum image size (width or height) to allow when up scaling an image using request parameters. */
     protected int m_maxScaleSize = CmsImageScaler.SCALE_DEFAULT_MAX_SIZE;
 
+    /** What happens if the image scaling is saturated. */
+    protected String m_scalingFallback = SCALING_FALLBACK_ORIGINAL;
+
+    /** The number of waiting image scale operations. */
+    protected int m_scalingQueueSize = DEFAULT_SCALING_QUEUE_SIZE;
+
+    /** The number of image scaling threads. */
+    protected int m_scalingThreads = DEFAULT_SCALING_THREADS;
+
+    /** The scale parameters of the image variants which are created when an image is published. */
+    protected List<String> m_scalingVariants = new ArrayList<String>();
+
     /**
      * Creates a new image loader.<p>
      */
@@ -197,6 +277,36 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             if (CONFIGURATION_DOWNSCALE.equals(paramName)) {
                 m_downScaleParams = paramValue.trim();
             }
+            if (CONFIGURATION_SCALING_THREADS.equals(paramName)) {
+                m_scalingThreads = Math.max(1, CmsStringUtil.getIntValue(
+                    paramValue,
+                    DEFAULT_SCALING_THREADS,
+                    paramName));
+            }
+            if (CONFIGURATION_SCALING_QUEUE_SIZE.equals(paramName)) {
+                m_scalingQueueSize = Math.max(1, CmsStringUtil.getIntValue(
+                    paramValue,
+                    DEFAULT_SCALING_QUEUE_SIZE,
+                    paramName));
+            }
+            if (CONFIGURATION_SCALING_FALLBACK.equals(paramName)) {
+                m_scalingFallback = SCALING_FALLBACK_UNAVAILABLE.equals(paramValue.trim())
+                ? SCALING_FALLBACK_UNAVAILABLE
+                : SCALING_FALLBACK_ORIGINAL;
+            }
+            if (CONFIGURATION_SCALING_VARIANTS.equals(paramName)) {
+                Iterator<String> i = CmsStringUtil.splitAsList(paramValue, '|', true).iterator();
+                while (i.hasNext()) {
+                    String variant = i.next();
+                    CmsImageScaler scaler = new CmsImageScaler(variant);
+                    if (scaler.isValid()) {
+                        // use the normalized parameters, since they are used for the cache name
+                        m_scalingVariants.add(scaler.toString());
+                    } else {
+                        LOG.warn(Messages.get().getBundle().key(Messages.LOG_IMAGE_VARIANT_INVALID_1, variant));
+                    }
+                }
+            }
         }
         super.addConfigurationParameter(paramName, paramValue);
     }
@@ -209,8 +319,12 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         if (event == null) {
             return;
         }
-        // only react on the clear caches event
         int type = event.getType();
+        if (type == I_CmsEventListener.EVENT_PUBLISH_PROJECT) {
+            scaleVariants(event);
+            return;
+        }
+        // otherwise only react on the clear caches event
         if (type != I_CmsEventListener.EVENT_CLEAR_CACHES) {
             return;
         }
@@ -241,6 +355,33 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         m_enabled = false;
         m_imageRepositoryFolder = null;
         m_vfsDiskCache = null;
+        if (m_scalingPool != null) {
+            m_scalingPool.shutdownNow();
+            m_scalingPool = null;
+        }
+        if (m_variantPool != null) {
+            m_variantPool.shutdownNow();
+            m_variantPool = null;
+        }
+    }
+
+    /**
+     * @see org.opencms.loader.CmsDumpLoader#export(org.opencms.file.CmsObject, org.opencms.file.CmsResource, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
+     */
+    @Override
+    public byte[] export(CmsObject cms, CmsResource resource, HttpServletRequest req, HttpServletResponse res)
+    throws IOException, CmsException {
+
+        if (req == null) {
+            return super.export(cms, resource, req, res);
+        }
+        // the exported image must always be scaled, even if this takes longer
+        req.setAttribute(ATTRIBUTE_NO_FALLBACK, Boolean.TRUE);
+        try {
+            return super.export(cms, resource, req, res);
+        } finally {
+            req.removeAttribute(ATTRIBUTE_NO_FALLBACK);
+        }
     }
 
     /**
@@ -283,7 +424,48 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                 OpenCms.getSystemInfo().getWebApplicationRfsPath(),
                 m_imageRepositoryFolder);
         }
-        OpenCms.addCmsEventListener(this);
+        // initialize the scaling thread pool
+        if (m_scalingPool == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            m_scalingPool = new ThreadPoolExecutor(
+                m_scalingThreads,
+                m_scalingThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(m_scalingQueueSize),
+                new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(r, "OpenCms: Image scaling " + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        }
+        if ((m_variantPool == null) && !m_scalingVariants.isEmpty()) {
+            // a single low priority thread, so that creating the variants never slows down the delivery 
+            m_variantPool = new ThreadPoolExecutor(
+                1,
+                1,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(r, "OpenCms: Image variants");
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }
+                });
+        }
+        // the image cache must be cleared when the event has been fired
+        OpenCms.addCmsEventListener(this, new int[] {I_CmsEventListener.EVENT_CLEAR_CACHES});
+        // scaling variants after publishing does not need to block the publishing thread
+        OpenCms.addCmsEventListener(this, new int[] {I_CmsEventListener.EVENT_PUBLISH_PROJECT}, true);
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(
@@ -292,6 +474,15 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             CmsLog.INIT.info(Messages.get().getBundle().key(
                 Messages.INIT_IMAGE_SCALING_ENABLED_1,
                 Boolean.valueOf(m_enabled)));
+            CmsLog.INIT.info(Messages.get().getBundle().key(
+                Messages.INIT_IMAGE_SCALING_POOL_2,
+                new Integer(m_scalingThreads),
+                new Integer(m_scalingQueueSize)));
+            if (!m_scalingVariants.isEmpty()) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_IMAGE_SCALING_VARIANTS_1,
+                    CmsStringUtil.collectionAsString(m_scalingVariants, "|")));
+            }
         }
     }
 
@@ -309,8 +500,28 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             }
             // get the scale information from the request
             CmsImageScaler scaler = new CmsImageScaler(req, m_maxScaleSize, m_maxBlurSize);
+            if (!(resource instanceof CmsFile)) {
+                // no export, so an image already in the disk cache can be send without reading it into memory
+                String cacheParam = scaler.isValid() ? scaler.toString() : null;
+                File cacheFile = m_vfsDiskCache.getCacheFile(m_vfsDiskCache.getCacheName(resource, cacheParam));
+                if (cacheFile != null) {
+                    setCacheHeaders(resource, req, res);
+                    sendFile(req, res, cacheFile, resource.getDateLastModified());
+                    return;
+                }
+            }
             // load the file from the cache
-            CmsFile file = getScaledImage(cms, resource, scaler);
+            CmsFile file = getScaledImage(cms, resource, scaler, req.getAttribute(ATTRIBUTE_NO_FALLBACK) != null);
+            if (file == null) {
+                // the image scaling is saturated
+                if (SCALING_FALLBACK_UNAVAILABLE.equals(m_scalingFallback)) {
+                    res.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    return;
+                }
+                // serve the original image, but make sure it is not cached by the client
+                CmsRequestUtil.setNoCacheHeaders(res);
+                file = cms.readFile(resource);
+            }
             // now perform standard load operation inherited from dump loader
             super.load(cms, file, req, res);
         } else {
@@ -338,34 +549,259 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     protected CmsFile getScaledImage(CmsObject cms, CmsResource resource, CmsImageScaler scaler)
     throws IOException, CmsException {
 
+        return getScaledImage(cms, resource, scaler, true);
+    }
+
+    /**
+     * Returns a scaled version of the given OpenCms VFS image resource.<p>
+     * 
+     * All results are cached in disk.
+     * If the scaled version does not exist in the cache, it is created by the image scaling thread pool,
+     * or the result of a running scale operation for the same version is awaited.
+     * Unscaled versions of the images are also stored in the cache.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * @param resource the base VFS resource for the image
+     * @param scaler the configured image scaler
+     * @param waitIfSaturated if <code>true</code>, the image is scaled in the current thread 
+     *      if the image scaling thread pool is saturated, otherwise <code>null</code> is returned in this case
+     * 
+     * @return a scaled version of the given OpenCms VFS image resource, 
+     *      or <code>null</code> if the image scaling is saturated and it should not be waited
+     * 
+     * @throws IOException in case of errors accessing the disk based cache
+     * @throws CmsException in case of errors accessing the OpenCms VFS
+     */
+    protected CmsFile getScaledImage(
+        CmsObject cms,
+        CmsResource resource,
+        CmsImageScaler scaler,
+        boolean waitIfSaturated) throws IOException, CmsException {
+
         String cacheParam = scaler.isValid() ? scaler.toString() : null;
         String cacheName = m_vfsDiskCache.getCacheName(resource, cacheParam);
         byte[] content = m_vfsDiskCache.getCacheContent(cacheName);
+        if (content == null) {
+            content = createCacheContent(cms, resource, scaler, cacheName, waitIfSaturated, false);
+            if (content == null) {
+                // image scaling is saturated
+                return null;
+            }
+        }
 
         CmsFile file;
-        if (content != null) {
-            if (resource instanceof CmsFile) {
-                // the original file content must be modified (required e.g. for static export)
-                file = (CmsFile)resource;
-            } else {
-                // this is no file, but we don't want to use "upgrade" since we don't need to read the content from the VFS
-                file = new CmsFile(resource);
-            }
-            // save the content in the file
-            file.setContents(content);
+        if (resource instanceof CmsFile) {
+            // the original file content must be modified (required e.g. for static export)
+            file = (CmsFile)resource;
         } else {
-            // we must read the content from the VFS (if this has not been done yet)
-            file = cms.readFile(resource);
-            // upgrade the file (load the content)
-            if (scaler.isValid()) {
-                // valid scaling parameters found, scale the content
-                content = scaler.scaleImage(file);
-                // exchange the content of the file with the scaled version
-                file.setContents(content);
-            }
-            // save the file content in the cache
-            m_vfsDiskCache.saveCacheFile(cacheName, file.getContents());
+            // this is no file, but we don't want to use "upgrade" since we don't need to read the content from the VFS
+            file = new CmsFile(resource);
         }
+        // save the content in the file
+        file.setContents(content);
         return file;
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates the (scaled) content of an image and saves it in the disk cache.<p>
+     * 
+     * Only one thread creates the content for the same cache name, other threads requesting it meanwhile
+     * wait for the result. The running task is only removed when it is complete, even if the thread that 
+     * started it is interrupted while waiting.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * @param resource the base VFS resource for the image
+     * @param scaler the configured image scaler
+     * @param cacheName the name of the cache file
+     * @param waitIfSaturated if <code>true</code>, the image is scaled in the current thread 
+     *      if the image scaling thread pool is saturated, otherwise <code>null</code> is returned in this case
+     * @param inCurrentThread if <code>true</code>, the image is always scaled in the current thread
+     *      instead of the image scaling thread pool
+     *      
+     * @return the created content, or <code>null</code> if the image scaling is saturated
+     * 
+     * @throws IOException in case of errors accessing the disk based cache
+     * @throws CmsException in case of errors accessing the OpenCms VFS
+     */
+    private byte[] createCacheContent(
+        CmsObject cms,
+        final CmsResource resource,
+        final CmsImageScaler scaler,
+        final String cacheName,
+        boolean waitIfSaturated,
+        boolean inCurrentThread) throws IOException, CmsException {
+
+        FutureTask<byte[]> runningTask = m_scalingTasks.get(cacheName);
+        if (runningTask == null) {
+            // the scaling thread must not share the context of the current request
+            final CmsObject scaleCms = OpenCms.initCmsObject(cms);
+            FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>() {
+
+                public byte[] call() throws Exception {
+
+                    // the content may have been created while this task was waiting
+                    byte[] content = m_vfsDiskCache.getCacheContent(cacheName);
+                    if (content == null) {
+                        CmsFile file = scaleCms.readFile(resource);
+                        if (scaler.isValid()) {
+                            // valid scaling parameters found, scale the content
+                            content = scaler.scaleImage(file);
+                        } else {
+                            content = file.getContents();
+                        }
+                        // save the file content in the cache
+                        m_vfsDiskCache.saveCacheFile(cacheName, content);
+                    }
+                    return content;
+                }
+            }) {
+
+                @Override
+                protected void done() {
+
+                    // only a completed task is removed, so that no duplicate task is started while it runs
+                    m_scalingTasks.remove(cacheName, this);
+                }
+            };
+            runningTask = m_scalingTasks.putIfAbsent(cacheName, task);
+            if (runningTask == null) {
+                // no other thread creates this content, so we do it
+                runningTask = task;
+                try {
+                    if ((m_scalingPool == null) || inCurrentThread) {
+                        task.run();
+                    } else {
+                        m_scalingPool.execute(task);
+                    }
+                } catch (RejectedExecutionException e) {
+                    if (!waitIfSaturated) {
+                        m_scalingTasks.remove(cacheName, task);
+                        if (LOG.isWarnEnabled()) {
+                            LOG.warn(Messages.get().getBundle().key(
+                                Messages.LOG_IMAGE_SCALING_SATURATED_1,
+                                resource.getRootPath()));
+                        }
+                        return null;
+                    }
+                    task.run();
+                }
+            }
+        }
+        try {
+            return runningTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CmsLoaderException(Messages.get().container(
+                Messages.ERR_IMAGE_SCALING_INTERRUPTED_1,
+                resource.getRootPath()), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof CmsException) {
+                throw (CmsException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new CmsLoaderException(Messages.get().container(
+                Messages.ERR_UNABLE_TO_SCALE_IMAGE_2,
+                resource.getRootPath(),
+                scaler.toString()), cause);
+        }
+    }
+
+    /**
+     * Starts creating the configured image variants for the images published by the given publish event.<p>
+     * 
+     * @param event the publish event
+     */
+    private void scaleVariants(CmsEvent event) {
+
+        ThreadPoolExecutor pool = m_variantPool;
+        if (!m_enabled || (pool == null) || (event.getData() == null)) {
+            return;
+        }
+        Object publishHistoryId = event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+        if (publishHistoryId == null) {
+            return;
+        }
+        final CmsUUID publishId = new CmsUUID(String.valueOf(publishHistoryId));
+        try {
+            pool.execute(new Runnable() {
+
+                public void run() {
+
+                    scaleVariants(publishId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the loader has been destroyed meanwhile
+        }
+    }
+
+    /**
+     * Creates the configured image variants for all images of the given publish job, 
+     * unless they are already in the disk cache.<p>
+     * 
+     * The images are read with the export user, just like in the static export.<p>
+     * 
+     * @param publishHistoryId the publish history id of the publish job
+     */
+    private void scaleVariants(CmsUUID publishHistoryId) {
+
+        CmsObject cms;
+        List<CmsPublishedResource> publishedResources;
+        try {
+            cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
+            cms.getRequestContext().setSiteRoot("/");
+            publishedResources = cms.readPublishedResources(publishHistoryId);
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return;
+        }
+        Iterator<CmsPublishedResource> i = publishedResources.iterator();
+        while (i.hasNext() && !Thread.currentThread().isInterrupted()) {
+            CmsPublishedResource published = i.next();
+            if (!published.isFile() || published.getState().isDeleted()) {
+                continue;
+            }
+            CmsResource resource;
+            try {
+                if (OpenCms.getResourceManager().getResourceType(published.getType()).getLoaderId() != getLoaderId()) {
+                    // no image
+                    continue;
+                }
+                resource = cms.readResource(published.getStructureId());
+            } catch (CmsException e) {
+                // the resource is not available for the export user or has been deleted meanwhile
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+                continue;
+            }
+            Iterator<String> j = m_scalingVariants.iterator();
+            while (j.hasNext()) {
+                String variant = j.next();
+                CmsVfsNameBasedDiskCache diskCache = m_vfsDiskCache;
+                if (diskCache == null) {
+                    // the loader has been destroyed
+                    return;
+                }
+                String cacheName = diskCache.getCacheName(resource, variant);
+                if (diskCache.getCacheFile(cacheName) != null) {
+                    continue;
+                }
+                try {
+                    createCacheContent(cms, resource, new CmsImageScaler(variant), cacheName, true, true);
+                } catch (Exception e) {
+                    LOG.warn(Messages.get().getBundle().key(
+                        Messages.LOG_IMAGE_VARIANT_FAILED_2,
+                        resource.getRootPath(),
+                        variant), e);
+                }
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@
 
 package org.opencms.loader;
 
+import org.opencms.cache.CmsConcurrentLruMap;
 import org.opencms.configuration.CmsParameterConfiguration;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
@@ -52,15 +53,14 @@ import org.opencms.relations.CmsRelation;
 import org.opencms.relations.CmsRelationFilter;
 import org.opencms.relations.CmsRelationType;
 import org.opencms.staticexport.CmsLinkManager;
-import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsKeyedLock;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.I_CmsRegexSubstitution;
 import org.opencms.workplace.CmsWorkplaceManager;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
@@ -74,7 +74,6 @@ import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -84,7 +83,6 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 
 import com.google.common.base.Splitter;
@@ -161,6 +159,15 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     /** Jsp repository parameter name. */
     public static final String PARAM_JSP_REPOSITORY = "jsp.repository";
 
+    /** Parameter name for the root paths of the folders with JSPs to compile on startup and after publishing. */
+    public static final String PARAM_JSP_WARMUP_PATHS = "jsp.warmup.paths";
+
+    /** Parameter name for the server to request the JSPs from for the warm-up. */
+    public static final String PARAM_JSP_WARMUP_SERVER = "jsp.warmup.server";
+
+    /** Parameter name for the number of threads used for the JSP warm-up. */
+    public static final String PARAM_JSP_WARMUP_THREADS = "jsp.warmup.threads";
+
     /** The id of this loader. */
     public static final int RESOURCE_LOADER_ID = 6;
 
@@ -176,9 +183,8 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     /** The directory to store the generated JSP pages in (relative path in web application). */
     private static String m_jspWebAppRepository;
 
-    /** Read write locks for jsp files. */
-    @SuppressWarnings("unchecked")
-    private static Map<String, ReentrantReadWriteLock> m_fileLocks = new LRUMap(10000);
+    /** Locks for updating the files in the JSP repository, keyed by the file path. */
+    private static CmsKeyedLock<String> m_fileLocks = new CmsKeyedLock<String>();
 
     /** The CmsFlexCache used to store generated cache entries in. */
     private CmsFlexCache m_cache;
@@ -198,6 +204,9 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     /** A map from taglib names to their URIs. */
     private Map<String, String> m_taglibs = Maps.newHashMap();
 
+    /** The JSP warm-up, or <code>null</code> if not configured. */
+    private CmsJspWarmUp m_warmUp;
+
     /**
      * The constructor of the class is empty, the initial instance will be 
      * created by the resource manager upon startup of OpenCms.<p>
@@ -259,11 +268,13 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     }
 
     /** 
-     * Destroy this ResourceLoder, this is a NOOP so far.  
+     * Destroy this ResourceLoder, this stops the JSP warm-up if configured.  
      */
     public void destroy() {
 
-        // NOOP
+        if (m_warmUp != null) {
+            m_warmUp.shutDown();
+        }
     }
 
     /**
@@ -426,6 +437,16 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             initCaches(cacheSize);
         }
 
+        // start the warm-up if JSPs to compile in advance are configured
+        String warmUpPaths = m_configuration.get(PARAM_JSP_WARMUP_PATHS);
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(warmUpPaths)) {
+            m_warmUp = new CmsJspWarmUp(
+                CmsStringUtil.splitAsList(warmUpPaths, ',', true),
+                m_configuration.get(PARAM_JSP_WARMUP_SERVER),
+                m_configuration.getInteger(PARAM_JSP_WARMUP_THREADS, CmsJspWarmUp.DEFAULT_THREADS));
+            m_warmUp.initialize();
+        }
+
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_JSP_REPOSITORY_ABS_PATH_1, m_jspRepository));
@@ -441,6 +462,12 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
                     Messages.INIT_JSP_CACHE_SIZE_1,
                     String.valueOf(cacheSize)));
             }
+            if (m_warmUp != null) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_JSP_WARMUP_2,
+                    CmsStringUtil.collectionAsString(m_warmUp.getPaths(), ", "),
+                    new Integer(m_warmUp.getThreads())));
+            }
             CmsLog.INIT.info(Messages.get().getBundle().key(
                 Messages.INIT_LOADER_INITIALIZED_1,
                 this.getClass().getName()));
@@ -685,7 +712,18 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             jspVfsName + extension,
             controller.getCurrentRequest().isOnline());
 
-        File d = new File(jspPath).getParentFile();
+        File jspFile = new File(jspPath);
+        Map<String, Boolean> jspCache = controller.getCurrentRequest().isOnline() ? m_onlineJsps : m_offlineJsps;
+        if (!controller.getCurrentRequest().isDoRecompile() && jspCache.containsKey(jspVfsName)) {
+            // the JSP has already been written, if it is still newer than the VFS file no lock is required
+            long jspModificationDate = jspFile.lastModified();
+            if (jspModificationDate > resource.getDateLastModified()) {
+                controller.updateDates(jspModificationDate, CmsResource.DATE_EXPIRED_DEFAULT);
+                return jspTargetName;
+            }
+        }
+
+        File d = jspFile.getParentFile();
         if ((d == null) || (d.exists() && !(d.isDirectory() && d.canRead()))) {
             CmsMessageContainer message = Messages.get().container(Messages.LOG_ACCESS_DENIED_1, jspPath);
             LOG.error(message.key());
@@ -695,132 +733,91 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
 
         if (!d.exists()) {
             // create directory structure
-            d.mkdirs();
+            boolean success = d.mkdirs();
+            if (!success && !d.isDirectory()) {
+                LOG.error(org.opencms.db.Messages.get().getBundle().key(
+                    org.opencms.db.Messages.LOG_CREATE_FOLDER_FAILED_1,
+                    d.getAbsolutePath()));
+            }
         }
-        ReentrantReadWriteLock readWriteLock = getFileLock(jspVfsName);
+
+        // only updates of the same repository file are serialized, the check is repeated with the lock held
+        boolean locked = lockJspFile(jspPath);
         try {
-            // get a read lock for this jsp
-            readWriteLock.readLock().lock();
-            File jspFile = new File(jspPath);
             // check if the JSP must be updated
             boolean mustUpdate = false;
-            long jspModificationDate = 0;
-            if (!jspFile.exists()) {
+            long jspModificationDate = jspFile.lastModified();
+            if (jspModificationDate == 0) {
                 // file does not exist in real FS
                 mustUpdate = true;
-                // make sure the parent folder exists
-                File folder = jspFile.getParentFile();
-                if (!folder.exists()) {
-                    boolean success = folder.mkdirs();
-                    if (!success) {
-                        LOG.error(org.opencms.db.Messages.get().getBundle().key(
-                            org.opencms.db.Messages.LOG_CREATE_FOLDER_FAILED_1,
-                            folder.getAbsolutePath()));
-                    }
-                }
+            } else if (jspModificationDate <= resource.getDateLastModified()) {
+                // file in real FS is older then file in VFS
+                mustUpdate = true;
+            } else if (controller.getCurrentRequest().isDoRecompile()) {
+                // recompile is forced with parameter
+                mustUpdate = true;
             } else {
-                jspModificationDate = jspFile.lastModified();
-                if (jspModificationDate <= resource.getDateLastModified()) {
-                    // file in real FS is older then file in VFS
-                    mustUpdate = true;
-                } else if (controller.getCurrentRequest().isDoRecompile()) {
-                    // recompile is forced with parameter
-                    mustUpdate = true;
-                } else {
-                    // check if update is needed
-                    if (controller.getCurrentRequest().isOnline()) {
-                        mustUpdate = !m_onlineJsps.containsKey(jspVfsName);
-                    } else {
-                        mustUpdate = !m_offlineJsps.containsKey(jspVfsName);
-                    }
-                    // check strong links only if update is needed
-                    if (mustUpdate) {
-                        // update strong link dependencies
-                        mustUpdate = updateStrongLinks(resource, controller, updatedFiles);
-                    }
+                // check if update is needed
+                mustUpdate = !jspCache.containsKey(jspVfsName);
+                // check strong links only if update is needed
+                if (mustUpdate) {
+                    // update strong link dependencies
+                    mustUpdate = updateStrongLinks(resource, controller, updatedFiles);
                 }
             }
             if (mustUpdate) {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_WRITING_JSP_1, jspTargetName));
                 }
-                // jsp needs updating, acquire a write lock
-                readWriteLock.readLock().unlock();
-                readWriteLock.writeLock().lock();
+                updatedFiles.add(jspTargetName);
+                byte[] contents;
+                String encoding;
                 try {
-                    // check again if updating is still necessary as this might have happened while waiting for the write lock
-                    if (!jspFile.exists() || (jspModificationDate == jspFile.lastModified())) {
-                        updatedFiles.add(jspTargetName);
-                        byte[] contents;
-                        String encoding;
-                        try {
-                            CmsObject cms = controller.getCmsObject();
-                            contents = cms.readFile(resource).getContents();
-                            // check the "content-encoding" property for the JSP, use system default if not found on path
-                            encoding = cms.readPropertyObject(
-                                resource,
-                                CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING,
-                                true).getValue();
-                            if (encoding == null) {
-                                encoding = OpenCms.getSystemInfo().getDefaultEncoding();
-                            } else {
-                                encoding = CmsEncoder.lookupEncoding(encoding.trim(), encoding);
-                            }
-                        } catch (CmsException e) {
-                            controller.setThrowable(e, jspVfsName);
-                            throw new ServletException(Messages.get().getBundle().key(
-                                Messages.ERR_LOADER_JSP_ACCESS_1,
-                                jspVfsName), e);
-                        }
-
-                        try {
-                            // parse the JSP and modify OpenCms critical directives
-                            contents = parseJsp(contents, encoding, controller, updatedFiles, isHardInclude);
-                            if (LOG.isInfoEnabled()) {
-                                // check for existing file and display some debug info
-                                LOG.info(Messages.get().getBundle().key(
-                                    Messages.LOG_JSP_PERMCHECK_4,
-                                    new Object[] {
-                                        jspFile.getAbsolutePath(),
-                                        Boolean.valueOf(jspFile.exists()),
-                                        Boolean.valueOf(jspFile.isFile()),
-                                        Boolean.valueOf(jspFile.canWrite())}));
-                            }
-                            // write the parsed JSP content to the real FS
-                            synchronized (CmsJspLoader.class) {
-                                // this must be done only one file at a time
-                                FileOutputStream fs = new FileOutputStream(jspFile);
-                                fs.write(contents);
-                                fs.close();
-                            }
-                            if (controller.getCurrentRequest().isOnline()) {
-                                m_onlineJsps.put(jspVfsName, Boolean.TRUE);
-                            } else {
-                                m_offlineJsps.put(jspVfsName, Boolean.TRUE);
-                            }
-                            if (LOG.isInfoEnabled()) {
-                                LOG.info(Messages.get().getBundle().key(
-                                    Messages.LOG_UPDATED_JSP_2,
-                                    jspTargetName,
-                                    jspVfsName));
-                            }
-                        } catch (FileNotFoundException e) {
-                            throw new ServletException(Messages.get().getBundle().key(
-                                Messages.ERR_LOADER_JSP_WRITE_1,
-                                jspFile.getName()), e);
-                        }
+                    CmsObject cms = controller.getCmsObject();
+                    contents = cms.readFile(resource).getContents();
+                    // check the "content-encoding" property for the JSP, use system default if not found on path
+                    encoding = cms.readPropertyObject(
+                        resource,
+                        CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING,
+                        true).getValue();
+                    if (encoding == null) {
+                        encoding = OpenCms.getSystemInfo().getDefaultEncoding();
+                    } else {
+                        encoding = CmsEncoder.lookupEncoding(encoding.trim(), encoding);
                     }
-                } finally {
-                    readWriteLock.readLock().lock();
-                    readWriteLock.writeLock().unlock();
+                } catch (CmsException e) {
+                    controller.setThrowable(e, jspVfsName);
+                    throw new ServletException(Messages.get().getBundle().key(
+                        Messages.ERR_LOADER_JSP_ACCESS_1,
+                        jspVfsName), e);
+                }
+
+                // parse the JSP and modify OpenCms critical directives
+                contents = parseJsp(contents, encoding, controller, updatedFiles, isHardInclude);
+                if (LOG.isInfoEnabled()) {
+                    // check for existing file and display some debug info
+                    LOG.info(Messages.get().getBundle().key(
+                        Messages.LOG_JSP_PERMCHECK_4,
+                        new Object[] {
+                            jspFile.getAbsolutePath(),
+                            Boolean.valueOf(jspFile.exists()),
+                            Boolean.valueOf(jspFile.isFile()),
+                            Boolean.valueOf(jspFile.canWrite())}));
+                }
+                // write the parsed JSP content to the real FS
+                writeJspFile(jspFile, contents);
+                jspCache.put(jspVfsName, Boolean.TRUE);
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(Messages.get().getBundle().key(Messages.LOG_UPDATED_JSP_2, jspTargetName, jspVfsName));
                 }
             }
 
             // update "last modified" and "expires" date on controller
             controller.updateDates(jspFile.lastModified(), CmsResource.DATE_EXPIRED_DEFAULT);
         } finally {
-            //m_processingFiles.remove(jspVfsName);
-            readWriteLock.readLock().unlock();
+            if (locked) {
+                m_fileLocks.unlock(jspPath);
+            }
         }
 
         return jspTargetName;
@@ -1050,6 +1047,16 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         return controller;
     }
 
+    /**
+     * Returns the locks for updating the files in the JSP repository, keyed by the absolute file path.<p>
+     * 
+     * @return the locks for updating the files in the JSP repository
+     */
+    protected CmsKeyedLock<String> getFileLocks() {
+
+        return m_fileLocks;
+    }
+
     /**
      * Initializes the caches.<p>
      * 
@@ -1057,10 +1064,8 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
      */
     protected void initCaches(int cacheSize) {
 
-        Map<String, Boolean> map = CmsCollectionsGenericWrapper.createLRUMap(cacheSize);
-        m_offlineJsps = Collections.synchronizedMap(map);
-        map = CmsCollectionsGenericWrapper.createLRUMap(cacheSize);
-        m_onlineJsps = Collections.synchronizedMap(map);
+        m_offlineJsps = new CmsConcurrentLruMap<String, Boolean>(cacheSize);
+        m_onlineJsps = new CmsConcurrentLruMap<String, Boolean>(cacheSize);
     }
 
     /**
@@ -1616,19 +1621,65 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     }
 
     /**
-     * Returns the read-write-lock for the given jsp vfs name.<p>
+     * Writes the given contents to the given file in the JSP repository.<p>
+     * 
+     * The contents are first written to a temporary file in the same folder, which then replaces
+     * the target file, so the servlet container never compiles a partially written JSP
+     * and concurrent writes of the same file can not corrupt it.<p>
      * 
-     * @param jspVfsName the jsp vfs name
+     * @param jspFile the file to write
+     * @param contents the contents to write
      * 
-     * @return the read-write-lock
+     * @throws ServletException if the file could not be written 
      */
-    private ReentrantReadWriteLock getFileLock(String jspVfsName) {
+    protected void writeJspFile(File jspFile, byte[] contents) throws ServletException {
 
-        synchronized (m_fileLocks) {
-            if (!m_fileLocks.containsKey(jspVfsName)) {
-                m_fileLocks.put(jspVfsName, new ReentrantReadWriteLock(true));
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile(jspFile.getName() + ".", ".tmp", jspFile.getParentFile());
+            FileOutputStream fs = new FileOutputStream(tempFile);
+            try {
+                fs.write(contents);
+            } finally {
+                fs.close();
+            }
+            if (!tempFile.renameTo(jspFile)) {
+                // some file systems can not replace an existing file by renaming
+                jspFile.delete();
+                if (!tempFile.renameTo(jspFile)) {
+                    throw new IOException(jspFile.getAbsolutePath());
+                }
+            }
+            tempFile = null;
+        } catch (IOException e) {
+            throw new ServletException(Messages.get().getBundle().key(
+                Messages.ERR_LOADER_JSP_WRITE_1,
+                jspFile.getName()), e);
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
             }
-            return m_fileLocks.get(jspVfsName);
         }
     }
+
+    /**
+     * Locks the given file of the JSP repository for updating.<p>
+     * 
+     * The updates of included JSPs are nested in the update of the including JSP. 
+     * Waiting for the lock of an included JSP could deadlock if two JSPs include each other, so nested updates 
+     * only take the lock if it is available. Otherwise they check and write the file without the lock, 
+     * this is safe since each write atomically replaces the file with the same contents.<p>
+     * 
+     * @param jspPath the path of the file in the JSP repository
+     * 
+     * @return <code>true</code> if the lock has been acquired and must be released
+     */
+    private boolean lockJspFile(String jspPath) {
+
+        if ((m_fileLocks.getHoldCount() > 0) && !m_fileLocks.isHeldByCurrentThread(jspPath)) {
+            return m_fileLocks.tryLock(jspPath);
+        }
+        m_fileLocks.lock(jspPath);
+        return true;
+    }
 }
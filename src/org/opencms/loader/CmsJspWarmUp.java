@@ -0,0 +1,546 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.loader;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeJsp;
+import org.opencms.flex.CmsFlexRequest;
+import org.opencms.i18n.CmsLocaleManager;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.report.CmsBufferedReport;
+import org.opencms.report.CmsLogReport;
+import org.opencms.report.I_CmsReport;
+import org.opencms.site.CmsSite;
+import org.opencms.site.CmsSiteMatcher;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Compiles the JSPs below the configured paths in advance, when OpenCms is started 
+ * and after the JSPs have been published.<p>
+ * 
+ * A JSP is compiled by requesting it from the server with the <code>jsp_precompile</code> parameter
+ * defined by the JSP specification. This makes the {@link CmsJspLoader} write the JSP and all JSPs it 
+ * includes to the JSP repository, and the servlet container compiles the JSP without executing it.
+ * Several JSPs are requested in parallel.<p>
+ * 
+ * All JSPs are requested from the configured server, or from the workplace server if no server is configured,
+ * so that each node of a cluster compiles its own JSPs. JSPs in the site the server belongs to are requested
+ * relative to the site root, all other JSPs (e.g. below <code>/system/</code>) by their root path.<p>
+ * 
+ * After publishing, the published JSPs and all JSPs that include them with the <code>link.strong</code> macro 
+ * are compiled. Publish events are delivered asynchronously, so the publish queue does not wait for this.<p>
+ * 
+ * @since 8.5.0
+ */
+public class CmsJspWarmUp implements I_CmsEventListener {
+
+    /** The default number of threads used to request the JSPs. */
+    public static final int DEFAULT_THREADS = 4;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsJspWarmUp.class);
+
+    /** The interval to check if the server has been started, in milliseconds. */
+    private static final long STARTUP_POLL_INTERVAL = 5000;
+
+    /** The maximum number of checks if the server has been started. */
+    private static final int STARTUP_POLL_MAX = 120;
+
+    /** The timeout for connecting to the server and for compiling a single JSP, in milliseconds. */
+    private static final int TIMEOUT = 300000;
+
+    /** The root paths of the folders containing the JSPs to compile. */
+    private List<String> m_paths;
+
+    /** The server to request the JSPs from, or <code>null</code>. */
+    private String m_server;
+
+    /** The thread that compiles the JSPs on startup. */
+    private Thread m_startupThread;
+
+    /** The number of threads used to request the JSPs. */
+    private int m_threads;
+
+    /**
+     * Creates a new JSP warm-up.<p>
+     * 
+     * @param paths the root paths of the folders containing the JSPs to compile
+     * @param server the server to request the JSPs from, e.g. <code>http://localhost:8080</code>, 
+     *      or <code>null</code> to use the workplace server
+     * @param threads the number of threads used to request the JSPs
+     */
+    public CmsJspWarmUp(List<String> paths, String server, int threads) {
+
+        List<String> folders = new ArrayList<String>(paths.size());
+        for (String path : paths) {
+            folders.add(CmsStringUtil.joinPaths(path, "/"));
+        }
+        m_paths = Collections.unmodifiableList(folders);
+        m_server = CmsStringUtil.isEmptyOrWhitespaceOnly(server) ? null : server.trim();
+        m_threads = Math.max(1, threads);
+    }
+
+    /**
+     * Compiles the published JSPs below the configured paths after a publish event.<p>
+     * 
+     * The event is delivered asynchronously, when the publish report has already been closed, 
+     * so the progress is written to the log.<p>
+     * 
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        if ((event.getType() != I_CmsEventListener.EVENT_PUBLISH_PROJECT) || (event.getData() == null)) {
+            return;
+        }
+        Object publishHistoryId = event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+        if (publishHistoryId == null) {
+            return;
+        }
+        I_CmsReport report = new CmsLogReport(CmsLocaleManager.getDefaultLocale(), getClass());
+        try {
+            List<CmsResource> jsps = getPublishedJsps(new CmsUUID(String.valueOf(publishHistoryId)));
+            if (!jsps.isEmpty()) {
+                warmUp(jsps, report);
+            }
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the root paths of the folders containing the JSPs to compile.<p>
+     * 
+     * @return the root paths of the folders containing the JSPs to compile
+     */
+    public List<String> getPaths() {
+
+        return m_paths;
+    }
+
+    /**
+     * Returns the server to request the JSPs from.<p>
+     * 
+     * @return the server to request the JSPs from, or <code>null</code> to use the workplace server
+     */
+    public String getServer() {
+
+        return m_server;
+    }
+
+    /**
+     * Returns the number of threads used to request the JSPs.<p>
+     * 
+     * @return the number of threads used to request the JSPs
+     */
+    public int getThreads() {
+
+        return m_threads;
+    }
+
+    /**
+     * Registers this warm-up for asynchronous publish events and starts compiling all JSPs below the configured paths
+     * in a background thread, as soon as the server is available.<p>
+     */
+    public synchronized void initialize() {
+
+        // compiling may take minutes, the publish queue must not wait for this
+        OpenCms.addCmsEventListener(this, new int[] {I_CmsEventListener.EVENT_PUBLISH_PROJECT}, true);
+        if (m_startupThread == null) {
+            m_startupThread = new Thread("OpenCms: JSP warm-up") {
+
+                @Override
+                public void run() {
+
+                    warmUpOnStartup();
+                }
+            };
+            m_startupThread.setDaemon(true);
+            m_startupThread.start();
+        }
+    }
+
+    /**
+     * Stops compiling JSPs on startup, if this is still running.<p>
+     */
+    public synchronized void shutDown() {
+
+        OpenCms.removeCmsEventListener(this);
+        if (m_startupThread != null) {
+            m_startupThread.interrupt();
+            m_startupThread = null;
+        }
+    }
+
+    /**
+     * Compiles the given JSPs, using several threads if configured.<p>
+     * 
+     * @param jsps the JSPs to compile
+     * @param report the report to write the progress to
+     */
+    public void warmUp(List<CmsResource> jsps, final I_CmsReport report) {
+
+        report.println(Messages.get().container(Messages.RPT_JSP_WARMUP_BEGIN_0), I_CmsReport.FORMAT_HEADLINE);
+        final int size = jsps.size();
+        final AtomicInteger count = new AtomicInteger();
+        int threads = Math.min(m_threads, size);
+        if (threads <= 1) {
+            for (CmsResource jsp : jsps) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                warmUp(jsp, count, size, report);
+            }
+        } else {
+            final AtomicInteger threadCount = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "OpenCms: JSP warm-up " + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            try {
+                for (final CmsResource jsp : jsps) {
+                    executor.execute(new Runnable() {
+
+                        public void run() {
+
+                            // the output for one JSP must not be mixed up with the output of the other threads
+                            CmsBufferedReport jobReport = new CmsBufferedReport(report);
+                            try {
+                                warmUp(jsp, count, size, jobReport);
+                            } finally {
+                                jobReport.flush();
+                            }
+                        }
+                    });
+                }
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        report.println(Messages.get().container(Messages.RPT_JSP_WARMUP_END_0), I_CmsReport.FORMAT_HEADLINE);
+    }
+
+    /**
+     * Returns all JSPs below the configured paths.<p>
+     * 
+     * @return all JSPs below the configured paths
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    protected List<CmsResource> getJsps() throws CmsException {
+
+        CmsObject cms = getCmsObject();
+        Map<String, CmsResource> result = new LinkedHashMap<String, CmsResource>();
+        for (String path : m_paths) {
+            if (!cms.existsResource(path)) {
+                continue;
+            }
+            for (Integer typeId : CmsResourceTypeJsp.getJspResourceTypeIds()) {
+                CmsResourceFilter filter = CmsResourceFilter.DEFAULT_FILES.addRequireType(typeId.intValue());
+                for (CmsResource jsp : cms.readResources(path, filter, true)) {
+                    result.put(jsp.getRootPath(), jsp);
+                }
+            }
+        }
+        return new ArrayList<CmsResource>(result.values());
+    }
+
+    /**
+     * Returns the JSPs below the configured paths that have been published by the given publish job,
+     * or that include a published JSP with the <code>link.strong</code> macro.<p>
+     * 
+     * Published JSPs outside of the configured paths are also checked for including JSPs, 
+     * since a changed include changes the code of all JSPs that include it.<p>
+     * 
+     * @param publishHistoryId the publish history id of the publish job
+     * 
+     * @return the published JSPs and the JSPs including them below the configured paths
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    protected List<CmsResource> getPublishedJsps(CmsUUID publishHistoryId) throws CmsException {
+
+        CmsObject cms = getCmsObject();
+        CmsJspLoader loader = (CmsJspLoader)OpenCms.getResourceManager().getLoader(CmsJspLoader.RESOURCE_LOADER_ID);
+        Map<String, CmsResource> result = new LinkedHashMap<String, CmsResource>();
+        Set<String> includingPaths = new LinkedHashSet<String>();
+        for (CmsPublishedResource published : cms.readPublishedResources(publishHistoryId)) {
+            if (!published.isFile()
+                || published.getState().isDeleted()
+                || !CmsResourceTypeJsp.isJspTypeId(published.getType())) {
+                continue;
+            }
+            try {
+                CmsResource jsp = cms.readResource(published.getStructureId());
+                if (isWarmUpPath(jsp.getRootPath())) {
+                    result.put(jsp.getRootPath(), jsp);
+                }
+                if (loader != null) {
+                    // collects the including JSPs recursively
+                    loader.getReferencingStrongLinks(cms, jsp, includingPaths);
+                }
+            } catch (CmsException e) {
+                // the JSP is not available for the export user or has been deleted meanwhile
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+        for (String path : includingPaths) {
+            if (result.containsKey(path) || !isWarmUpPath(path)) {
+                continue;
+            }
+            try {
+                CmsResource jsp = cms.readResource(path);
+                if (jsp.isFile() && CmsResourceTypeJsp.isJspTypeId(jsp.getTypeId())) {
+                    result.put(path, jsp);
+                }
+            } catch (CmsException e) {
+                // the JSP is not available for the export user or has been deleted meanwhile
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+        return new ArrayList<CmsResource>(result.values());
+    }
+
+    /**
+     * Returns the URL that makes the servlet container compile the given JSP.<p>
+     * 
+     * The URL always points to the configured server. JSPs in other sites than the site of that server 
+     * can not be reached through it, so they should be kept outside of the configured paths.<p>
+     * 
+     * @param jsp the JSP
+     * 
+     * @return the URL that makes the servlet container compile the given JSP
+     */
+    protected String getWarmUpUrl(CmsResource jsp) {
+
+        String server = (m_server != null) ? m_server : OpenCms.getSiteManager().getWorkplaceServer();
+        if (server.endsWith("/")) {
+            server = server.substring(0, server.length() - 1);
+        }
+        String path = jsp.getRootPath();
+        // the request is matched to the site of the server, or to the default site
+        CmsSite site = OpenCms.getSiteManager().matchSite(new CmsSiteMatcher(server));
+        if ((site != null)
+            && CmsStringUtil.isNotEmpty(site.getSiteRoot())
+            && path.startsWith(CmsStringUtil.joinPaths(site.getSiteRoot(), "/"))) {
+            path = path.substring(site.getSiteRoot().length());
+        }
+        return server
+            + OpenCms.getSystemInfo().getOpenCmsContext()
+            + path
+            + "?"
+            + CmsFlexRequest.PARAMETER_JSP_PRECOMPILE
+            + "=true";
+    }
+
+    /**
+     * Checks if the given root path is below one of the configured paths.<p>
+     * 
+     * @param rootPath the root path to check
+     * 
+     * @return <code>true</code> if the given root path is below one of the configured paths
+     */
+    protected boolean isWarmUpPath(String rootPath) {
+
+        Iterator<String> i = m_paths.iterator();
+        while (i.hasNext()) {
+            if (rootPath.startsWith(i.next())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Requests the given URL and returns the HTTP status of the response.<p>
+     * 
+     * @param url the URL to request
+     * 
+     * @return the HTTP status of the response
+     * 
+     * @throws IOException if the request fails
+     */
+    protected int request(String url) throws IOException {
+
+        HttpURLConnection urlcon = (HttpURLConnection)new URL(url).openConnection();
+        urlcon.setInstanceFollowRedirects(false);
+        urlcon.setConnectTimeout(TIMEOUT);
+        urlcon.setReadTimeout(TIMEOUT);
+        urlcon.setRequestMethod("GET");
+        try {
+            urlcon.connect();
+            return urlcon.getResponseCode();
+        } finally {
+            urlcon.disconnect();
+        }
+    }
+
+    /**
+     * Compiles a single JSP.<p>
+     * 
+     * @param jsp the JSP to compile
+     * @param count the counter for the compiled JSPs in the report
+     * @param size the total number of JSPs to compile
+     * @param report the report to write the progress to
+     */
+    protected void warmUp(CmsResource jsp, AtomicInteger count, int size, I_CmsReport report) {
+
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_2,
+                new Integer(count.incrementAndGet()),
+                new Integer(size)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_JSP_WARMUP_0), I_CmsReport.FORMAT_NOTE);
+        report.print(org.opencms.report.Messages.get().container(
+            org.opencms.report.Messages.RPT_ARGUMENT_1,
+            jsp.getRootPath()));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+        try {
+            int status = request(getWarmUpUrl(jsp));
+            if (status == HttpServletResponse.SC_OK) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            } else {
+                report.println(
+                    org.opencms.report.Messages.get().container(
+                        org.opencms.report.Messages.RPT_ARGUMENT_1,
+                        new Integer(status)),
+                    I_CmsReport.FORMAT_WARNING);
+            }
+        } catch (IOException e) {
+            report.println(e);
+        }
+    }
+
+    /**
+     * Compiles all JSPs below the configured paths once the OpenCms servlet and the server are available.<p>
+     * 
+     * Nothing is compiled if OpenCms is started in a shell.<p>
+     */
+    protected void warmUpOnStartup() {
+
+        try {
+            // wait until the OpenCms servlet has been initialized
+            int polls = 0;
+            while (OpenCms.getRunLevel() < OpenCms.RUNLEVEL_3_SHELL_ACCESS) {
+                if (polls++ > STARTUP_POLL_MAX) {
+                    return;
+                }
+                Thread.sleep(STARTUP_POLL_INTERVAL);
+            }
+            if (OpenCms.getRunLevel() != OpenCms.RUNLEVEL_4_SERVLET_ACCESS) {
+                return;
+            }
+            List<CmsResource> jsps = getJsps();
+            if (jsps.isEmpty()) {
+                return;
+            }
+            // the server usually accepts requests only after all web applications have been started
+            String url = getWarmUpUrl(jsps.get(0));
+            while (true) {
+                try {
+                    request(url);
+                    break;
+                } catch (ConnectException e) {
+                    if (polls++ > STARTUP_POLL_MAX) {
+                        LOG.warn(Messages.get().getBundle().key(Messages.LOG_JSP_WARMUP_SERVER_UNAVAILABLE_1, url));
+                        return;
+                    }
+                    Thread.sleep(STARTUP_POLL_INTERVAL);
+                }
+            }
+            warmUp(jsps, new CmsLogReport(CmsLocaleManager.getDefaultLocale(), getClass()));
+        } catch (InterruptedException e) {
+            // OpenCms is shutting down
+        } catch (Exception e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Returns a new context of the export user in the root site of the online project.<p>
+     * 
+     * The JSPs are read with the export user, just like in the static export.<p>
+     * 
+     * @return a new context of the export user
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    private CmsObject getCmsObject() throws CmsException {
+
+        CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
+        cms.getRequestContext().setSiteRoot("/");
+        return cms;
+    }
+}
@@ -46,6 +46,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_CONFLICTING_RESTYPES_IN_MODULE_5 = "ERR_CONFLICTING_RESTYPES_IN_MODULE_5";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_IMAGE_SCALING_INTERRUPTED_1 = "ERR_IMAGE_SCALING_INTERRUPTED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_INVALID_COLLECTOR_NAME_1 = "ERR_INVALID_COLLECTOR_NAME_1";
 
@@ -157,6 +160,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_IMAGE_SCALING_ENABLED_1 = "INIT_IMAGE_SCALING_ENABLED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_IMAGE_SCALING_POOL_2 = "INIT_IMAGE_SCALING_POOL_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_IMAGE_SCALING_VARIANTS_1 = "INIT_IMAGE_SCALING_VARIANTS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JSP_CACHE_SIZE_1 = "INIT_JSP_CACHE_SIZE_1";
 
@@ -166,6 +175,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JSP_REPOSITORY_ERR_PAGE_COMMOTED_1 = "INIT_JSP_REPOSITORY_ERR_PAGE_COMMOTED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_JSP_WARMUP_2 = "INIT_JSP_WARMUP_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_LOADER_CONFIG_FINISHED_0 = "INIT_LOADER_CONFIG_FINISHED_0";
 
@@ -187,6 +199,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_STARTING_LOADER_CONFIG_0 = "INIT_STARTING_LOADER_CONFIG_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_STREAMING_THRESHOLD_1 = "INIT_STREAMING_THRESHOLD_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_WEBAPP_PATH_1 = "INIT_WEBAPP_PATH_1";
 
@@ -214,12 +229,24 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_HTML_CONVERTER_CLASS_NOT_FOUND_1 = "LOG_HTML_CONVERTER_CLASS_NOT_FOUND_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_SCALING_SATURATED_1 = "LOG_IMAGE_SCALING_SATURATED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_VARIANT_FAILED_2 = "LOG_IMAGE_VARIANT_FAILED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_VARIANT_INVALID_1 = "LOG_IMAGE_VARIANT_INVALID_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_IGNORING_EXC_1 = "LOG_IGNORING_EXC_1";
 
     /** Message constant for key in the resource bundle. */
     public static final String LOG_JSP_PERMCHECK_4 = "LOG_JSP_PERMCHECK_4";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_JSP_WARMUP_SERVER_UNAVAILABLE_1 = "LOG_JSP_WARMUP_SERVER_UNAVAILABLE_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_NAME_REAL_FS_1 = "LOG_NAME_REAL_FS_1";
 
@@ -244,6 +271,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_X_DIRECTIVE_DETECTED_1 = "LOG_X_DIRECTIVE_DETECTED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_JSP_WARMUP_0 = "RPT_JSP_WARMUP_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_JSP_WARMUP_BEGIN_0 = "RPT_JSP_WARMUP_BEGIN_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_JSP_WARMUP_END_0 = "RPT_JSP_WARMUP_END_0";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.loader.messages";
 
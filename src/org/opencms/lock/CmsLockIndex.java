@@ -0,0 +1,281 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Map of locks by the root path of the locked resource, which additionally indexes the locks 
+ * in a tree of path segments.<p>
+ * 
+ * Besides the usual map operations, this allows to find the locks of all parent folders of a path 
+ * in O(depth) time, and all locks in a sub-tree in O(result) time, without iterating all locks.<p>
+ * 
+ * Reads never block. Modifications are serialized, locks are changed much less frequently than read.
+ * Iterators of the map views reflect the state of the map at some point at or since their creation,
+ * and do not support removal.<p>
+ * 
+ * @since 8.5.0
+ */
+public final class CmsLockIndex extends AbstractMap<String, CmsLock> {
+
+    /**
+     * A node in the path tree.<p>
+     */
+    private static final class Node {
+
+        /** The child nodes, mapped by path segment. */
+        final Map<String, Node> m_children = new ConcurrentHashMap<String, Node>(4, 0.75f, 2);
+
+        /** The lock for the path of this node, or <code>null</code>. */
+        volatile CmsLock m_lock;
+
+        /** The parent node, or <code>null</code> for the root node. */
+        final Node m_parent;
+
+        /** The path segment of this node. */
+        final String m_segment;
+
+        /**
+         * Creates a new node.<p>
+         * 
+         * @param parent the parent node
+         * @param segment the path segment
+         */
+        Node(Node parent, String segment) {
+
+            m_parent = parent;
+            m_segment = segment;
+        }
+    }
+
+    /** The read only entry set view. */
+    private final Set<Map.Entry<String, CmsLock>> m_entrySet;
+
+    /** The locks by root path. */
+    private final Map<String, CmsLock> m_locks = new ConcurrentHashMap<String, CmsLock>();
+
+    /** The root node of the path tree. */
+    private final Node m_root = new Node(null, "");
+
+    /**
+     * Creates a new, empty lock index.<p>
+     */
+    public CmsLockIndex() {
+
+        m_entrySet = Collections.unmodifiableMap(m_locks).entrySet();
+    }
+
+    /**
+     * Creates a new lock index containing the given locks.<p>
+     * 
+     * @param locks the locks by root path
+     */
+    public CmsLockIndex(Map<String, CmsLock> locks) {
+
+        this();
+        putAll(locks);
+    }
+
+    /**
+     * @see java.util.AbstractMap#clear()
+     */
+    @Override
+    public synchronized void clear() {
+
+        m_locks.clear();
+        m_root.m_children.clear();
+        m_root.m_lock = null;
+    }
+
+    /**
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return m_locks.containsKey(key);
+    }
+
+    /**
+     * @see java.util.AbstractMap#entrySet()
+     */
+    @Override
+    public Set<Map.Entry<String, CmsLock>> entrySet() {
+
+        return m_entrySet;
+    }
+
+    /**
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @Override
+    public CmsLock get(Object key) {
+
+        return m_locks.get(key);
+    }
+
+    /**
+     * Returns the locks of all parent folders of the given root path.<p>
+     * 
+     * The lock of the given path itself is not included.<p>
+     * 
+     * @param rootPath the root path
+     * 
+     * @return the locks of the parent folders, ordered from the top level folder down
+     */
+    public List<CmsLock> getParentFolderLocks(String rootPath) {
+
+        List<CmsLock> result = new ArrayList<CmsLock>(4);
+        getNode(rootPath, false, result);
+        return result;
+    }
+
+    /**
+     * Returns the locks of the given root path and all resources below it.<p>
+     * 
+     * @param rootPath the root path, for a folder it has to end with a slash
+     * 
+     * @return the locks in the sub-tree of the given root path
+     */
+    public List<CmsLock> getSubtreeLocks(String rootPath) {
+
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        Node node = getNode(rootPath, false, null);
+        if (node != null) {
+            collectLocks(node, result);
+        }
+        return result;
+    }
+
+    /**
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public synchronized CmsLock put(String key, CmsLock value) {
+
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        CmsLock old = m_locks.put(key, value);
+        getNode(key, true, null).m_lock = value;
+        return old;
+    }
+
+    /**
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    @Override
+    public synchronized CmsLock remove(Object key) {
+
+        CmsLock old = m_locks.remove(key);
+        if (old != null) {
+            Node node = getNode((String)key, false, null);
+            if (node != null) {
+                node.m_lock = null;
+                // remove nodes which are no longer required
+                while ((node.m_parent != null) && (node.m_lock == null) && node.m_children.isEmpty()) {
+                    node.m_parent.m_children.remove(node.m_segment);
+                    node = node.m_parent;
+                }
+            }
+        }
+        return old;
+    }
+
+    /**
+     * @see java.util.AbstractMap#size()
+     */
+    @Override
+    public int size() {
+
+        return m_locks.size();
+    }
+
+    /**
+     * Adds the locks of the given sub-tree to the result.<p>
+     * 
+     * @param node the root node of the sub-tree
+     * @param result the result list
+     */
+    private void collectLocks(Node node, List<CmsLock> result) {
+
+        CmsLock lock = node.m_lock;
+        if (lock != null) {
+            result.add(lock);
+        }
+        Iterator<Node> itChildren = node.m_children.values().iterator();
+        while (itChildren.hasNext()) {
+            collectLocks(itChildren.next(), result);
+        }
+    }
+
+    /**
+     * Returns the node for the given root path.<p>
+     * 
+     * The path is split after every slash, so the nodes of folders and files with the same name are different.<p>
+     * 
+     * @param rootPath the root path
+     * @param create if <code>true</code>, missing nodes are created
+     * @param parentLocks if not <code>null</code>, the locks of the parent folders found on the way are added to this list
+     * 
+     * @return the node for the given path, or <code>null</code> if there is none
+     */
+    private Node getNode(String rootPath, boolean create, List<CmsLock> parentLocks) {
+
+        Node node = m_root;
+        int start = 0;
+        int length = rootPath.length();
+        while ((node != null) && (start < length)) {
+            if (parentLocks != null) {
+                CmsLock lock = node.m_lock;
+                if (lock != null) {
+                    parentLocks.add(lock);
+                }
+            }
+            int end = rootPath.indexOf('/', start);
+            end = (end < 0) ? length : end + 1;
+            String segment = rootPath.substring(start, end);
+            Node child = node.m_children.get(segment);
+            if ((child == null) && create) {
+                child = new Node(node, segment);
+                node.m_children.put(segment, child);
+            }
+            node = child;
+            start = end;
+        }
+        return node;
+    }
+}
@@ -37,16 +37,21 @@ import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.file.I_CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.security.CmsSecurityException;
 import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.logging.Log;
+
 /**
  * The CmsLockManager is used by the Cms application to detect 
  * the lock state of a resource.<p>
@@ -62,6 +67,9 @@ import java.util.Map;
  */
 public final class CmsLockManager {
 
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsLockManager.class);
+
     /** The driver manager instance. */
     private CmsDriverManager m_driverManager;
 
@@ -126,7 +134,7 @@ public final class CmsLockManager {
         // handle collisions with exclusive locked sub-resources in case of a folder
         if (resource.isFolder() && newLock.getSystemLock().isUnlocked()) {
             String resourceName = resource.getRootPath();
-            Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+            Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedSubtreeLocks(resourceName).iterator();
             while (itLocks.hasNext()) {
                 CmsLock lock = itLocks.next();
                 String lockedPath = lock.getResourceName();
@@ -137,6 +145,71 @@ public final class CmsLockManager {
         }
     }
 
+    /**
+     * Sets publish locks on all given resources in one pass.<p>
+     * 
+     * The resources are processed in the order of their root paths, so the locks of parent folders
+     * are always changed before the lock state of their contents is checked. Resources which are already
+     * waiting to be published by another publish job, or which can not be locked for publishing, are left
+     * untouched and returned.<p>
+     * 
+     * Only the lock state is changed, the caller is responsible for flushing the caches and firing the events 
+     * which go along with locking a resource.<p>
+     * 
+     * @param dbc the current database context
+     * @param resources the resources to lock for publishing
+     * 
+     * @return the resources which have not been locked, in root path order
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> addPublishLocks(CmsDbContext dbc, Collection<CmsResource> resources)
+    throws CmsException {
+
+        CmsUser user = dbc.currentUser();
+        CmsProject project = dbc.currentProject();
+        List<CmsResource> sortedResources = new ArrayList<CmsResource>(resources);
+        Collections.sort(sortedResources, I_CmsResource.COMPARE_ROOT_PATH);
+        List<CmsResource> rejectedResources = new ArrayList<CmsResource>();
+        Iterator<CmsResource> itResources = sortedResources.iterator();
+        while (itResources.hasNext()) {
+            CmsResource resource = itResources.next();
+            // siblings only have to be read if there are any and the resource itself is not locked
+            boolean includeSiblings = resource.getSiblingCount() > 1;
+            CmsLock currentLock = getLock(dbc, resource, false);
+            boolean changeLock;
+            if (currentLock.getSystemLock().isUnlocked() && currentLock.isLockableBy(user)) {
+                if (includeSiblings && currentLock.isNullLock()) {
+                    currentLock = getLock(dbc, resource, true);
+                }
+                changeLock = !currentLock.getEditionLock().isNullLock();
+            } else if (currentLock.getSystemLock().isPublish()) {
+                // already waiting to be published
+                rejectedResources.add(resource);
+                continue;
+            } else {
+                // locked by another user, this is needed to fix TestPublishIsssues#testPublishScenarioE
+                changeLock = true;
+            }
+            try {
+                if (changeLock) {
+                    m_driverManager.checkLockChangePermissions(dbc, resource);
+                    removeResource(dbc, resource, true, true);
+                    currentLock = getLock(dbc, resource, includeSiblings);
+                }
+                checkLockable(dbc, resource, user, project, CmsLockType.PUBLISH, currentLock);
+                lockResource(new CmsLock(resource.getRootPath(), user.getId(), project, CmsLockType.PUBLISH));
+            } catch (CmsLockException e) {
+                LOG.debug(e.getLocalizedMessage(), e);
+                rejectedResources.add(resource);
+            } catch (CmsSecurityException e) {
+                LOG.debug(e.getLocalizedMessage(), e);
+                rejectedResources.add(resource);
+            }
+        }
+        return rejectedResources;
+    }
+
     /**
      * Counts the exclusive locked resources in a project.<p>
      * 
@@ -231,7 +304,7 @@ public final class CmsLockManager {
     throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
@@ -283,7 +356,7 @@ public final class CmsLockManager {
         Map<String, CmsResource> cache) throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
@@ -358,7 +431,7 @@ public final class CmsLockManager {
     public List<CmsLock> getLocks(CmsDbContext dbc, String resourceName, CmsLockFilter filter) throws CmsException {
 
         List<CmsLock> locks = new ArrayList<CmsLock>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resourceName, filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             if (filter.isSharedExclusive()) {
@@ -404,7 +477,7 @@ public final class CmsLockManager {
         if (resource == null) {
             return false;
         }
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedSubtreeLocks(resource.getRootPath()).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             if (lock.getSystemLock().isUnlocked()) {
@@ -577,7 +650,7 @@ public final class CmsLockManager {
             if (resource.isFolder()) {
                 // in case of a folder, remove any exclusive locks on sub-resources that probably have
                 // been upgraded from an inherited lock when the user edited a resource                
-                Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+                Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedSubtreeLocks(resourcename).iterator();
                 while (itLocks.hasNext()) {
                     String lockedPath = (itLocks.next()).getResourceName();
                     if (lockedPath.startsWith(resourcename) && !lockedPath.equals(resourcename)) {
@@ -746,6 +819,39 @@ public final class CmsLockManager {
         }
     }
 
+    /**
+     * Returns the locks which might match the given resource name and filter.<p>
+     * 
+     * Unless the filter includes shared locks, which may belong to siblings anywhere in the VFS, 
+     * only the locks of the sub-tree and the parent folders are looked up, as required by the filter.<p>
+     * 
+     * @param resourceName the resource name
+     * @param filter the lock filter
+     * 
+     * @return the candidate locks
+     */
+    private List<CmsLock> getCandidateLocks(String resourceName, CmsLockFilter filter) {
+
+        if (filter.isSharedExclusive()) {
+            return OpenCms.getMemoryMonitor().getAllCachedLocks();
+        }
+        List<CmsLock> locks = new ArrayList<CmsLock>();
+        if (filter.isIncludeChildren()) {
+            locks.addAll(OpenCms.getMemoryMonitor().getCachedSubtreeLocks(resourceName));
+        }
+        if (filter.isIncludeParent()) {
+            locks.addAll(OpenCms.getMemoryMonitor().getCachedParentFolderLocks(resourceName));
+            if (!filter.isIncludeChildren() && resourceName.endsWith("/")) {
+                // a folder matches itself as parent
+                CmsLock lock = getDirectLock(resourceName);
+                if (lock != null) {
+                    locks.add(lock);
+                }
+            }
+        }
+        return locks;
+    }
+
     /**
      * Returns the direct lock of a resource.<p>
      * 
@@ -767,18 +873,13 @@ public final class CmsLockManager {
      */
     private CmsLock getParentFolderLock(String resourceName) {
 
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedParentFolderLocks(resourceName).iterator();
         while (itLocks.hasNext()) {
-            CmsLock lock = itLocks.next();
-            if (lock.getResourceName().endsWith("/")
-                && resourceName.startsWith(lock.getResourceName())
-                && !resourceName.equals(lock.getResourceName())) {
-                // system locks does not get inherited
-                lock = lock.getEditionLock();
-                // check the lock
-                if (!lock.isUnlocked()) {
-                    return lock;
-                }
+            // system locks does not get inherited
+            CmsLock lock = itLocks.next().getEditionLock();
+            // check the lock
+            if (!lock.isUnlocked()) {
+                return lock;
             }
         }
         return CmsLock.getNullLock();
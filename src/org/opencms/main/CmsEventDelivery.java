@@ -0,0 +1,273 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Delivers events to a single listener registered at the {@link CmsEventManager}, 
+ * either synchronously or asynchronously.<p>
+ * 
+ * The delivery mode is chosen per event type the listener is registered for, so a listener can process 
+ * some events asynchronously and others synchronously.
+ * Asynchronous listeners get their own worker thread with a bounded queue, so events are processed 
+ * in the order they were fired and a slow listener does not delay other listeners or the firing thread.
+ * A cache clearing event is not queued again if an equal event is still waiting in the queue.
+ * If the queue is full, the firing thread waits until the worker thread has made room in the queue, 
+ * since delivering the event on the firing thread would overtake the queued events.<p>
+ * 
+ * Events of the types the listener is registered for synchronously are delivered on the firing thread, 
+ * so they may be processed at the same time as the asynchronous events.<p>
+ * 
+ * @since 8.5.0
+ */
+final class CmsEventDelivery {
+
+    /** The static log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsEventDelivery.class);
+
+    /** The event types the listener is registered for asynchronously, replaced on every change. */
+    private volatile Set<Integer> m_asynchronousTypes;
+
+    /** The worker thread of an asynchronous listener, or <code>null</code>. */
+    private final ThreadPoolExecutor m_executor;
+
+    /** The listener. */
+    private final I_CmsEventListener m_listener;
+
+    /** The keys of the coalescible events waiting in the queue. */
+    private final ConcurrentHashMap<Object, Boolean> m_pending;
+
+    /** The delivery statistics. */
+    private final CmsEventListenerStatistics m_statistics;
+
+    /**
+     * Creates a new event delivery.<p>
+     * 
+     * @param listener the listener
+     * @param queueSize the maximum number of queued events for asynchronous delivery, 
+     *      or 0 for synchronous delivery
+     */
+    CmsEventDelivery(I_CmsEventListener listener, int queueSize) {
+
+        m_listener = listener;
+        m_asynchronousTypes = Collections.emptySet();
+        final String name = listener.getClass().getName();
+        if (queueSize > 0) {
+            m_executor = new ThreadPoolExecutor(
+                1,
+                1,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize),
+                new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(r, "OpenCms: Event listener " + name);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            m_pending = new ConcurrentHashMap<Object, Boolean>();
+            m_statistics = new CmsEventListenerStatistics(name, m_executor.getQueue());
+        } else {
+            m_executor = null;
+            m_pending = null;
+            m_statistics = new CmsEventListenerStatistics(name, null);
+        }
+    }
+
+    /**
+     * Checks if events of the given type only clear caches, so that repeated events can be merged.<p>
+     * 
+     * @param type the event type
+     * 
+     * @return <code>true</code> if repeated events of the given type can be merged
+     */
+    static boolean isCoalescible(int type) {
+
+        switch (type) {
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+            case I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES:
+            case I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES:
+            case I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR:
+            case I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Adds event types the listener is registered for asynchronously.<p>
+     * 
+     * @param eventTypes the event types, may contain {@link I_CmsEventListener#LISTENERS_FOR_ALL_EVENTS}
+     */
+    void addAsynchronousTypes(Set<Integer> eventTypes) {
+
+        if (!eventTypes.isEmpty()) {
+            Set<Integer> types = new HashSet<Integer>(m_asynchronousTypes);
+            types.addAll(eventTypes);
+            m_asynchronousTypes = Collections.unmodifiableSet(types);
+        }
+    }
+
+    /**
+     * Delivers an event to the listener.<p>
+     * 
+     * @param event the event
+     * @param eventType the event type the listener has been registered for and the event was fired to, 
+     *      either the type of the event or {@link I_CmsEventListener#LISTENERS_FOR_ALL_EVENTS}
+     */
+    void deliver(final CmsEvent event, Integer eventType) {
+
+        if ((m_executor == null) || !m_asynchronousTypes.contains(eventType)) {
+            invoke(event);
+            return;
+        }
+        Object key = null;
+        if (isCoalescible(event.getType())) {
+            key = Arrays.asList(new Object[] {event.getTypeInteger(), event.getData()});
+            if (m_pending.putIfAbsent(key, Boolean.TRUE) != null) {
+                // an equal event has not been processed yet
+                m_statistics.recordCoalesced();
+                return;
+            }
+        }
+        final Object pendingKey = key;
+        Runnable task = new Runnable() {
+
+            public void run() {
+
+                if (pendingKey != null) {
+                    m_pending.remove(pendingKey);
+                }
+                try {
+                    invoke(event);
+                } catch (Throwable t) {
+                    LOG.error(
+                        Messages.get().getBundle().key(Messages.LOG_EVENT_LISTENER_FAILED_2, m_listener, event),
+                        t);
+                }
+            }
+        };
+        try {
+            m_executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (m_executor.isShutdown()) {
+                // the worker has been shut down, the remaining events are delivered on the firing thread
+                if (pendingKey != null) {
+                    m_pending.remove(pendingKey);
+                }
+                invoke(event);
+                return;
+            }
+            // the queue is full, wait for the worker to keep the order of the events
+            m_statistics.recordOverflow();
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_EVENT_QUEUE_FULL_2, m_listener, event));
+            }
+            try {
+                // the worker thread is never stopped before shut down, so it takes the event from the queue
+                m_executor.getQueue().put(task);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                if (pendingKey != null) {
+                    m_pending.remove(pendingKey);
+                }
+                LOG.error(
+                    Messages.get().getBundle().key(Messages.LOG_EVENT_LISTENER_FAILED_2, m_listener, event),
+                    ie);
+            }
+        }
+    }
+
+    /**
+     * Returns the delivery statistics.<p>
+     * 
+     * @return the delivery statistics
+     */
+    CmsEventListenerStatistics getStatistics() {
+
+        return m_statistics;
+    }
+
+    /**
+     * Checks if this delivery has a worker thread for asynchronous delivery.<p>
+     * 
+     * @return <code>true</code> if this delivery has a worker thread for asynchronous delivery
+     */
+    boolean isAsynchronous() {
+
+        return m_executor != null;
+    }
+
+    /**
+     * Stops the worker thread of an asynchronous listener after the queued events have been processed.<p>
+     * 
+     * @param timeout the maximum time to wait for the queued events in milliseconds
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void shutDown(long timeout) throws InterruptedException {
+
+        if (m_executor != null) {
+            m_executor.shutdown();
+            m_executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Calls the listener and records the processing time.<p>
+     * 
+     * @param event the event
+     */
+    private void invoke(CmsEvent event) {
+
+        long start = System.nanoTime();
+        try {
+            m_listener.cmsEvent(event);
+        } finally {
+            m_statistics.recordEvent(System.nanoTime() - start);
+        }
+    }
+
+}
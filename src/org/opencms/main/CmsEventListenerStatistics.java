@@ -0,0 +1,191 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+import org.opencms.monitor.CmsLatencyHistogram;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivery statistics of a single event listener registered at the {@link CmsEventManager}.<p>
+ * 
+ * Records the time the listener needs to process an event in a {@link CmsLatencyHistogram}, 
+ * and for asynchronous listeners the number of queued, coalesced and overflowing events.<p>
+ * 
+ * @since 8.5.0
+ */
+public class CmsEventListenerStatistics implements CmsEventListenerStatisticsMBean {
+
+    /** The number of coalesced events. */
+    private final AtomicLong m_coalesced = new AtomicLong();
+
+    /** The processing time histogram. */
+    private final CmsLatencyHistogram m_latency = new CmsLatencyHistogram();
+
+    /** The name of the listener. */
+    private final String m_listener;
+
+    /** The number of queue overflows. */
+    private final AtomicLong m_overflows = new AtomicLong();
+
+    /** The queue of an asynchronous listener, or <code>null</code>. */
+    private final Collection<?> m_queue;
+
+    /**
+     * Creates new statistics for an event listener.<p>
+     * 
+     * @param listener the name of the listener
+     * @param queue the event queue of an asynchronous listener, or <code>null</code> for a synchronous listener
+     */
+    public CmsEventListenerStatistics(String listener, Collection<?> queue) {
+
+        m_listener = listener;
+        m_queue = queue;
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventListenerStatisticsMBean#getCoalescedEvents()
+     */
+    public long getCoalescedEvents() {
+
+        return m_coalesced.get();
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventListenerStatisticsMBean#getEvents()
+     */
+    public long getEvents() {
+
+        return m_latency.getCount();
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventListenerStatisticsMBean#getLatencyMax()
+     */
+    public double getLatencyMax() {
+
+        return m_latency.getMaxMillis();
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventListenerStatisticsMBean#getLatencyMean()
+     */
+    public double getLatencyMean() {
+
+        return m_latency.getMeanMillis();
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventListenerStatisticsMBean#getLatencyPercentile99()
+     */
+    public double getLatencyPercentile99() {
+
+        return m_latency.getPercentileMillis(99);
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventListenerStatisticsMBean#getListener()
+     */
+    public String getListener() {
+
+        return m_listener;
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventListenerStatisticsMBean#getQueueOverflows()
+     */
+    public long getQueueOverflows() {
+
+        return m_overflows.get();
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventListenerStatisticsMBean#getQueueSize()
+     */
+    public int getQueueSize() {
+
+        return m_queue == null ? 0 : m_queue.size();
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventListenerStatisticsMBean#isAsynchronous()
+     */
+    public boolean isAsynchronous() {
+
+        return m_queue != null;
+    }
+
+    /**
+     * Records an event that was dropped because an equal event was still queued.<p>
+     */
+    public void recordCoalesced() {
+
+        m_coalesced.incrementAndGet();
+    }
+
+    /**
+     * Records the delivery of an event.<p>
+     * 
+     * @param nanos the time the listener needed to process the event in nanoseconds
+     */
+    public void recordEvent(long nanos) {
+
+        m_latency.record(nanos);
+    }
+
+    /**
+     * Records an event the firing thread had to wait for because the queue was full.<p>
+     */
+    public void recordOverflow() {
+
+        m_overflows.incrementAndGet();
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventListenerStatisticsMBean#reset()
+     */
+    public void reset() {
+
+        m_latency.reset();
+        m_coalesced.set(0);
+        m_overflows.set(0);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "[" + m_listener + (isAsynchronous() ? " (asynchronous, " + getQueueSize() + " queued)" : "") + ": "
+            + getEvents() + " events, mean " + getLatencyMean() + " ms, max " + getLatencyMax() + " ms]";
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+/**
+ * Management interface of the {@link CmsEventListenerStatistics} for JMX.<p>
+ * 
+ * The name of this interface follows the naming convention for JMX standard MBeans.<p>
+ * 
+ * @since 8.5.0
+ */
+public interface CmsEventListenerStatisticsMBean {
+
+    /**
+     * Returns the number of events that were dropped because an equal event was still waiting in the queue.<p>
+     * 
+     * @return the number of coalesced events
+     */
+    long getCoalescedEvents();
+
+    /**
+     * Returns the number of events delivered to the listener.<p>
+     * 
+     * @return the number of delivered events
+     */
+    long getEvents();
+
+    /**
+     * Returns the maximum time the listener needed to process an event in milliseconds.<p>
+     * 
+     * @return the maximum processing time in milliseconds
+     */
+    double getLatencyMax();
+
+    /**
+     * Returns the average time the listener needed to process an event in milliseconds.<p>
+     * 
+     * @return the average processing time in milliseconds
+     */
+    double getLatencyMean();
+
+    /**
+     * Returns the 99th percentile of the time the listener needed to process an event in milliseconds.<p>
+     * 
+     * @return the 99th percentile of the processing time in milliseconds
+     */
+    double getLatencyPercentile99();
+
+    /**
+     * Returns the name of the listener.<p>
+     * 
+     * @return the name of the listener
+     */
+    String getListener();
+
+    /**
+     * Returns the number of events the firing thread had to wait for because the queue was full.<p>
+     * 
+     * @return the number of queue overflows
+     */
+    long getQueueOverflows();
+
+    /**
+     * Returns the number of events waiting in the queue of an asynchronous listener.<p>
+     * 
+     * @return the current queue size, always 0 for synchronous listeners
+     */
+    int getQueueSize();
+
+    /**
+     * Returns if events are delivered to the listener asynchronously.<p>
+     * 
+     * @return <code>true</code> if events are delivered asynchronously
+     */
+    boolean isAsynchronous();
+
+    /**
+     * Resets all counters.<p>
+     */
+    void reset();
+}
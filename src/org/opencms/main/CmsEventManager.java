@@ -27,11 +27,20 @@
 
 package org.opencms.main;
 
+import org.opencms.util.CmsStringUtil;
+
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.apache.commons.logging.Log;
 
@@ -44,6 +53,15 @@ import org.apache.commons.logging.Log;
  * Events can be used in OpenCms to notify custom event listeners that certain system events have happened.
  * Event listeners have to implement the interface {@link org.opencms.main.I_CmsEventListener}.<p>
  * 
+ * By default, events are delivered synchronously on the thread that fires the event. Listeners that do not 
+ * need to complete before the firing thread continues can be registered for asynchronous delivery of 
+ * some event types with {@link #addCmsEventListener(I_CmsEventListener, int[], boolean)}, they then process 
+ * these events in order on a dedicated thread. The delivery statistics of every listener are available with 
+ * {@link #getListenerStatistics()} and as JMX MBeans.<p>
+ * 
+ * The registered listeners are stored in immutable maps which are replaced on every change, 
+ * so firing an event never takes a lock.<p>
+ * 
  * @since 7.0.0
  * 
  * @see org.opencms.main.CmsEvent
@@ -51,21 +69,44 @@ import org.apache.commons.logging.Log;
  */
 public class CmsEventManager {
 
+    /** The maximum number of queued events of an asynchronous listener. */
+    public static final int ASYNC_QUEUE_SIZE = 1000;
+
     /** Required as template for event list generation. */
     protected static final I_CmsEventListener[] EVENT_LIST = new I_CmsEventListener[0];
 
     /** The static log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsEventManager.class);
 
-    /** Stores the active event listeners. */
-    private Map<Integer, List<I_CmsEventListener>> m_eventListeners;
+    /** The domain of the listener statistics MBeans. */
+    private static final String MBEAN_DOMAIN = "org.opencms";
+
+    /** The maximum time to wait for the queued events of asynchronous listeners on shutdown in milliseconds. */
+    private static final long SHUTDOWN_TIMEOUT = 10000;
+
+    /** The event deliveries of the registered listeners, replaced on every change. */
+    private volatile Map<I_CmsEventListener, CmsEventDelivery> m_deliveries;
+
+    /** Stores the active event listeners, replaced on every change. */
+    private volatile Map<Integer, List<I_CmsEventListener>> m_eventListeners;
+
+    /** Lock for changing the registered listeners. */
+    private final Object m_lock = new Object();
+
+    /** The names of the registered statistics MBeans by listener. */
+    private Map<I_CmsEventListener, ObjectName> m_mbeans;
+
+    /** The web application name used for the statistics MBeans, or <code>null</code> if not registered yet. */
+    private String m_webapp;
 
     /**
      * Create a new instance of an OpenCms event manager.<p>
      */
     public CmsEventManager() {
 
-        m_eventListeners = new HashMap<Integer, List<I_CmsEventListener>>();
+        m_eventListeners = Collections.emptyMap();
+        m_deliveries = Collections.emptyMap();
+        m_mbeans = new HashMap<I_CmsEventListener, ObjectName>();
     }
 
     /**
@@ -86,24 +127,66 @@ public class CmsEventManager {
      */
     public void addCmsEventListener(I_CmsEventListener listener, int[] eventTypes) {
 
-        synchronized (m_eventListeners) {
+        addCmsEventListener(listener, eventTypes, false);
+    }
+
+    /**
+     * Add an OpenCms event listener with the given delivery mode.<p>
+     * 
+     * Asynchronously delivered events are processed in the order they were fired on a thread dedicated 
+     * to the listener, so the listener must not rely on being called before the firing thread continues, 
+     * and it must be thread-safe if it is registered for other event types synchronously.
+     * If the queue of the listener is full, the firing thread waits until there is room in the queue.
+     * Repeated cache clearing events that are still waiting in the queue are only delivered once.<p>
+     * 
+     * The delivery mode applies to the given event types only, so the same listener can be registered 
+     * for other event types with another delivery mode. If the listener is already registered for 
+     * one of the given event types, the delivery mode of the first registration is kept for this type.<p>
+     *
+     * @param listener the listener to add
+     * @param eventTypes the events to listen for, or <code>null</code> for all events
+     * @param asynchronous if <code>true</code>, the events are delivered asynchronously
+     */
+    public void addCmsEventListener(I_CmsEventListener listener, int[] eventTypes, boolean asynchronous) {
+
+        synchronized (m_lock) {
             if (eventTypes == null) {
                 // no event types given - register the listener for all event types
                 eventTypes = new int[] {I_CmsEventListener.LISTENERS_FOR_ALL_EVENTS.intValue()};
             }
+            Map<Integer, List<I_CmsEventListener>> eventListeners = new HashMap<Integer, List<I_CmsEventListener>>(
+                m_eventListeners);
+            Set<Integer> asynchronousTypes = new HashSet<Integer>();
             for (int i = 0; i < eventTypes.length; i++) {
                 // register the listener for all configured event types
                 Integer eventType = new Integer(eventTypes[i]);
-                List<I_CmsEventListener> listeners = m_eventListeners.get(eventType);
-                if (listeners == null) {
-                    listeners = new ArrayList<I_CmsEventListener>();
-                    m_eventListeners.put(eventType, listeners);
-                }
-                if (!listeners.contains(listener)) {
+                List<I_CmsEventListener> listeners = eventListeners.get(eventType);
+                if ((listeners == null) || !listeners.contains(listener)) {
                     // add listerner only if it is not already registered
-                    listeners.add(listener);
+                    List<I_CmsEventListener> newListeners = new ArrayList<I_CmsEventListener>();
+                    if (listeners != null) {
+                        newListeners.addAll(listeners);
+                    }
+                    newListeners.add(listener);
+                    eventListeners.put(eventType, Collections.unmodifiableList(newListeners));
+                    if (asynchronous) {
+                        asynchronousTypes.add(eventType);
+                    }
                 }
             }
+            CmsEventDelivery delivery = m_deliveries.get(listener);
+            if ((delivery == null) || (!asynchronousTypes.isEmpty() && !delivery.isAsynchronous())) {
+                // a synchronous delivery has no queued events, so it can be replaced by one with a worker thread
+                Map<I_CmsEventListener, CmsEventDelivery> deliveries = new HashMap<I_CmsEventListener, CmsEventDelivery>(
+                    m_deliveries);
+                delivery = new CmsEventDelivery(listener, asynchronousTypes.isEmpty() ? 0 : ASYNC_QUEUE_SIZE);
+                deliveries.put(listener, delivery);
+                m_deliveries = Collections.unmodifiableMap(deliveries);
+                unregisterStatisticsMBean(listener);
+                registerStatisticsMBean(listener, delivery);
+            }
+            delivery.addAsynchronousTypes(asynchronousTypes);
+            m_eventListeners = Collections.unmodifiableMap(eventListeners);
         }
     }
 
@@ -114,8 +197,12 @@ public class CmsEventManager {
      */
     public void fireEvent(CmsEvent event) {
 
-        fireEventHandler(m_eventListeners.get(event.getTypeInteger()), event);
-        fireEventHandler(m_eventListeners.get(I_CmsEventListener.LISTENERS_FOR_ALL_EVENTS), event);
+        Map<Integer, List<I_CmsEventListener>> eventListeners = m_eventListeners;
+        fireEventHandler(eventListeners.get(event.getTypeInteger()), event, event.getTypeInteger());
+        fireEventHandler(
+            eventListeners.get(I_CmsEventListener.LISTENERS_FOR_ALL_EVENTS),
+            event,
+            I_CmsEventListener.LISTENERS_FOR_ALL_EVENTS);
     }
 
     /**
@@ -139,6 +226,20 @@ public class CmsEventManager {
         fireEvent(new CmsEvent(type, data));
     }
 
+    /**
+     * Returns the delivery statistics of all registered event listeners.<p>
+     * 
+     * @return the delivery statistics of all registered event listeners
+     */
+    public List<CmsEventListenerStatistics> getListenerStatistics() {
+
+        List<CmsEventListenerStatistics> result = new ArrayList<CmsEventListenerStatistics>();
+        for (CmsEventDelivery delivery : m_deliveries.values()) {
+            result.add(delivery.getStatistics());
+        }
+        return result;
+    }
+
     /**
      * Removes a cms event listener.<p>
      *
@@ -146,11 +247,57 @@ public class CmsEventManager {
      */
     public void removeCmsEventListener(I_CmsEventListener listener) {
 
-        synchronized (m_eventListeners) {
-            Iterator<Integer> it = m_eventListeners.keySet().iterator();
+        CmsEventDelivery delivery;
+        synchronized (m_lock) {
+            Map<Integer, List<I_CmsEventListener>> eventListeners = new HashMap<Integer, List<I_CmsEventListener>>(
+                m_eventListeners);
+            Iterator<Map.Entry<Integer, List<I_CmsEventListener>>> it = eventListeners.entrySet().iterator();
             while (it.hasNext()) {
-                List<I_CmsEventListener> listeners = m_eventListeners.get(it.next());
-                listeners.remove(listener);
+                Map.Entry<Integer, List<I_CmsEventListener>> entry = it.next();
+                if (entry.getValue().contains(listener)) {
+                    List<I_CmsEventListener> listeners = new ArrayList<I_CmsEventListener>(entry.getValue());
+                    listeners.remove(listener);
+                    entry.setValue(Collections.unmodifiableList(listeners));
+                }
+            }
+            m_eventListeners = Collections.unmodifiableMap(eventListeners);
+            Map<I_CmsEventListener, CmsEventDelivery> deliveries = new HashMap<I_CmsEventListener, CmsEventDelivery>(
+                m_deliveries);
+            delivery = deliveries.remove(listener);
+            m_deliveries = Collections.unmodifiableMap(deliveries);
+            unregisterStatisticsMBean(listener);
+        }
+        if (delivery != null) {
+            try {
+                delivery.shutDown(SHUTDOWN_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Shuts down this event manager.<p>
+     * 
+     * Waits until the asynchronous listeners have processed their queued events 
+     * and unregisters the statistics MBeans.<p>
+     */
+    public void shutDown() {
+
+        Map<I_CmsEventListener, CmsEventDelivery> deliveries;
+        synchronized (m_lock) {
+            deliveries = m_deliveries;
+            for (I_CmsEventListener listener : deliveries.keySet()) {
+                unregisterStatisticsMBean(listener);
+            }
+            m_webapp = null;
+        }
+        for (CmsEventDelivery delivery : deliveries.values()) {
+            try {
+                delivery.shutDown(SHUTDOWN_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
         }
     }
@@ -168,11 +315,35 @@ public class CmsEventManager {
     /**
      * Initialize this event manager with all events from the given base event manager.<p> 
      * 
+     * The delivery statistics of all listeners are registered as JMX MBeans from now on.<p>
+     * 
      * @param base the base event manager to initialize this event manager with
      */
     protected void initialize(CmsEventManager base) {
 
-        m_eventListeners = new HashMap<Integer, List<I_CmsEventListener>>(base.getEventListeners());
+        synchronized (m_lock) {
+            m_eventListeners = Collections.unmodifiableMap(new HashMap<Integer, List<I_CmsEventListener>>(
+                base.getEventListeners()));
+            Map<I_CmsEventListener, CmsEventDelivery> deliveries = new HashMap<I_CmsEventListener, CmsEventDelivery>(
+                base.m_deliveries);
+            // listeners added to the base manager by its subclasses may not have a delivery yet 
+            for (List<I_CmsEventListener> listeners : m_eventListeners.values()) {
+                for (I_CmsEventListener listener : listeners) {
+                    if (!deliveries.containsKey(listener)) {
+                        deliveries.put(listener, new CmsEventDelivery(listener, 0));
+                    }
+                }
+            }
+            m_deliveries = Collections.unmodifiableMap(deliveries);
+            String webapp = null;
+            if (OpenCms.getSystemInfo() != null) {
+                webapp = OpenCms.getSystemInfo().getWebApplicationName();
+            }
+            m_webapp = CmsStringUtil.isEmptyOrWhitespaceOnly(webapp) ? "opencms" : webapp;
+            for (Map.Entry<I_CmsEventListener, CmsEventDelivery> entry : m_deliveries.entrySet()) {
+                registerStatisticsMBean(entry.getKey(), entry.getValue());
+            }
+        }
     }
 
     /**
@@ -180,8 +351,10 @@ public class CmsEventManager {
      * 
      * @param listeners the listeners to fire
      * @param event the event to fire
+     * @param eventType the event type the listeners are registered for, either the type of the event 
+     *      or {@link I_CmsEventListener#LISTENERS_FOR_ALL_EVENTS}
      */
-    protected void fireEventHandler(List<I_CmsEventListener> listeners, CmsEvent event) {
+    protected void fireEventHandler(List<I_CmsEventListener> listeners, CmsEvent event, Integer eventType) {
 
         if (!LOG.isDebugEnabled()) {
             // no logging required            
@@ -191,7 +364,7 @@ public class CmsEventManager {
                 // loop through all registered event listeners
                 for (int i = 0; i < list.length; i++) {
                     // fire the event
-                    list[i].cmsEvent(event);
+                    deliver(list[i], event, eventType);
                 }
             }
         } else {
@@ -232,7 +405,7 @@ public class CmsEventManager {
                         new Integer(i),
                         event.toString()));
                     // fire the event
-                    list[i].cmsEvent(event);
+                    deliver(list[i], event, eventType);
                     LOG.debug(Messages.get().getBundle().key(
                         Messages.LOG_DEBUG_EVENT_END_LISTENER_3,
                         list[i],
@@ -245,4 +418,72 @@ public class CmsEventManager {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_DEBUG_EVENT_COMPLETE_1, event.toString()));
         }
     }
+
+    /**
+     * Delivers an event to a listener, using the delivery mode the listener is registered with for the event type.<p>
+     * 
+     * @param listener the listener
+     * @param event the event
+     * @param eventType the event type the listener is registered for
+     */
+    private void deliver(I_CmsEventListener listener, CmsEvent event, Integer eventType) {
+
+        CmsEventDelivery delivery = m_deliveries.get(listener);
+        if (delivery != null) {
+            delivery.deliver(event, eventType);
+        } else {
+            // the listener has been removed concurrently or was added directly to the listener map
+            listener.cmsEvent(event);
+        }
+    }
+
+    /**
+     * Registers the delivery statistics of the given listener as JMX MBean, 
+     * if the event manager has been initialized.<p>
+     * 
+     * @param listener the listener
+     * @param delivery the event delivery of the listener
+     */
+    private void registerStatisticsMBean(I_CmsEventListener listener, CmsEventDelivery delivery) {
+
+        if (m_webapp == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_DOMAIN
+                + ":type=EventListenerStatistics,webapp="
+                + ObjectName.quote(m_webapp)
+                + ",name="
+                + ObjectName.quote(listener.getClass().getName()
+                    + "@"
+                    + Integer.toHexString(System.identityHashCode(listener))));
+            if (server.isRegistered(name)) {
+                // left over from a previous initialization of this web application
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(delivery.getStatistics(), name);
+            m_mbeans.put(listener, name);
+        } catch (Throwable t) {
+            // JMX is optional, the statistics are still available through the event manager
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_REGISTER_EVENT_MBEAN_FAILED_1, listener), t);
+        }
+    }
+
+    /**
+     * Unregisters the delivery statistics MBean of the given listener.<p>
+     * 
+     * @param listener the listener
+     */
+    private void unregisterStatisticsMBean(I_CmsEventListener listener) {
+
+        ObjectName name = m_mbeans.remove(listener);
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (Exception e) {
+                LOG.warn(e.getLocalizedMessage(), e);
+            }
+        }
+    }
 }
\ No newline at end of file
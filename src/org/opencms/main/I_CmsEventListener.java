@@ -53,6 +53,12 @@ package org.opencms.main;
  * }
  * </pre>
  * 
+ * Events are delivered on the thread that fires them, so listeners may be called by several threads at once.
+ * A listener registered for asynchronous delivery with 
+ * {@link CmsEventManager#addCmsEventListener(I_CmsEventListener, int[], boolean)} is also called by its 
+ * own worker thread, at the same time as it gets the event types it is registered for synchronously. 
+ * Listeners must therefore be thread-safe.<p>
+ * 
  * @since 6.0.0 
  * 
  * @see CmsEvent
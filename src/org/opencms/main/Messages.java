@@ -354,6 +354,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_ADE_MANAGER_SHUTDOWN_1 = "LOG_ERROR_ADE_MANAGER_SHUTDOWN_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1 = "LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_EXPORT_1 = "LOG_ERROR_EXPORT_1";
 
@@ -402,6 +405,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_WRITING_CONFIG_1 = "LOG_ERROR_WRITING_CONFIG_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EVENT_LISTENER_FAILED_2 = "LOG_EVENT_LISTENER_FAILED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EVENT_QUEUE_FULL_2 = "LOG_EVENT_QUEUE_FULL_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_INIT_CMSOBJECT_IN_HANDLER_2 = "LOG_INIT_CMSOBJECT_IN_HANDLER_2";
 
@@ -414,6 +423,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_INIT_INVALID_ERROR_2 = "LOG_INIT_INVALID_ERROR_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_REGISTER_EVENT_MBEAN_FAILED_1 = "LOG_REGISTER_EVENT_MBEAN_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SESSION_CREATED_1 = "LOG_SESSION_CREATED_1";
 
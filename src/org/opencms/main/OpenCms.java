@@ -37,6 +37,7 @@ import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.importexport.CmsImportExportManager;
+import org.opencms.jsp.CmsJspNavigationCache;
 import org.opencms.loader.CmsResourceManager;
 import org.opencms.module.CmsModuleManager;
 import org.opencms.monitor.CmsMemoryMonitor;
@@ -141,6 +142,20 @@ public final class OpenCms {
         OpenCmsCore.getInstance().getEventManager().addCmsEventListener(listener, eventTypes);
     }
 
+    /**
+     * Add a cms event listener that listens only to particular events, with the given delivery mode.<p>
+     *
+     * @param listener the listener to add
+     * @param eventTypes the events to listen for
+     * @param asynchronous if <code>true</code>, the events are delivered asynchronously
+     * 
+     * @see CmsEventManager#addCmsEventListener(I_CmsEventListener, int[], boolean)
+     */
+    public static void addCmsEventListener(I_CmsEventListener listener, int[] eventTypes, boolean asynchronous) {
+
+        OpenCmsCore.getInstance().getEventManager().addCmsEventListener(listener, eventTypes, asynchronous);
+    }
+
     /**
      * Notify all event listeners that a particular event has occurred.<p>
      *
@@ -303,6 +318,16 @@ public final class OpenCms {
         return OpenCmsCore.getInstance().getModuleManager();
     }
 
+    /**
+     * Returns the navigation cache.<p>
+     * 
+     * @return the navigation cache
+     */
+    public static CmsJspNavigationCache getNavigationCache() {
+
+        return OpenCmsCore.getInstance().getNavigationCache();
+    }
+
     /**
      * Returns the organizational unit manager.<p>
      * 
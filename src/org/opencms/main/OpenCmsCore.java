@@ -63,6 +63,7 @@ import org.opencms.i18n.CmsI18nInfo;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.importexport.CmsImportExportManager;
+import org.opencms.jsp.CmsJspNavigationCache;
 import org.opencms.jsp.util.CmsErrorBean;
 import org.opencms.loader.CmsResourceManager;
 import org.opencms.loader.I_CmsFlexCacheEnabledLoader;
@@ -195,6 +196,9 @@ public final class OpenCmsCore {
     /** The module manager. */
     private CmsModuleManager m_moduleManager;
 
+    /** The navigation cache. */
+    private CmsJspNavigationCache m_navigationCache;
+
     /** The organizational unit manager. */
     private CmsOrgUnitManager m_orgUnitManager;
 
@@ -505,6 +509,16 @@ public final class OpenCmsCore {
         return m_moduleManager;
     }
 
+    /**
+     * Returns the navigation cache.<p>
+     * 
+     * @return the navigation cache
+     */
+    protected CmsJspNavigationCache getNavigationCache() {
+
+        return m_navigationCache;
+    }
+
     /**
      * Returns the organizational unit manager.<p>
      * 
@@ -1237,6 +1251,9 @@ public final class OpenCmsCore {
             CmsFormatterConfiguration.initialize(adminCms);
             //m_adeManager = new CmsADEManager(initCmsObject(adminCms), m_memoryMonitor, systemConfiguration);
             m_adeManager = new CmsADEManager(adminCms, m_memoryMonitor, systemConfiguration);
+
+            // initialize the navigation cache
+            m_navigationCache = new CmsJspNavigationCache(initCmsObject(adminCms), m_memoryMonitor);
         } catch (CmsException e) {
             throw new CmsInitException(Messages.get().container(Messages.ERR_CRITICAL_INIT_MANAGERS_0), e);
         }
@@ -1738,6 +1755,15 @@ public final class OpenCmsCore {
                         Messages.LOG_ERROR_ADE_MANAGER_SHUTDOWN_1,
                         e.getMessage()), e);
                 }
+                try {
+                    if (m_eventManager != null) {
+                        m_eventManager.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(Messages.get().getBundle().key(
+                        Messages.LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1,
+                        e.getMessage()), e);
+                }
                 String runtime = CmsStringUtil.formatRuntime(getSystemInfo().getRuntime());
                 if (CmsLog.INIT.isInfoEnabled()) {
                     CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_OPENCMS_STOPPED_1, runtime));
@@ -0,0 +1,353 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Index of the keys of a memory monitor cache by the VFS root path the cached data belongs to.<p>
+ *
+ * The index is a tree of path segments, separately for the Online project and the offline projects,
+ * since all offline projects share the same cache keys. This allows to remove only the cache entries
+ * of a changed resource and its sub-tree (or its parent folders), instead of flushing the complete cache.<p>
+ *
+ * Keys cached without a path are kept in a global set, which is cleared on every path invalidation.<p>
+ *
+ * To keep the index consistent with the cache without locking, callers must follow this protocol:
+ * <ul>
+ * <li>Adding: call {@link #add(boolean, String, Object)} before putting the entry into the cache,
+ * afterwards check with {@link #contains(boolean, String, Object)} if the key is still indexed,
+ * if not, the entry must be removed from the cache again.</li>
+ * <li>Removing: remove the keys from the index first, then remove them from the cache.</li>
+ * </ul><p>
+ *
+ * Keys of entries that have been evicted from the cache are purged from the index from time to time.<p>
+ *
+ * @param <K> the type of the cache keys
+ *
+ * @since 8.5.0
+ */
+public final class CmsCachePathIndex<K> {
+
+    /**
+     * A node in the path tree.<p>
+     *
+     * @param <K> the type of the cache keys
+     */
+    private static final class Node<K> {
+
+        /** The child nodes, mapped by path segment. */
+        final Map<String, Node<K>> m_children = new ConcurrentHashMap<String, Node<K>>(4, 0.75f, 2);
+
+        /** The keys indexed for the path of this node. */
+        final Map<K, Boolean> m_keys = new ConcurrentHashMap<K, Boolean>(4, 0.75f, 2);
+
+        /**
+         * Returns the child node for the given segment, creating it if required.<p>
+         *
+         * @param segment the path segment
+         *
+         * @return the child node
+         */
+        Node<K> getOrCreateChild(String segment) {
+
+            Node<K> child = m_children.get(segment);
+            if (child == null) {
+                child = new Node<K>();
+                Node<K> existing = ((ConcurrentHashMap<String, Node<K>>)m_children).putIfAbsent(segment, child);
+                if (existing != null) {
+                    child = existing;
+                }
+            }
+            return child;
+        }
+    }
+
+    /** The number of additions since the last purge. */
+    private final AtomicInteger m_additions = new AtomicInteger();
+
+    /** The cache whose keys are indexed. */
+    private final Map<K, ?> m_cache;
+
+    /** The keys cached without path information. */
+    private final Map<K, Boolean> m_globalKeys = new ConcurrentHashMap<K, Boolean>();
+
+    /** The root node for the offline projects. */
+    private final Node<K> m_offlineRoot = new Node<K>();
+
+    /** The root node for the Online project. */
+    private final Node<K> m_onlineRoot = new Node<K>();
+
+    /** The number of additions after which the index is purged. */
+    private final int m_purgeInterval;
+
+    /** Flag to indicate a purge is running. */
+    private final AtomicBoolean m_purging = new AtomicBoolean();
+
+    /**
+     * Creates a new index for the given cache.<p>
+     *
+     * @param cache the cache whose keys are indexed
+     * @param purgeInterval the number of additions after which keys of evicted entries are purged from the index,
+     *      should be about the maximum size of the cache
+     */
+    public CmsCachePathIndex(Map<K, ?> cache, int purgeInterval) {
+
+        m_cache = cache;
+        m_purgeInterval = Math.max(purgeInterval, 16);
+    }
+
+    /**
+     * Adds a key to the index.<p>
+     *
+     * @param online <code>true</code> if the key belongs to the Online project
+     * @param rootPath the root path the cached data belongs to, or <code>null</code> if unknown
+     * @param key the cache key
+     */
+    public void add(boolean online, String rootPath, K key) {
+
+        if (rootPath == null) {
+            m_globalKeys.put(key, Boolean.TRUE);
+        } else {
+            Node<K> node = online ? m_onlineRoot : m_offlineRoot;
+            int pos = 0;
+            int len = rootPath.length();
+            while (pos < len) {
+                int next = rootPath.indexOf('/', pos);
+                if (next < 0) {
+                    next = len;
+                }
+                if (next > pos) {
+                    node = node.getOrCreateChild(rootPath.substring(pos, next));
+                }
+                pos = next + 1;
+            }
+            node.m_keys.put(key, Boolean.TRUE);
+        }
+        if ((m_additions.incrementAndGet() > m_purgeInterval) && m_purging.compareAndSet(false, true)) {
+            try {
+                m_additions.set(0);
+                purge();
+            } finally {
+                m_purging.set(false);
+            }
+        }
+    }
+
+    /**
+     * Removes all keys from the index.<p>
+     */
+    public void clear() {
+
+        m_globalKeys.clear();
+        m_onlineRoot.m_children.clear();
+        m_onlineRoot.m_keys.clear();
+        m_offlineRoot.m_children.clear();
+        m_offlineRoot.m_keys.clear();
+        m_additions.set(0);
+    }
+
+    /**
+     * Checks if the given key is indexed for the given path.<p>
+     *
+     * @param online <code>true</code> if the key belongs to the Online project
+     * @param rootPath the root path the cached data belongs to, or <code>null</code> if unknown
+     * @param key the cache key
+     *
+     * @return <code>true</code> if the given key is indexed for the given path
+     */
+    public boolean contains(boolean online, String rootPath, K key) {
+
+        if (rootPath == null) {
+            return m_globalKeys.containsKey(key);
+        }
+        Node<K> node = getNode(online ? m_onlineRoot : m_offlineRoot, rootPath, null);
+        return (node != null) && node.m_keys.containsKey(key);
+    }
+
+    /**
+     * Removes the keys for the parent folders of the given path from the index and returns them.<p>
+     *
+     * The keys for the given path itself are not included, keys cached without path are always included.<p>
+     *
+     * @param online <code>true</code> for the Online project, <code>false</code> for the offline projects
+     * @param rootPath the root path
+     *
+     * @return the removed keys
+     */
+    public List<K> removeParents(boolean online, String rootPath) {
+
+        List<K> result = new ArrayList<K>();
+        removeKeys(m_globalKeys, result);
+        List<Node<K>> parents = new ArrayList<Node<K>>();
+        getNode(online ? m_onlineRoot : m_offlineRoot, rootPath, parents);
+        for (Node<K> parent : parents) {
+            removeKeys(parent.m_keys, result);
+        }
+        return result;
+    }
+
+    /**
+     * Removes the keys for the given path and all paths below it from the index and returns them.<p>
+     *
+     * Keys cached without path are always included.<p>
+     *
+     * @param online <code>true</code> for the Online project, <code>false</code> for the offline projects
+     * @param rootPath the root path
+     *
+     * @return the removed keys
+     */
+    public List<K> removeSubtree(boolean online, String rootPath) {
+
+        List<K> result = new ArrayList<K>();
+        removeKeys(m_globalKeys, result);
+        Node<K> node = getNode(online ? m_onlineRoot : m_offlineRoot, rootPath, null);
+        if (node != null) {
+            removeSubtree(node, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the node for the given path, without creating missing nodes.<p>
+     *
+     * @param root the root node
+     * @param rootPath the path
+     * @param parents if not <code>null</code>, the nodes of the parent folders found on the way are added to this list
+     *
+     * @return the node for the given path, or <code>null</code> if there is none
+     */
+    private Node<K> getNode(Node<K> root, String rootPath, List<Node<K>> parents) {
+
+        Node<K> node = root;
+        int pos = 0;
+        int len = rootPath.length();
+        while ((node != null) && (pos < len)) {
+            int next = rootPath.indexOf('/', pos);
+            if (next < 0) {
+                next = len;
+            }
+            if (next > pos) {
+                if (parents != null) {
+                    parents.add(node);
+                }
+                node = node.m_children.get(rootPath.substring(pos, next));
+            }
+            pos = next + 1;
+        }
+        return node;
+    }
+
+    /**
+     * Removes the keys of evicted cache entries and empty nodes from the index.<p>
+     */
+    private void purge() {
+
+        purgeKeys(m_globalKeys);
+        purge(m_onlineRoot);
+        purge(m_offlineRoot);
+    }
+
+    /**
+     * Removes the keys of evicted cache entries and empty nodes from the given sub-tree.<p>
+     *
+     * @param node the root of the sub-tree
+     *
+     * @return <code>true</code> if the node is empty after purging
+     */
+    private boolean purge(Node<K> node) {
+
+        purgeKeys(node.m_keys);
+        Iterator<Map.Entry<String, Node<K>>> it = node.m_children.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Node<K>> entry = it.next();
+            if (purge(entry.getValue())) {
+                // keys added concurrently to a removed node are detected by the contains() check of the caller
+                it.remove();
+            }
+        }
+        return node.m_keys.isEmpty() && node.m_children.isEmpty();
+    }
+
+    /**
+     * Removes the keys of evicted cache entries from the given key set.<p>
+     *
+     * @param keys the key set
+     */
+    private void purgeKeys(Map<K, Boolean> keys) {
+
+        Iterator<K> it = keys.keySet().iterator();
+        while (it.hasNext()) {
+            K key = it.next();
+            if (!m_cache.containsKey(key)) {
+                it.remove();
+                if (m_cache.containsKey(key)) {
+                    // the entry has been cached concurrently, keep it in the index
+                    keys.put(key, Boolean.TRUE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all keys from the given key set and adds them to the result.<p>
+     *
+     * @param keys the key set
+     * @param result the result list
+     */
+    private void removeKeys(Map<K, Boolean> keys, List<K> result) {
+
+        Iterator<K> it = keys.keySet().iterator();
+        while (it.hasNext()) {
+            K key = it.next();
+            if (keys.remove(key) != null) {
+                result.add(key);
+            }
+        }
+    }
+
+    /**
+     * Removes all keys from the given sub-tree and adds them to the result.<p>
+     *
+     * @param node the root of the sub-tree
+     * @param result the result list
+     */
+    private void removeSubtree(Node<K> node, List<K> result) {
+
+        removeKeys(node.m_keys, result);
+        for (Node<K> child : node.m_children.values()) {
+            removeSubtree(child, result);
+        }
+    }
+}
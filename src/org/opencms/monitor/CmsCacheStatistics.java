@@ -0,0 +1,414 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.monitor;
+
+import org.opencms.json.JSONException;
+import org.opencms.json.JSONObject;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Usage statistics of a single cache of the {@link CmsMemoryMonitor}.<p>
+ * 
+ * Counts hits, misses, puts, evictions and flushes, and records the time needed to load 
+ * a value after a cache miss in a {@link CmsLatencyHistogram}.<p>
+ * 
+ * Since the counters are updated on every cache access, they are striped over several 
+ * cache lines indexed by the current thread, so that concurrent threads do not 
+ * contend on the same memory location and no lock is ever taken.<p>
+ * 
+ * @since 8.5.0
+ */
+public class CmsCacheStatistics implements CmsCacheStatisticsMBean {
+
+    /**
+     * A counter that is striped over several cache lines to avoid contention.<p>
+     */
+    private static final class StripedCounter {
+
+        /** The number of longs in a cache line, only every n-th cell of the array is used. */
+        private static final int PADDING = 8;
+
+        /** The counter cells. */
+        private final AtomicLongArray m_cells;
+
+        /** The mask to map a thread hash to a stripe. */
+        private final int m_mask;
+
+        /**
+         * Creates a new counter.<p>
+         * 
+         * @param stripes the number of stripes, must be a power of 2
+         */
+        StripedCounter(int stripes) {
+
+            m_cells = new AtomicLongArray(stripes * PADDING);
+            m_mask = stripes - 1;
+        }
+
+        /**
+         * Increments the counter.<p>
+         */
+        void increment() {
+
+            long id = Thread.currentThread().getId();
+            // spread the thread ids, they are usually consecutive numbers 
+            int hash = (int)(id ^ (id >>> 32)) * 0x9E3779B9;
+            m_cells.incrementAndGet(((hash >>> 16) & m_mask) * PADDING);
+        }
+
+        /**
+         * Resets the counter.<p>
+         */
+        void reset() {
+
+            for (int i = 0; i < m_cells.length(); i += PADDING) {
+                m_cells.set(i, 0);
+            }
+        }
+
+        /**
+         * Returns the current value of the counter.<p>
+         * 
+         * @return the current value
+         */
+        long sum() {
+
+            long sum = 0;
+            for (int i = 0; i < m_cells.length(); i += PADDING) {
+                sum += m_cells.get(i);
+            }
+            return sum;
+        }
+    }
+
+    /** The number of stripes of the counters. */
+    private static final int STRIPES = getStripes();
+
+    /** The cache, used to read its size. */
+    private volatile Object m_cache;
+
+    /** The eviction counter. */
+    private final StripedCounter m_evictions = new StripedCounter(STRIPES);
+
+    /** The flush counter. */
+    private final StripedCounter m_flushes = new StripedCounter(STRIPES);
+
+    /** The hit counter. */
+    private final StripedCounter m_hits = new StripedCounter(STRIPES);
+
+    /** The load times after cache misses. */
+    private final CmsLatencyHistogram m_loadTimes = new CmsLatencyHistogram();
+
+    /** The miss counter. */
+    private final StripedCounter m_misses = new StripedCounter(STRIPES);
+
+    /** The name of the cache type. */
+    private final String m_name;
+
+    /** The put counter. */
+    private final StripedCounter m_puts = new StripedCounter(STRIPES);
+
+    /**
+     * Creates new statistics for the given cache type.<p>
+     * 
+     * @param name the name of the cache type
+     */
+    public CmsCacheStatistics(String name) {
+
+        m_name = name;
+    }
+
+    /**
+     * Returns the number of stripes to use for the counters, depending on the number of processors.<p>
+     * 
+     * @return the number of stripes
+     */
+    private static int getStripes() {
+
+        int stripes = 1;
+        int processors = Runtime.getRuntime().availableProcessors();
+        while ((stripes < processors) && (stripes < 16)) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsCacheStatisticsMBean#getEvictions()
+     */
+    public long getEvictions() {
+
+        return m_evictions.sum();
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsCacheStatisticsMBean#getFlushes()
+     */
+    public long getFlushes() {
+
+        return m_flushes.sum();
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsCacheStatisticsMBean#getHitRatio()
+     */
+    public double getHitRatio() {
+
+        long hits = getHits();
+        long total = hits + getMisses();
+        if (total == 0) {
+            return 0;
+        }
+        return (hits * 100.0) / total;
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsCacheStatisticsMBean#getHits()
+     */
+    public long getHits() {
+
+        return m_hits.sum();
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsCacheStatisticsMBean#getLoadCount()
+     */
+    public long getLoadCount() {
+
+        return m_loadTimes.getCount();
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsCacheStatisticsMBean#getLoadTimeMax()
+     */
+    public double getLoadTimeMax() {
+
+        return m_loadTimes.getMaxMillis();
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsCacheStatisticsMBean#getLoadTimeMean()
+     */
+    public double getLoadTimeMean() {
+
+        return m_loadTimes.getMeanMillis();
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsCacheStatisticsMBean#getLoadTimeMedian()
+     */
+    public double getLoadTimeMedian() {
+
+        return m_loadTimes.getPercentileMillis(50);
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsCacheStatisticsMBean#getLoadTimePercentile99()
+     */
+    public double getLoadTimePercentile99() {
+
+        return m_loadTimes.getPercentileMillis(99);
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsCacheStatisticsMBean#getMisses()
+     */
+    public long getMisses() {
+
+        return m_misses.sum();
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsCacheStatisticsMBean#getName()
+     */
+    public String getName() {
+
+        return m_name;
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsCacheStatisticsMBean#getPuts()
+     */
+    public long getPuts() {
+
+        return m_puts.sum();
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsCacheStatisticsMBean#getSize()
+     */
+    public int getSize() {
+
+        Object cache = m_cache;
+        if (cache instanceof Map<?, ?>) {
+            return ((Map<?, ?>)cache).size();
+        }
+        if (cache instanceof Collection<?>) {
+            return ((Collection<?>)cache).size();
+        }
+        return -1;
+    }
+
+    /**
+     * Records a cache lookup.<p>
+     * 
+     * @param hit <code>true</code> if an entry was found in the cache
+     */
+    public void recordAccess(boolean hit) {
+
+        if (hit) {
+            m_hits.increment();
+        } else {
+            m_misses.increment();
+        }
+    }
+
+    /**
+     * Records an eviction from the cache.<p>
+     */
+    public void recordEviction() {
+
+        m_evictions.increment();
+    }
+
+    /**
+     * Records a flush of the cache.<p>
+     */
+    public void recordFlush() {
+
+        m_flushes.increment();
+    }
+
+    /**
+     * Records the time needed to load a value after a cache miss.<p>
+     * 
+     * @param nanos the load time in nanoseconds
+     */
+    public void recordLoadTime(long nanos) {
+
+        m_loadTimes.record(nanos);
+    }
+
+    /**
+     * Records a put into the cache.<p>
+     */
+    public void recordPut() {
+
+        m_puts.increment();
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsCacheStatisticsMBean#reset()
+     */
+    public void reset() {
+
+        m_hits.reset();
+        m_misses.reset();
+        m_puts.reset();
+        m_evictions.reset();
+        m_flushes.reset();
+        m_loadTimes.reset();
+    }
+
+    /**
+     * Sets the cache, used to read the current size of the cache.<p>
+     * 
+     * @param cache the cache, a map or a collection
+     */
+    public void setCache(Object cache) {
+
+        m_cache = cache;
+    }
+
+    /**
+     * Returns the statistics as JSON object.<p>
+     * 
+     * @return the statistics as JSON object
+     * 
+     * @throws JSONException if something goes wrong
+     */
+    public JSONObject toJson() throws JSONException {
+
+        JSONObject result = new JSONObject();
+        result.put("name", m_name);
+        result.put("size", getSize());
+        result.put("hits", getHits());
+        result.put("misses", getMisses());
+        result.put("hitRatio", round(getHitRatio()));
+        result.put("puts", getPuts());
+        result.put("evictions", getEvictions());
+        result.put("flushes", getFlushes());
+        JSONObject load = new JSONObject();
+        load.put("count", getLoadCount());
+        load.put("mean", round(getLoadTimeMean()));
+        load.put("median", round(getLoadTimeMedian()));
+        load.put("p99", round(getLoadTimePercentile99()));
+        load.put("max", round(getLoadTimeMax()));
+        result.put("loadTimeMillis", load);
+        return result;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer result = new StringBuffer(160);
+        result.append(m_name);
+        result.append(": size=").append(getSize());
+        result.append(" hits=").append(getHits());
+        result.append(" misses=").append(getMisses());
+        result.append(" hitRatio=").append(round(getHitRatio())).append('%');
+        result.append(" puts=").append(getPuts());
+        result.append(" evictions=").append(getEvictions());
+        result.append(" flushes=").append(getFlushes());
+        result.append(" loads=").append(getLoadCount());
+        result.append(" loadTime[ms] mean=").append(round(getLoadTimeMean()));
+        result.append(" median=").append(round(getLoadTimeMedian()));
+        result.append(" p99=").append(round(getLoadTimePercentile99()));
+        result.append(" max=").append(round(getLoadTimeMax()));
+        return result.toString();
+    }
+
+    /**
+     * Rounds the given value to 3 decimal places.<p>
+     * 
+     * @param value the value to round
+     * 
+     * @return the rounded value
+     */
+    private double round(double value) {
+
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+}
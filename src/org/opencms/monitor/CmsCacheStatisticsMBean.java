@@ -0,0 +1,135 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.monitor;
+
+/**
+ * Management interface of the {@link CmsCacheStatistics} for JMX.<p>
+ * 
+ * The name of this interface follows the naming convention for JMX standard MBeans.<p>
+ * 
+ * @since 8.5.0
+ */
+public interface CmsCacheStatisticsMBean {
+
+    /**
+     * Returns the number of entries evicted because the cache was full.<p>
+     * 
+     * @return the number of evictions
+     */
+    long getEvictions();
+
+    /**
+     * Returns the number of times the cache was flushed completely or for a path.<p>
+     * 
+     * @return the number of flushes
+     */
+    long getFlushes();
+
+    /**
+     * Returns the percentage of lookups that found an entry in the cache.<p>
+     * 
+     * @return the hit ratio in percent
+     */
+    double getHitRatio();
+
+    /**
+     * Returns the number of lookups that found an entry in the cache.<p>
+     * 
+     * @return the number of hits
+     */
+    long getHits();
+
+    /**
+     * Returns the number of recorded loads after a cache miss.<p>
+     * 
+     * @return the number of recorded loads
+     */
+    long getLoadCount();
+
+    /**
+     * Returns the maximum time needed to load a value after a cache miss in milliseconds.<p>
+     * 
+     * @return the maximum load time in milliseconds
+     */
+    double getLoadTimeMax();
+
+    /**
+     * Returns the average time needed to load a value after a cache miss in milliseconds.<p>
+     * 
+     * @return the average load time in milliseconds
+     */
+    double getLoadTimeMean();
+
+    /**
+     * Returns the 99th percentile of the time needed to load a value after a cache miss in milliseconds.<p>
+     * 
+     * @return the 99th percentile of the load time in milliseconds
+     */
+    double getLoadTimePercentile99();
+
+    /**
+     * Returns the median of the time needed to load a value after a cache miss in milliseconds.<p>
+     * 
+     * @return the median of the load time in milliseconds
+     */
+    double getLoadTimeMedian();
+
+    /**
+     * Returns the number of lookups that did not find an entry in the cache.<p>
+     * 
+     * @return the number of misses
+     */
+    long getMisses();
+
+    /**
+     * Returns the name of the cache type.<p>
+     * 
+     * @return the name of the cache type
+     */
+    String getName();
+
+    /**
+     * Returns the number of values put into the cache.<p>
+     * 
+     * @return the number of puts
+     */
+    long getPuts();
+
+    /**
+     * Returns the current number of entries in the cache.<p>
+     * 
+     * @return the current number of entries, or -1 if unknown
+     */
+    int getSize();
+
+    /**
+     * Resets all counters.<p>
+     */
+    void reset();
+}
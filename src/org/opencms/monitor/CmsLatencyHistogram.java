@@ -0,0 +1,175 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of latencies with exponentially growing buckets.<p>
+ * 
+ * The upper bound of bucket <code>i</code> is 2<sup>i</sup> microseconds, so the 
+ * histogram covers latencies from 1 microsecond up to about 1 hour with a relative error 
+ * of at most 50%, which is sufficient to tell fast from slow operations.
+ * Recording a latency only updates a few atomic counters, no lock is taken.<p>
+ * 
+ * @since 8.5.0
+ */
+public class CmsLatencyHistogram {
+
+    /** The number of buckets. */
+    private static final int BUCKETS = 32;
+
+    /** The bucket counters. */
+    private final AtomicLongArray m_buckets = new AtomicLongArray(BUCKETS);
+
+    /** The maximum recorded latency in nanoseconds. */
+    private final AtomicLong m_max = new AtomicLong();
+
+    /** The sum of all recorded latencies in nanoseconds. */
+    private final AtomicLong m_sum = new AtomicLong();
+
+    /**
+     * Returns the number of recorded latencies.<p>
+     * 
+     * @return the number of recorded latencies
+     */
+    public long getCount() {
+
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += m_buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the maximum recorded latency in milliseconds.<p>
+     * 
+     * @return the maximum recorded latency in milliseconds
+     */
+    public double getMaxMillis() {
+
+        return m_max.get() / 1000000.0;
+    }
+
+    /**
+     * Returns the average of the recorded latencies in milliseconds.<p>
+     * 
+     * @return the average of the recorded latencies in milliseconds, or 0 if nothing has been recorded
+     */
+    public double getMeanMillis() {
+
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        return (m_sum.get() / (double)count) / 1000000.0;
+    }
+
+    /**
+     * Returns an upper bound for the given percentile of the recorded latencies in milliseconds.<p>
+     * 
+     * @param percentile the percentile, between 0 and 100
+     * 
+     * @return the upper bound of the bucket containing the percentile in milliseconds, 
+     *      or 0 if nothing has been recorded
+     */
+    public double getPercentileMillis(double percentile) {
+
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = m_buckets.get(i);
+            count += counts[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long threshold = (long)Math.ceil((count * Math.min(Math.max(percentile, 0), 100)) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if ((seen >= threshold) && (counts[i] > 0)) {
+                // the bucket bound, but never more than the maximum actually seen
+                return Math.min((1L << i) / 1000.0, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Records the given latency.<p>
+     * 
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+
+        if (nanos < 0) {
+            // System.nanoTime() is not guaranteed to be monotonic on all platforms
+            nanos = 0;
+        }
+        m_buckets.incrementAndGet(getBucket(nanos));
+        m_sum.addAndGet(nanos);
+        long max = m_max.get();
+        while ((nanos > max) && !m_max.compareAndSet(max, nanos)) {
+            max = m_max.get();
+        }
+    }
+
+    /**
+     * Resets the histogram.<p>
+     */
+    public void reset() {
+
+        for (int i = 0; i < BUCKETS; i++) {
+            m_buckets.set(i, 0);
+        }
+        m_sum.set(0);
+        m_max.set(0);
+    }
+
+    /**
+     * Returns the index of the bucket for the given latency.<p>
+     * 
+     * @param nanos the latency in nanoseconds
+     * 
+     * @return the index of the bucket
+     */
+    private int getBucket(long nanos) {
+
+        long micros = nanos / 1000;
+        if (micros <= 1) {
+            return 0;
+        }
+        // the smallest i with 2^i >= micros
+        int bucket = 64 - Long.numberOfLeadingZeros(micros - 1);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+}
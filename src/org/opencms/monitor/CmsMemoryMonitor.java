@@ -27,11 +27,13 @@
 
 package org.opencms.monitor;
 
+import org.opencms.cache.CmsConcurrentLruMap;
 import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.CmsMemoryObjectCache;
 import org.opencms.cache.CmsVfsMemoryObjectCache;
 import org.opencms.configuration.CmsSystemConfiguration;
 import org.opencms.db.CmsCacheSettings;
+import org.opencms.db.CmsCompositeCacheKey;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsSecurityManager;
@@ -45,7 +47,10 @@ import org.opencms.file.CmsResource;
 import org.opencms.file.CmsUser;
 import org.opencms.flex.CmsFlexCache.CmsFlexCacheVariation;
 import org.opencms.i18n.CmsLocaleManager;
+import org.opencms.json.JSONException;
+import org.opencms.json.JSONObject;
 import org.opencms.lock.CmsLock;
+import org.opencms.lock.CmsLockIndex;
 import org.opencms.lock.CmsLockManager;
 import org.opencms.mail.CmsMailTransport;
 import org.opencms.mail.CmsSimpleMail;
@@ -71,10 +76,12 @@ import org.opencms.util.PrintfFormat;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -82,6 +89,8 @@ import java.util.Locale;
 import java.util.Map;
 
 import javax.mail.internet.InternetAddress;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.apache.commons.collections.Buffer;
 import org.apache.commons.collections.buffer.SynchronizedBuffer;
@@ -163,6 +172,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Maximum depth for object size recursion. */
     private static final int MAX_DEPTH = 5;
 
+    /** The JMX domain of the MBeans registered by the memory monitor. */
+    private static final String MBEAN_DOMAIN = "org.opencms";
+
     /** Cache for access control lists. */
     private Map<String, CmsAccessControlList> m_cacheAccessControlList;
 
@@ -179,7 +191,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, Locale> m_cacheLocale;
 
     /** Cache for the resource locks. */
-    private Map<String, CmsLock> m_cacheLock;
+    private CmsLockIndex m_cacheLock;
 
     /** The memory object cache map. */
     private Map<String, Object> m_cacheMemObject;
@@ -188,7 +200,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, CmsOrganizationalUnit> m_cacheOrgUnit;
 
     /** Cache for permission checks. */
-    private Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> m_cachePermission;
+    private Map<CmsCompositeCacheKey, I_CmsPermissionHandler.CmsPermissionCheckResult> m_cachePermission;
 
     /** Cache for offline projects. */
     private Map<String, CmsProject> m_cacheProject;
@@ -197,19 +209,19 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, List<CmsResource>> m_cacheProjectResources;
 
     /** Cache for properties. */
-    private Map<String, CmsProperty> m_cacheProperty;
+    private Map<CmsCompositeCacheKey, CmsProperty> m_cacheProperty;
 
     /** Cache for property lists. */
-    private Map<String, List<CmsProperty>> m_cachePropertyList;
+    private Map<CmsCompositeCacheKey, List<CmsProperty>> m_cachePropertyList;
 
     /** Cache for published resources. */
     private Map<String, List<CmsPublishedResource>> m_cachePublishedResources;
 
     /** Cache for resources. */
-    private Map<String, CmsResource> m_cacheResource;
+    private Map<CmsCompositeCacheKey, CmsResource> m_cacheResource;
 
     /** Cache for resource lists. */
-    private Map<String, List<CmsResource>> m_cacheResourceList;
+    private Map<CmsCompositeCacheKey, List<CmsResource>> m_cacheResourceList;
 
     /** Cache for role lists. */
     private Map<String, List<CmsRole>> m_cacheRoleLists;
@@ -277,12 +289,21 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Contains the object to be monitored. */
     private Map<String, Object> m_monitoredObjects;
 
+    /** The path indexes of the caches that support path-scoped invalidation. */
+    private Map<CacheType, CmsCachePathIndex<CmsCompositeCacheKey>> m_pathIndexes;
+
     /** Buffer for publish history. */
     private Buffer m_publishHistory;
 
     /** Buffer for publish jobs. */
     private Buffer m_publishQueue;
 
+    /** The names of the MBeans registered by this memory monitor. */
+    private List<ObjectName> m_registeredMBeans = new ArrayList<ObjectName>();
+
+    /** The usage statistics of the caches. */
+    private Map<CacheType, CmsCacheStatistics> m_statistics;
+
     /** Flag for memory warning mail send. */
     private boolean m_warningLoggedSinceLastStatus;
 
@@ -295,6 +316,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     public CmsMemoryMonitor() {
 
         m_monitoredObjects = new HashMap<String, Object>();
+        m_pathIndexes = new HashMap<CacheType, CmsCachePathIndex<CmsCompositeCacheKey>>();
+        m_statistics = new EnumMap<CacheType, CmsCacheStatistics>(CacheType.class);
+        for (CacheType type : CacheType.values()) {
+            m_statistics.put(type, new CmsCacheStatistics(type.name()));
+        }
     }
 
     /**
@@ -534,6 +560,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheAccessControlList.put(key, acl);
+        getCacheStatistics(CacheType.ACL).recordPut();
     }
 
     /**
@@ -548,6 +575,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheContentDefinitions.put(key, contentDefinition);
+        getCacheStatistics(CacheType.CONTENT_DEFINITION).recordPut();
     }
 
     /**
@@ -562,6 +590,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         }
         m_cacheGroup.put(group.getId().toString(), group);
         m_cacheGroup.put(group.getName(), group);
+        getCacheStatistics(CacheType.GROUP).recordPut();
     }
 
     /**
@@ -578,6 +607,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             }
             // this may be accessed before initialization
             m_cacheLocale.put(key, locale);
+            getCacheStatistics(CacheType.LOCALE).recordPut();
         }
     }
 
@@ -594,6 +624,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheLock.put(lock.getResourceName(), lock);
+        getCacheStatistics(CacheType.LOCK).recordPut();
     }
 
     /**
@@ -608,6 +639,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheMemObject.put(key, obj);
+        getCacheStatistics(CacheType.MEMORY_OBJECT).recordPut();
     }
 
     /**
@@ -622,6 +654,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         }
         m_cacheOrgUnit.put(orgUnit.getId().toString(), orgUnit);
         m_cacheOrgUnit.put(orgUnit.getName(), orgUnit);
+        getCacheStatistics(CacheType.ORG_UNIT).recordPut();
     }
 
     /**
@@ -630,12 +663,32 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param permission the permission check result to cache
      */
-    public void cachePermission(String key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
+    public void cachePermission(CmsCompositeCacheKey key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
+
+        cachePermission(key, permission, null, false);
+    }
+
+    /**
+     * Caches the given permission check result under the given cache key, indexed by the given root path.<p>
+     * 
+     * The entry is removed by {@link #flushCache(String, boolean, CacheType[])} if the resource 
+     * with the given root path or one of its parent folders is changed.<p>
+     * 
+     * @param key the cache key
+     * @param permission the permission check result to cache
+     * @param rootPath the root path of the resource, or <code>null</code> if unknown
+     * @param online <code>true</code> if the permission check result has been read in the Online project
+     */
+    public void cachePermission(
+        CmsCompositeCacheKey key,
+        I_CmsPermissionHandler.CmsPermissionCheckResult permission,
+        String rootPath,
+        boolean online) {
 
         if (m_disabled.get(CacheType.PERMISSION) != null) {
             return;
         }
-        m_cachePermission.put(key, permission);
+        cacheIndexed(CacheType.PERMISSION, m_cachePermission, key, permission, rootPath, online);
     }
 
     /**
@@ -650,6 +703,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         }
         m_cacheProject.put(project.getUuid().toString(), project);
         m_cacheProject.put(project.getName(), project);
+        getCacheStatistics(CacheType.PROJECT).recordPut();
     }
 
     /**
@@ -664,20 +718,27 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheProjectResources.put(key, projectResources);
+        getCacheStatistics(CacheType.PROJECT_RESOURCES).recordPut();
     }
 
     /**
-     * Caches the given property under the given cache key.<p>
+     * Caches the given property under the given cache key, indexed by the given root path.<p>
+     * 
+     * The entry is removed by {@link #flushCache(String, boolean, CacheType[])} if the resource 
+     * with the given root path or one of its parent folders is changed, so this is also correct 
+     * for properties that have been searched on the parent folders.<p>
      * 
      * @param key the cache key
      * @param property the property to cache
+     * @param rootPath the root path of the resource the property has been read from
+     * @param online <code>true</code> if the property has been read in the Online project
      */
-    public void cacheProperty(String key, CmsProperty property) {
+    public void cacheProperty(CmsCompositeCacheKey key, CmsProperty property, String rootPath, boolean online) {
 
         if (m_disabled.get(CacheType.PROPERTY) != null) {
             return;
         }
-        m_cacheProperty.put(key, property);
+        cacheIndexed(CacheType.PROPERTY, m_cacheProperty, key, property, rootPath, online);
     }
 
     /**
@@ -686,12 +747,28 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param propertyList the property list to cache
      */
-    public void cachePropertyList(String key, List<CmsProperty> propertyList) {
+    public void cachePropertyList(CmsCompositeCacheKey key, List<CmsProperty> propertyList) {
+
+        cachePropertyList(key, propertyList, null, false);
+    }
+
+    /**
+     * Caches the given property list under the given cache key, indexed by the given root path.<p>
+     * 
+     * The entry is removed by {@link #flushCache(String, boolean, CacheType[])} if the resource 
+     * with the given root path or one of its parent folders is changed.<p>
+     * 
+     * @param key the cache key
+     * @param propertyList the property list to cache
+     * @param rootPath the root path of the resource, or <code>null</code> if unknown
+     * @param online <code>true</code> if the property list has been read in the Online project
+     */
+    public void cachePropertyList(CmsCompositeCacheKey key, List<CmsProperty> propertyList, String rootPath, boolean online) {
 
         if (m_disabled.get(CacheType.PROPERTY_LIST) != null) {
             return;
         }
-        m_cachePropertyList.put(key, propertyList);
+        cacheIndexed(CacheType.PROPERTY_LIST, m_cachePropertyList, key, propertyList, rootPath, online);
     }
 
     /**
@@ -706,6 +783,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cachePublishedResources.put(cacheKey, publishedResources);
+        getCacheStatistics(CacheType.PUBLISHED_RESOURCES).recordPut();
     }
 
     /**
@@ -740,12 +818,28 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param resource the resource to cache
      */
-    public void cacheResource(String key, CmsResource resource) {
+    public void cacheResource(CmsCompositeCacheKey key, CmsResource resource) {
+
+        cacheResource(key, resource, null, false);
+    }
+
+    /**
+     * Caches the given resource under the given cache key, indexed by the given root path.<p>
+     * 
+     * The entry is removed by {@link #flushCache(String, boolean, CacheType[])} if the resource 
+     * with the given root path or one of its parent folders is changed.<p>
+     * 
+     * @param key the cache key
+     * @param resource the resource to cache
+     * @param rootPath the root path of the resource, or <code>null</code> if unknown
+     * @param online <code>true</code> if the resource has been read in the Online project
+     */
+    public void cacheResource(CmsCompositeCacheKey key, CmsResource resource, String rootPath, boolean online) {
 
         if (m_disabled.get(CacheType.RESOURCE) != null) {
             return;
         }
-        m_cacheResource.put(key, resource);
+        cacheIndexed(CacheType.RESOURCE, m_cacheResource, key, resource, rootPath, online);
     }
 
     /**
@@ -754,12 +848,28 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param resourceList the resource list to cache
      */
-    public void cacheResourceList(String key, List<CmsResource> resourceList) {
+    public void cacheResourceList(CmsCompositeCacheKey key, List<CmsResource> resourceList) {
+
+        cacheResourceList(key, resourceList, null, false);
+    }
+
+    /**
+     * Caches the given resource list under the given cache key, indexed by the given root path.<p>
+     * 
+     * The entry is removed by {@link #flushCache(String, boolean, CacheType[])} if the folder 
+     * with the given root path, one of its parent folders or one of the resources below it is changed.<p>
+     * 
+     * @param key the cache key
+     * @param resourceList the resource list to cache
+     * @param rootPath the root path of the folder the resource list belongs to, or <code>null</code> if unknown
+     * @param online <code>true</code> if the resource list has been read in the Online project
+     */
+    public void cacheResourceList(CmsCompositeCacheKey key, List<CmsResource> resourceList, String rootPath, boolean online) {
 
         if (m_disabled.get(CacheType.RESOURCE_LIST) != null) {
             return;
         }
-        m_cacheResourceList.put(key, resourceList);
+        cacheIndexed(CacheType.RESOURCE_LIST, m_cacheResourceList, key, resourceList, rootPath, online);
     }
 
     /**
@@ -774,6 +884,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheHasRoles.put(key, Boolean.valueOf(hasRole));
+        getCacheStatistics(CacheType.HAS_ROLE).recordPut();
     }
 
     /**
@@ -788,6 +899,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheRoleLists.put(key, roles);
+        getCacheStatistics(CacheType.ROLE_LIST).recordPut();
     }
 
     /**
@@ -802,6 +914,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         }
         m_cacheUser.put(user.getId().toString(), user);
         m_cacheUser.put(user.getName(), user);
+        getCacheStatistics(CacheType.USER).recordPut();
     }
 
     /**
@@ -816,6 +929,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheUserGroups.put(key, userGroups);
+        getCacheStatistics(CacheType.USERGROUPS).recordPut();
     }
 
     /**
@@ -830,6 +944,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheUserList.put(key, userList);
+        getCacheStatistics(CacheType.USER_LIST).recordPut();
     }
 
     /**
@@ -844,6 +959,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheVfsObject.put(key, obj);
+        getCacheStatistics(CacheType.VFS_OBJECT).recordPut();
     }
 
     /**
@@ -858,6 +974,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheXmlPermanentEntity.put(systemId, content);
+        getCacheStatistics(CacheType.XML_ENTITY_PERM).recordPut();
     }
 
     /**
@@ -872,6 +989,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheXmlTemporaryEntity.put(key, content);
+        getCacheStatistics(CacheType.XML_ENTITY_TEMP).recordPut();
     }
 
     /**
@@ -992,6 +1110,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     public void flushCache(CacheType... types) {
 
         for (CacheType type : types) {
+            getCacheStatistics(type).recordFlush();
             switch (type) {
                 case ACL:
                     m_cacheAccessControlList.clear();
@@ -1018,6 +1137,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     m_cacheOrgUnit.clear();
                     break;
                 case PERMISSION:
+                    clearPathIndex(CacheType.PERMISSION);
                     m_cachePermission.clear();
                     break;
                 case PROJECT:
@@ -1027,9 +1147,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     m_cacheProjectResources.clear();
                     break;
                 case PROPERTY:
+                    clearPathIndex(CacheType.PROPERTY);
                     m_cacheProperty.clear();
                     break;
                 case PROPERTY_LIST:
+                    clearPathIndex(CacheType.PROPERTY_LIST);
                     m_cachePropertyList.clear();
                     break;
                 case PUBLISHED_RESOURCES:
@@ -1042,9 +1164,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     m_publishQueue.clear();
                     break;
                 case RESOURCE:
+                    clearPathIndex(CacheType.RESOURCE);
                     m_cacheResource.clear();
                     break;
                 case RESOURCE_LIST:
+                    clearPathIndex(CacheType.RESOURCE_LIST);
                     m_cacheResourceList.clear();
                     break;
                 case ROLE_LIST:
@@ -1074,6 +1198,45 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         }
     }
 
+    /**
+     * Flushes the entries of the given caches which belong to the resource with the given root path 
+     * or one of the resources below it.<p>
+     * 
+     * For the {@link CacheType#RESOURCE_LIST} cache, the lists of the parent folders are flushed as well, 
+     * since they may contain the changed resource. Entries which have been cached without path 
+     * information are always flushed. Caches that do not support path-scoped invalidation 
+     * are flushed completely.<p>
+     * 
+     * @param rootPath the root path of the changed resource
+     * @param online <code>true</code> to flush the entries for the Online project, 
+     *      <code>false</code> to flush the entries for the offline projects
+     * @param types the cache types to flush
+     */
+    public void flushCache(String rootPath, boolean online, CacheType... types) {
+
+        for (CacheType type : types) {
+            switch (type) {
+                case PERMISSION:
+                    flushPathIndex(type, m_cachePermission, rootPath, online);
+                    break;
+                case PROPERTY:
+                    flushPathIndex(type, m_cacheProperty, rootPath, online);
+                    break;
+                case PROPERTY_LIST:
+                    flushPathIndex(type, m_cachePropertyList, rootPath, online);
+                    break;
+                case RESOURCE:
+                    flushPathIndex(type, m_cacheResource, rootPath, online);
+                    break;
+                case RESOURCE_LIST:
+                    flushPathIndex(type, m_cacheResourceList, rootPath, online);
+                    break;
+                default:
+                    flushCache(type);
+            }
+        }
+    }
+
     /**
      * Flushes the xml content definitions cache.<p>
      * 
@@ -1119,11 +1282,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         // initialize new lock cache
-        Map<String, CmsLock> newLockCache = Collections.synchronizedMap(newLocks);
+        CmsLockIndex newLockCache = new CmsLockIndex(newLocks);
         // register it
         register(CmsLockManager.class.getName(), newLockCache);
         // save the old cache
-        Map<String, CmsLock> oldCache = m_cacheLock;
+        CmsLockIndex oldCache = m_cacheLock;
         // replace the old by the new cache
         m_cacheLock = newLockCache;
         // clean up the old cache
@@ -1380,6 +1543,52 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return new ArrayList<CmsPublishJobInfoBean>(m_publishHistory);
     }
 
+    /**
+     * Returns the usage statistics of the given cache.<p>
+     * 
+     * @param type the cache type
+     * 
+     * @return the usage statistics of the given cache
+     */
+    public CmsCacheStatistics getCacheStatistics(CacheType type) {
+
+        return m_statistics.get(type);
+    }
+
+    /**
+     * Returns the usage statistics of all caches as JSON object, with the cache type names as keys.<p>
+     * 
+     * @return the usage statistics of all caches as JSON object
+     */
+    public JSONObject getCacheStatisticsAsJson() {
+
+        JSONObject result = new JSONObject();
+        for (CmsCacheStatistics statistics : m_statistics.values()) {
+            try {
+                result.put(statistics.getName(), statistics.toJson());
+            } catch (JSONException e) {
+                // should never happen
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the usage statistics of all caches as text, one line per cache.<p>
+     * 
+     * @return the usage statistics of all caches as text
+     */
+    public String getCacheStatisticsAsText() {
+
+        StringBuffer result = new StringBuffer(4096);
+        for (CmsCacheStatistics statistics : m_statistics.values()) {
+            result.append(statistics.toString());
+            result.append('\n');
+        }
+        return result.toString();
+    }
+
     /**
      * Returns the ACL cached with the given cache key or <code>null</code> if not found.<p>
      * 
@@ -1389,7 +1598,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsAccessControlList getCachedACL(String key) {
 
-        return m_cacheAccessControlList.get(key);
+        return getCached(CacheType.ACL, m_cacheAccessControlList, key);
     }
 
     /**
@@ -1401,7 +1610,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsXmlContentDefinition getCachedContentDefinition(String key) {
 
-        return m_cacheContentDefinitions.get(key);
+        return getCached(CacheType.CONTENT_DEFINITION, m_cacheContentDefinitions, key);
     }
 
     /**
@@ -1413,7 +1622,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsGroup getCachedGroup(String key) {
 
-        return m_cacheGroup.get(key);
+        return getCached(CacheType.GROUP, m_cacheGroup, key);
     }
 
     /**
@@ -1429,7 +1638,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             // this may be accessed before initialization
             return null;
         }
-        return m_cacheLocale.get(key);
+        return getCached(CacheType.LOCALE, m_cacheLocale, key);
     }
 
     /**
@@ -1441,7 +1650,31 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsLock getCachedLock(String rootPath) {
 
-        return m_cacheLock.get(rootPath);
+        return getCached(CacheType.LOCK, m_cacheLock, rootPath);
+    }
+
+    /**
+     * Returns the cached locks of all parent folders of the given root path.<p>
+     * 
+     * @param rootPath the root path to look for
+     * 
+     * @return the locks of the parent folders, ordered from the top level folder down
+     */
+    public List<CmsLock> getCachedParentFolderLocks(String rootPath) {
+
+        return m_cacheLock.getParentFolderLocks(rootPath);
+    }
+
+    /**
+     * Returns the cached locks of the given root path and of all resources below it.<p>
+     * 
+     * @param rootPath the root path to look for, for a folder it has to end with a slash
+     * 
+     * @return the locks in the sub-tree of the given root path
+     */
+    public List<CmsLock> getCachedSubtreeLocks(String rootPath) {
+
+        return m_cacheLock.getSubtreeLocks(rootPath);
     }
 
     /**
@@ -1453,7 +1686,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public Object getCachedMemObject(String key) {
 
-        return m_cacheMemObject.get(key);
+        return getCached(CacheType.MEMORY_OBJECT, m_cacheMemObject, key);
     }
 
     /**
@@ -1465,7 +1698,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsOrganizationalUnit getCachedOrgUnit(String key) {
 
-        return m_cacheOrgUnit.get(key);
+        return getCached(CacheType.ORG_UNIT, m_cacheOrgUnit, key);
     }
 
     /**
@@ -1475,9 +1708,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * 
      * @return the permission check result cached with the given cache key
      */
-    public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(String key) {
+    public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(CmsCompositeCacheKey key) {
 
-        return m_cachePermission.get(key);
+        return getCached(CacheType.PERMISSION, m_cachePermission, key);
     }
 
     /**
@@ -1489,7 +1722,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsProject getCachedProject(String key) {
 
-        return m_cacheProject.get(key);
+        return getCached(CacheType.PROJECT, m_cacheProject, key);
     }
 
     /**
@@ -1501,7 +1734,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsResource> getCachedProjectResources(String key) {
 
-        return m_cacheProjectResources.get(key);
+        return getCached(CacheType.PROJECT_RESOURCES, m_cacheProjectResources, key);
     }
 
     /**
@@ -1511,9 +1744,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * 
      * @return the property cached with the given cache key
      */
-    public CmsProperty getCachedProperty(String key) {
+    public CmsProperty getCachedProperty(CmsCompositeCacheKey key) {
 
-        return m_cacheProperty.get(key);
+        return getCached(CacheType.PROPERTY, m_cacheProperty, key);
     }
 
     /**
@@ -1523,9 +1756,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * 
      * @return the property list cached with the given cache key
      */
-    public List<CmsProperty> getCachedPropertyList(String key) {
+    public List<CmsProperty> getCachedPropertyList(CmsCompositeCacheKey key) {
 
-        return m_cachePropertyList.get(key);
+        return getCached(CacheType.PROPERTY_LIST, m_cachePropertyList, key);
     }
 
     /**
@@ -1537,7 +1770,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsPublishedResource> getCachedPublishedResources(String cacheKey) {
 
-        return m_cachePublishedResources.get(cacheKey);
+        return getCached(CacheType.PUBLISHED_RESOURCES, m_cachePublishedResources, cacheKey);
     }
 
     /**
@@ -1586,9 +1819,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * 
      * @return the resource cached with the given cache key
      */
-    public CmsResource getCachedResource(String key) {
+    public CmsResource getCachedResource(CmsCompositeCacheKey key) {
 
-        return m_cacheResource.get(key);
+        return getCached(CacheType.RESOURCE, m_cacheResource, key);
     }
 
     /**
@@ -1598,9 +1831,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * 
      * @return the resource list cached with the given cache key
      */
-    public List<CmsResource> getCachedResourceList(String key) {
+    public List<CmsResource> getCachedResourceList(CmsCompositeCacheKey key) {
 
-        return m_cacheResourceList.get(key);
+        return getCached(CacheType.RESOURCE_LIST, m_cacheResourceList, key);
     }
 
     /**
@@ -1612,7 +1845,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public Boolean getCachedRole(String key) {
 
-        return m_cacheHasRoles.get(key);
+        return getCached(CacheType.HAS_ROLE, m_cacheHasRoles, key);
     }
 
     /**
@@ -1624,7 +1857,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsRole> getCachedRoleList(String key) {
 
-        return m_cacheRoleLists.get(key);
+        return getCached(CacheType.ROLE_LIST, m_cacheRoleLists, key);
     }
 
     /**
@@ -1636,7 +1869,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsUser getCachedUser(String key) {
 
-        return m_cacheUser.get(key);
+        return getCached(CacheType.USER, m_cacheUser, key);
     }
 
     /**
@@ -1648,7 +1881,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsGroup> getCachedUserGroups(String key) {
 
-        return m_cacheUserGroups.get(key);
+        return getCached(CacheType.USERGROUPS, m_cacheUserGroups, key);
     }
 
     /**
@@ -1660,7 +1893,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsUser> getCachedUserList(String key) {
 
-        return m_cacheUserList.get(key);
+        return getCached(CacheType.USER_LIST, m_cacheUserList, key);
     }
 
     /**
@@ -1672,7 +1905,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public Object getCachedVfsObject(String key) {
 
-        return m_cacheVfsObject.get(key);
+        return getCached(CacheType.VFS_OBJECT, m_cacheVfsObject, key);
     }
 
     /**
@@ -1684,7 +1917,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public byte[] getCachedXmlPermanentEntity(String systemId) {
 
-        return m_cacheXmlPermanentEntity.get(systemId);
+        return getCached(CacheType.XML_ENTITY_PERM, m_cacheXmlPermanentEntity, systemId);
     }
 
     /**
@@ -1696,7 +1929,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public byte[] getCachedXmlTemporaryEntity(String key) {
 
-        return m_cacheXmlTemporaryEntity.get(key);
+        return getCached(CacheType.XML_ENTITY_TEMP, m_cacheXmlTemporaryEntity, key);
     }
 
     /**
@@ -1832,9 +2065,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", m_cacheContentDefinitions);
 
         // lock cache
-        Map<String, CmsLock> lockCache = new HashMap<String, CmsLock>();
-        m_cacheLock = Collections.synchronizedMap(lockCache);
-        register(CmsLockManager.class.getName(), lockCache);
+        m_cacheLock = new CmsLockIndex();
+        register(CmsLockManager.class.getName(), m_cacheLock);
 
         // locale cache
         Map<String, Locale> map = new HashMap<String, Locale>();
@@ -1842,44 +2074,60 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsLocaleManager.class.getName(), map);
 
         // permissions cache
-        Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> lruPermissions = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPermissionCacheSize());
-        m_cachePermission = Collections.synchronizedMap(lruPermissions);
-        register(CmsSecurityManager.class.getName(), lruPermissions);
+        m_cachePermission = createLruCache(
+            cacheSettings,
+            CacheType.PERMISSION,
+            cacheSettings.getPermissionCacheSize(),
+            CmsSecurityManager.class.getName());
 
         // user cache
-        Map<String, CmsUser> lruUsers = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserCacheSize());
-        m_cacheUser = Collections.synchronizedMap(lruUsers);
-        register(CmsDriverManager.class.getName() + ".userCache", lruUsers);
+        m_cacheUser = createLruCache(
+            cacheSettings,
+            CacheType.USER,
+            cacheSettings.getUserCacheSize(),
+            CmsDriverManager.class.getName() + ".userCache");
 
         // user list cache
-        Map<String, List<CmsUser>> lruUserList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserCacheSize());
-        m_cacheUserList = Collections.synchronizedMap(lruUserList);
-        register(CmsDriverManager.class.getName() + ".userListCache", lruUserList);
+        m_cacheUserList = createLruCache(
+            cacheSettings,
+            CacheType.USER_LIST,
+            cacheSettings.getUserCacheSize(),
+            CmsDriverManager.class.getName() + ".userListCache");
 
         // group cache
-        Map<String, CmsGroup> lruGroup = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getGroupCacheSize());
-        m_cacheGroup = Collections.synchronizedMap(lruGroup);
-        register(CmsDriverManager.class.getName() + ".groupCache", lruGroup);
+        m_cacheGroup = createLruCache(
+            cacheSettings,
+            CacheType.GROUP,
+            cacheSettings.getGroupCacheSize(),
+            CmsDriverManager.class.getName() + ".groupCache");
 
         // organizational unit cache
-        Map<String, CmsOrganizationalUnit> lruOrgUnit = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getOrgUnitCacheSize());
-        m_cacheOrgUnit = Collections.synchronizedMap(lruOrgUnit);
-        register(CmsDriverManager.class.getName() + ".orgUnitCache", lruOrgUnit);
+        m_cacheOrgUnit = createLruCache(
+            cacheSettings,
+            CacheType.ORG_UNIT,
+            cacheSettings.getOrgUnitCacheSize(),
+            CmsDriverManager.class.getName() + ".orgUnitCache");
 
         // user groups list cache
-        Map<String, List<CmsGroup>> lruUserGroups = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserGroupsCacheSize());
-        m_cacheUserGroups = Collections.synchronizedMap(lruUserGroups);
-        register(CmsDriverManager.class.getName() + ".userGroupsCache", lruUserGroups);
+        m_cacheUserGroups = createLruCache(
+            cacheSettings,
+            CacheType.USERGROUPS,
+            cacheSettings.getUserGroupsCacheSize(),
+            CmsDriverManager.class.getName() + ".userGroupsCache");
 
         // project cache
-        Map<String, CmsProject> lruProjects = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getProjectCacheSize());
-        m_cacheProject = Collections.synchronizedMap(lruProjects);
-        register(CmsDriverManager.class.getName() + ".projectCache", lruProjects);
+        m_cacheProject = createLruCache(
+            cacheSettings,
+            CacheType.PROJECT,
+            cacheSettings.getProjectCacheSize(),
+            CmsDriverManager.class.getName() + ".projectCache");
 
         // project resources cache cache
-        Map<String, List<CmsResource>> lruProjectResources = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getProjectResourcesCacheSize());
-        m_cacheProjectResources = Collections.synchronizedMap(lruProjectResources);
-        register(CmsDriverManager.class.getName() + ".projectResourcesCache", lruProjectResources);
+        m_cacheProjectResources = createLruCache(
+            cacheSettings,
+            CacheType.PROJECT_RESOURCES,
+            cacheSettings.getProjectResourcesCacheSize(),
+            CmsDriverManager.class.getName() + ".projectResourcesCache");
 
         // publish history
         int size = configuration.getPublishManager().getPublishHistorySize();
@@ -1893,44 +2141,79 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsPublishQueue.class.getName() + ".publishQueue", buffer);
 
         // resource cache
-        Map<String, CmsResource> lruResources = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getResourceCacheSize());
-        m_cacheResource = Collections.synchronizedMap(lruResources);
-        register(CmsDriverManager.class.getName() + ".resourceCache", lruResources);
+        m_cacheResource = createLruCache(
+            cacheSettings,
+            CacheType.RESOURCE,
+            cacheSettings.getResourceCacheSize(),
+            CmsDriverManager.class.getName() + ".resourceCache");
 
         // roles cache
-        Map<String, Boolean> lruHasRoles = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getRolesCacheSize());
-        m_cacheHasRoles = Collections.synchronizedMap(lruHasRoles);
-        register(CmsDriverManager.class.getName() + ".rolesCache", lruHasRoles);
+        m_cacheHasRoles = createLruCache(
+            cacheSettings,
+            CacheType.HAS_ROLE,
+            cacheSettings.getRolesCacheSize(),
+            CmsDriverManager.class.getName() + ".rolesCache");
 
         // role lists cache
-        Map<String, List<CmsRole>> lruRoleLists = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getRolesCacheSize());
-        m_cacheRoleLists = Collections.synchronizedMap(lruRoleLists);
-        register(CmsDriverManager.class.getName() + ".roleListsCache", lruRoleLists);
+        m_cacheRoleLists = createLruCache(
+            cacheSettings,
+            CacheType.ROLE_LIST,
+            cacheSettings.getRolesCacheSize(),
+            CmsDriverManager.class.getName() + ".roleListsCache");
 
         // resource list cache
-        Map<String, List<CmsResource>> lruResourceList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getResourcelistCacheSize());
-        m_cacheResourceList = Collections.synchronizedMap(lruResourceList);
-        register(CmsDriverManager.class.getName() + ".resourceListCache", lruResourceList);
+        m_cacheResourceList = createLruCache(
+            cacheSettings,
+            CacheType.RESOURCE_LIST,
+            cacheSettings.getResourcelistCacheSize(),
+            CmsDriverManager.class.getName() + ".resourceListCache");
 
         // property cache
-        Map<String, CmsProperty> lruProperty = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPropertyCacheSize());
-        m_cacheProperty = Collections.synchronizedMap(lruProperty);
-        register(CmsDriverManager.class.getName() + ".propertyCache", lruProperty);
+        m_cacheProperty = createLruCache(
+            cacheSettings,
+            CacheType.PROPERTY,
+            cacheSettings.getPropertyCacheSize(),
+            CmsDriverManager.class.getName() + ".propertyCache");
 
         // property list cache
-        Map<String, List<CmsProperty>> lruPropertyList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPropertyListsCacheSize());
-        m_cachePropertyList = Collections.synchronizedMap(lruPropertyList);
-        register(CmsDriverManager.class.getName() + ".propertyListCache", lruPropertyList);
+        m_cachePropertyList = createLruCache(
+            cacheSettings,
+            CacheType.PROPERTY_LIST,
+            cacheSettings.getPropertyListsCacheSize(),
+            CmsDriverManager.class.getName() + ".propertyListCache");
+
+        // path indexes for the path-scoped invalidation of the resource related caches
+        Map<CacheType, CmsCachePathIndex<CmsCompositeCacheKey>> pathIndexes = new HashMap<CacheType, CmsCachePathIndex<CmsCompositeCacheKey>>();
+        pathIndexes.put(
+            CacheType.PERMISSION,
+            new CmsCachePathIndex<CmsCompositeCacheKey>(m_cachePermission, cacheSettings.getPermissionCacheSize()));
+        pathIndexes.put(
+            CacheType.PROPERTY,
+            new CmsCachePathIndex<CmsCompositeCacheKey>(m_cacheProperty, cacheSettings.getPropertyCacheSize()));
+        pathIndexes.put(
+            CacheType.PROPERTY_LIST,
+            new CmsCachePathIndex<CmsCompositeCacheKey>(m_cachePropertyList, cacheSettings.getPropertyListsCacheSize()));
+        pathIndexes.put(
+            CacheType.RESOURCE,
+            new CmsCachePathIndex<CmsCompositeCacheKey>(m_cacheResource, cacheSettings.getResourceCacheSize()));
+        pathIndexes.put(
+            CacheType.RESOURCE_LIST,
+            new CmsCachePathIndex<CmsCompositeCacheKey>(m_cacheResourceList, cacheSettings.getResourcelistCacheSize()));
+        m_pathIndexes = pathIndexes;
 
         // published resources list cache
-        Map<String, List<CmsPublishedResource>> lruPublishedResources = CmsCollectionsGenericWrapper.createLRUMap(5);
-        m_cachePublishedResources = Collections.synchronizedMap(lruPublishedResources);
-        register(CmsDriverManager.class.getName() + ".publishedResourcesCache", lruPublishedResources);
+        m_cachePublishedResources = createLruCache(
+            cacheSettings,
+            CacheType.PUBLISHED_RESOURCES,
+            5,
+            CmsDriverManager.class.getName() + ".publishedResourcesCache");
 
         // acl cache
-        Map<String, CmsAccessControlList> lruAcl = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getAclCacheSize());
-        m_cacheAccessControlList = Collections.synchronizedMap(lruAcl);
-        register(CmsDriverManager.class.getName() + ".accessControlListCache", lruAcl);
+        m_cacheAccessControlList = createLruCache(
+            cacheSettings,
+            CacheType.ACL,
+            cacheSettings.getAclCacheSize(),
+            CmsDriverManager.class.getName() + ".accessControlListCache");
 
         // vfs object cache
         Map<String, Object> vfsObjectCache = new HashMap<String, Object>();
@@ -1942,6 +2225,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheMemObject = Collections.synchronizedMap(memObjectCache);
         register(CmsMemoryObjectCache.class.getName(), memObjectCache);
 
+        registerStatisticsMBeans();
+
         if (LOG.isDebugEnabled()) {
             // this will happen only once during system startup
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_MM_CREATED_1, new Date(System.currentTimeMillis())));
@@ -2080,6 +2365,17 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return ((m_maxUsagePercent > 0) && (m_memoryCurrent.getUsage() > m_maxUsagePercent));
     }
 
+    /**
+     * Records the time needed to load a value from the database after a miss in the given cache.<p>
+     * 
+     * @param type the cache type
+     * @param nanos the load time in nanoseconds
+     */
+    public void recordLoadTime(CacheType type, long nanos) {
+
+        m_statistics.get(type).recordLoadTime(nanos);
+    }
+
     /**
      * Adds a new object to the monitor.<p>
      * 
@@ -2183,6 +2479,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         for (CacheType type : CacheType.values()) {
             flushCache(type);
         }
+        unregisterStatisticsMBeans();
     }
 
     /**
@@ -2429,7 +2726,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Returns the max costs for all items within a monitored object.<p>
      * 
-     * <code>obj</code> must be of type {@link CmsLruCache} or {@link LRUMap}.<p>
+     * <code>obj</code> must be of type {@link CmsLruCache}, {@link LRUMap} or {@link CmsConcurrentLruMap}.<p>
      * 
      * @param obj the object
      * 
@@ -2443,6 +2740,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (obj instanceof LRUMap) {
             return Integer.toString(((LRUMap)obj).maxSize());
         }
+        if (obj instanceof CmsConcurrentLruMap) {
+            return Integer.toString(((CmsConcurrentLruMap<?, ?>)obj).maxSize());
+        }
 
         return "-";
     }
@@ -2682,6 +2982,10 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     new Long(m_memoryAverage.getUsage()),
                     new Integer(m_memoryAverage.getCount())}));
 
+            for (CmsCacheStatistics statistics : m_statistics.values()) {
+                LOG.info(Messages.get().getBundle().key(Messages.LOG_MM_CACHE_STATISTICS_1, statistics.toString()));
+            }
+
             CmsSessionManager sm = OpenCms.getSessionManager();
 
             if (sm != null) {
@@ -2725,4 +3029,256 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_memoryCurrent.update();
         m_memoryAverage.calculateAverage(m_memoryCurrent);
     }
+
+    /**
+     * Puts the given value into the given cache and indexes the key by the given root path.<p>
+     * 
+     * @param <V> the type of the cached values
+     * @param type the cache type
+     * @param cache the cache
+     * @param key the cache key
+     * @param value the value to cache
+     * @param rootPath the root path of the resource the value belongs to, or <code>null</code> if unknown
+     * @param online <code>true</code> if the value has been read in the Online project
+     */
+    private <V> void cacheIndexed(
+        CacheType type,
+        Map<CmsCompositeCacheKey, V> cache,
+        CmsCompositeCacheKey key,
+        V value,
+        String rootPath,
+        boolean online) {
+
+        getCacheStatistics(type).recordPut();
+        CmsCachePathIndex<CmsCompositeCacheKey> index = m_pathIndexes.get(type);
+        if (index == null) {
+            cache.put(key, value);
+            return;
+        }
+        index.add(online, rootPath, key);
+        cache.put(key, value);
+        if (!index.contains(online, rootPath, key)) {
+            // the entry has been invalidated concurrently
+            cache.remove(key);
+        }
+    }
+
+    /**
+     * Removes all keys from the path index of the given cache type.<p>
+     * 
+     * This must be done before the cache itself is cleared.<p>
+     * 
+     * @param type the cache type
+     */
+    private void clearPathIndex(CacheType type) {
+
+        CmsCachePathIndex<CmsCompositeCacheKey> index = m_pathIndexes.get(type);
+        if (index != null) {
+            index.clear();
+        }
+    }
+
+    /**
+     * Creates a size limited cache for the given cache type, using the backend configured for this type.<p>
+     * 
+     * @param <K> the type of the cache keys 
+     * @param <V> the type of the cached values 
+     * @param cacheSettings the cache settings
+     * @param type the cache type
+     * @param size the maximum number of entries of the cache
+     * @param key the key to register the cache for monitoring
+     * 
+     * @return the thread safe cache map
+     */
+    private <K, V> Map<K, V> createLruCache(CmsCacheSettings cacheSettings, CacheType type, int size, String key) {
+
+        final CmsCacheStatistics statistics = m_statistics.get(type);
+        Map<K, V> cache;
+        if (CmsCacheSettings.CACHE_BACKEND_CONCURRENT.equals(cacheSettings.getCacheBackend(type.name()))) {
+            cache = new CmsConcurrentLruMap<K, V>(size) {
+
+                @Override
+                protected void onEviction(K evictedKey, V value) {
+
+                    statistics.recordEviction();
+                }
+            };
+            register(key, cache);
+        } else {
+            Map<K, V> lruMap = CmsCollectionsGenericWrapper.map(new LRUMap(size) {
+
+                /** The serial version id. */
+                private static final long serialVersionUID = 6499208484787454981L;
+
+                @Override
+                protected boolean removeLRU(LinkEntry entry) {
+
+                    statistics.recordEviction();
+                    return true;
+                }
+            });
+            cache = Collections.synchronizedMap(lruMap);
+            register(key, lruMap);
+        }
+        return cache;
+    }
+
+    /**
+     * Removes the entries for the given root path from the given cache, using the path index of the cache type.<p>
+     * 
+     * @param type the cache type
+     * @param cache the cache
+     * @param rootPath the root path of the changed resource
+     * @param online <code>true</code> for the Online project, <code>false</code> for the offline projects
+     */
+    private void flushPathIndex(CacheType type, Map<CmsCompositeCacheKey, ?> cache, String rootPath, boolean online) {
+
+        CmsCachePathIndex<CmsCompositeCacheKey> index = m_pathIndexes.get(type);
+        if (index == null) {
+            flushCache(type);
+            return;
+        }
+        getCacheStatistics(type).recordFlush();
+        for (CmsCompositeCacheKey key : index.removeSubtree(online, rootPath)) {
+            cache.remove(key);
+        }
+        if (type == CacheType.RESOURCE_LIST) {
+            for (CmsCompositeCacheKey key : index.removeParents(online, rootPath)) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the cache object for the given cache type.<p>
+     * 
+     * @param type the cache type
+     * 
+     * @return the cache map or buffer, or <code>null</code> if not initialized
+     */
+    private Object getCache(CacheType type) {
+
+        switch (type) {
+            case ACL:
+                return m_cacheAccessControlList;
+            case CONTENT_DEFINITION:
+                return m_cacheContentDefinitions;
+            case GROUP:
+                return m_cacheGroup;
+            case HAS_ROLE:
+                return m_cacheHasRoles;
+            case LOCALE:
+                return m_cacheLocale;
+            case LOCK:
+                return m_cacheLock;
+            case MEMORY_OBJECT:
+                return m_cacheMemObject;
+            case ORG_UNIT:
+                return m_cacheOrgUnit;
+            case PERMISSION:
+                return m_cachePermission;
+            case PROJECT:
+                return m_cacheProject;
+            case PROJECT_RESOURCES:
+                return m_cacheProjectResources;
+            case PROPERTY:
+                return m_cacheProperty;
+            case PROPERTY_LIST:
+                return m_cachePropertyList;
+            case PUBLISHED_RESOURCES:
+                return m_cachePublishedResources;
+            case PUBLISH_HISTORY:
+                return m_publishHistory;
+            case PUBLISH_QUEUE:
+                return m_publishQueue;
+            case RESOURCE:
+                return m_cacheResource;
+            case RESOURCE_LIST:
+                return m_cacheResourceList;
+            case ROLE_LIST:
+                return m_cacheRoleLists;
+            case USER:
+                return m_cacheUser;
+            case USERGROUPS:
+                return m_cacheUserGroups;
+            case USER_LIST:
+                return m_cacheUserList;
+            case VFS_OBJECT:
+                return m_cacheVfsObject;
+            case XML_ENTITY_PERM:
+                return m_cacheXmlPermanentEntity;
+            case XML_ENTITY_TEMP:
+                return m_cacheXmlTemporaryEntity;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Reads a value from the given cache and records the cache hit or miss.<p>
+     * 
+     * @param <K> the type of the cache keys
+     * @param <V> the type of the cached values
+     * @param type the cache type
+     * @param cache the cache
+     * @param key the cache key
+     * 
+     * @return the cached value, or <code>null</code> if not found
+     */
+    private <K, V> V getCached(CacheType type, Map<K, V> cache, K key) {
+
+        V value = cache.get(key);
+        m_statistics.get(type).recordAccess(value != null);
+        return value;
+    }
+
+    /**
+     * Registers the usage statistics of all caches as MBeans at the platform MBean server.<p>
+     */
+    private void registerStatisticsMBeans() {
+
+        String webapp = null;
+        if (OpenCms.getSystemInfo() != null) {
+            webapp = OpenCms.getSystemInfo().getWebApplicationName();
+        }
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(webapp)) {
+            webapp = "opencms";
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (Map.Entry<CacheType, CmsCacheStatistics> entry : m_statistics.entrySet()) {
+                entry.getValue().setCache(getCache(entry.getKey()));
+                ObjectName name = new ObjectName(MBEAN_DOMAIN
+                    + ":type=CacheStatistics,webapp="
+                    + ObjectName.quote(webapp)
+                    + ",name="
+                    + entry.getKey().name());
+                if (server.isRegistered(name)) {
+                    // left over from a previous initialization of this web application
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(entry.getValue(), name);
+                m_registeredMBeans.add(name);
+            }
+        } catch (Throwable t) {
+            // JMX is optional, the statistics are still available through the memory monitor
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_MM_REGISTER_MBEANS_FAILED_0), t);
+        }
+    }
+
+    /**
+     * Unregisters the cache statistics MBeans from the platform MBean server.<p>
+     */
+    private void unregisterStatisticsMBeans() {
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : m_registeredMBeans) {
+            try {
+                server.unregisterMBean(name);
+            } catch (Exception e) {
+                LOG.warn(e.getLocalizedMessage(), e);
+            }
+        }
+        m_registeredMBeans.clear();
+    }
 }
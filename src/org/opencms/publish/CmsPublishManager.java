@@ -60,6 +60,12 @@ public class CmsPublishManager {
     /** The default history size. */
     public static final int DEFAULT_HISTORY_SIZE = 100;
 
+    /** The default number of files that are handed to a publish thread at once. */
+    public static final int DEFAULT_PUBLISH_CHUNK_SIZE = 100;
+
+    /** The default number of threads used to publish the files of a publish job. */
+    public static final int DEFAULT_PUBLISH_THREADS = 1;
+
     /** The default persistence setting for the publish queue. */
     public static final boolean DEFAULT_QUEUE_PERSISTANCE = false;
 
@@ -72,6 +78,9 @@ public class CmsPublishManager {
     /** Indicates if the configuration can be modified. */
     private boolean m_frozen;
 
+    /** The number of files that are handed to a publish thread at once. */
+    private int m_publishChunkSize;
+
     /** The underlying publish engine. */
     private CmsPublishEngine m_publishEngine;
 
@@ -84,6 +93,9 @@ public class CmsPublishManager {
     /** The amount of time to wait for a publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** The number of threads used to publish the files of a publish job. */
+    private int m_publishThreads;
+
     /** The security manager. */
     private CmsSecurityManager m_securityManager;
 
@@ -93,6 +105,8 @@ public class CmsPublishManager {
     public CmsPublishManager() {
 
         m_publishEngine = null;
+        m_publishThreads = DEFAULT_PUBLISH_THREADS;
+        m_publishChunkSize = DEFAULT_PUBLISH_CHUNK_SIZE;
         m_frozen = false;
     }
 
@@ -109,6 +123,8 @@ public class CmsPublishManager {
         m_publishHistorySize = historySize;
         m_publishQueuePersistance = queuePersistance;
         m_publishQueueShutdowntime = queueShutdowntime;
+        m_publishThreads = DEFAULT_PUBLISH_THREADS;
+        m_publishChunkSize = DEFAULT_PUBLISH_CHUNK_SIZE;
         m_frozen = false;
     }
 
@@ -365,6 +381,16 @@ public class CmsPublishManager {
         return m_publishEngine.getPublishQueue().asList();
     }
 
+    /**
+     * Returns the number of files that are handed to a publish thread at once.<p>
+     * 
+     * @return the number of files that are handed to a publish thread at once
+     */
+    public int getPublishChunkSize() {
+
+        return m_publishChunkSize;
+    }
+
     /**
      * Returns the amount of time in seconds the system will wait during shutdown for a running publish job.<p>
      * 
@@ -375,6 +401,19 @@ public class CmsPublishManager {
         return m_publishQueueShutdowntime;
     }
 
+    /**
+     * Returns the number of threads used to publish the files of a publish job.<p>
+     * 
+     * Siblings are always published by the same thread, folders are always published 
+     * before and deleted folders after all files.<p>
+     * 
+     * @return the number of threads used to publish the files of a publish job
+     */
+    public int getPublishThreads() {
+
+        return m_publishThreads;
+    }
+
     /**
      * Returns a new publish list that contains the unpublished resources related 
      * to all resources in the given publish list, the related resources exclude 
@@ -609,6 +648,19 @@ public class CmsPublishManager {
         m_securityManager.removeResourceFromUsersPubList(cms.getRequestContext(), structureIds);
     }
 
+    /**
+     * Sets the number of files that are handed to a publish thread at once.<p>
+     * 
+     * @param publishChunkSize the chunk size to set, parsed as <code>int</code>
+     */
+    public void setPublishChunkSize(String publishChunkSize) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishChunkSize = Math.max(1, Integer.parseInt(publishChunkSize));
+    }
+
     /**
      * Sets the publish engine during initialization.<p>
      * 
@@ -661,6 +713,19 @@ public class CmsPublishManager {
         m_publishQueueShutdowntime = Integer.parseInt(publishQueueShutdowntime);
     }
 
+    /**
+     * Sets the number of threads used to publish the files of a publish job.<p>
+     * 
+     * @param publishThreads the number of threads to set, parsed as <code>int</code>
+     */
+    public void setPublishThreads(String publishThreads) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishThreads = Math.max(1, Integer.parseInt(publishThreads));
+    }
+
     /**
      * Sets the security manager during initialization.<p>
      * 
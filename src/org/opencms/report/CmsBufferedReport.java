@@ -0,0 +1,312 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.report;
+
+import org.opencms.i18n.CmsMessageContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Report that collects the output of one thread and writes it to another report in one block.<p>
+ * 
+ * This is used if several threads work for the same report, e.g. during a parallel publish,
+ * where the output for one resource is written with several print calls that must not be mixed up
+ * with the output of the other threads. All output is written to the target report when 
+ * {@link #flush()} is called, while holding the monitor of the target report.<p>
+ * 
+ * Instances of this class are not thread safe, every thread must use its own instance.<p>
+ * 
+ * @since 8.5.0 
+ */
+public class CmsBufferedReport implements I_CmsReport {
+
+    /**
+     * A buffered report entry.<p>
+     */
+    private static final class Entry {
+
+        /** The message container, or <code>null</code>. */
+        final CmsMessageContainer m_container;
+
+        /** The format. */
+        final int m_format;
+
+        /** Indicates if a line break is written after the message. */
+        final boolean m_newLine;
+
+        /** The throwable, or <code>null</code>. */
+        final Throwable m_throwable;
+
+        /**
+         * Creates a new entry.<p>
+         * 
+         * @param container the message container, or <code>null</code>
+         * @param format the format
+         * @param newLine indicates if a line break is written after the message
+         * @param throwable the throwable, or <code>null</code>
+         */
+        Entry(CmsMessageContainer container, int format, boolean newLine, Throwable throwable) {
+
+            m_container = container;
+            m_format = format;
+            m_newLine = newLine;
+            m_throwable = throwable;
+        }
+    }
+
+    /** The buffered entries. */
+    private List<Entry> m_entries;
+
+    /** The report to write to. */
+    private I_CmsReport m_report;
+
+    /**
+     * Creates a new buffered report.<p>
+     * 
+     * @param report the report to write the buffered output to
+     */
+    public CmsBufferedReport(I_CmsReport report) {
+
+        m_report = report;
+        m_entries = new ArrayList<Entry>();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#addError(java.lang.Object)
+     */
+    public void addError(Object obj) {
+
+        synchronized (m_report) {
+            m_report.addError(obj);
+        }
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#addWarning(java.lang.Object)
+     */
+    public void addWarning(Object obj) {
+
+        synchronized (m_report) {
+            m_report.addWarning(obj);
+        }
+    }
+
+    /**
+     * Writes all buffered output to the target report and clears the buffer.<p>
+     */
+    public void flush() {
+
+        if (m_entries.isEmpty()) {
+            return;
+        }
+        synchronized (m_report) {
+            for (Entry entry : m_entries) {
+                if (entry.m_throwable != null) {
+                    m_report.println(entry.m_throwable);
+                } else if (entry.m_container == null) {
+                    m_report.println();
+                } else if (entry.m_newLine) {
+                    m_report.println(entry.m_container, entry.m_format);
+                } else {
+                    m_report.print(entry.m_container, entry.m_format);
+                }
+            }
+        }
+        m_entries.clear();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#formatRuntime()
+     */
+    public String formatRuntime() {
+
+        return m_report.formatRuntime();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getErrors()
+     */
+    public List<Object> getErrors() {
+
+        return m_report.getErrors();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getLastEntryTime()
+     */
+    public long getLastEntryTime() {
+
+        return m_report.getLastEntryTime();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getLocale()
+     */
+    public Locale getLocale() {
+
+        return m_report.getLocale();
+    }
+
+    /**
+     * Returns an empty String, since the output is collected by the target report.<p>
+     * 
+     * @see org.opencms.report.I_CmsReport#getReportUpdate()
+     */
+    public String getReportUpdate() {
+
+        return "";
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getRuntime()
+     */
+    public long getRuntime() {
+
+        return m_report.getRuntime();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getSiteRoot()
+     */
+    public String getSiteRoot() {
+
+        return m_report.getSiteRoot();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getWarnings()
+     */
+    public List<Object> getWarnings() {
+
+        return m_report.getWarnings();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#hasError()
+     */
+    public boolean hasError() {
+
+        return m_report.hasError();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#hasWarning()
+     */
+    public boolean hasWarning() {
+
+        return m_report.hasWarning();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#print(org.opencms.i18n.CmsMessageContainer)
+     */
+    public void print(CmsMessageContainer container) {
+
+        print(container, FORMAT_DEFAULT);
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#print(org.opencms.i18n.CmsMessageContainer, int)
+     */
+    public void print(CmsMessageContainer container, int format) {
+
+        m_entries.add(new Entry(container, format, false, null));
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println()
+     */
+    public void println() {
+
+        m_entries.add(new Entry(null, FORMAT_DEFAULT, true, null));
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(org.opencms.i18n.CmsMessageContainer)
+     */
+    public void println(CmsMessageContainer container) {
+
+        println(container, FORMAT_DEFAULT);
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(org.opencms.i18n.CmsMessageContainer, int)
+     */
+    public void println(CmsMessageContainer container, int format) {
+
+        m_entries.add(new Entry(container, format, true, null));
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(java.lang.Throwable)
+     */
+    public void println(Throwable t) {
+
+        m_entries.add(new Entry(null, FORMAT_ERROR, true, t));
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#printMessageWithParam(org.opencms.i18n.CmsMessageContainer, java.lang.Object)
+     */
+    public void printMessageWithParam(CmsMessageContainer container, Object param) {
+
+        print(container, I_CmsReport.FORMAT_NOTE);
+        print(Messages.get().container(Messages.RPT_ARGUMENT_1, param));
+        print(Messages.get().container(Messages.RPT_DOTS_0));
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#printMessageWithParam(int, int, org.opencms.i18n.CmsMessageContainer, java.lang.Object)
+     */
+    public void printMessageWithParam(int m, int n, CmsMessageContainer container, Object param) {
+
+        print(
+            Messages.get().container(Messages.RPT_SUCCESSION_2, String.valueOf(m), String.valueOf(n)),
+            I_CmsReport.FORMAT_NOTE);
+        printMessageWithParam(container, param);
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#removeSiteRoot(java.lang.String)
+     */
+    public String removeSiteRoot(String resourcename) {
+
+        return m_report.removeSiteRoot(resourcename);
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#resetRuntime()
+     */
+    public void resetRuntime() {
+
+        m_report.resetRuntime();
+    }
+}
@@ -27,13 +27,30 @@
 
 package org.opencms.search;
 
+import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.report.CmsBufferedReport;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.lucene.document.Document;
@@ -41,13 +58,92 @@ import org.apache.lucene.document.Document;
 /**
  * Implements the management of indexing threads.<p>
  * 
+ * The index documents are created by a fixed number of worker threads, while the documents are written 
+ * to the index only by the thread that calls {@link #createIndexingThread(CmsVfsIndexer, I_CmsIndexWriter, CmsResource)}
+ * and {@link #isRunning()}, so the index writer is never used concurrently. The number of documents that 
+ * are created or waiting to be written is limited, so the calling thread is blocked if it reads the 
+ * resources faster than the worker threads can create the documents.<p>
+ * 
+ * If the creation of a document takes longer than the configured timeout, the job is abandoned 
+ * and the worker thread is interrupted. Since the worker thread may still hang, a replacement 
+ * worker thread is started in this case.<p>
+ * 
+ * All methods of this class must be called by the same thread.<p>
+ * 
  * @since 6.0.0 
  */
 public class CmsIndexingThreadManager {
 
+    /**
+     * A job creating the index document for a single resource.<p>
+     */
+    private static final class CmsIndexingJob extends FutureTask<Document> {
+
+        /** Indicates if this job has been abandoned because of a timeout. */
+        boolean m_abandoned;
+
+        /** The indexer the resource is indexed for. */
+        final CmsVfsIndexer m_indexer;
+
+        /** The report buffering the output of this job, or <code>null</code>. */
+        final CmsBufferedReport m_report;
+
+        /** The resource to index. */
+        final CmsResource m_resource;
+
+        /** The time when the worker thread started this job, or <code>0</code> if it has not been started yet. */
+        volatile long m_startTime;
+
+        /** The index writer to write the document with. */
+        final I_CmsIndexWriter m_writer;
+
+        /**
+         * Creates a new indexing job.<p>
+         * 
+         * @param thread the indexing thread implementation to run
+         * @param indexer the indexer the resource is indexed for
+         * @param writer the index writer to write the document with
+         * @param resource the resource to index
+         * @param report the report buffering the output of this job, or <code>null</code>
+         */
+        CmsIndexingJob(
+            final CmsIndexingThread thread,
+            CmsVfsIndexer indexer,
+            I_CmsIndexWriter writer,
+            CmsResource resource,
+            CmsBufferedReport report) {
+
+            super(new Callable<Document>() {
+
+                public Document call() {
+
+                    thread.run();
+                    return thread.getResult();
+                }
+            });
+            m_indexer = indexer;
+            m_writer = writer;
+            m_resource = resource;
+            m_report = report;
+        }
+
+        /**
+         * @see java.util.concurrent.FutureTask#run()
+         */
+        @Override
+        public void run() {
+
+            m_startTime = System.currentTimeMillis();
+            super.run();
+        }
+    }
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsIndexingThreadManager.class);
 
+    /** The maximum time to wait for a job before checking the timeouts of all running jobs again. */
+    private static final long WAIT_INTERVAL = 500;
+
     /** Number of threads abandoned. */
     private int m_abandonedCounter;
 
@@ -57,37 +153,68 @@ public class CmsIndexingThreadManager {
     /** The time the last warning was written to the log. */
     private long m_lastLogWarnTime;
 
+    /** The maximum number of jobs which are created or waiting to be written to the index. */
+    private int m_maxJobs;
+
     /** The maximum number of modifications before a commit in the search index is triggered. */
     private int m_maxModificationsBeforeCommit;
 
+    /** The jobs which have not been written to the index yet, in the order they were started. */
+    private LinkedList<CmsIndexingJob> m_pending;
+
+    /** The worker threads, created when the first job is started. */
+    private ThreadPoolExecutor m_pool;
+
+    /** Number of jobs that have been removed from the pipeline, either returned or abandoned. */
+    private int m_processedCounter;
+
     /** Number of thread returned. */
     private int m_returnedCounter;
 
     /** Overall number of threads started. */
     private int m_startedCounter;
 
+    /** The number of worker threads. */
+    private int m_threads;
+
     /** Timeout for abandoning threads. */
     private long m_timeout;
 
     /**
-     * Creates and starts a thread manager for indexing threads.<p>
+     * Creates and starts a thread manager for indexing threads, which uses a single worker thread.<p>
      * 
      * @param timeout timeout after a thread is abandoned
      * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
      */
     public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit) {
 
+        this(timeout, maxModificationsBeforeCommit, 1);
+    }
+
+    /**
+     * Creates and starts a thread manager for indexing threads.<p>
+     * 
+     * @param timeout timeout after a thread is abandoned
+     * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
+     * @param threads the number of worker threads creating the index documents
+     */
+    public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit, int threads) {
+
         m_timeout = timeout;
         m_maxModificationsBeforeCommit = maxModificationsBeforeCommit;
+        m_threads = Math.max(1, threads);
+        // keep the workers busy while the finished documents are written
+        m_maxJobs = 2 * m_threads;
+        m_pending = new LinkedList<CmsIndexingJob>();
     }
 
     /**
-     * Creates and starts a new indexing thread for a resource.<p>
+     * Starts to create the index document for a resource.<p>
      * 
-     * After an indexing thread was started, the manager suspends itself 
-     * and waits for an amount of time specified by the <code>timeout</code>
-     * value. If the timeout value is reached, the indexing thread is
-     * aborted by an interrupt signal.<p>
+     * The document is created by a worker thread and written to the index later, either by this method 
+     * or by {@link #isRunning()}. If the maximum number of jobs in the pipeline is reached, this method 
+     * waits until the oldest job has been written to the index. If the document is not created within 
+     * the timeout, the job is abandoned and the worker thread is interrupted.<p>
      * 
      * @param indexer the VFS indexer to create the index thread for 
      * @param writer the index writer that can update the index
@@ -97,65 +224,37 @@ public class CmsIndexingThreadManager {
 
         I_CmsReport report = indexer.getReport();
         m_startedCounter++;
+        // the output for one resource is written to the report in one block
+        CmsBufferedReport jobReport = (report != null) ? new CmsBufferedReport(report) : null;
         CmsIndexingThread thread = new CmsIndexingThread(
-            indexer.getCms(),
+            getJobCms(indexer.getCms()),
             res,
             indexer.getIndex(),
             m_startedCounter,
-            report);
-        thread.setPriority(Thread.MIN_PRIORITY);
-        thread.start();
+            jobReport);
+        CmsIndexingJob job = new CmsIndexingJob(thread, indexer, writer, res, jobReport);
+        m_pending.add(job);
         try {
-            thread.join(m_timeout);
-        } catch (InterruptedException e) {
-            // ignore
-        }
-        if (thread.isAlive()) {
-            // the thread has not finished - so it must be marked as an abandoned thread 
-            m_abandonedCounter++;
-            thread.interrupt();
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
-            }
-            if (report != null) {
-                report.println();
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                    I_CmsReport.FORMAT_WARNING);
-                report.println(
-                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
-                    I_CmsReport.FORMAT_WARNING);
-            }
-        } else {
-            // the thread finished normally
-            m_returnedCounter++;
-        }
-        Document doc = thread.getResult();
-        if (doc != null) {
-            // write the document to the index
-            indexer.updateResource(writer, res.getRootPath(), doc);
-        }
-        if ((m_startedCounter % m_maxModificationsBeforeCommit) == 0) {
-            try {
-                writer.commit();
-            } catch (IOException e) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(Messages.get().getBundle().key(
-                        Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
-                        indexer.getIndex().getName(),
-                        indexer.getIndex().getPath()), e);
-                }
-            }
+            getPool().execute(job);
+        } catch (RejectedExecutionException e) {
+            // should not happen since the queue is unbounded, but make sure the resource is indexed
+            job.run();
         }
+        // write the documents already created and block if the pipeline is full
+        writeDocuments(m_pending.size() >= m_maxJobs);
     }
 
     /**
      * Returns if the indexing manager still have indexing threads.<p>
      * 
+     * This also writes the documents created meanwhile to the index.<p>
+     * 
      * @return true if the indexing manager still have indexing threads
      */
     public boolean isRunning() {
 
+        writeDocuments(false);
+
         if (m_lastLogErrorTime <= 0) {
             m_lastLogErrorTime = System.currentTimeMillis();
             m_lastLogWarnTime = m_lastLogErrorTime;
@@ -181,10 +280,17 @@ public class CmsIndexingThreadManager {
             }
         }
 
-        boolean result = (m_returnedCounter + m_abandonedCounter) < m_startedCounter;
-        if (result && LOG.isInfoEnabled()) {
-            // write a note to the log that all threads have finished
-            LOG.info(Messages.get().getBundle().key(Messages.LOG_THREADS_FINISHED_0));
+        boolean result = !m_pending.isEmpty();
+        if (!result) {
+            // all documents are written, release the worker threads
+            if (m_pool != null) {
+                m_pool.shutdown();
+                m_pool = null;
+            }
+            if (LOG.isInfoEnabled()) {
+                // write a note to the log that all threads have finished
+                LOG.info(Messages.get().getBundle().key(Messages.LOG_THREADS_FINISHED_0));
+            }
         }
         return result;
     }
@@ -217,4 +323,174 @@ public class CmsIndexingThreadManager {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Abandons all jobs that have been running longer than the timeout.<p>
+     */
+    private void abandonTimedOutJobs() {
+
+        long now = System.currentTimeMillis();
+        Iterator<CmsIndexingJob> i = m_pending.iterator();
+        while (i.hasNext()) {
+            CmsIndexingJob job = i.next();
+            long startTime = job.m_startTime;
+            if (job.m_abandoned || job.isDone() || (startTime == 0) || ((now - startTime) <= m_timeout)) {
+                continue;
+            }
+            // the job has not finished - so it must be marked as an abandoned thread 
+            job.m_abandoned = true;
+            m_abandonedCounter++;
+            job.cancel(true);
+            // the interrupted worker thread may still hang, so add a replacement
+            m_pool.setMaximumPoolSize(m_pool.getMaximumPoolSize() + 1);
+            m_pool.setCorePoolSize(m_pool.getCorePoolSize() + 1);
+            String rootPath = job.m_resource.getRootPath();
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, rootPath));
+            }
+            I_CmsReport report = job.m_indexer.getReport();
+            if (report != null) {
+                synchronized (report) {
+                    report.println();
+                    report.print(
+                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                        I_CmsReport.FORMAT_WARNING);
+                    report.println(
+                        Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, rootPath),
+                        I_CmsReport.FORMAT_WARNING);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the OpenCms user context for a job, which must not be shared with the other worker threads.<p>
+     * 
+     * @param cms the OpenCms user context of the indexer
+     * 
+     * @return the OpenCms user context for a job
+     */
+    private CmsObject getJobCms(CmsObject cms) {
+
+        if ((cms == null) || (m_threads == 1)) {
+            // nothing to copy, or only one worker thread uses the context
+            return cms;
+        }
+        try {
+            return OpenCms.initCmsObject(cms);
+        } catch (CmsException e) {
+            // should not happen since the context has already been initialized
+            LOG.error(e.getLocalizedMessage(), e);
+            return cms;
+        }
+    }
+
+    /**
+     * Returns the worker thread pool, creates it if required.<p>
+     * 
+     * @return the worker thread pool
+     */
+    private ThreadPoolExecutor getPool() {
+
+        if (m_pool == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            // the number of jobs is limited by this manager, so the queue never grows beyond that limit
+            m_pool = new ThreadPoolExecutor(
+                m_threads,
+                m_threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(r, "OpenCms: Indexing worker " + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }
+                });
+        }
+        return m_pool;
+    }
+
+    /**
+     * Writes the document of a job that is done to the index.<p>
+     * 
+     * @param job the job which is done
+     */
+    private void writeDocument(CmsIndexingJob job) {
+
+        m_processedCounter++;
+        if (!job.m_abandoned) {
+            // the thread finished normally
+            m_returnedCounter++;
+            Document doc = null;
+            try {
+                doc = job.get();
+            } catch (ExecutionException e) {
+                // an error, this has already been logged by the indexing thread
+            } catch (InterruptedException e) {
+                // can not happen since the job is done
+            } catch (CancellationException e) {
+                // can not happen since the job has not been abandoned
+            }
+            if (job.m_report != null) {
+                job.m_report.flush();
+            }
+            if (doc != null) {
+                // write the document to the index
+                job.m_indexer.updateResource(job.m_writer, job.m_resource.getRootPath(), doc);
+            }
+        }
+        if ((m_processedCounter % m_maxModificationsBeforeCommit) == 0) {
+            try {
+                job.m_writer.commit();
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(Messages.get().getBundle().key(
+                        Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
+                        job.m_indexer.getIndex().getName(),
+                        job.m_indexer.getIndex().getPath()), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the documents of the jobs that are done to the index, in the order the jobs were started.<p>
+     * 
+     * @param waitForOne if <code>true</code>, this method blocks until at least one job is done 
+     */
+    private void writeDocuments(boolean waitForOne) {
+
+        boolean wait = waitForOne;
+        while (!m_pending.isEmpty()) {
+            CmsIndexingJob job = m_pending.getFirst();
+            if (!job.isDone()) {
+                abandonTimedOutJobs();
+            }
+            if (!job.isDone()) {
+                if (!wait) {
+                    return;
+                }
+                try {
+                    job.get(WAIT_INTERVAL, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // check the timeouts again
+                } catch (InterruptedException e) {
+                    // just continue with the loop after interruption
+                } catch (ExecutionException e) {
+                    // handled when the document is written
+                } catch (CancellationException e) {
+                    // the job has been abandoned
+                }
+                continue;
+            }
+            m_pending.removeFirst();
+            writeDocument(job);
+            wait = false;
+        }
+    }
+}
@@ -183,6 +183,20 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
             }
             return result;
         }
+
+        /**
+         * @see org.apache.lucene.index.IndexReader#doOpenIfChanged(org.apache.lucene.index.IndexWriter, boolean)
+         */
+        @Override
+        protected IndexReader doOpenIfChanged(IndexWriter writer, boolean applyAllDeletes)
+        throws CorruptIndexException, IOException {
+
+            IndexReader result = IndexReader.openIfChanged(m_reader, writer, applyAllDeletes);
+            if (result != null) {
+                result = new LazyContentReader(result);
+            }
+            return result;
+        }
     }
 
     /** Constant for additional parameter to enable optimized full index regeneration (default: false). */
@@ -234,6 +248,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** Constant for additional parameter for index content extraction. */
     public static final String EXTRACT_CONTENT = CmsSearchIndex.class.getName() + ".extractContent";
 
+    /** Constant for additional parameter to set the number of threads creating the index documents. */
+    public static final String INDEXING_THREADS = CmsSearchIndex.class.getName() + ".indexingThreads";
+
     /** Constant for additional parameter for the Lucene index setting. */
     public static final String LUCENE_AUTO_COMMIT = "lucene.AutoCommit";
 
@@ -258,6 +275,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** Indicates how many hits are loaded at maximum by default. */
     public static final int MAX_HITS_DEFAULT = 5000;
 
+    /** Constant for additional parameter to set the interval in milliseconds for reopening the searcher. */
+    public static final String MAX_STALENESS = CmsSearchIndex.class.getName() + ".maxStaleness";
+
     /** Constant for years max range span in document search. */
     public static final int MAX_YEAR_RANGE = 12;
 
@@ -341,7 +361,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     private boolean m_createExcerpt;
 
     /** Map of display query filters to use. */
-    private Map<String, Filter> m_displayFilters;
+    private volatile Map<String, Filter> m_displayFilters;
 
     /** Document types of folders/channels. */
     private Map<String, List<String>> m_documenttypes;
@@ -358,11 +378,11 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** The name of the search field configuration used by this index. */
     private String m_fieldConfigurationName;
 
-    /** The Lucene index searcher to use. */
-    private IndexSearcher m_indexSearcher;
+    /** The number of threads creating the index documents, or <code>-1</code> to use the number of processors. */
+    private int m_indexingThreads;
 
     /** The Lucene index writer to use. */
-    private I_CmsIndexWriter m_indexWriter;
+    private volatile I_CmsIndexWriter m_indexWriter;
 
     /** The locale of this index. */
     private Locale m_locale;
@@ -382,6 +402,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** Indicates how many hits are loaded at maximum. */
     private int m_maxHits;
 
+    /** The interval in milliseconds for reopening the index searcher in the background, or <code>-1</code>. */
+    private int m_maxStaleness;
+
     /** The name of this index. */
     private String m_name;
 
@@ -397,6 +420,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** The rebuild mode for this index. */
     private String m_rebuild;
 
+    /** The manager for the Lucene index searcher of this index. */
+    private CmsSearcherManager m_searcherManager;
+
     /** The configured sources for this index. */
     private List<String> m_sourceNames;
 
@@ -417,7 +443,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         m_checkPermissions = true;
         m_enabled = true;
         m_priority = -1;
+        m_indexingThreads = -1;
         m_maxHits = MAX_HITS_DEFAULT;
+        m_maxStaleness = -1;
     }
 
     /**
@@ -577,6 +605,19 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return result;
     }
 
+    /**
+     * Returns the current Lucene index searcher of this index for a search.<p>
+     * 
+     * The returned searcher is not closed before it has been given back with 
+     * {@link #releaseSearcher(IndexSearcher)}, even if the index is updated in the meantime.<p>
+     * 
+     * @return the current Lucene index searcher, or <code>null</code> if the index is not available
+     */
+    public IndexSearcher acquireSearcher() {
+
+        return (m_searcherManager != null) ? m_searcherManager.acquire() : null;
+    }
+
     /**
      * Adds a parameter.<p>
      * 
@@ -622,6 +663,18 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                     new Integer(Thread.MAX_PRIORITY)));
 
             }
+        } else if (INDEXING_THREADS.equals(key)) {
+            m_indexingThreads = CmsStringUtil.getIntValue(value, -1, key);
+            if (m_indexingThreads < 1) {
+                m_indexingThreads = -1;
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_INVALID_PARAM_3, value, key, getName()));
+            }
+        } else if (MAX_STALENESS.equals(key)) {
+            m_maxStaleness = CmsStringUtil.getIntValue(value, -1, key);
+            if (m_maxStaleness < 1) {
+                m_maxStaleness = -1;
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_INVALID_PARAM_3, value, key, getName()));
+            }
         } else if (LUCENE_MAX_MERGE_DOCS.equals(key)) {
             try {
                 m_luceneMaxMergeDocs = Integer.valueOf(value);
@@ -736,6 +789,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         if (!isCheckingPermissions()) {
             result.put(PERMISSIONS, String.valueOf(m_checkPermissions));
         }
+        if (m_indexingThreads > 0) {
+            result.put(INDEXING_THREADS, String.valueOf(m_indexingThreads));
+        }
         // always write time range check parameter because of logic change in OpenCms 8.0
         result.put(TIME_RANGE, String.valueOf(m_checkTimeRange));
         if (isBackupReindexing()) {
@@ -744,6 +800,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         if (getMaxHits() != MAX_HITS_DEFAULT) {
             result.put(MAX_HITS, String.valueOf(getMaxHits()));
         }
+        if (m_maxStaleness > 0) {
+            result.put(MAX_STALENESS, String.valueOf(m_maxStaleness));
+        }
         // set the index writer parameter if required 
         if (m_luceneMaxMergeDocs != null) {
             result.put(LUCENE_MAX_MERGE_DOCS, String.valueOf(m_luceneMaxMergeDocs));
@@ -788,7 +847,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     public synchronized Document getDocument(String field, String term) {
 
         Document result = null;
-        IndexSearcher searcher = getSearcher();
+        IndexSearcher searcher = acquireSearcher();
         if (searcher != null) {
             // search for an exact match on the selected field
             Term resultTerm = new Term(field, term);
@@ -799,6 +858,8 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                 }
             } catch (IOException e) {
                 // ignore, return null and assume document was not found
+            } finally {
+                releaseSearcher(searcher);
             }
         }
         return result;
@@ -858,6 +919,22 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return m_fieldConfigurationName;
     }
 
+    /**
+     * Returns the number of threads used to create the index documents when this index is updated.<p>
+     * 
+     * This is set with the {@link #INDEXING_THREADS} parameter, 
+     * the default is the number of processors available to the JVM.<p>
+     * 
+     * @return the number of threads used to create the index documents
+     */
+    public int getIndexingThreads() {
+
+        if (m_indexingThreads > 0) {
+            return m_indexingThreads;
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
     /**
      * Returns a new index writer for this index.<p>
      * 
@@ -1017,12 +1094,15 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
 
     /**
      * Returns the Lucene index searcher used for this search index.<p>
+     * 
+     * The returned searcher is closed as soon as it has been replaced after an index update, 
+     * use {@link #acquireSearcher()} in order to obtain a searcher for a search.<p>
      *
      * @return the Lucene index searcher used for this search index
      */
     public IndexSearcher getSearcher() {
 
-        return m_indexSearcher;
+        return (m_searcherManager != null) ? m_searcherManager.getSearcher() : null;
     }
 
     /**
@@ -1126,6 +1206,10 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         setAnalyzer(m_fieldConfiguration.getAnalyzer(baseAnalyzer));
 
         // initialize the index searcher instance
+        if (m_searcherManager != null) {
+            m_searcherManager.close();
+        }
+        m_searcherManager = new CmsSearcherManager(this, m_maxStaleness);
         indexSearcherOpen(m_path);
     }
 
@@ -1252,6 +1336,18 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return m_indexWriter != null;
     }
 
+    /**
+     * Gives back a Lucene index searcher that has been obtained with {@link #acquireSearcher()}.<p>
+     * 
+     * @param searcher the searcher to give back, may be <code>null</code>
+     */
+    public void releaseSearcher(IndexSearcher searcher) {
+
+        if ((searcher != null) && (m_searcherManager != null)) {
+            m_searcherManager.release(searcher);
+        }
+    }
+
     /**
      * Removes an index source from this search index.<p>
      * 
@@ -1289,6 +1385,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
 
         int previousPriority = Thread.currentThread().getPriority();
 
+        // the searcher is not closed before it is released, even if it is replaced in the meantime
+        IndexSearcher searcher = acquireSearcher();
+
         try {
             // copy the user OpenCms context
             CmsObject searchCms = OpenCms.initCmsObject(cms);
@@ -1325,10 +1424,6 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
             // store separate fields query for excerpt highlighting  
             Query fieldsQuery = null;
 
-            // get an index searcher that is certainly up to date
-            indexSearcherUpdate();
-            IndexSearcher searcher = getSearcher();
-
             if (!params.isIgnoreQuery()) {
                 // since OpenCms 8 the query can be empty in which case only filters are used for the result
                 if (params.getParsedQuery() != null) {
@@ -1499,6 +1594,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
 
             // re-set thread to previous priority
             Thread.currentThread().setPriority(previousPriority);
+            releaseSearcher(searcher);
         }
 
         if (LOG.isDebugEnabled()) {
@@ -1680,6 +1776,10 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      */
     public void shutDown() {
 
+        // stop reopening the index searcher before the index writer is closed
+        if (m_searcherManager != null) {
+            m_searcherManager.close();
+        }
         // close the index writer
         if (m_indexWriter != null) {
             try {
@@ -1689,7 +1789,6 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                 LOG.error(Messages.get().getBundle().key(Messages.LOG_IO_INDEX_WRITER_CLOSE_2, getPath(), getName()), e);
             }
         }
-        indexSearcherClose();
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_SHUTDOWN_INDEX_1, getName()));
         }
@@ -2112,37 +2211,24 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /**
      * Closes the Lucene index searcher for this index.<p>
      * 
-     * @see #indexSearcherOpen(String)
-     */
-    protected synchronized void indexSearcherClose() {
-
-        indexSearcherClose(m_indexSearcher);
-    }
-
-    /**
-     * Closes the given Lucene index searcher.<p>
+     * The searcher is closed as soon as the searches still using it have been finished.<p>
      * 
-     * @param searcher the searcher to close
+     * @see #indexSearcherOpen(String)
      */
-    protected synchronized void indexSearcherClose(IndexSearcher searcher) {
+    protected void indexSearcherClose() {
 
-        // in case there is an index searcher available close it
-        if ((searcher != null) && (searcher.getIndexReader() != null)) {
-            try {
-                searcher.getIndexReader().close();
-                searcher.close();
-            } catch (Exception e) {
-                LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_CLOSE_1, getName()), e);
-            }
+        if (m_searcherManager != null) {
+            m_searcherManager.setSearcher(null);
         }
     }
 
     /**
      * Initializes the Lucene index searcher for this index.<p>
      * 
-     * Use {@link #getSearcher()} in order to obtain the searcher that has been opened.<p>
+     * Use {@link #acquireSearcher()} in order to obtain the searcher that has been opened.<p>
      * 
-     * In case there is an index searcher still open, it is closed first.<p>
+     * In case there is an index searcher still open, it is closed as soon as the searches 
+     * still using it have been finished.<p>
      * 
      * For performance reasons, one instance of the Lucene index searcher should be kept 
      * for all searches. However, if the index is updated or changed 
@@ -2150,51 +2236,70 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      * 
      * @param path the path to the index directory
      */
-    protected synchronized void indexSearcherOpen(String path) {
+    protected void indexSearcherOpen(String path) {
 
-        IndexSearcher oldSearcher = null;
+        if (m_searcherManager == null) {
+            // index has not been initialized
+            return;
+        }
         try {
             Directory indexDirectory = FSDirectory.open(new File(path));
             if (IndexReader.indexExists(indexDirectory)) {
                 IndexReader reader = new LazyContentReader(IndexReader.open(indexDirectory, true));
-                if (m_indexSearcher != null) {
-                    // store old searcher instance to close it later
-                    oldSearcher = m_indexSearcher;
-                }
-                m_indexSearcher = new IndexSearcher(reader);
                 m_displayFilters = new HashMap<String, Filter>();
+                m_searcherManager.setSearcher(new IndexSearcher(reader));
             }
         } catch (IOException e) {
             LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_1, getName()), e);
         }
-        if (oldSearcher != null) {
-            // close the old searcher if required
-            indexSearcherClose(oldSearcher);
+    }
+
+    /**
+     * Reopens the Lucene index searcher for this index if the index has been changed.<p>
+     * 
+     * In case the incremental index writer of this index is open, the new searcher 
+     * reads the changes directly from the writer, even if they are not committed yet.<p>
+     * 
+     * Searches are not blocked while the searcher is reopened, they use the 
+     * previous searcher until the new searcher is available.<p>
+     * 
+     * @see #indexSearcherUpdate()
+     */
+    protected void indexSearcherReopen() {
+
+        if ((m_searcherManager == null) || (m_searcherManager.getSearcher() == null)) {
+            // make sure we end up with an open index searcher / reader
+            indexSearcherOpen(m_path);
+            return;
+        }
+        IndexWriter writer = null;
+        I_CmsIndexWriter indexWriter = m_indexWriter;
+        if (indexWriter instanceof CmsLuceneIndexWriter) {
+            writer = ((CmsLuceneIndexWriter)indexWriter).getLuceneIndexWriter();
+        }
+        try {
+            m_searcherManager.maybeReopen(writer);
+        } catch (Exception e) {
+            LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_REOPEN_1, getName()), e);
+            // the index writer the reader was taken from may have been closed, so read the index from disk
+            indexSearcherOpen(m_path);
         }
     }
 
     /**
      * Reopens the Lucene index search reader for this index, required after the index has been changed.<p>
      * 
+     * In case the searcher is reopened periodically in the background, as configured with the 
+     * {@link #MAX_STALENESS} parameter, this does nothing and the changes will be visible 
+     * after the configured interval.<p>
+     * 
      * @see #indexSearcherOpen(String)
+     * @see #indexSearcherReopen()
      */
-    protected synchronized void indexSearcherUpdate() {
+    protected void indexSearcherUpdate() {
 
-        IndexSearcher oldSearcher = m_indexSearcher;
-        if ((oldSearcher != null) && (oldSearcher.getIndexReader() != null)) {
-            // in case there is an index searcher available close it
-            try {
-                IndexReader newReader = IndexReader.openIfChanged(oldSearcher.getIndexReader(), true);
-                if (newReader != null) {
-                    m_indexSearcher = new IndexSearcher(newReader);
-                    indexSearcherClose(oldSearcher);
-                }
-            } catch (Exception e) {
-                LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_REOPEN_1, getName()), e);
-            }
-        } else {
-            // make sure we end up with an open index searcher / reader           
-            indexSearcherOpen(m_path);
+        if ((m_searcherManager == null) || !m_searcherManager.isRefreshing()) {
+            indexSearcherReopen();
         }
     }
 
@@ -229,7 +229,8 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             // do this only in case there are offline indexes configured
             if (!m_isEventRegistered && (m_offlineIndexes.size() > 0)) {
                 m_isEventRegistered = true;
-                // register this object as event listener
+                // register this object as event listener, offline indexing is done in the background anyway,
+                // so the editing thread does not need to wait for it
                 OpenCms.addCmsEventListener(this, new int[] {
                     I_CmsEventListener.EVENT_PROPERTY_MODIFIED,
                     I_CmsEventListener.EVENT_RESOURCE_CREATED,
@@ -239,7 +240,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     I_CmsEventListener.EVENT_RESOURCE_MOVED,
                     I_CmsEventListener.EVENT_RESOURCE_DELETED,
                     I_CmsEventListener.EVENT_RESOURCE_COPIED,
-                    I_CmsEventListener.EVENT_RESOURCES_MODIFIED});
+                    I_CmsEventListener.EVENT_RESOURCES_MODIFIED}, true);
             }
         }
 
@@ -1828,13 +1829,15 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     }
 
     /** 
-     * Returns a new thread manager for the indexing threads.<p>
+     * Returns a new thread manager for the indexing threads of the given index.<p>
+     * 
+     * @param index the index to update
      * 
      * @return a new thread manager for the indexing threads
      */
-    protected CmsIndexingThreadManager getThreadManager() {
+    protected CmsIndexingThreadManager getThreadManager(CmsSearchIndex index) {
 
-        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit);
+        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit, index.getIndexingThreads());
     }
 
     /**
@@ -2100,7 +2103,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             // rebuild the complete index
 
             // create a new thread manager for the indexing threads
-            CmsIndexingThreadManager threadManager = getThreadManager();
+            CmsIndexingThreadManager threadManager = getThreadManager(index);
 
             boolean isOfflineIndex = false;
             if (CmsSearchIndex.REBUILD_MODE_OFFLINE.equals(index.getRebuildMode())) {
@@ -2276,7 +2279,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
 
                 if (hasResourcesToUpdate) {
                     // create a new thread manager
-                    CmsIndexingThreadManager threadManager = getThreadManager();
+                    CmsIndexingThreadManager threadManager = getThreadManager(index);
 
                     Iterator<CmsSearchIndexUpdateData> i = updateCollections.iterator();
                     while (i.hasNext()) {
@@ -0,0 +1,270 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.search;
+
+import org.opencms.main.CmsLog;
+
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+
+/**
+ * Manages the Lucene index searcher of a search index.<p>
+ * 
+ * The searchers are reference counted: A searcher obtained with {@link #acquire()} must be given back 
+ * with {@link #release(IndexSearcher)}, and the index reader of a replaced searcher is closed only after 
+ * the last search using it has released it. Threads acquiring a searcher never wait for a reopen, 
+ * they just use the current searcher until the new one has been installed.<p>
+ * 
+ * If a Lucene index writer is given on reopen, a near real time reader is taken from this writer, 
+ * so that changes are visible to searches without committing them first.<p>
+ * 
+ * Optionally a background thread reopens the searcher in a fixed interval, which limits the time 
+ * until a change of the index becomes visible to searches.<p>
+ * 
+ * @since 8.5.0
+ */
+public class CmsSearcherManager {
+
+    /**
+     * Thread that periodically reopens the searcher of the index.<p>
+     */
+    private class CmsRefreshThread extends Thread {
+
+        /**
+         * Creates a new refresh thread.<p>
+         */
+        CmsRefreshThread() {
+
+            super("OpenCms: Searcher refresh for index " + m_index.getName());
+            setDaemon(true);
+        }
+
+        /**
+         * @see java.lang.Thread#run()
+         */
+        @Override
+        public void run() {
+
+            while (!m_closed) {
+                try {
+                    Thread.sleep(m_maxStaleness);
+                } catch (InterruptedException e) {
+                    // interrupted on close
+                    continue;
+                }
+                if (!m_closed) {
+                    m_index.indexSearcherReopen();
+                }
+            }
+        }
+    }
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsSearcherManager.class);
+
+    /** Indicates if this manager has been closed. */
+    protected volatile boolean m_closed;
+
+    /** The search index this manager belongs to. */
+    protected CmsSearchIndex m_index;
+
+    /** The maximum time in milliseconds until a change of the index is visible to searches. */
+    protected long m_maxStaleness;
+
+    /** The background thread reopening the searcher, or <code>null</code>. */
+    private CmsRefreshThread m_refreshThread;
+
+    /** Lock to make sure only one thread changes the current searcher at a time. */
+    private final ReentrantLock m_reopenLock;
+
+    /** The current searcher. */
+    private volatile IndexSearcher m_searcher;
+
+    /**
+     * Creates a new searcher manager.<p>
+     * 
+     * @param index the search index this manager belongs to
+     * @param maxStaleness the interval in milliseconds for reopening the searcher in the background, 
+     *      if less or equal to 0 the searcher is only reopened on request
+     */
+    public CmsSearcherManager(CmsSearchIndex index, long maxStaleness) {
+
+        m_index = index;
+        m_maxStaleness = maxStaleness;
+        m_reopenLock = new ReentrantLock();
+        if (maxStaleness > 0) {
+            m_refreshThread = new CmsRefreshThread();
+            m_refreshThread.start();
+        }
+    }
+
+    /**
+     * Returns the current searcher, and increases the reference count of its index reader.<p>
+     * 
+     * The returned searcher must be given back with {@link #release(IndexSearcher)} after use.<p>
+     * 
+     * @return the current searcher, or <code>null</code> if no searcher is available
+     */
+    public IndexSearcher acquire() {
+
+        IndexSearcher searcher;
+        do {
+            searcher = m_searcher;
+            if (searcher == null) {
+                return null;
+            }
+            // the reference count can only drop to 0 if the searcher has been replaced, so just try again
+        } while (!searcher.getIndexReader().tryIncRef());
+        return searcher;
+    }
+
+    /**
+     * Closes this manager.<p>
+     * 
+     * The background thread is stopped, and the current searcher is closed 
+     * as soon as it is released by the last search.<p>
+     */
+    public void close() {
+
+        m_closed = true;
+        if (m_refreshThread != null) {
+            m_refreshThread.interrupt();
+            m_refreshThread = null;
+        }
+        setSearcher(null);
+    }
+
+    /**
+     * Returns the current searcher without increasing the reference count of its index reader.<p>
+     * 
+     * The returned searcher may be closed at any time after it has been replaced, 
+     * so it should only be used to check the current state of the index.<p>
+     * 
+     * @return the current searcher, or <code>null</code> if no searcher is available
+     */
+    public IndexSearcher getSearcher() {
+
+        return m_searcher;
+    }
+
+    /**
+     * Returns <code>true</code> if the searcher is reopened by a background thread.<p>
+     * 
+     * @return <code>true</code> if the searcher is reopened by a background thread
+     */
+    public boolean isRefreshing() {
+
+        return m_refreshThread != null;
+    }
+
+    /**
+     * Reopens the current searcher if the index has changed.<p>
+     * 
+     * Threads calling this method concurrently wait for each other, 
+     * but threads acquiring a searcher in the meantime are never blocked.<p>
+     * 
+     * @param writer the Lucene index writer to take a near real time reader from, 
+     *      or <code>null</code> to read the last commit of the index
+     * 
+     * @return <code>true</code> if a new searcher has been installed
+     * 
+     * @throws IOException if reopening the index reader fails
+     */
+    public boolean maybeReopen(IndexWriter writer) throws IOException {
+
+        m_reopenLock.lock();
+        try {
+            IndexSearcher searcher = acquire();
+            if (searcher == null) {
+                return false;
+            }
+            IndexReader newReader;
+            try {
+                IndexReader reader = searcher.getIndexReader();
+                if (writer != null) {
+                    newReader = IndexReader.openIfChanged(reader, writer, true);
+                } else {
+                    newReader = IndexReader.openIfChanged(reader);
+                }
+            } finally {
+                release(searcher);
+            }
+            if (newReader == null) {
+                return false;
+            }
+            setSearcher(new IndexSearcher(newReader));
+            return true;
+        } finally {
+            m_reopenLock.unlock();
+        }
+    }
+
+    /**
+     * Gives back a searcher that has been obtained with {@link #acquire()}.<p>
+     * 
+     * @param searcher the searcher to give back, may be <code>null</code>
+     */
+    public void release(IndexSearcher searcher) {
+
+        if (searcher == null) {
+            return;
+        }
+        try {
+            searcher.getIndexReader().decRef();
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_CLOSE_1, m_index.getName()), e);
+        }
+    }
+
+    /**
+     * Installs the given searcher as current searcher.<p>
+     * 
+     * The manager takes over the initial reference of the searcher's index reader. 
+     * The previous searcher is closed as soon as it is released by the last search.<p>
+     * 
+     * @param searcher the new searcher, or <code>null</code> to remove the current searcher
+     */
+    public void setSearcher(IndexSearcher searcher) {
+
+        IndexSearcher oldSearcher;
+        m_reopenLock.lock();
+        try {
+            oldSearcher = m_searcher;
+            m_searcher = searcher;
+        } finally {
+            m_reopenLock.unlock();
+        }
+        release(oldSearcher);
+    }
+}
@@ -44,6 +44,7 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.logging.Log;
 import org.apache.lucene.document.DateTools;
@@ -119,44 +120,29 @@ public abstract class A_CmsVfsDocument implements I_CmsDocumentFactory {
         if (index.isExtractingContent()) {
             // do full text content extraction only if required
 
-            // check if caching is enabled for this document type
-            CmsExtractionResultCache cache = getCache();
-            String cacheName = null;
-            if ((cache != null) && (resource.getSiblingCount() > 1)) {
-                // hard drive based caching only makes sense for resources that have siblings, 
-                // because the index will also store the content as a blob
-                cacheName = cache.getCacheName(
-                    resource,
-                    isLocaleDependend() ? index.getLocaleForResource(cms, resource, null) : null);
-                content = cache.getCacheObject(cacheName);
-            }
-
-            if (content == null) {
-                // extraction result has not been found in the cache
-                // compare "date of last modification of content" from Lucene index and OpenCms VFS
-                // if this is identical, then the data from the Lucene index can be re-used 
-                Document oldDoc = index.getDocument(CmsSearchField.FIELD_PATH, resource.getRootPath());
-                // first check if the document is already in the index
-                if (oldDoc != null) {
-                    // first obtain content date from Lucene index
-                    Fieldable fieldContentDate = oldDoc.getFieldable(CmsSearchField.FIELD_DATE_CONTENT);
-                    long contentDateIndex = 0;
-                    if (fieldContentDate != null) {
-                        String contentDate = fieldContentDate.stringValue();
-                        try {
-                            contentDateIndex = DateTools.stringToTime(contentDate);
-                        } catch (ParseException e) {
-                            // ignore
-                        }
-                        // now compare the date with the date stored in the resource
-                        if (contentDateIndex == resource.getDateContent()) {
-                            // date of content is identical, re-use existing content
-                            Fieldable fieldContentBlob = oldDoc.getFieldable(CmsSearchField.FIELD_CONTENT_BLOB);
-                            if (fieldContentBlob != null) {
-                                // extract stored content blob from Lucene index
-                                byte[] oldContent = fieldContentBlob.getBinaryValue();
-                                content = CmsExtractionResult.fromBytes(oldContent);
-                            }
+            // compare "date of last modification of content" from Lucene index and OpenCms VFS
+            // if this is identical, then the data from the Lucene index can be re-used 
+            Document oldDoc = index.getDocument(CmsSearchField.FIELD_PATH, resource.getRootPath());
+            // first check if the document is already in the index
+            if (oldDoc != null) {
+                // first obtain content date from Lucene index
+                Fieldable fieldContentDate = oldDoc.getFieldable(CmsSearchField.FIELD_DATE_CONTENT);
+                long contentDateIndex = 0;
+                if (fieldContentDate != null) {
+                    String contentDate = fieldContentDate.stringValue();
+                    try {
+                        contentDateIndex = DateTools.stringToTime(contentDate);
+                    } catch (ParseException e) {
+                        // ignore
+                    }
+                    // now compare the date with the date stored in the resource
+                    if (contentDateIndex == resource.getDateContent()) {
+                        // date of content is identical, re-use existing content
+                        Fieldable fieldContentBlob = oldDoc.getFieldable(CmsSearchField.FIELD_CONTENT_BLOB);
+                        if (fieldContentBlob != null) {
+                            // extract stored content blob from Lucene index
+                            byte[] oldContent = fieldContentBlob.getBinaryValue();
+                            content = CmsExtractionResult.fromBytes(oldContent);
                         }
                     }
                 }
@@ -165,10 +151,38 @@ public abstract class A_CmsVfsDocument implements I_CmsDocumentFactory {
             if (content == null) {
                 // extraction result has not been attached to the resource
                 try {
-                    content = extractContent(cms, resource, index);
-                    if ((cache != null) && (resource.getSiblingCount() > 1)) {
-                        // save extracted content to the cache
-                        cache.saveCacheObject(cacheName, content);
+                    // check if caching is enabled for this document type
+                    CmsExtractionResultCache cache = getCache();
+                    if (cache != null) {
+                        // the cache is keyed by the content, so identical files are extracted only once
+                        final CmsObject extractionCms = cms;
+                        final CmsResource extractionResource = resource;
+                        final CmsSearchIndex extractionIndex = index;
+                        // the digest of a known content version is reused, so a cache hit needs no content read
+                        CmsFile file = null;
+                        String digest = cache.getContentDigest(resource);
+                        if (digest == null) {
+                            file = readFile(cms, resource);
+                            digest = cache.getContentDigest(resource, file.getContents());
+                        }
+                        final CmsFile extractionFile = file;
+                        String cacheName = cache.getCacheName(
+                            digest,
+                            getName(),
+                            isLocaleDependend() ? index.getLocaleForResource(cms, resource, null) : null);
+                        content = cache.getCacheObject(cacheName, new Callable<I_CmsExtractionResult>() {
+
+                            public I_CmsExtractionResult call() throws Exception {
+
+                                if (extractionFile == null) {
+                                    return extractContent(extractionCms, extractionResource, extractionIndex);
+                                }
+                                // the file has already been read, so the content is not read again
+                                return extractContent(extractionCms, extractionFile, extractionIndex);
+                            }
+                        });
+                    } else {
+                        content = extractContent(cms, resource, index);
                     }
                 } catch (Exception e) {
                     // text extraction failed for document - continue indexing meta information only
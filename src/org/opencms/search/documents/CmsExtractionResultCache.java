@@ -27,6 +27,7 @@
 
 package org.opencms.search.documents;
 
+import org.opencms.cache.CmsConcurrentLruMap;
 import org.opencms.cache.CmsVfsDiskCache;
 import org.opencms.file.CmsResource;
 import org.opencms.main.CmsLog;
@@ -36,34 +37,65 @@ import org.opencms.util.CmsFileUtil;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.logging.Log;
 
 /**
  * Implements a disk cache that stores text extraction results in the RFS.<p>
  * 
- * This cache operates on resource file names, plus a hash code calculated from 
- * {@link org.opencms.file.CmsResource#getDateLastModified()}
- * and {@link org.opencms.file.CmsResource#getLength()}. Optional a locale can be appended to this name.<p> 
+ * This cache operates on a digest of the resource content, plus the name of the document type 
+ * that extracted the content. Optional a locale can be appended to this name. 
+ * Identical contents are extracted only once, no matter how many resources in which sites 
+ * and search indexes share the content, and a publish operation that does not change 
+ * the content does not change the name either.<p>
  * 
- * Since text extraction is done only on the content of a resource, all siblings must have the same content.
- * The difference can be only by the locale setting in case of an XML content or XML page. However,
- * the most problematic contents to extract for the search are in fact the MS Office and PDF formats.
- * For these documents, all siblings must produce the exact same text extraction result.<p>
+ * Text extraction is done only on the content of a resource, so all resources with the same content 
+ * produce the same extraction result. The difference can be only by the locale setting in case of 
+ * an XML content or XML page. However, the most problematic contents to extract for the search 
+ * are in fact the MS Office and PDF formats. For these documents, all resources with the same content 
+ * must produce the exact same text extraction result.<p>
  * 
  * This cache is usable for resources from the online AND the offline project at the same time, 
- * because any change to a resource will result in a changed hash code. This means a resource changed in the offline
- * project will have a new hash code compared to the online project. If the resource is identical in the online and 
- * the offline project, the generated hash codes will be the same.<p>
+ * because any change to the content of a resource will result in a changed digest.<p>
+ * 
+ * The time of the last access to the cached extraction results is kept in memory, 
+ * so expired results can be removed without reading the cache directory again.
+ * The digests of recently used contents are kept in memory as well, with the resource id and the 
+ * date of the last content modification as key, so the content of a resource that has already been 
+ * extracted does not have to be read and hashed again.<p>
  * 
  * @since 6.2.0
  */
 public class CmsExtractionResultCache {
 
+    /** The file name suffix of the extraction result cache files. */
+    private static final String CACHE_FILE_SUFFIX = ".ext";
+
+    /** The maximum number of content digests kept in memory. */
+    private static final int DIGEST_CACHE_SIZE = 10000;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsExtractionResultCache.class);
 
+    /** The time of the last access to the cache files, with the RFS name as key. */
+    private ConcurrentHashMap<String, Long> m_accessTimes;
+
+    /** The digests of recently used contents, with the resource id and the date of the content as key. */
+    private CmsConcurrentLruMap<String, String> m_digests;
+
+    /** The extractions that are currently running, with the RFS name of the cache file as key. */
+    private ConcurrentHashMap<String, CountDownLatch> m_extractions;
+
+    /** Indicates if the cache files already stored in the RFS have been added to the access times. */
+    private boolean m_initialized;
+
     /** The name of the cache base repository folder in the RFS. */
     private String m_rfsRepository;
 
@@ -77,11 +109,18 @@ public class CmsExtractionResultCache {
 
         // normalize the given folder name 
         m_rfsRepository = CmsFileUtil.normalizePath(basepath + foldername + File.separatorChar);
+        m_accessTimes = new ConcurrentHashMap<String, Long>();
+        m_digests = new CmsConcurrentLruMap<String, String>(DIGEST_CACHE_SIZE);
+        m_extractions = new ConcurrentHashMap<String, CountDownLatch>();
     }
 
     /**
      * Removes all expired extraction result cache entries from the RFS cache.<p>
      * 
+     * An entry is expired if it has not been accessed for the given time.
+     * Only on the first call the cache directory is read, later calls just check the 
+     * access times kept in memory, without blocking the threads reading or writing the cache.<p>
+     * 
      * @param maxAge the maximum age of the extraction result cache files in hours (or fractions of hours)
      * 
      * @return the total number of deleted resources
@@ -90,27 +129,28 @@ public class CmsExtractionResultCache {
 
         // calculate oldest possible date for the cache files
         long expireDate = System.currentTimeMillis() - (long)(maxAge * 60.0f * 60.0f * 1000.0f);
-        File basedir = new File(m_rfsRepository);
+        if (!m_initialized) {
+            // add the cache files of previous runs
+            readAccessTimes(new File(m_rfsRepository));
+            m_initialized = true;
+        }
         // perform the cache cleanup
         int count = 0;
-        if (basedir.canRead() && basedir.isDirectory()) {
-            File[] files = basedir.listFiles();
-            if (files != null) {
-                for (int i = 0; i < files.length; i++) {
-                    File f = files[i];
-                    if (f.canWrite()) {
-                        if (f.lastModified() < expireDate) {
-                            try {
-                                f.delete();
-                                count++;
-                            } catch (Exception e) {
-                                if (LOG.isWarnEnabled()) {
-                                    LOG.warn(Messages.get().getBundle().key(
-                                        Messages.LOG_EXCERPT_CACHE_DELETE_ERROR_1,
-                                        f.getAbsolutePath()), e);
-                                }
-                            }
-                        }
+        Iterator<Map.Entry<String, Long>> i = m_accessTimes.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry<String, Long> entry = i.next();
+            // the entry is only removed if it has not been accessed in the meantime 
+            if ((entry.getValue().longValue() < expireDate) && m_accessTimes.remove(entry.getKey(), entry.getValue())) {
+                File f = new File(entry.getKey());
+                try {
+                    if (f.delete()) {
+                        count++;
+                    }
+                } catch (Exception e) {
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn(Messages.get().getBundle().key(
+                            Messages.LOG_EXCERPT_CACHE_DELETE_ERROR_1,
+                            f.getAbsolutePath()), e);
                     }
                 }
             }
@@ -118,6 +158,50 @@ public class CmsExtractionResultCache {
         return count;
     }
 
+    /**
+     * Returns the RFS name used for caching the text extraction result of the given content.<p>
+     * 
+     * The cache files are distributed over sub folders named by the first two characters of the digest.<p>
+     * 
+     * @param content the content to extract the text from 
+     * @param documentType the name of the document type extracting the text
+     * @param locale the locale to generate the cache name for (may be <code>null</code>)
+     * 
+     * @return the RFS name to use for caching the text extraction result of the given content
+     */
+    public String getCacheName(byte[] content, String documentType, Locale locale) {
+
+        return getCacheName(DigestUtils.shaHex(content), documentType, locale);
+    }
+
+    /**
+     * Returns the RFS name used for caching the text extraction result of a content with the given digest.<p>
+     * 
+     * The cache files are distributed over sub folders named by the first two characters of the digest.<p>
+     * 
+     * @param digest the digest of the content, as returned by {@link #getContentDigest(CmsResource, byte[])}
+     * @param documentType the name of the document type extracting the text
+     * @param locale the locale to generate the cache name for (may be <code>null</code>)
+     * 
+     * @return the RFS name to use for caching the text extraction result of the content
+     */
+    public String getCacheName(String digest, String documentType, Locale locale) {
+
+        StringBuffer buf = new StringBuffer(64);
+        buf.append(digest);
+        buf.append('_');
+        buf.append(documentType);
+        // check if parameters are provided, if so add them as well
+        if (locale != null) {
+            buf.append('_');
+            buf.append(locale.toString());
+        }
+        // finally append the extension 
+        buf.append(CACHE_FILE_SUFFIX);
+        File folder = new File(m_rfsRepository, digest.substring(0, 2));
+        return new File(folder, buf.toString()).getPath();
+    }
+
     /**
      * Returns the RFS name used for caching an the text extraction result
      * based on the given VFS resource and locale.<p>  
@@ -126,7 +210,11 @@ public class CmsExtractionResultCache {
      * @param locale the locale to generate the cache name for (may be <code>null</code>)
      * 
      * @return the RFS name to use for caching the given VFS resource with parameters 
+     * 
+     * @deprecated use {@link #getCacheName(byte[], String, Locale)} so that resources with identical 
+     *      content share the extraction result
      */
+    @Deprecated
     public String getCacheName(CmsResource resource, Locale locale) {
 
         // create a StringBuffer for the result
@@ -147,13 +235,13 @@ public class CmsExtractionResultCache {
         buf.append(resource.getDateContent());
 
         // finally append the extension 
-        buf.append(".ext");
+        buf.append(CACHE_FILE_SUFFIX);
         return buf.toString();
     }
 
     /**
      * Returns the extraction result in the requested file in the disk cache, or <code>null</code> if the
-     * file is not found in the cache, or is found but out-dated.<p>
+     * file is not found in the cache.<p>
      * 
      * @param rfsName the file RFS name to look up in the cache 
      * 
@@ -164,10 +252,12 @@ public class CmsExtractionResultCache {
         try {
             File f = new File(rfsName);
             if (f.exists()) {
-                long age = f.lastModified();
-                if ((System.currentTimeMillis() - age) > 3600000) {
+                long now = System.currentTimeMillis();
+                m_accessTimes.put(rfsName, new Long(now));
+                if ((now - f.lastModified()) > 3600000) {
                     // file has not been touched for 1 hour, touch the file with the current date
-                    f.setLastModified(System.currentTimeMillis());
+                    // so the access time is kept approximately after a restart
+                    f.setLastModified(now);
                 }
                 byte[] byteContent = CmsFileUtil.readFile(f);
                 return CmsExtractionResult.fromBytes(byteContent);
@@ -179,6 +269,88 @@ public class CmsExtractionResultCache {
         return null;
     }
 
+    /**
+     * Returns the extraction result in the requested file in the disk cache, 
+     * or extracts it with the given extraction and saves it in the disk cache 
+     * if the file is not found in the cache.<p>
+     * 
+     * If the same extraction result is requested concurrently, only one thread 
+     * runs the extraction and the others read its result from the disk cache.<p>
+     * 
+     * @param rfsName the file RFS name to look up in the cache 
+     * @param extraction the extraction to use if the file is not found in the cache
+     * 
+     * @return the cached or extracted extraction result
+     * 
+     * @throws Exception if the extraction fails
+     */
+    public I_CmsExtractionResult getCacheObject(String rfsName, Callable<I_CmsExtractionResult> extraction)
+    throws Exception {
+
+        I_CmsExtractionResult result = getCacheObject(rfsName);
+        if (result != null) {
+            return result;
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        CountDownLatch running = m_extractions.putIfAbsent(rfsName, latch);
+        if (running != null) {
+            // another thread is extracting the same content, wait for it and use its result
+            running.await();
+            result = getCacheObject(rfsName);
+            if (result != null) {
+                return result;
+            }
+            // the other extraction has failed, so try it again without waiting any more
+            return extraction.call();
+        }
+        try {
+            // check again, the result may have been saved before this extraction has been registered
+            result = getCacheObject(rfsName);
+            if (result == null) {
+                result = extraction.call();
+                saveCacheObject(rfsName, result);
+            }
+            return result;
+        } finally {
+            m_extractions.remove(rfsName);
+            latch.countDown();
+        }
+    }
+
+    /**
+     * Returns the digest of the content of the given resource, if it is known from a previous call 
+     * of {@link #getContentDigest(CmsResource, byte[])} for the same content version.<p>
+     * 
+     * The content version is identified by the resource id and the date of the last content modification, 
+     * so no content has to be read for this.<p>
+     * 
+     * @param resource the resource to get the content digest for
+     * 
+     * @return the digest of the content of the given resource, or <code>null</code> if it is not known
+     */
+    public String getContentDigest(CmsResource resource) {
+
+        return m_digests.get(getContentKey(resource));
+    }
+
+    /**
+     * Calculates the digest of the given content of the given resource, 
+     * and remembers it for the content version of the resource.<p>
+     * 
+     * @param resource the resource the content belongs to
+     * @param content the content of the resource
+     * 
+     * @return the digest of the content
+     * 
+     * @see #getContentDigest(CmsResource)
+     */
+    public String getContentDigest(CmsResource resource, byte[] content) {
+
+        String digest = DigestUtils.shaHex(content);
+        m_digests.put(getContentKey(resource), digest);
+        return digest;
+    }
+
     /**
      * Returns the absolute path of the cache repository in the RFS.<p>
      * 
@@ -202,6 +374,42 @@ public class CmsExtractionResultCache {
         byte[] byteContent = content.getBytes();
         if (byteContent != null) {
             CmsVfsDiskCache.saveFile(rfsName, byteContent);
+            m_accessTimes.put(rfsName, new Long(System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Returns the key identifying the content version of the given resource.<p>
+     * 
+     * @param resource the resource
+     * 
+     * @return the key identifying the content version of the given resource
+     */
+    private String getContentKey(CmsResource resource) {
+
+        return resource.getResourceId().toString() + '_' + resource.getDateContent();
+    }
+
+    /**
+     * Adds the cache files in the given folder and its sub folders to the access times,
+     * using the date of last modification as time of the last access.<p>
+     * 
+     * @param folder the folder to read 
+     */
+    private void readAccessTimes(File folder) {
+
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (int i = 0; i < files.length; i++) {
+            File f = files[i];
+            if (f.isDirectory()) {
+                readAccessTimes(f);
+            } else if (f.getName().endsWith(CACHE_FILE_SUFFIX)) {
+                // files accessed in the meantime already have a more recent access time
+                m_accessTimes.putIfAbsent(f.getPath(), new Long(f.lastModified()));
+            }
         }
     }
-}
\ No newline at end of file
+}
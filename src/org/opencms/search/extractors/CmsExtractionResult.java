@@ -31,11 +31,16 @@ import org.opencms.util.CmsStringUtil;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * The result of a document text extraction.<p>
@@ -43,10 +48,17 @@ import java.util.Map;
  * This data structure contains the extracted text as well as (optional) 
  * meta information extracted from the document.<p>
  * 
+ * The serialized form created by {@link #getBytes()} is a compressed list of the length prefixed 
+ * content item names and values. Extraction results serialized with Java serialization by 
+ * older versions can still be read with {@link #fromBytes(byte[])}.<p>
+ * 
  * @since 6.0.0 
  */
 public class CmsExtractionResult implements I_CmsExtractionResult, Serializable {
 
+    /** The first byte of the compact serialized form, Java serialization always starts with <code>0xAC</code>. */
+    private static final byte FORMAT_COMPACT = 1;
+
     /** UID required for safe serialization. */
     private static final long serialVersionUID = 1465447302192195154L;
 
@@ -94,23 +106,29 @@ public class CmsExtractionResult implements I_CmsExtractionResult, Serializable
      */
     public static final CmsExtractionResult fromBytes(byte[] bytes) {
 
-        Object obj = null;
-        if (bytes != null) {
-            // create an object out of the byte array
-            try {
-                ByteArrayInputStream in = new ByteArrayInputStream(bytes);
-                ObjectInputStream oin = new ObjectInputStream(in);
-                obj = oin.readObject();
+        if ((bytes == null) || (bytes.length == 0)) {
+            return null;
+        }
+        CmsExtractionResult result = null;
+        try {
+            if (bytes[0] == FORMAT_COMPACT) {
+                result = readCompact(bytes);
+            } else {
+                // extraction result serialized by an older version
+                ObjectInputStream oin = new ObjectInputStream(new ByteArrayInputStream(bytes));
+                Object obj = oin.readObject();
                 oin.close();
-            } catch (Exception e) {
-                // ignore, null is not an instance of CmsExtractionResult
-            }
-            if (obj instanceof CmsExtractionResult) {
-                CmsExtractionResult result = (CmsExtractionResult)obj;
-                result.m_serializedVersion = bytes;
+                if (obj instanceof CmsExtractionResult) {
+                    result = (CmsExtractionResult)obj;
+                }
             }
+        } catch (Exception e) {
+            // ignore, the bytes do not contain a valid extraction result
+        }
+        if (result != null) {
+            result.m_serializedVersion = bytes;
         }
-        return null;
+        return result;
     }
 
     /**
@@ -122,15 +140,23 @@ public class CmsExtractionResult implements I_CmsExtractionResult, Serializable
         if (m_serializedVersion != null) {
             return m_serializedVersion;
         }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
         try {
-            // serialize this object and return
+            // serialize the content items in the compact form and return
             ByteArrayOutputStream out = new ByteArrayOutputStream(512);
-            ObjectOutputStream oout = new ObjectOutputStream(out);
-            oout.writeObject(this);
-            oout.close();
+            out.write(FORMAT_COMPACT);
+            DataOutputStream dout = new DataOutputStream(new DeflaterOutputStream(out, deflater));
+            dout.writeInt(m_contentItems.size());
+            for (Map.Entry<String, String> item : m_contentItems.entrySet()) {
+                writeString(dout, item.getKey());
+                writeString(dout, item.getValue());
+            }
+            dout.close();
             m_serializedVersion = out.toByteArray();
         } catch (Exception e) {
             // ignore, serialized version will be null
+        } finally {
+            deflater.end();
         }
         return m_serializedVersion;
     }
@@ -162,4 +188,73 @@ public class CmsExtractionResult implements I_CmsExtractionResult, Serializable
         m_contentItems = null;
         m_serializedVersion = null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads an extraction result from the compact serialized form.<p>
+     * 
+     * @param bytes the compact serialized form, starting with {@link #FORMAT_COMPACT}
+     * 
+     * @return the extraction result
+     * 
+     * @throws IOException if the bytes can not be read
+     */
+    private static CmsExtractionResult readCompact(byte[] bytes) throws IOException {
+
+        DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(
+            bytes,
+            1,
+            bytes.length - 1)));
+        try {
+            int size = in.readInt();
+            Map<String, String> items = new HashMap<String, String>(size * 2);
+            for (int i = 0; i < size; i++) {
+                String key = readString(in);
+                items.put(key, readString(in));
+            }
+            return new CmsExtractionResult(null, items);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads a length prefixed UTF-8 String.<p>
+     * 
+     * @param in the stream to read from
+     * 
+     * @return the String read, may be <code>null</code>
+     * 
+     * @throws IOException if the String can not be read
+     */
+    private static String readString(DataInputStream in) throws IOException {
+
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    /**
+     * Writes a length prefixed UTF-8 String.<p>
+     * 
+     * Other than {@link DataOutputStream#writeUTF(String)}, this is not limited to 64 KB.<p>
+     * 
+     * @param out the stream to write to
+     * @param value the String to write, may be <code>null</code>
+     * 
+     * @throws IOException if the String can not be written
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes("UTF-8");
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
@@ -29,6 +29,7 @@ package org.opencms.security;
 
 import org.opencms.configuration.CmsSystemConfiguration;
 import org.opencms.db.CmsCacheSettings;
+import org.opencms.db.CmsCompositeCacheKey;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsSecurityManager;
@@ -43,6 +44,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsInitException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
 
 import java.util.Iterator;
 
@@ -85,7 +87,7 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
 
         // checking the filter is less cost intensive then checking the cache,
         // this is why basic filter results are not cached
-        String cacheKey = m_keyGenerator.getCacheKeyForUserPermissions(
+        CmsCompositeCacheKey cacheKey = m_keyGenerator.getCacheKeyForUserPermissions(
             filter.requireVisible() && checkLock ? "11" : (!filter.requireVisible() && checkLock
             ? "01"
             : (filter.requireVisible() && !checkLock ? "10" : "00")),
@@ -96,6 +98,7 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
         if (cacheResult != null) {
             return cacheResult;
         }
+        long start = System.nanoTime();
 
         int denied = 0;
 
@@ -212,7 +215,14 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
             }
         }
         if (dbc.getProjectId().isNullUUID()) {
-            OpenCms.getMemoryMonitor().cachePermission(cacheKey, result);
+            OpenCms.getMemoryMonitor().recordLoadTime(
+                CmsMemoryMonitor.CacheType.PERMISSION,
+                System.nanoTime() - start);
+            OpenCms.getMemoryMonitor().cachePermission(
+                cacheKey,
+                result,
+                resource.getRootPath(),
+                dbc.currentProject().isOnlineProject());
         }
 
         return result;
@@ -51,6 +51,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -172,7 +173,69 @@ public abstract class A_CmsStaticExportHandler implements I_CmsStaticExportHandl
 
             scrubResource(cms, res, scrubbedFolders, scrubbedFiles);
         }
-        return publishedResources;
+        // finally delete the exported files that used one of the changed resources
+        return addDependentResources(cms, publishedResources);
+    }
+
+    /**
+     * Deletes the exported files that depend on one of the changed published resources, 
+     * and adds the resources exported to these files to the list of published resources.<p>
+     * 
+     * The dependencies are read from the index of the static export manager, 
+     * see {@link CmsStaticExportDependencies}.<p>
+     * 
+     * @param cms the cms context
+     * @param publishedResources the published resources
+     * 
+     * @return the list of published resources including the resources of the deleted dependent files
+     */
+    protected List<CmsPublishedResource> addDependentResources(
+        CmsObject cms,
+        List<CmsPublishedResource> publishedResources) {
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        CmsStaticExportDependencies dependencies = manager.getExportDependencies();
+        Set<String> changedPaths = new HashSet<String>();
+        Set<String> publishedPaths = new HashSet<String>(publishedResources.size());
+        for (CmsPublishedResource res : publishedResources) {
+            publishedPaths.add(res.getRootPath());
+            if (res.getState().isUnchanged()) {
+                continue;
+            }
+            boolean structureChanged = res.getState().isNew() || res.getState().isDeleted() || res.isMoved();
+            // the siblings share the content and the properties of the resource
+            for (String sibling : getSiblingsList(cms, res.getRootPath())) {
+                changedPaths.addAll(CmsStaticExportDependencies.getChangedPaths(sibling, structureChanged));
+            }
+        }
+        Map<String, String> dependentExports = dependencies.getDependentExports(changedPaths);
+        if (dependentExports.isEmpty()) {
+            return publishedResources;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_DEPENDENT_EXPORTS_1, dependentExports.keySet()));
+        }
+
+        List<CmsPublishedResource> result = new ArrayList<CmsPublishedResource>(publishedResources);
+        for (Map.Entry<String, String> entry : dependentExports.entrySet()) {
+            String rfsName = entry.getKey();
+            String rootPath = entry.getValue();
+            // delete the outdated file, it will be exported again
+            purgeFile(CmsFileUtil.normalizePath(manager.getExportPath(rootPath) + rfsName), rootPath);
+            dependencies.removeExport(rfsName);
+            if (publishedPaths.add(rootPath)) {
+                try {
+                    result.add(new CmsPublishedResource(cms.readResource(rootPath)));
+                } catch (CmsException e) {
+                    // the resource does not exist any longer, nothing to export
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(e.getLocalizedMessage(), e);
+                    }
+                }
+            }
+        }
+        dependencies.save();
+        return result;
     }
 
     /**
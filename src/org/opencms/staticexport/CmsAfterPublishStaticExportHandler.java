@@ -37,6 +37,7 @@ import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.report.CmsBufferedReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsRequestUtil;
@@ -57,6 +58,14 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
@@ -232,6 +241,86 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         }
     }
 
+    /**
+     * Executes the given export jobs, in parallel if more than one export thread is configured.<p>
+     * 
+     * If a job fails, the remaining jobs are skipped and the error of the first failed job is thrown.<p>
+     * 
+     * @param jobs the export jobs to execute
+     * 
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet 
+     */
+    protected void executeExportJobs(List<Callable<Object>> jobs) throws CmsException, IOException, ServletException {
+
+        int threads = Math.min(OpenCms.getStaticExportManager().getExportThreads(), jobs.size());
+        if (threads <= 1) {
+            // export in the current thread
+            for (Callable<Object> job : jobs) {
+                try {
+                    job.call();
+                } catch (Exception e) {
+                    throwExportException(e);
+                }
+            }
+            return;
+        }
+
+        final AtomicBoolean failed = new AtomicBoolean();
+        final AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+
+                return new Thread(r, "OpenCms: Static export " + threadCount.incrementAndGet());
+            }
+        });
+        try {
+            List<Future<Object>> results = new ArrayList<Future<Object>>(jobs.size());
+            for (final Callable<Object> job : jobs) {
+                results.add(executor.submit(new Callable<Object>() {
+
+                    public Object call() throws Exception {
+
+                        if (failed.get()) {
+                            // another job has failed, stop exporting
+                            return null;
+                        }
+                        try {
+                            return job.call();
+                        } catch (Exception e) {
+                            failed.set(true);
+                            throw e;
+                        }
+                    }
+                }));
+            }
+            Exception error = null;
+            for (Future<Object> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    if (error == null) {
+                        if (e.getCause() instanceof Error) {
+                            throw (Error)e.getCause();
+                        }
+                        error = (Exception)e.getCause();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CmsStaticExportException(Messages.get().container(
+                        Messages.ERR_EXPORT_NOT_SUCCESSFUL_0), e);
+                }
+            }
+            if (error != null) {
+                throwExportException(error);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Starts the static export on publish.<p>
      * 
@@ -274,9 +363,66 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
             // do the export
             doExportAfterPublish(publishedResources, report);
         }
+        // store the dependencies recorded while exporting
+        OpenCms.getStaticExportManager().getExportDependencies().save();
 
     }
 
+    /**
+     * Exports a single non template resource.<p>
+     * 
+     * @param cms the current cms object
+     * @param exportData the export data of the resource
+     * @param count the number of the resource in the report
+     * @param size the total number of resources to export
+     * @param report an I_CmsReport instance to print output message
+     * 
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet 
+     */
+    protected void exportNonTemplateResource(
+        CmsObject cms,
+        CmsStaticExportData exportData,
+        int count,
+        int size,
+        I_CmsReport report) throws CmsException, IOException, ServletException {
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_EXPORT_FILE_2,
+                exportData.getVfsName(),
+                exportData.getRfsName()));
+        }
+
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_2,
+                new Integer(count),
+                new Integer(size)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+        report.print(org.opencms.report.Messages.get().container(
+            org.opencms.report.Messages.RPT_ARGUMENT_1,
+            exportData.getVfsName()));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+        int status = OpenCms.getStaticExportManager().export(null, null, cms, exportData);
+        if (status == HttpServletResponse.SC_OK) {
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                I_CmsReport.FORMAT_OK);
+        } else {
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                I_CmsReport.FORMAT_NOTE);
+        }
+
+        if (LOG.isInfoEnabled()) {
+            Object[] arguments = new Object[] {exportData.getVfsName(), exportData.getRfsName(), new Integer(status)};
+            LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
+        }
+    }
+
     /**
      * Exports all non template resources found in a list of published resources.<p>
      * 
@@ -291,9 +437,9 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
      * @throws ServletException in case of errors accessing the servlet 
      */
     protected boolean exportNonTemplateResources(
-        CmsObject cms,
+        final CmsObject cms,
         List<CmsPublishedResource> publishedResources,
-        I_CmsReport report) throws CmsException, IOException, ServletException {
+        final I_CmsReport report) throws CmsException, IOException, ServletException {
 
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_NONTEMPLATE_RESOURCES_BEGIN_0),
@@ -309,54 +455,29 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         List<CmsStaticExportData> resourcesToExport = new ArrayList<CmsStaticExportData>();
         boolean templatesFound = readNonTemplateResourcesToExport(cms, publishedResources, resourcesToExport);
 
-        int count = 1;
-        int size = resourcesToExport.size();
+        final int size = resourcesToExport.size();
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_NUM_EXPORT_1, new Integer(size)));
         }
-        // now do the export
-        Iterator<CmsStaticExportData> i = resourcesToExport.iterator();
-        while (i.hasNext()) {
-            CmsStaticExportData exportData = i.next();
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(
-                    Messages.LOG_EXPORT_FILE_2,
-                    exportData.getVfsName(),
-                    exportData.getRfsName()));
-            }
-
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_SUCCESSION_2,
-                    new Integer(count++),
-                    new Integer(size)),
-                I_CmsReport.FORMAT_NOTE);
-            report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-            report.print(org.opencms.report.Messages.get().container(
-                org.opencms.report.Messages.RPT_ARGUMENT_1,
-                exportData.getVfsName()));
-            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            int status = manager.export(null, null, cms, exportData);
-            if (status == HttpServletResponse.SC_OK) {
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                    I_CmsReport.FORMAT_OK);
-            } else {
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                    I_CmsReport.FORMAT_NOTE);
-            }
-
-            if (LOG.isInfoEnabled()) {
-                Object[] arguments = new Object[] {
-                    exportData.getVfsName(),
-                    exportData.getRfsName(),
-                    new Integer(status)};
-                LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
-            }
-            //don't lock up the CPU exclusively - allow other Threads to run as well 
-            Thread.yield();
+        // now do the export, the resources are independent of each other so they are exported in parallel
+        final AtomicInteger count = new AtomicInteger();
+        List<Callable<Object>> jobs = new ArrayList<Callable<Object>>(size);
+        for (final CmsStaticExportData exportData : resourcesToExport) {
+            jobs.add(new Callable<Object>() {
+
+                public Object call() throws Exception {
+
+                    CmsBufferedReport jobReport = new CmsBufferedReport(report);
+                    try {
+                        exportNonTemplateResource(cms, exportData, count.incrementAndGet(), size, jobReport);
+                    } finally {
+                        jobReport.flush();
+                    }
+                    return null;
+                }
+            });
         }
+        executeExportJobs(jobs);
 
         resourcesToExport = null;
 
@@ -567,20 +688,25 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                 exportFile.getName(),
                 new Long((dateLastModified / 1000) * 1000)));
         }
-        if (cookies.length() > 0) {
-            // set the cookies, included the session id to keep the same session
-            urlcon.setRequestProperty(REQUEST_PROPERTY_COOKIE, cookies.toString());
+        // the cookies may be shared by several export threads
+        synchronized (cookies) {
+            if (cookies.length() > 0) {
+                // set the cookies, included the session id to keep the same session
+                urlcon.setRequestProperty(REQUEST_PROPERTY_COOKIE, cookies.toString());
+            }
         }
 
         // now perform the request
         urlcon.connect();
         int status = urlcon.getResponseCode();
 
-        if (cookies.length() == 0) {
-            //Now retrieve the cookies. The jsessionid is here
-            cookies.append(urlcon.getHeaderField(HEADER_FIELD_SET_COOKIE));
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_STATICEXPORT_COOKIES_1, cookies));
+        synchronized (cookies) {
+            if (cookies.length() == 0) {
+                //Now retrieve the cookies. The jsessionid is here
+                cookies.append(urlcon.getHeaderField(HEADER_FIELD_SET_COOKIE));
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_STATICEXPORT_COOKIES_1, cookies));
+                }
             }
         }
         urlcon.disconnect();
@@ -594,6 +720,103 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         return status;
     }
 
+    /**
+     * Exports a single template resource, including all detail pages it is shown on.<p>
+     * 
+     * @param cms the cms context, in the root site as Export user
+     * @param rfsName the rfs name of the resource to export
+     * @param cookies cookies to keep the session
+     * @param count the counter for the exported resources in the report
+     * @param size the total number of resources to export
+     * @param report an I_CmsReport instance to print output message
+     */
+    protected void exportTemplateResource(
+        CmsObject cms,
+        String rfsName,
+        StringBuffer cookies,
+        AtomicInteger count,
+        int size,
+        I_CmsReport report) {
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        CmsStaticExportData data = null;
+        try {
+            data = manager.getVfsNameInternal(cms, rfsName);
+        } catch (CmsVfsResourceNotFoundException e) {
+            String rfsBaseName = rfsName;
+            int pos = rfsName.lastIndexOf('_');
+            if (pos >= 0) {
+                rfsBaseName = rfsName.substring(0, pos);
+            }
+            try {
+                data = manager.getVfsNameInternal(cms, rfsBaseName);
+            } catch (CmsVfsResourceNotFoundException e2) {
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(Messages.get().getBundle().key(
+                        Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
+                        new String[] {rfsName}));
+                }
+            }
+        }
+        if (data == null) {
+            // no valid resource found for rfs name (already deleted), skip it
+            return;
+        }
+        data.setRfsName(rfsName);
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_2,
+                new Integer(count.incrementAndGet()),
+                new Integer(size)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, rfsName));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+
+        try {
+            CmsResource resource = data.getResource();
+            try {
+                Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
+                for (String detailPageUri : detailPages) {
+                    String altRfsName = manager.getRfsName(cms, detailPageUri);
+                    CmsStaticExportData detailData = new CmsStaticExportData(
+                        data.getVfsName(),
+                        altRfsName,
+                        data.getResource(),
+                        data.getParameters());
+                    exportTemplateResource(detailData, cookies);
+                }
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+
+            int status = exportTemplateResource(data, cookies);
+
+            // write the report
+            if (status == HttpServletResponse.SC_OK) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else if (status == HttpServletResponse.SC_SEE_OTHER) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else {
+                report.println(
+                    org.opencms.report.Messages.get().container(
+                        org.opencms.report.Messages.RPT_ARGUMENT_1,
+                        new Integer(status)),
+                    I_CmsReport.FORMAT_OK);
+            }
+        } catch (IOException e) {
+            report.println(e);
+        }
+    }
+
     /**
      * Exports all template resources found in a list of published resources.<p>
      * 
@@ -601,11 +824,13 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
      * @param publishedTemplateResources list of potential candidates to export
      * @param report an I_CmsReport instance to print output message, or null to write messages to the log file    
      */
-    protected void exportTemplateResources(CmsObject cms, List<String> publishedTemplateResources, I_CmsReport report) {
+    protected void exportTemplateResources(
+        final CmsObject cms,
+        List<String> publishedTemplateResources,
+        final I_CmsReport report) {
 
         CmsStaticExportManager manager = OpenCms.getStaticExportManager();
-        int size = publishedTemplateResources.size();
-        int count = 1;
+        final int size = publishedTemplateResources.size();
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_EXPORT_TEMPLATES_1, new Integer(size)));
@@ -614,92 +839,33 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0),
             I_CmsReport.FORMAT_HEADLINE);
 
-        StringBuffer cookies = new StringBuffer();
-        // now loop through all of them and request them from the server
-        Iterator<String> i = publishedTemplateResources.iterator();
-        while (i.hasNext()) {
-            String rfsName = i.next();
-            CmsStaticExportData data = null;
-            try {
-                data = manager.getVfsNameInternal(cms, rfsName);
-            } catch (CmsVfsResourceNotFoundException e) {
-                String rfsBaseName = rfsName;
-                int pos = rfsName.lastIndexOf('_');
-                if (pos >= 0) {
-                    rfsBaseName = rfsName.substring(0, pos);
-                }
-                try {
-                    data = manager.getVfsNameInternal(cms, rfsBaseName);
-                } catch (CmsVfsResourceNotFoundException e2) {
-                    if (LOG.isInfoEnabled()) {
-                        LOG.info(Messages.get().getBundle().key(
-                            Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
-                            new String[] {rfsName}));
+        final StringBuffer cookies = new StringBuffer();
+        final boolean parallel = (manager.getExportThreads() > 1) && (size > 1);
+        // now request all of them from the server, using several threads if configured
+        final AtomicInteger count = new AtomicInteger();
+        List<Callable<Object>> jobs = new ArrayList<Callable<Object>>(size);
+        for (final String rfsName : publishedTemplateResources) {
+            jobs.add(new Callable<Object>() {
+
+                public Object call() throws Exception {
+
+                    // the cms context is modified while calculating the names, so every thread needs its own copy
+                    CmsObject jobCms = parallel ? OpenCms.initCmsObject(cms) : cms;
+                    CmsBufferedReport jobReport = new CmsBufferedReport(report);
+                    try {
+                        exportTemplateResource(jobCms, rfsName, cookies, count, size, jobReport);
+                    } finally {
+                        jobReport.flush();
                     }
+                    return null;
                 }
-            }
-            if (data != null) {
-                data.setRfsName(rfsName);
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        new Integer(count++),
-                        new Integer(size)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-                report.print(org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_ARGUMENT_1,
-                    rfsName));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            } else {
-                // no valid resource found for rfs name (already deleted), skip it
-                continue;
-            }
-
-            try {
-                CmsResource resource = data.getResource();
-                try {
-                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
-                    for (String detailPageUri : detailPages) {
-                        String altRfsName = manager.getRfsName(cms, detailPageUri);
-                        CmsStaticExportData detailData = new CmsStaticExportData(
-                            data.getVfsName(),
-                            altRfsName,
-                            data.getResource(),
-                            data.getParameters());
-                        exportTemplateResource(detailData, cookies);
-                    }
-                } catch (CmsException e) {
-                    LOG.error(e.getLocalizedMessage(), e);
-                }
-
-                int status = exportTemplateResource(data, cookies);
-
-                // write the report
-                if (status == HttpServletResponse.SC_OK) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else if (status == HttpServletResponse.SC_SEE_OTHER) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else {
-                    report.println(
-                        org.opencms.report.Messages.get().container(
-                            org.opencms.report.Messages.RPT_ARGUMENT_1,
-                            new Integer(status)),
-                        I_CmsReport.FORMAT_OK);
-                }
-            } catch (IOException e) {
-                report.println(e);
-            }
-            //don't lock up the CPU exclusively - allow other Threads to run as well 
-            Thread.yield();
+            });
+        }
+        try {
+            executeExportJobs(jobs);
+        } catch (Exception e) {
+            // the jobs handle their errors, so this should never happen
+            LOG.error(e.getLocalizedMessage(), e);
         }
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0),
@@ -777,8 +943,9 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                             match = true;
                         }
                     }
-                    // if one res does not match any rule, then export all files
-                    if (!match) {
+                    // if one res does not match any rule, then export all files, 
+                    // unless the exported files depending on it are known from the dependency index
+                    if (!match && (OpenCms.getStaticExportManager().getExportDependencies().size() == 0)) {
                         return getAllResources(cms);
                     }
                 }
@@ -890,4 +1057,27 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
         return templatesFound;
     }
-}
\ No newline at end of file
+
+    /**
+     * Throws the given exception of an export job, wrapped if it is not of a declared type.<p>
+     * 
+     * @param e the exception to throw
+     * 
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet 
+     */
+    private void throwExportException(Exception e) throws CmsException, IOException, ServletException {
+
+        if (e instanceof CmsException) {
+            throw (CmsException)e;
+        } else if (e instanceof IOException) {
+            throw (IOException)e;
+        } else if (e instanceof ServletException) {
+            throw (ServletException)e;
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException)e;
+        }
+        throw new CmsStaticExportException(Messages.get().container(Messages.ERR_EXPORT_NOT_SUCCESSFUL_0), e);
+    }
+}
@@ -40,6 +40,8 @@ import org.opencms.util.CmsMacroResolver;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Vector;
 
 import org.htmlparser.Attribute;
@@ -52,13 +54,553 @@ import org.htmlparser.util.ParserException;
 import org.htmlparser.util.SimpleNodeIterator;
 
 /**
- * Implements the HTML parser node visitor pattern to
- * exchange all links on the page.<p>
+ * Exchanges all links on a HTML page, either links with macros (when a page is saved) 
+ * or macros with links (when a page is delivered).<p>
+ * 
+ * The links are processed in a single pass over the HTML, without building a node list. Only the start tags 
+ * that may contain links are parsed, all other content is passed through unchanged. The result can be written 
+ * to a {@link Writer}, or is returned as String, where the original String is returned if no link was changed.<p>
+ * 
+ * Other than the HTML parser, the scan never adds end tags for elements that are not closed in the content.<p>
+ * 
+ * This class still implements the HTML parser node visitor pattern, so it can also be used with 
+ * {@link #process(String, String)}, which is how links were processed before. The tag based hooks 
+ * ({@link #visitTag(Tag)}, {@link #processLinkTag(LinkTag)}, {@link #processImageTag(ImageTag)} and so on) 
+ * are only called by the HTML parser, <b>not</b> by {@link #processLinks(String)} and {@link #replaceLinks(String)}. 
+ * Subclasses that change how links are processed must override {@link #processLink(String, String, CmsRelationType)}, 
+ * which is used in both cases.<p>
  * 
  * @since 6.0.0 
  */
 public class CmsLinkProcessor extends CmsHtmlParser {
 
+    /**
+     * Scans a HTML content for the tags that may contain links and rewrites the link attributes.<p>
+     * 
+     * The content between the changed attribute values is written unchanged to the output.<p>
+     */
+    private final class LinkScanner {
+
+        /** The HTML content. */
+        private final String m_content;
+
+        /** The end positions of the attribute names of the current tag. */
+        private int[] m_nameEnds = new int[8];
+
+        /** The start positions of the attribute names of the current tag. */
+        private int[] m_nameStarts = new int[8];
+
+        /** The relation type of the links in the current object tag, or <code>null</code> if not in an object tag. */
+        private CmsRelationType m_objectType;
+
+        /** The writer to write the output to, or <code>null</code> if the output is collected in a String. */
+        private final Writer m_out;
+
+        /** The output, or <code>null</code> if no link has been changed yet or the output is written to a writer. */
+        private StringBuilder m_result;
+
+        /** The new attribute values of the current tag, <code>null</code> for unchanged values. */
+        private String[] m_values = new String[8];
+
+        /** The end positions of the attribute values of the current tag. */
+        private int[] m_valueEnds = new int[8];
+
+        /** The start positions of the attribute values of the current tag, <code>-1</code> if there is no value. */
+        private int[] m_valueStarts = new int[8];
+
+        /** The position in the content up to which the output has been written. */
+        private int m_written;
+
+        /**
+         * Creates a new link scanner.<p>
+         * 
+         * @param content the HTML content
+         * @param out the writer to write the output to, or <code>null</code> to collect the output in a String
+         */
+        LinkScanner(String content, Writer out) {
+
+            m_content = content;
+            m_out = out;
+        }
+
+        /**
+         * Scans the content and writes the content with the rewritten links.<p>
+         * 
+         * @return the content with the rewritten links, only if no writer is used
+         * 
+         * @throws IOException if writing the output fails
+         */
+        String scan() throws IOException {
+
+            String s = m_content;
+            int length = s.length();
+            int pos = 0;
+            while (pos < length) {
+                int start = s.indexOf('<', pos);
+                if ((start < 0) || (start + 1 >= length)) {
+                    break;
+                }
+                char c = s.charAt(start + 1);
+                if (c == '!') {
+                    if (s.startsWith("<!--", start)) {
+                        pos = skipTo(start + 4, "-->");
+                    } else if (s.startsWith("<![CDATA[", start)) {
+                        pos = skipTo(start + 9, "]]>");
+                    } else {
+                        pos = skipTo(start + 2, ">");
+                    }
+                } else if (c == '?') {
+                    pos = skipTo(start + 2, ">");
+                } else if (c == '/') {
+                    pos = scanEndTag(start);
+                } else if (Character.isLetter(c)) {
+                    pos = scanTag(start);
+                } else {
+                    // just a '<' in the text
+                    pos = start + 1;
+                }
+            }
+            if ((m_out == null) && (m_result == null)) {
+                // no link has been changed
+                return m_content;
+            }
+            write(length);
+            return m_out == null ? m_result.toString() : null;
+        }
+
+        /**
+         * Returns the index of the attribute with the given name in the current tag, or <code>-1</code>.<p>
+         * 
+         * @param count the number of attributes of the current tag
+         * @param name the attribute name
+         * 
+         * @return the index of the first attribute with the given name, or <code>-1</code> 
+         */
+        private int findAttribute(int count, String name) {
+
+            for (int i = 0; i < count; i++) {
+                int len = m_nameEnds[i] - m_nameStarts[i];
+                if ((len == name.length()) && m_content.regionMatches(true, m_nameStarts[i], name, 0, len)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the position after the given whitespace and slash characters.<p>
+         * 
+         * @param pos the position to start at
+         * @param slash if slashes should be skipped as well
+         * 
+         * @return the position of the first other character
+         */
+        private int skipWhitespace(int pos, boolean slash) {
+
+            int length = m_content.length();
+            while (pos < length) {
+                char c = m_content.charAt(pos);
+                if (!Character.isWhitespace(c) && (!slash || (c != '/'))) {
+                    break;
+                }
+                pos++;
+            }
+            return pos;
+        }
+
+        /**
+         * Processes the link in the given attribute of the current tag.<p>
+         * 
+         * @param count the number of attributes of the current tag
+         * @param tagName the upper case tag name
+         * @param attr the attribute name
+         * @param type the relation type of the link
+         * 
+         * @return the index of the attribute, or <code>-1</code> if the tag has no such attribute
+         */
+        private int processAttribute(int count, String tagName, String attr, CmsRelationType type) {
+
+            int i = findAttribute(count, attr);
+            if ((i >= 0) && (m_valueStarts[i] >= 0)) {
+                String value = m_content.substring(m_valueStarts[i], m_valueEnds[i]);
+                m_values[i] = processLink(tagName, value, type);
+            }
+            return i;
+        }
+
+        /**
+         * Scans an end tag.<p>
+         * 
+         * @param start the position of the '&lt;' 
+         * 
+         * @return the position after the end tag
+         */
+        private int scanEndTag(int start) {
+
+            if ((m_objectType != null)
+                && m_content.regionMatches(true, start + 2, TAG_OBJECT, 0, TAG_OBJECT.length())) {
+                m_objectType = null;
+            }
+            return skipTo(start + 2, ">");
+        }
+
+        /**
+         * Scans a start tag, and rewrites its links.<p>
+         * 
+         * @param start the position of the '&lt;' 
+         * 
+         * @return the position after the tag
+         * 
+         * @throws IOException if writing the output fails
+         */
+        private int scanTag(int start) throws IOException {
+
+            String s = m_content;
+            int length = s.length();
+            int nameEnd = start + 1;
+            while ((nameEnd < length) && !isTagNameEnd(s.charAt(nameEnd))) {
+                nameEnd++;
+            }
+            String tagName = getTagName(start + 1, nameEnd);
+            if (tagName == null) {
+                // not a tag that may contain links, but the tag must be skipped because of quoted '>' chars
+                return skipTag(nameEnd);
+            }
+            int count = 0;
+            int pos = nameEnd;
+            while (true) {
+                pos = skipWhitespace(pos, true);
+                if ((pos >= length) || (s.charAt(pos) == '>')) {
+                    break;
+                }
+                int nameStart = pos;
+                while ((pos < length) && !isAttributeNameEnd(pos)) {
+                    pos++;
+                }
+                if (pos == nameStart) {
+                    // something like a single '=', ignore it
+                    pos++;
+                    continue;
+                }
+                if (count == m_nameStarts.length) {
+                    growAttributes();
+                }
+                m_nameStarts[count] = nameStart;
+                m_nameEnds[count] = pos;
+                m_valueStarts[count] = -1;
+                m_values[count] = null;
+                int valuePos = skipWhitespace(pos, false);
+                if ((valuePos < length) && (s.charAt(valuePos) == '=')) {
+                    valuePos = skipWhitespace(valuePos + 1, false);
+                    char quote = valuePos < length ? s.charAt(valuePos) : 0;
+                    if ((quote == '"') || (quote == '\'')) {
+                        int valueEnd = s.indexOf(quote, valuePos + 1);
+                        if (valueEnd < 0) {
+                            valueEnd = length;
+                        }
+                        m_valueStarts[count] = valuePos + 1;
+                        m_valueEnds[count] = valueEnd;
+                        pos = Math.min(valueEnd + 1, length);
+                    } else {
+                        int valueEnd = valuePos;
+                        while ((valueEnd < length)
+                            && !Character.isWhitespace(s.charAt(valueEnd))
+                            && (s.charAt(valueEnd) != '>')) {
+                            valueEnd++;
+                        }
+                        // like the HTML parser, a slash before the '>' belongs to an unquoted value
+                        pos = valueEnd;
+                        m_valueStarts[count] = valuePos;
+                        m_valueEnds[count] = valueEnd;
+                    }
+                }
+                count++;
+            }
+            int end = Math.min(pos + 1, length);
+            boolean empty = (pos < length) && (s.charAt(pos - 1) == '/');
+
+            // process the link attributes
+            m_altUri = null;
+            String altUri = null;
+            if (TAG_A.equals(tagName)) {
+                processAttribute(count, tagName, ATTRIBUTE_HREF, CmsRelationType.HYPERLINK);
+            } else if (TAG_IMG.equals(tagName)) {
+                processAttribute(count, tagName, ATTRIBUTE_SRC, CmsRelationType.EMBEDDED_IMAGE);
+                altUri = m_altUri;
+            } else if (TAG_AREA.equals(tagName)) {
+                processAttribute(count, tagName, ATTRIBUTE_HREF, CmsRelationType.HYPERLINK);
+                altUri = m_altUri;
+            } else if (TAG_EMBED.equals(tagName)) {
+                for (int i = 0; i < EMBED_TAG_LINKED_ATTRIBS.length; i++) {
+                    processAttribute(count, tagName, EMBED_TAG_LINKED_ATTRIBS[i], CmsRelationType.EMBEDDED_OBJECT);
+                }
+            } else if (TAG_OBJECT.equals(tagName)) {
+                CmsRelationType type = CmsRelationType.EMBEDDED_OBJECT;
+                for (int i = 0; i < OBJECT_TAG_LINKED_ATTRIBS.length; i++) {
+                    int index = processAttribute(count, tagName, OBJECT_TAG_LINKED_ATTRIBS[i], type);
+                    if ((i == 0) && (index >= 0) && (m_valueStarts[index] >= 0)) {
+                        // if code base is available, the other attributes are relative to it, so do not process them
+                        break;
+                    }
+                }
+                if (!empty) {
+                    m_objectType = type;
+                }
+            } else if (TAG_PARAM.equals(tagName)) {
+                if (m_objectType != null) {
+                    processAttribute(count, tagName, ATTRIBUTE_VALUE, m_objectType);
+                }
+            } else {
+                // script or style, the content is not HTML
+                return skipRawText(end, tagName);
+            }
+
+            // write the changed attributes
+            if ((altUri != null) && (findAttribute(count, ATTRIBUTE_ALT) < 0)) {
+                write(nameEnd);
+                append(" alt=\"");
+                append(getAltText(altUri));
+                append("\"");
+            }
+            for (int i = 0; i < count; i++) {
+                String value = m_values[i];
+                if (value == null) {
+                    continue;
+                }
+                m_values[i] = null;
+                int valueStart = m_valueStarts[i];
+                write(valueStart);
+                char quote = valueStart > 0 ? s.charAt(valueStart - 1) : 0;
+                if ((quote == '"') || (quote == '\'')) {
+                    append(value);
+                } else {
+                    quote = needsQuotes(value);
+                    if (quote != 0) {
+                        append(String.valueOf(quote));
+                        append(value);
+                        append(String.valueOf(quote));
+                    } else {
+                        append(value);
+                    }
+                }
+                m_written = m_valueEnds[i];
+            }
+            return end;
+        }
+
+        /**
+         * Returns the upper case name of the given tag if it may contain links or raw text, 
+         * otherwise <code>null</code>.<p>
+         * 
+         * @param start the start position of the tag name
+         * @param end the end position of the tag name
+         * 
+         * @return the upper case tag name, or <code>null</code>
+         */
+        private String getTagName(int start, int end) {
+
+            int len = end - start;
+            for (int i = 0; i < SCANNED_TAGS.length; i++) {
+                String tag = SCANNED_TAGS[i];
+                if ((tag.length() == len) && m_content.regionMatches(true, start, tag, 0, len)) {
+                    return tag;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Enlarges the attribute position arrays.<p>
+         */
+        private void growAttributes() {
+
+            int size = m_nameStarts.length * 2;
+            int[] nameStarts = new int[size];
+            int[] nameEnds = new int[size];
+            int[] valueStarts = new int[size];
+            int[] valueEnds = new int[size];
+            String[] values = new String[size];
+            System.arraycopy(m_nameStarts, 0, nameStarts, 0, m_nameStarts.length);
+            System.arraycopy(m_nameEnds, 0, nameEnds, 0, m_nameEnds.length);
+            System.arraycopy(m_valueStarts, 0, valueStarts, 0, m_valueStarts.length);
+            System.arraycopy(m_valueEnds, 0, valueEnds, 0, m_valueEnds.length);
+            m_nameStarts = nameStarts;
+            m_nameEnds = nameEnds;
+            m_valueStarts = valueStarts;
+            m_valueEnds = valueEnds;
+            m_values = values;
+        }
+
+        /**
+         * Checks if an attribute name ends at the given position.<p>
+         * 
+         * @param pos the position to check
+         * 
+         * @return <code>true</code> if an attribute name ends at the given position 
+         */
+        private boolean isAttributeNameEnd(int pos) {
+
+            char c = m_content.charAt(pos);
+            return Character.isWhitespace(c)
+                || (c == '=')
+                || (c == '>')
+                || ((c == '/') && (pos + 1 < m_content.length()) && (m_content.charAt(pos + 1) == '>'));
+        }
+
+        /**
+         * Checks if the given character ends a tag name.<p>
+         * 
+         * @param c the character to check
+         * 
+         * @return <code>true</code> if the given character ends a tag name 
+         */
+        private boolean isTagNameEnd(char c) {
+
+            return Character.isWhitespace(c) || (c == '>') || (c == '/');
+        }
+
+        /**
+         * Returns the quote character required for the given unquoted attribute value, or <code>0</code>.<p>
+         * 
+         * @param value the attribute value
+         * 
+         * @return the quote character, or <code>0</code> if no quotes are required
+         */
+        private char needsQuotes(String value) {
+
+            boolean needed = value.length() == 0;
+            boolean single = true;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (Character.isWhitespace(c) || (c == '>') || (c == '"') || (c == '\'')) {
+                    needed = true;
+                }
+                if (c == '"') {
+                    single = false;
+                }
+            }
+            if (!needed) {
+                return 0;
+            }
+            return single ? '"' : '\'';
+        }
+
+        /**
+         * Skips the raw text content of a script or style tag.<p>
+         * 
+         * @param pos the position after the start tag
+         * @param tagName the upper case tag name
+         * 
+         * @return the position of the end tag
+         */
+        private int skipRawText(int pos, String tagName) {
+
+            String s = m_content;
+            int length = s.length();
+            while (pos < length) {
+                int start = s.indexOf("</", pos);
+                if (start < 0) {
+                    return length;
+                }
+                if (s.regionMatches(true, start + 2, tagName, 0, tagName.length())) {
+                    return start;
+                }
+                pos = start + 2;
+            }
+            return length;
+        }
+
+        /**
+         * Skips the rest of a tag, considering quoted attribute values.<p>
+         * 
+         * @param pos the position to start at
+         * 
+         * @return the position after the tag
+         */
+        private int skipTag(int pos) {
+
+            String s = m_content;
+            int length = s.length();
+            char quote = 0;
+            boolean value = false;
+            while (pos < length) {
+                char c = s.charAt(pos++);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '>') {
+                    return pos;
+                } else if (c == '=') {
+                    value = true;
+                } else if (value && ((c == '"') || (c == '\''))) {
+                    quote = c;
+                    value = false;
+                } else if (!Character.isWhitespace(c)) {
+                    value = false;
+                }
+            }
+            return length;
+        }
+
+        /**
+         * Returns the position after the next occurrence of the given String.<p>
+         * 
+         * @param pos the position to start at
+         * @param str the String to find
+         * 
+         * @return the position after the next occurrence of the given String, or the content length
+         */
+        private int skipTo(int pos, String str) {
+
+            int end = m_content.indexOf(str, pos);
+            return end < 0 ? m_content.length() : end + str.length();
+        }
+
+        /**
+         * Appends the given String to the output, after the unchanged content has been written.<p>
+         * 
+         * @param str the String to append
+         * 
+         * @throws IOException if writing the output fails
+         */
+        private void append(String str) throws IOException {
+
+            if (m_out != null) {
+                m_out.write(str);
+            } else {
+                m_result.append(str);
+            }
+        }
+
+        /**
+         * Writes the unchanged content up to the given position to the output.<p>
+         * 
+         * @param pos the position to write the content up to
+         * 
+         * @throws IOException if writing the output fails
+         */
+        private void write(int pos) throws IOException {
+
+            if ((pos <= m_written) && ((m_out != null) || (m_result != null))) {
+                return;
+            }
+            if (m_out != null) {
+                m_out.write(m_content, m_written, pos - m_written);
+            } else {
+                if (m_result == null) {
+                    // the first change, from now on the output is collected
+                    m_result = new StringBuilder(m_content.length() + 128);
+                }
+                m_result.append(m_content, m_written, pos);
+            }
+            m_written = pos;
+        }
+    }
+
+    /** Constant for the attribute name. */
+    public static final String ATTRIBUTE_ALT = "alt";
+
     /** Constant for the attribute name. */
     public static final String ATTRIBUTE_HREF = "href";
 
@@ -74,12 +616,21 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /** HTML start. */
     public static final String HTML_START = "<html><body>";
 
+    /** Constant for the tag name. */
+    public static final String TAG_A = "A";
+
     /** Constant for the tag name. */
     public static final String TAG_AREA = "AREA";
 
     /** Constant for the tag name. */
     public static final String TAG_EMBED = "EMBED";
 
+    /** Constant for the tag name. */
+    public static final String TAG_IMG = "IMG";
+
+    /** Constant for the tag name. */
+    public static final String TAG_OBJECT = "OBJECT";
+
     /** Constant for the tag name. */
     public static final String TAG_PARAM = "PARAM";
 
@@ -95,6 +646,20 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /** Processing mode "replace links". */
     private static final int REPLACE_LINKS = 0;
 
+    /** The tags that may contain links, or whose content must not be scanned for links. */
+    private static final String[] SCANNED_TAGS = new String[] {
+        TAG_A,
+        TAG_IMG,
+        TAG_AREA,
+        TAG_PARAM,
+        TAG_EMBED,
+        TAG_OBJECT,
+        "SCRIPT",
+        "STYLE"};
+
+    /** The internal URI of the image to set the "alt" attribute for, set by the last link processed. */
+    private String m_altUri;
+
     /** The current users OpenCms context, containing the users permission and site root context. */
     private CmsObject m_cms;
 
@@ -216,7 +781,25 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     public String processLinks(String content) throws ParserException {
 
         m_mode = PROCESS_LINKS;
-        return process(content, m_encoding);
+        return scan(content);
+    }
+
+    /**
+     * Starts link processing for the given content in processing mode, writing the result to the given writer.<p>
+     * 
+     * Macros are replaced by links.<p>
+     * 
+     * @param content the content to process
+     * @param out the writer to write the processed content with replaced macros to
+     * 
+     * @throws IOException if writing to the writer fails
+     */
+    public void processLinks(String content, Writer out) throws IOException {
+
+        m_mode = PROCESS_LINKS;
+        if (content != null) {
+            new LinkScanner(content, out).scan();
+        }
     }
 
     /**
@@ -232,12 +815,33 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     public String replaceLinks(String content) throws ParserException {
 
         m_mode = REPLACE_LINKS;
-        return process(content, m_encoding);
+        return scan(content);
+    }
+
+    /**
+     * Starts link processing for the given content in replacement mode, writing the result to the given writer.<p>
+     * 
+     * Links are replaced by macros.<p>
+     * 
+     * @param content the content to process
+     * @param out the writer to write the processed content with replaced links to
+     * 
+     * @throws IOException if writing to the writer fails
+     */
+    public void replaceLinks(String content, Writer out) throws IOException {
+
+        m_mode = REPLACE_LINKS;
+        if (content != null) {
+            new LinkScanner(content, out).scan();
+        }
     }
 
     /**
      * Visitor method to process a tag (start).<p>
      * 
+     * Only called when the content is processed with the HTML parser, 
+     * see {@link #processLink(String, String, CmsRelationType)}.<p>
+     * 
      * @param tag the tag to process
      */
     @Override
@@ -264,6 +868,9 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /**
      * Process an area tag.<p>
      * 
+     * Only called when the content is processed with the HTML parser, 
+     * see {@link #processLink(String, String, CmsRelationType)}.<p>
+     * 
      * @param tag the tag to process
      */
     protected void processAreaTag(Tag tag) {
@@ -274,6 +881,9 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /**
      * Process an embed tag.<p>
      * 
+     * Only called when the content is processed with the HTML parser, 
+     * see {@link #processLink(String, String, CmsRelationType)}.<p>
+     * 
      * @param tag the tag to process
      */
     protected void processEmbedTag(Tag tag) {
@@ -287,6 +897,9 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /**
      * Process an image tag.<p>
      * 
+     * Only called when the content is processed with the HTML parser, 
+     * see {@link #processLink(String, String, CmsRelationType)}.<p>
+     * 
      * @param tag the tag to process
      */
     protected void processImageTag(ImageTag tag) {
@@ -297,6 +910,9 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /**
      * Process a tag having a link in the given attribute, considering the link as the given type.<p>
      * 
+     * Only called when the content is processed with the HTML parser, 
+     * see {@link #processLink(String, String, CmsRelationType)}.<p>
+     * 
      * @param tag the tag to process
      * @param attr the attribute
      * @param type the link type
@@ -306,15 +922,41 @@ public class CmsLinkProcessor extends CmsHtmlParser {
         if (tag.getAttribute(attr) == null) {
             return;
         }
+        String value = processLink(tag.getTagName(), tag.getAttribute(attr), type);
+        if (m_altUri != null) {
+            // now ensure the image has the "alt" attribute set
+            setAltAttributeFromTitle(tag, m_altUri);
+        }
+        if (value != null) {
+            tag.setAttribute(attr, value);
+        }
+    }
+
+    /**
+     * Processes the link in an attribute of the given tag, considering the link as the given type.<p>
+     * 
+     * This is called for every link attribute, both by the single pass scan of {@link #processLinks(String)} 
+     * and {@link #replaceLinks(String)} and by the HTML parser based hooks like {@link #processLinkTag(LinkTag)}, 
+     * so this is the method to override for a different link processing.<p>
+     * 
+     * @param tagName the upper case tag name
+     * @param value the attribute value
+     * @param type the link type
+     * 
+     * @return the new attribute value, or <code>null</code> if the attribute is not changed
+     */
+    protected String processLink(String tagName, String value, CmsRelationType type) {
+
+        m_altUri = null;
         CmsLink link = null;
         switch (m_mode) {
             case PROCESS_LINKS:
                 // macros are replaced with links
-                link = m_linkTable.getLink(CmsMacroResolver.stripMacro(tag.getAttribute(attr)));
+                link = m_linkTable.getLink(CmsMacroResolver.stripMacro(value));
                 if (link != null) {
                     // link management check
                     String l = link.getLink(m_cms);
-                    if (TAG_PARAM.equals(tag.getTagName())) {
+                    if (TAG_PARAM.equals(tagName)) {
                         // HACK: to distinguish link parameters the link itself has to end with '&' or '?'
                         // another solution should be a kind of macro...
                         if (!l.endsWith(CmsRequestUtil.URL_DELIMITER)
@@ -327,12 +969,12 @@ public class CmsLinkProcessor extends CmsHtmlParser {
                         }
                     }
                     // set the real target
-                    tag.setAttribute(attr, CmsEncoder.escapeXml(l));
+                    return CmsEncoder.escapeXml(l);
                 }
                 break;
             case REPLACE_LINKS:
                 // links are replaced with macros
-                String targetUri = tag.getAttribute(attr);
+                String targetUri = value;
                 if (CmsStringUtil.isNotEmpty(targetUri)) {
                     String internalUri = null;
                     if (!CmsMacroResolver.isMacro(targetUri)) {
@@ -343,7 +985,7 @@ public class CmsLinkProcessor extends CmsHtmlParser {
                     }
                     // HACK: to distinguish link parameters the link itself has to end with '&' or '?'
                     // another solution should be a kind of macro...
-                    if (!TAG_PARAM.equals(tag.getTagName())
+                    if (!TAG_PARAM.equals(tagName)
                         || targetUri.endsWith(CmsRequestUtil.URL_DELIMITER)
                         || targetUri.endsWith(CmsRequestUtil.PARAMETER_DELIMITER)) {
                         if (internalUri != null) {
@@ -353,9 +995,9 @@ public class CmsLinkProcessor extends CmsHtmlParser {
                             // link management check
                             link.checkConsistency(m_cms);
 
-                            if ("IMG".equals(tag.getTagName()) || TAG_AREA.equals(tag.getTagName())) {
-                                // now ensure the image has the "alt" attribute set
-                                setAltAttributeFromTitle(tag, internalUri);
+                            if (TAG_IMG.equals(tagName) || TAG_AREA.equals(tagName)) {
+                                // the image must have the "alt" attribute set
+                                m_altUri = internalUri;
                             }
                         } else {
                             // this is an external link
@@ -363,17 +1005,21 @@ public class CmsLinkProcessor extends CmsHtmlParser {
                         }
                     }
                     if (link != null) {
-                        tag.setAttribute(attr, CmsMacroResolver.formatMacro(link.getName()));
+                        return CmsMacroResolver.formatMacro(link.getName());
                     }
                 }
                 break;
             default: // empty
         }
+        return null;
     }
 
     /**
      * Process a link tag.<p>
      * 
+     * Only called when the content is processed with the HTML parser, 
+     * see {@link #processLink(String, String, CmsRelationType)}.<p>
+     * 
      * @param tag the tag to process
      */
     protected void processLinkTag(LinkTag tag) {
@@ -384,6 +1030,9 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /**
      * Process an object tag.<p>
      * 
+     * Only called when the content is processed with the HTML parser, 
+     * see {@link #processLink(String, String, CmsRelationType)}.<p>
+     * 
      * @param tag the tag to process
      */
     protected void processObjectTag(ObjectTag tag) {
@@ -414,29 +1063,100 @@ public class CmsLinkProcessor extends CmsHtmlParser {
      * 
      * if not set, it will be set from the title of the given resource.<p>
      * 
+     * Only called when the content is processed with the HTML parser, 
+     * see {@link #processLink(String, String, CmsRelationType)}.<p>
+     * 
      * @param tag the tag to set the alt attribute for
      * @param internalUri the internal URI to get the title from
      */
     protected void setAltAttributeFromTitle(Tag tag, String internalUri) {
 
-        boolean hasAltAttrib = (tag.getAttribute("alt") != null);
+        boolean hasAltAttrib = (tag.getAttribute(ATTRIBUTE_ALT) != null);
         if (!hasAltAttrib) {
-            String value = null;
-            if ((internalUri != null) && (m_rootCms != null)) {
-                // internal image: try to read the "alt" text from the "Title" property
-                try {
-                    value = m_rootCms.readPropertyObject(internalUri, CmsPropertyDefinition.PROPERTY_TITLE, false).getValue();
-                } catch (CmsException e) {
-                    // property can't be read, ignore
-                }
-            }
             // some editors add a "/" at the end of the tag, we must make sure to insert before that
             @SuppressWarnings("unchecked")
             Vector<Attribute> attrs = tag.getAttributesEx();
             // first element is always the tag name
             attrs.add(1, new Attribute(" "));
-            attrs.add(2, new Attribute("alt", value == null ? "" : value, '"'));
+            attrs.add(2, new Attribute(ATTRIBUTE_ALT, getAltText(internalUri), '"'));
+        }
+    }
+
+    /**
+     * Returns the text for the "alt" attribute of an image, that is the title of the image.<p>
+     * 
+     * @param internalUri the internal URI of the image
+     * 
+     * @return the text for the "alt" attribute, or an empty String if the image has no title
+     */
+    private String getAltText(String internalUri) {
+
+        String value = null;
+        if ((internalUri != null) && (m_rootCms != null)) {
+            // internal image: try to read the "alt" text from the "Title" property
+            try {
+                value = m_rootCms.readPropertyObject(internalUri, CmsPropertyDefinition.PROPERTY_TITLE, false).getValue();
+            } catch (CmsException e) {
+                // property can't be read, ignore
+            }
+        }
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Processes the links in the given content with a single pass scan.<p>
+     * 
+     * @param content the content to process
+     * 
+     * @return the processed content, this is the given content if no link has been changed
+     * 
+     * @throws ParserException if something goes wrong
+     */
+    private String scan(String content) throws ParserException {
+
+        if (content == null) {
+            return null;
         }
+        try {
+            return new LinkScanner(content, null).scan();
+        } catch (IOException e) {
+            // can not happen, since no writer is used
+            throw new ParserException(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Starts link processing for the given content in processing mode, using the HTML parser
+     * like before the single pass scan was introduced.<p>
+     * 
+     * This is used to verify and benchmark the single pass scan.<p>
+     * 
+     * @param content the content to process
+     * @return the processed content with replaced macros
+     * 
+     * @throws ParserException if something goes wrong
+     */
+    String processLinksWithParser(String content) throws ParserException {
+
+        m_mode = PROCESS_LINKS;
+        return process(content, m_encoding);
+    }
+
+    /**
+     * Starts link processing for the given content in replacement mode, using the HTML parser
+     * like before the single pass scan was introduced.<p>
+     * 
+     * This is used to verify and benchmark the single pass scan.<p>
+     * 
+     * @param content the content to process
+     * @return the processed content with replaced links
+     * 
+     * @throws ParserException if something goes wrong
+     */
+    String replaceLinksWithParser(String content) throws ParserException {
+
+        m_mode = REPLACE_LINKS;
+        return process(content, m_encoding);
     }
 
     /**
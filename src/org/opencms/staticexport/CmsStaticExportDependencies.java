@@ -0,0 +1,337 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.staticexport;
+
+import org.opencms.cache.CmsVfsDiskCache;
+import org.opencms.file.CmsResource;
+import org.opencms.flex.CmsFlexRequestContextInfo;
+import org.opencms.main.CmsLog;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Persistent index of the VFS resources the exported files depend on.<p>
+ * 
+ * For every exported file that is rendered with the Flex controller, the static export manager 
+ * records the root paths of all resources that were read while rendering the file, including the resources 
+ * the properties were read from. When resources are published, the static export handlers use this index 
+ * to find the exported files that must be exported again because one of their dependencies changed.<p>
+ * 
+ * Reading the direct sub resources of a folder is recorded as dependency on the folder root path followed by
+ * <code>{@link CmsFlexRequestContextInfo#DEPENDENCY_LISTING_SUFFIX}</code>, reading the whole tree below 
+ * a folder is recorded with <code>{@link CmsFlexRequestContextInfo#DEPENDENCY_TREE_LISTING_SUFFIX}</code>. 
+ * Use {@link #getChangedPaths(String, boolean)} to get the paths to look up for a changed resource.<p>
+ * 
+ * The index is stored as a compressed text file with one line per exported file, 
+ * containing the RFS name, the root path of the exported resource and the dependencies, separated by tabs.<p>
+ * 
+ * @since 8.5.0
+ */
+public class CmsStaticExportDependencies {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsStaticExportDependencies.class);
+
+    /** The encoding of the index file. */
+    private static final String ENCODING = "UTF-8";
+
+    /** The separator of the values in a line of the index file. */
+    private static final char SEPARATOR = '\t';
+
+    /** Indicates if the index was changed since it was loaded or saved. */
+    private boolean m_changed;
+
+    /** The dependencies of the exported files, with the RFS name as key. */
+    private Map<String, Set<String>> m_dependencies;
+
+    /** The RFS names of the exported files depending on a path, with the path as key. */
+    private Map<String, Set<String>> m_dependents;
+
+    /** The root paths of the exported resources, with the RFS name as key. */
+    private Map<String, String> m_exports;
+
+    /** The file the index is stored in, or <code>null</code> if the index is not persistent. */
+    private String m_rfsPath;
+
+    /**
+     * Creates a new, empty dependency index.<p>
+     * 
+     * @param rfsPath the file to store the index in, or <code>null</code> if the index should not be persistent
+     */
+    public CmsStaticExportDependencies(String rfsPath) {
+
+        m_rfsPath = rfsPath;
+        m_dependencies = new HashMap<String, Set<String>>();
+        m_dependents = new HashMap<String, Set<String>>();
+        m_exports = new HashMap<String, String>();
+    }
+
+    /**
+     * Returns the paths to look up in the index for a changed resource.<p>
+     * 
+     * These are the root path of the resource itself and, if the resource was created, deleted or moved, 
+     * the listing dependency of its parent folder and the tree listing dependencies of all its ancestor folders.
+     * So a page listing only the direct sub resources of a folder is not affected by a new resource 
+     * in a sub folder.<p>
+     * 
+     * @param rootPath the root path of the changed resource
+     * @param structureChanged <code>true</code> if the resource was created, deleted or moved
+     * 
+     * @return the paths to look up in the index for the changed resource
+     */
+    public static List<String> getChangedPaths(String rootPath, boolean structureChanged) {
+
+        List<String> result = new ArrayList<String>();
+        result.add(rootPath);
+        if (structureChanged) {
+            String parent = CmsResource.getParentFolder(rootPath);
+            if (parent != null) {
+                result.add(parent + CmsFlexRequestContextInfo.DEPENDENCY_LISTING_SUFFIX);
+            }
+            while (parent != null) {
+                result.add(parent + CmsFlexRequestContextInfo.DEPENDENCY_TREE_LISTING_SUFFIX);
+                parent = CmsResource.getParentFolder(parent);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds an exported file to the index, replacing the dependencies recorded before for the same file.<p>
+     * 
+     * @param rfsName the RFS name of the exported file
+     * @param rootPath the root path of the exported resource
+     * @param dependencies the root paths of the resources used to render the file
+     */
+    public synchronized void addExport(String rfsName, String rootPath, Collection<String> dependencies) {
+
+        removeExportInternal(rfsName);
+        Set<String> paths = new HashSet<String>(dependencies);
+        // the exported resource itself is always a dependency
+        paths.add(rootPath);
+        m_exports.put(rfsName, rootPath);
+        m_dependencies.put(rfsName, paths);
+        for (String path : paths) {
+            Set<String> dependents = m_dependents.get(path);
+            if (dependents == null) {
+                dependents = new HashSet<String>();
+                m_dependents.put(path, dependents);
+            }
+            dependents.add(rfsName);
+        }
+        m_changed = true;
+    }
+
+    /**
+     * Removes all exported files from the index.<p>
+     */
+    public synchronized void clear() {
+
+        if (!m_exports.isEmpty()) {
+            m_changed = true;
+        }
+        m_dependencies.clear();
+        m_dependents.clear();
+        m_exports.clear();
+    }
+
+    /**
+     * Returns the dependencies of the given exported file.<p>
+     * 
+     * @param rfsName the RFS name of the exported file
+     * 
+     * @return the dependencies of the given exported file, or <code>null</code> if the file is not in the index
+     */
+    public synchronized Set<String> getDependencies(String rfsName) {
+
+        Set<String> paths = m_dependencies.get(rfsName);
+        return (paths != null) ? new HashSet<String>(paths) : null;
+    }
+
+    /**
+     * Returns the exported files depending on any of the given paths.<p>
+     * 
+     * @param paths the paths of the changed resources, see {@link #getChangedPaths(String, boolean)}
+     * 
+     * @return a map with the RFS names of the dependent files as keys and the root paths of 
+     *      the exported resources as values
+     */
+    public synchronized Map<String, String> getDependentExports(Collection<String> paths) {
+
+        Map<String, String> result = new HashMap<String, String>();
+        for (String path : paths) {
+            Set<String> dependents = m_dependents.get(path);
+            if (dependents != null) {
+                for (String rfsName : dependents) {
+                    result.put(rfsName, m_exports.get(rfsName));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the index from the file it is stored in, replacing the current content.<p>
+     * 
+     * If the file can not be read, the index is empty afterwards.<p>
+     */
+    public synchronized void load() {
+
+        clear();
+        m_changed = false;
+        if (m_rfsPath == null) {
+            return;
+        }
+        File file = new File(m_rfsPath);
+        if (!file.exists()) {
+            return;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(file)),
+                ENCODING));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(String.valueOf(SEPARATOR));
+                if (values.length < 2) {
+                    continue;
+                }
+                Set<String> paths = new HashSet<String>();
+                for (int i = 2; i < values.length; i++) {
+                    paths.add(values[i]);
+                }
+                addExport(values[0], values[1], paths);
+            }
+            m_changed = false;
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_DEPENDENCIES_READ_FAILED_1, m_rfsPath), e);
+            clear();
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes an exported file from the index.<p>
+     * 
+     * @param rfsName the RFS name of the exported file
+     */
+    public synchronized void removeExport(String rfsName) {
+
+        removeExportInternal(rfsName);
+    }
+
+    /**
+     * Writes the index to the file it is stored in, if it was changed.<p>
+     */
+    public synchronized void save() {
+
+        if (!m_changed || (m_rfsPath == null)) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes), ENCODING);
+            for (Map.Entry<String, String> export : m_exports.entrySet()) {
+                writer.write(export.getKey());
+                writer.write(SEPARATOR);
+                writer.write(export.getValue());
+                for (String path : m_dependencies.get(export.getKey())) {
+                    writer.write(SEPARATOR);
+                    writer.write(path);
+                }
+                writer.write('\n');
+            }
+            writer.close();
+            CmsVfsDiskCache.saveFile(m_rfsPath, bytes.toByteArray());
+            m_changed = false;
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_DEPENDENCIES_WRITE_FAILED_1, m_rfsPath), e);
+        }
+    }
+
+    /**
+     * Returns the number of exported files in the index.<p>
+     * 
+     * @return the number of exported files in the index
+     */
+    public synchronized int size() {
+
+        return m_exports.size();
+    }
+
+    /**
+     * Removes an exported file from the index, the caller must hold the monitor of this index.<p>
+     * 
+     * @param rfsName the RFS name of the exported file
+     */
+    private void removeExportInternal(String rfsName) {
+
+        Set<String> paths = m_dependencies.remove(rfsName);
+        m_exports.remove(rfsName);
+        if (paths == null) {
+            return;
+        }
+        for (String path : paths) {
+            Set<String> dependents = m_dependents.get(path);
+            if (dependents != null) {
+                dependents.remove(rfsName);
+                if (dependents.isEmpty()) {
+                    m_dependents.remove(path);
+                }
+            }
+        }
+        m_changed = true;
+    }
+}
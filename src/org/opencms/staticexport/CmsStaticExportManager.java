@@ -29,6 +29,7 @@ package org.opencms.staticexport;
 
 import org.opencms.ade.detailpage.CmsDetailPageUtil;
 import org.opencms.ade.detailpage.I_CmsDetailPageFinder;
+import org.opencms.cache.CmsVfsDiskCache;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProperty;
@@ -36,6 +37,7 @@ import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.file.types.CmsResourceTypeJsp;
+import org.opencms.flex.CmsFlexController;
 import org.opencms.i18n.CmsAcceptLanguageHeaderParser;
 import org.opencms.i18n.CmsI18nInfo;
 import org.opencms.i18n.CmsLocaleManager;
@@ -61,7 +63,6 @@ import org.opencms.util.CmsUUID;
 import org.opencms.workplace.CmsWorkplace;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -72,6 +73,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 import javax.servlet.ServletException;
@@ -112,9 +114,15 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Name for the folder default index file. */
     public static final String EXPORT_DEFAULT_FILE = "index_export.html";
 
+    /** The default number of threads used for the after publish export. */
+    public static final int EXPORT_DEFAULT_THREADS = 1;
+
     /** Name for the default work path. */
     public static final String EXPORT_DEFAULT_WORKPATH = CmsSystemInfo.FOLDER_WEBINF + "temp";
 
+    /** Name of the file the dependencies of the exported files are stored in, relative to the WEB-INF folder. */
+    public static final String EXPORT_DEPENDENCIES_FILE = "staticexport-dependencies.gz";
+
     /** Flag value for links without parameters. */
     public static final int EXPORT_LINK_WITH_PARAMETER = 2;
 
@@ -157,6 +165,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** OpenCms default locale header. */
     private String m_defaultAcceptLanguageHeader;
 
+    /** The dependencies of the exported files. */
+    private CmsStaticExportDependencies m_exportDependencies;
+
     /** Matcher for  selecting those resources which should be part of the static export. */
     private CmsExportFolderMatcher m_exportFolderMatcher;
 
@@ -241,6 +252,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** The path to where the static export will be written without the complete rfs path. */
     private String m_staticExportPathConfigured;
 
+    /** The configured number of threads for the after publish export. */
+    private Integer m_staticExportThreads;
+
     /** The path to where the static export will be written during the static export process. */
     private String m_staticExportWorkPath;
 
@@ -276,6 +290,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_exportTmpRule = new CmsStaticExportExportRule("", "");
         m_rfsTmpRule = new CmsStaticExportRfsRule("", "", "", "", "", "", null, null);
         m_fullStaticExport = false;
+        m_exportDependencies = new CmsStaticExportDependencies(null);
     }
 
     /**
@@ -591,7 +606,8 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                     ctxInfo.setLocale(locale);
                     locCms = OpenCms.initCmsObject(exportCms, ctxInfo);
                 }
-                // read the content in the matching locale
+                // read the content in the matching locale, recording the resources used
+                locCms.getRequestContext().setAttribute(CmsFlexController.ATTRIBUTE_RECORD_DEPENDENCIES, Boolean.TRUE);
                 byte[] content = loader.export(locCms, file, req, wrapRes);
                 if (content != null) {
                     // write to rfs
@@ -601,16 +617,20 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                         locRfsName = rule.getLocalizedRfsName(rfsName, "/");
                     }
                     writeResource(req, rule.getExportPath(), locRfsName, resource, content);
+                    recordDependencies(locCms, locRfsName, resource);
                 }
             }
         }
         if (!matched) {
             // no rule matched
             String exportPath = getExportPath(siteRoot + vfsName);
+            // record the resources used to render the content
+            exportCms.getRequestContext().setAttribute(CmsFlexController.ATTRIBUTE_RECORD_DEPENDENCIES, Boolean.TRUE);
             byte[] content = loader.export(exportCms, file, req, wrapRes);
             if (content != null) {
                 exported = true;
                 writeResource(req, exportPath, rfsName, resource, content);
+                recordDependencies(exportCms, rfsName, resource);
             }
         }
 
@@ -661,6 +681,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             OpenCms.fireCmsEvent(clearCacheEvent);
 
             scrubExportFolders(report);
+            m_exportDependencies.clear();
             // this will always use the root site
             CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
             cms.deleteAllStaticExportPublishedResources(EXPORT_LINK_WITHOUT_PARAMETER);
@@ -808,6 +829,40 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return EXPORT_DEFAULT_BACKUPS;
     }
 
+    /**
+     * Returns the number of threads used to export the resources after publishing.<p>
+     * 
+     * @return the number of threads used to export the resources after publishing
+     */
+    public int getExportThreads() {
+
+        if (m_staticExportThreads != null) {
+            return m_staticExportThreads.intValue();
+        }
+        // if threads not configured use the default value
+        return EXPORT_DEFAULT_THREADS;
+    }
+
+    /**
+     * Returns the configured number of export threads, or <code>null</code> if not configured.<p>
+     * 
+     * @return the configured number of export threads
+     */
+    public Integer getExportThreadsForConfiguration() {
+
+        return m_staticExportThreads;
+    }
+
+    /**
+     * Returns the index of the VFS resources the exported files depend on.<p>
+     * 
+     * @return the index of the VFS resources the exported files depend on
+     */
+    public CmsStaticExportDependencies getExportDependencies() {
+
+        return m_exportDependencies;
+    }
+
     /**
      * Returns the export data for the request, if null is returned no export is required.<p>
      * 
@@ -1591,6 +1646,11 @@ public class CmsStaticExportManager implements I_CmsEventListener {
 
         m_exportFolderMatcher = new CmsExportFolderMatcher(m_exportFolders, m_testResource);
 
+        // read the dependencies of the exported files
+        m_exportDependencies = new CmsStaticExportDependencies(
+            OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(EXPORT_DEPENDENCIES_FILE));
+        m_exportDependencies.load();
+
         // get the default accept-language header value
         m_defaultAcceptLanguageHeader = CmsAcceptLanguageHeaderParser.createLanguageHeader();
 
@@ -1920,6 +1980,20 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_staticExportBackups = new Integer(backup);
     }
 
+    /**
+     * Sets the number of threads used to export the resources after publishing.<p>
+     * 
+     * @param threads the number of threads, must be a positive integer
+     */
+    public void setExportThreads(String threads) {
+
+        int value = Integer.parseInt(threads.trim());
+        if (value < 1) {
+            value = 1;
+        }
+        m_staticExportThreads = new Integer(value);
+    }
+
     /**
      * Sets the export enabled value.<p>
      * 
@@ -2118,6 +2192,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             }
         }
 
+        // store the dependencies of the exported files for the next start
+        m_exportDependencies.save();
+
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_SHUTDOWN_1, this.getClass().getName()));
         }
@@ -2666,13 +2743,11 @@ public class CmsStaticExportManager implements I_CmsEventListener {
 
         // make sure all required parent folder exist
         createExportFolder(exportPath, rfsName);
-        // generate export file instance and output stream
-        File exportFile = new File(exportFileName);
-        // write new exported file content
+        // write the content to a temporary file which replaces the export file when complete,
+        // so that the web server never delivers a partially written file
+        File exportFile;
         try {
-            FileOutputStream exportStream = new FileOutputStream(exportFile);
-            exportStream.write(content);
-            exportStream.close();
+            exportFile = CmsVfsDiskCache.saveFile(exportFileName, content);
 
             // log export success 
             if (LOG.isInfoEnabled()) {
@@ -2757,4 +2832,19 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             return Collections.emptyMap();
         }
     }
+
+    /**
+     * Records the resources that were read to export a file in the dependency index.<p>
+     * 
+     * @param cms the cms context the file was exported with
+     * @param rfsName the RFS name of the exported file
+     * @param resource the exported resource
+     */
+    private void recordDependencies(CmsObject cms, String rfsName, CmsResource resource) {
+
+        Set<String> dependencies = CmsFlexController.getRecordedDependencies(cms);
+        if (dependencies != null) {
+            m_exportDependencies.addExport(rfsName, resource.getRootPath(), dependencies);
+        }
+    }
 }
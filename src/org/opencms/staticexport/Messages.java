@@ -154,6 +154,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_DEL_MAIN_SE_FOLDER_1 = "LOG_DEL_MAIN_SE_FOLDER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DEPENDENCIES_READ_FAILED_1 = "LOG_DEPENDENCIES_READ_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DEPENDENCIES_WRITE_FAILED_1 = "LOG_DEPENDENCIES_WRITE_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DEPENDENT_EXPORTS_1 = "LOG_DEPENDENT_EXPORTS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EVENT_PUBLISH_PROJECT_1 = "LOG_EVENT_PUBLISH_PROJECT_1";
 
@@ -0,0 +1,197 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.util;
+
+/**
+ * A single byte range of a HTTP <code>Range</code> request header.<p>
+ *
+ * Only single ranges are supported. Multiple ranges (which would require a <code>multipart/byteranges</code>
+ * response) and malformed headers are ignored, i.e. {@link #parse(String, long)} returns <code>null</code>
+ * and the complete content is delivered, as allowed by RFC 2616.<p>
+ *
+ * @since 8.5.0
+ */
+public final class CmsByteRange {
+
+    /** The prefix of a byte range header. */
+    private static final String BYTES_PREFIX = "bytes=";
+
+    /** The last byte position, inclusive. */
+    private final long m_end;
+
+    /** The total length of the content. */
+    private final long m_length;
+
+    /** The first byte position. */
+    private final long m_start;
+
+    /**
+     * Creates a new byte range.<p>
+     *
+     * @param start the first byte position
+     * @param end the last byte position, inclusive
+     * @param length the total length of the content
+     */
+    private CmsByteRange(long start, long end, long length) {
+
+        m_start = start;
+        m_end = end;
+        m_length = length;
+    }
+
+    /**
+     * Parses the value of a HTTP <code>Range</code> header for content of the given length.<p>
+     *
+     * The returned range may be unsatisfiable, see {@link #isSatisfiable()}.<p>
+     *
+     * @param header the header value, may be <code>null</code>
+     * @param length the total length of the content
+     *
+     * @return the requested range, or <code>null</code> if the complete content should be delivered
+     */
+    public static CmsByteRange parse(String header, long length) {
+
+        if ((header == null) || !header.startsWith(BYTES_PREFIX)) {
+            return null;
+        }
+        String spec = header.substring(BYTES_PREFIX.length()).trim();
+        int dash = spec.indexOf('-');
+        if ((dash < 0) || (spec.indexOf(',') >= 0)) {
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        try {
+            if (first.length() == 0) {
+                // suffix range "-n": the last n bytes
+                if (last.length() == 0) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix < 0) {
+                    return null;
+                }
+                if (suffix == 0) {
+                    return new CmsByteRange(length, length - 1, length);
+                }
+                return new CmsByteRange(Math.max(0, length - suffix), length - 1, length);
+            }
+            long start = Long.parseLong(first);
+            if (start < 0) {
+                return null;
+            }
+            if (last.length() == 0) {
+                // open range "a-": from the first byte position to the end
+                return new CmsByteRange(start, length - 1, length);
+            }
+            long end = Long.parseLong(last);
+            if (end < start) {
+                // syntactically invalid
+                return null;
+            }
+            return new CmsByteRange(start, Math.min(end, length - 1), length);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the value of the <code>Content-Range</code> response header for this range.<p>
+     *
+     * For an unsatisfiable range, this is the form <code>bytes *&#47;length</code> required for status 416.<p>
+     *
+     * @return the value of the <code>Content-Range</code> response header
+     */
+    public String getContentRange() {
+
+        if (!isSatisfiable()) {
+            return "bytes */" + m_length;
+        }
+        return "bytes " + m_start + "-" + m_end + "/" + m_length;
+    }
+
+    /**
+     * Returns the last byte position of this range, inclusive.<p>
+     *
+     * @return the last byte position of this range
+     */
+    public long getEnd() {
+
+        return m_end;
+    }
+
+    /**
+     * Returns the number of bytes in this range.<p>
+     *
+     * @return the number of bytes in this range
+     */
+    public long getLength() {
+
+        return isSatisfiable() ? (m_end - m_start) + 1 : 0;
+    }
+
+    /**
+     * Returns the first byte position of this range.<p>
+     *
+     * @return the first byte position of this range
+     */
+    public long getStart() {
+
+        return m_start;
+    }
+
+    /**
+     * Returns the total length of the content this range refers to.<p>
+     *
+     * @return the total length of the content
+     */
+    public long getTotalLength() {
+
+        return m_length;
+    }
+
+    /**
+     * Checks if this range contains at least one byte of the content.<p>
+     *
+     * @return <code>true</code> if this range contains at least one byte of the content
+     */
+    public boolean isSatisfiable() {
+
+        return (m_start < m_length) && (m_start <= m_end);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return getContentRange();
+    }
+}
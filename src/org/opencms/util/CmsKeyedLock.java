@@ -0,0 +1,207 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A reentrant lock per key, where the lock objects only exist while they are used.<p>
+ *
+ * Other than the {@link CmsStripedLock}, different keys never share a lock, so operations on different keys
+ * always run in parallel. A lock is created when a thread starts to lock its key, and it is removed again
+ * as soon as no thread holds or waits for it any more, so this can be used for an unbounded number of keys.<p>
+ *
+ * Usage:
+ * <pre>
+ * lock.lock(key);
+ * try {
+ *     ...
+ * } finally {
+ *     lock.unlock(key);
+ * }
+ * </pre><p>
+ *
+ * @param <K> the type of the keys
+ *
+ * @since 8.5.0
+ */
+public final class CmsKeyedLock<K> {
+
+    /**
+     * The lock of a key.<p>
+     */
+    private static final class KeyLock extends ReentrantLock {
+
+        /** The serial version id. */
+        private static final long serialVersionUID = -5366013867612003409L;
+
+        /** The number of lock calls for this lock which have not been unlocked yet, guarded by this object. */
+        int m_users;
+    }
+
+    /** The number of lock calls of the current thread which have not been unlocked yet. */
+    private final ThreadLocal<int[]> m_holdCount = new ThreadLocal<int[]>() {
+
+        @Override
+        protected int[] initialValue() {
+
+            return new int[1];
+        }
+    };
+
+    /** The locks currently in use. */
+    private final ConcurrentHashMap<K, KeyLock> m_locks = new ConcurrentHashMap<K, KeyLock>();
+
+    /**
+     * Returns the number of lock calls of the current thread which have not been unlocked yet, 
+     * for all keys.<p>
+     *
+     * @return the number of locks held by the current thread
+     */
+    public int getHoldCount() {
+
+        return m_holdCount.get()[0];
+    }
+
+    /**
+     * Checks if the lock for the given key is held by the current thread.<p>
+     *
+     * @param key the key, must not be <code>null</code>
+     *
+     * @return <code>true</code> if the lock for the given key is held by the current thread
+     */
+    public boolean isHeldByCurrentThread(K key) {
+
+        KeyLock lock = m_locks.get(key);
+        return (lock != null) && lock.isHeldByCurrentThread();
+    }
+
+    /**
+     * Acquires the lock for the given key, waiting until it is available.<p>
+     *
+     * @param key the key, must not be <code>null</code>
+     */
+    public void lock(K key) {
+
+        KeyLock lock = acquire(key);
+        lock.lock();
+        m_holdCount.get()[0]++;
+    }
+
+    /**
+     * Returns the number of keys for which a lock currently exists.<p>
+     *
+     * @return the number of keys for which a lock currently exists
+     */
+    public int size() {
+
+        return m_locks.size();
+    }
+
+    /**
+     * Acquires the lock for the given key only if it is not held by another thread.<p>
+     *
+     * @param key the key, must not be <code>null</code>
+     *
+     * @return <code>true</code> if the lock has been acquired
+     */
+    public boolean tryLock(K key) {
+
+        KeyLock lock = acquire(key);
+        if (lock.tryLock()) {
+            m_holdCount.get()[0]++;
+            return true;
+        }
+        release(key, lock);
+        return false;
+    }
+
+    /**
+     * Releases the lock for the given key.<p>
+     *
+     * @param key the key, must not be <code>null</code>
+     *
+     * @throws IllegalMonitorStateException if the current thread does not hold the lock for the key
+     */
+    public void unlock(K key) throws IllegalMonitorStateException {
+
+        KeyLock lock = m_locks.get(key);
+        if ((lock == null) || !lock.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException(String.valueOf(key));
+        }
+        lock.unlock();
+        m_holdCount.get()[0]--;
+        release(key, lock);
+    }
+
+    /**
+     * Returns the lock for the given key and registers the current thread as user of the lock.<p>
+     *
+     * @param key the key
+     *
+     * @return the lock for the key
+     */
+    private KeyLock acquire(K key) {
+
+        while (true) {
+            KeyLock lock = m_locks.get(key);
+            if (lock == null) {
+                KeyLock created = new KeyLock();
+                created.m_users = 1;
+                lock = m_locks.putIfAbsent(key, created);
+                if (lock == null) {
+                    return created;
+                }
+            }
+            synchronized (lock) {
+                if (lock.m_users > 0) {
+                    lock.m_users++;
+                    return lock;
+                }
+            }
+            // the lock has been removed after its last user released it, try again
+        }
+    }
+
+    /**
+     * Unregisters the current thread as user of the given lock, and removes the lock if it is not used any more.<p>
+     *
+     * @param key the key
+     * @param lock the lock for the key
+     */
+    private void release(K key, KeyLock lock) {
+
+        synchronized (lock) {
+            lock.m_users--;
+            if (lock.m_users == 0) {
+                m_locks.remove(key, lock);
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.util;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of reentrant locks, where each key is mapped to one of the locks by its hash code.<p>
+ *
+ * This allows to serialize operations on the same key (e.g. the same folder) while operations
+ * on different keys usually run in parallel, without having to keep a lock object for every key.
+ * Different keys may share a lock, so the locks only guarantee mutual exclusion, never parallelism.<p>
+ *
+ * If several keys are locked at once, their locks are always acquired in ascending order, so that
+ * two threads locking overlapping key sets can not deadlock. If a thread that already holds locks
+ * of this set requests more locks of the set (for example by a nested call), it waits for all locks
+ * with a higher index than the highest lock it already holds, since this keeps the global order.
+ * A lock with a lower index than the highest held lock is only acquired if it is available immediately,
+ * otherwise it is skipped, because waiting for it could deadlock. A nested call therefore does not guarantee
+ * exclusive access for its keys, callers that need it must release their locks before the nested call
+ * and acquire them again afterwards.<p>
+ *
+ * Usage:
+ * <pre>
+ * int[] stripes = lock.lock(key1, key2);
+ * try {
+ *     ...
+ * } finally {
+ *     lock.unlock(stripes);
+ * }
+ * </pre><p>
+ *
+ * @since 8.5.0
+ */
+public final class CmsStripedLock {
+
+    /** Empty stripe array. */
+    private static final int[] NO_STRIPES = new int[0];
+
+    /** The number of lock calls of the current thread which have not been unlocked yet. */
+    private final ThreadLocal<int[]> m_holdCount = new ThreadLocal<int[]>() {
+
+        @Override
+        protected int[] initialValue() {
+
+            return new int[1];
+        }
+    };
+
+    /** The locks. */
+    private final ReentrantLock[] m_locks;
+
+    /** The mask to map a hash code to a lock index. */
+    private final int m_mask;
+
+    /**
+     * Creates a new striped lock.<p>
+     *
+     * @param stripes the minimum number of locks, will be rounded up to the next power of two
+     */
+    public CmsStripedLock(int stripes) {
+
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes: " + stripes);
+        }
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        m_locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            m_locks[i] = new ReentrantLock();
+        }
+        m_mask = size - 1;
+    }
+
+    /**
+     * Returns the index of the lock the given key is mapped to.<p>
+     *
+     * @param key the key, must not be <code>null</code>
+     *
+     * @return the index of the lock the given key is mapped to
+     */
+    public int getStripe(Object key) {
+
+        // spread the hash code, since the low bits of many hash codes are not well distributed
+        int h = key.hashCode();
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return h & m_mask;
+    }
+
+    /**
+     * Returns the number of locks.<p>
+     *
+     * @return the number of locks
+     */
+    public int getStripeCount() {
+
+        return m_locks.length;
+    }
+
+    /**
+     * Checks if the lock for the given key is held by the current thread.<p>
+     *
+     * @param key the key to check
+     *
+     * @return <code>true</code> if the lock for the given key is held by the current thread
+     */
+    public boolean isHeldByCurrentThread(Object key) {
+
+        return m_locks[getStripe(key)].isHeldByCurrentThread();
+    }
+
+    /**
+     * Acquires the locks for the given keys, <code>null</code> keys are ignored.<p>
+     *
+     * The returned stripes must be passed to {@link #unlock(int[])} in a <code>finally</code> block.<p>
+     *
+     * @param keys the keys to lock
+     *
+     * @return the indexes of the acquired locks
+     */
+    public int[] lock(Object... keys) {
+
+        int[] stripes = getStripes(keys);
+        int[] holdCount = m_holdCount.get();
+        if (holdCount[0] == 0) {
+            for (int i = 0; i < stripes.length; i++) {
+                m_locks[stripes[i]].lock();
+            }
+        } else {
+            // nested call, waiting is only deadlock free for locks above the highest lock held by this thread
+            int highestHeld = -1;
+            for (int i = m_locks.length - 1; i >= 0; i--) {
+                if (m_locks[i].isHeldByCurrentThread()) {
+                    highestHeld = i;
+                    break;
+                }
+            }
+            int acquired = 0;
+            for (int i = 0; i < stripes.length; i++) {
+                ReentrantLock stripeLock = m_locks[stripes[i]];
+                if ((stripes[i] > highestHeld) || stripeLock.isHeldByCurrentThread()) {
+                    stripeLock.lock();
+                    stripes[acquired++] = stripes[i];
+                } else if (stripeLock.tryLock()) {
+                    stripes[acquired++] = stripes[i];
+                }
+            }
+            if (acquired < stripes.length) {
+                int[] result = new int[acquired];
+                System.arraycopy(stripes, 0, result, 0, acquired);
+                stripes = result;
+            }
+        }
+        holdCount[0]++;
+        return stripes;
+    }
+
+    /**
+     * Releases the locks acquired by {@link #lock(Object...)}.<p>
+     *
+     * @param stripes the lock indexes as returned by {@link #lock(Object...)}
+     */
+    public void unlock(int[] stripes) {
+
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            m_locks[stripes[i]].unlock();
+        }
+        m_holdCount.get()[0]--;
+    }
+
+    /**
+     * Returns the sorted, distinct lock indexes for the given keys.<p>
+     *
+     * @param keys the keys
+     *
+     * @return the sorted, distinct lock indexes
+     */
+    private int[] getStripes(Object[] keys) {
+
+        if ((keys == null) || (keys.length == 0)) {
+            return NO_STRIPES;
+        }
+        int[] stripes = new int[keys.length];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                stripes[count++] = getStripe(keys[i]);
+            }
+        }
+        Arrays.sort(stripes, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if ((distinct == 0) || (stripes[distinct - 1] != stripes[i])) {
+                stripes[distinct++] = stripes[i];
+            }
+        }
+        if (distinct == stripes.length) {
+            return stripes;
+        }
+        int[] result = new int[distinct];
+        System.arraycopy(stripes, 0, result, 0, distinct);
+        return result;
+    }
+}
@@ -36,6 +36,7 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.Serializable;
+import java.util.Arrays;
 
 import org.apache.commons.logging.Log;
 
@@ -57,7 +58,9 @@ import org.safehaus.uuid.UUIDGenerator;
  * (without using JNI), the MAC address has to be provided first 
  * by using the static {@link #init(String)} method.<p>
  * 
- * This class is just a facade wrapper for the "real" UUID implementation.<p> 
+ * The UUID is stored as two <code>long</code> values, parsing and formatting the 
+ * String representation is done without intermediate objects. The "real" UUID implementation 
+ * is only used for generating new UUIDs.<p> 
  * 
  * @since 6.0.0 
  */
@@ -78,13 +81,42 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
         "www.opencms.org");
 
     /** Constant for the null UUID. */
-    private static final CmsUUID NULL_UUID = new CmsUUID(UUID.getNullUUID());
+    private static final CmsUUID NULL_UUID = new CmsUUID(0L, 0L);
+
+    /** The hex digits used for formatting. */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** The hex values of the characters, -1 for non hex characters. */
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    /** The length of the String representation of a UUID. */
+    private static final int LENGTH = 36;
 
     /** Serial version UID required for safe serialization. */
     private static final long serialVersionUID = 1736324454709298676L;
 
-    /** Internal UUID implementation. */
-    private transient UUID m_uuid;
+    /** The cached hash code. */
+    private transient int m_hashCode;
+
+    /** The least significant 64 bits of the UUID. */
+    private transient long m_leastSigBits;
+
+    /** The most significant 64 bits of the UUID. */
+    private transient long m_mostSigBits;
+
+    /** The cached String representation. */
+    private transient String m_string;
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte)-1);
+        for (int i = 0; i < 10; i++) {
+            HEX_VALUES['0' + i] = (byte)i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte)(10 + i);
+            HEX_VALUES['A' + i] = (byte)(10 + i);
+        }
+    }
 
     /**
      * Creates a new UUID.<p>
@@ -100,7 +132,7 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
             // since the empty constructor is called when the de-serialization takes place
             init(getDummyEthernetAddress());
         }
-        m_uuid = UUIDGenerator.getInstance().generateTimeBasedUUID(m_ethernetAddress);
+        setBytes(UUIDGenerator.getInstance().generateTimeBasedUUID(m_ethernetAddress).asByteArray());
     }
 
     /**
@@ -110,7 +142,18 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
      */
     public CmsUUID(byte[] data) {
 
-        m_uuid = new UUID(data);
+        setBytes(data);
+    }
+
+    /**
+     * Create a UUID based on its most and least significant 64 bits.<p>
+     * 
+     * @param mostSigBits the most significant 64 bits of the UUID
+     * @param leastSigBits the least significant 64 bits of the UUID
+     */
+    public CmsUUID(long mostSigBits, long leastSigBits) {
+
+        setBits(mostSigBits, leastSigBits);
     }
 
     /**
@@ -122,17 +165,17 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
     public CmsUUID(String uuid)
     throws NumberFormatException {
 
-        m_uuid = new UUID(uuid);
+        parse(uuid);
     }
 
     /**
-     * Create a new UUID based on another one (used internal for cloning).<p>
+     * Create a new UUID based on a UUID of the "real" implementation.<p>
      * 
-     * @param uuid the UUID to clone
+     * @param uuid the UUID to copy
      */
     private CmsUUID(UUID uuid) {
 
-        m_uuid = uuid;
+        setBytes(uuid.asByteArray());
     }
 
     /**
@@ -226,12 +269,20 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
      */
     public static boolean isValidUUID(String uuid) {
 
-        try {
-            return (null != uuid) && (null != UUID.valueOf(uuid));
-        } catch (NumberFormatException e) {
-            // return false
+        if ((uuid == null) || (uuid.length() != LENGTH)) {
+            return false;
         }
-        return false;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = uuid.charAt(i);
+            if ((i == 8) || (i == 13) || (i == 18) || (i == 23)) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if ((c >= HEX_VALUES.length) || (HEX_VALUES[c] < 0)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -245,7 +296,32 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
      */
     public static CmsUUID valueOf(String uuid) throws NumberFormatException {
 
-        return new CmsUUID(UUID.valueOf(uuid));
+        return new CmsUUID(uuid);
+    }
+
+    /**
+     * Parses a group of hex digits of a UUID String.<p>
+     * 
+     * @param uuid the UUID String
+     * @param start the index of the first hex digit
+     * @param end the index after the last hex digit
+     * 
+     * @return the value of the hex digits
+     * 
+     * @throws NumberFormatException if a character is not a hex digit
+     */
+    private static long parseHex(String uuid, int start, int end) throws NumberFormatException {
+
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            char c = uuid.charAt(i);
+            int value = c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
+            if (value < 0) {
+                throw new NumberFormatException("Non-hex character '" + c + "'");
+            }
+            result = (result << 4) | value;
+        }
+        return result;
     }
 
     /**
@@ -259,7 +335,7 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
         if (this == NULL_UUID) {
             return NULL_UUID;
         }
-        return new CmsUUID((UUID)m_uuid.clone());
+        return new CmsUUID(m_mostSigBits, m_leastSigBits);
     }
 
     /**
@@ -267,7 +343,20 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
      */
     public int compareTo(CmsUUID obj) {
 
-        return m_uuid.compareTo(obj.m_uuid);
+        // same order as the "real" implementation: by version first, time based UUIDs by their time stamp
+        int version = getVersion();
+        int result = compare(version, obj.getVersion());
+        if (result == 0) {
+            if (version == 1) {
+                result = compareUnsigned(getTimestamp(m_mostSigBits), getTimestamp(obj.m_mostSigBits));
+            } else {
+                result = compareUnsigned(m_mostSigBits, obj.m_mostSigBits);
+            }
+        }
+        if (result == 0) {
+            result = compareUnsigned(m_leastSigBits, obj.m_leastSigBits);
+        }
+        return result;
     }
 
     /**
@@ -280,11 +369,32 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
             return true;
         }
         if (obj instanceof CmsUUID) {
-            return ((CmsUUID)obj).m_uuid.equals(m_uuid);
+            CmsUUID other = (CmsUUID)obj;
+            return (other.m_mostSigBits == m_mostSigBits) && (other.m_leastSigBits == m_leastSigBits);
         }
         return false;
     }
 
+    /**
+     * Returns the least significant 64 bits of this UUID.<p>
+     * 
+     * @return the least significant 64 bits of this UUID
+     */
+    public long getLeastSignificantBits() {
+
+        return m_leastSigBits;
+    }
+
+    /**
+     * Returns the most significant 64 bits of this UUID.<p>
+     * 
+     * @return the most significant 64 bits of this UUID
+     */
+    public long getMostSignificantBits() {
+
+        return m_mostSigBits;
+    }
+
     /**
      * Returns the String representation of this UUID, same as {@link #toString()}.<p>
      * 
@@ -305,7 +415,7 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
     @Override
     public int hashCode() {
 
-        return m_uuid.hashCode();
+        return m_hashCode;
     }
 
     /**
@@ -318,7 +428,7 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
         if (this == NULL_UUID) {
             return true;
         }
-        return m_uuid.equals(UUID.getNullUUID());
+        return (m_mostSigBits == 0L) && (m_leastSigBits == 0L);
     }
 
     /**
@@ -348,11 +458,15 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_READ_UUID_1, o));
             }
-            m_uuid = new UUID((String)o);
+            try {
+                parse((String)o);
+            } catch (NumberFormatException e) {
+                o = null;
+            }
         }
 
         // log an error if the uuid could not be deserialized
-        if (m_uuid == null) {
+        if (!(o instanceof String)) {
             // UUID cannot be deserialized
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_READ_UUID_0));
@@ -367,7 +481,12 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
      */
     public byte[] toByteArray() {
 
-        return m_uuid.toByteArray();
+        byte[] result = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            result[i] = (byte)(m_mostSigBits >>> (56 - (i * 8)));
+            result[i + 8] = (byte)(m_leastSigBits >>> (56 - (i * 8)));
+        }
+        return result;
     }
 
     /**
@@ -376,7 +495,22 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
     @Override
     public String toString() {
 
-        return m_uuid.toString();
+        String result = m_string;
+        if (result == null) {
+            char[] chars = new char[LENGTH];
+            formatHex(chars, 0, m_mostSigBits >>> 32, 8);
+            chars[8] = '-';
+            formatHex(chars, 9, m_mostSigBits >>> 16, 4);
+            chars[13] = '-';
+            formatHex(chars, 14, m_mostSigBits, 4);
+            chars[18] = '-';
+            formatHex(chars, 19, m_leastSigBits >>> 48, 4);
+            chars[23] = '-';
+            formatHex(chars, 24, m_leastSigBits, 12);
+            result = new String(chars);
+            m_string = result;
+        }
+        return result;
     }
 
     /**
@@ -390,4 +524,126 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
         }
         out.writeObject(toString());
     }
+
+    /**
+     * Compares two int values.<p>
+     * 
+     * @param a the first value
+     * @param b the second value
+     * 
+     * @return -1, 0 or 1 if the first value is less than, equal to or greater than the second value
+     */
+    private int compare(int a, int b) {
+
+        return a < b ? -1 : (a == b ? 0 : 1);
+    }
+
+    /**
+     * Compares two long values as unsigned numbers.<p>
+     * 
+     * @param a the first value
+     * @param b the second value
+     * 
+     * @return -1, 0 or 1 if the first value is less than, equal to or greater than the second value
+     */
+    private int compareUnsigned(long a, long b) {
+
+        a += Long.MIN_VALUE;
+        b += Long.MIN_VALUE;
+        return a < b ? -1 : (a == b ? 0 : 1);
+    }
+
+    /**
+     * Writes the given number of hex digits of a value to a char array.<p>
+     * 
+     * @param chars the char array
+     * @param start the index of the first hex digit
+     * @param value the value, only the lowest <code>digits * 4</code> bits are written
+     * @param digits the number of hex digits
+     */
+    private void formatHex(char[] chars, int start, long value, int digits) {
+
+        for (int i = start + digits - 1; i >= start; i--) {
+            chars[i] = HEX_DIGITS[(int)(value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    /**
+     * Returns the most significant bits of a time based UUID with the time fields in the order 
+     * high, mid, low, so that they can be compared by time stamp.<p>
+     * 
+     * @param mostSigBits the most significant 64 bits of the UUID
+     * 
+     * @return the time fields in the order high, mid, low
+     */
+    private long getTimestamp(long mostSigBits) {
+
+        return (mostSigBits << 48) | ((mostSigBits & 0xFFFF0000L) << 16) | (mostSigBits >>> 32);
+    }
+
+    /**
+     * Returns the version of this UUID.<p>
+     * 
+     * @return the version of this UUID
+     */
+    private int getVersion() {
+
+        return (int)((m_mostSigBits >>> 12) & 0xF);
+    }
+
+    /**
+     * Parses the standard 36 character String representation of a UUID.<p>
+     * 
+     * @param uuid the String to parse
+     * 
+     * @throws NumberFormatException if the String is not a valid UUID
+     */
+    private void parse(String uuid) throws NumberFormatException {
+
+        if ((uuid.length() != LENGTH)
+            || (uuid.charAt(8) != '-')
+            || (uuid.charAt(13) != '-')
+            || (uuid.charAt(18) != '-')
+            || (uuid.charAt(23) != '-')) {
+            throw new NumberFormatException("UUID has to be represented by the standard 36-char representation");
+        }
+        long mostSigBits = (parseHex(uuid, 0, 8) << 32) | (parseHex(uuid, 9, 13) << 16) | parseHex(uuid, 14, 18);
+        long leastSigBits = (parseHex(uuid, 19, 23) << 48) | parseHex(uuid, 24, LENGTH);
+        setBits(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Sets the value of this UUID.<p>
+     * 
+     * @param mostSigBits the most significant 64 bits of the UUID
+     * @param leastSigBits the least significant 64 bits of the UUID
+     */
+    private void setBits(long mostSigBits, long leastSigBits) {
+
+        m_mostSigBits = mostSigBits;
+        m_leastSigBits = leastSigBits;
+        long hash = mostSigBits ^ leastSigBits;
+        m_hashCode = (int)(hash >> 32) ^ (int)hash;
+        m_string = null;
+    }
+
+    /**
+     * Sets the value of this UUID from a binary data array.<p>
+     * 
+     * @param data a binary data array representing a UUID
+     */
+    private void setBytes(byte[] data) {
+
+        if (data.length != 16) {
+            throw new NumberFormatException("UUID has to be represented by a 16 byte array");
+        }
+        long mostSigBits = 0;
+        long leastSigBits = 0;
+        for (int i = 0; i < 8; i++) {
+            mostSigBits = (mostSigBits << 8) | (data[i] & 0xFF);
+            leastSigBits = (leastSigBits << 8) | (data[i + 8] & 0xFF);
+        }
+        setBits(mostSigBits, leastSigBits);
+    }
 }
\ No newline at end of file
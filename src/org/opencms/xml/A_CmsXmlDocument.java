@@ -32,6 +32,7 @@ import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.main.CmsIllegalArgumentException;
+import org.opencms.main.CmsIllegalStateException;
 import org.opencms.main.CmsRuntimeException;
 import org.opencms.main.OpenCms;
 import org.opencms.xml.types.I_CmsXmlContentValue;
@@ -86,6 +87,9 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
     /** Reference for named elements in the document. */
     private Map<String, I_CmsXmlContentValue> m_bookmarks;
 
+    /** Indicates if this document is read only. */
+    private volatile boolean m_readOnly;
+
     /**
      * Default constructor for a XML document
      * that initializes some internal values.<p> 
@@ -147,6 +151,7 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     public void copyLocale(Locale source, Locale destination) throws CmsXmlException {
 
+        checkWritable();
         if (!hasLocale(source)) {
             throw new CmsXmlException(Messages.get().container(Messages.ERR_LOCALE_NOT_AVAILABLE_1, source));
         }
@@ -194,6 +199,7 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     public CmsFile correctXmlStructure(CmsObject cms) throws CmsXmlException {
 
+        checkWritable();
         // apply XSD schema translation
         Attribute schema = m_document.getRootElement().attribute(
             I_CmsXmlSchemaType.XSI_NAMESPACE_ATTRIBUTE_NO_SCHEMA_LOCATION);
@@ -353,10 +359,18 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
     }
 
     /**
+     * Returns the file this document was generated from, may be <code>null</code> if the file not available.<p>
+     * 
+     * If this document is read only, a copy of the file is returned, 
+     * so that changing its contents does not affect other threads.<p>
+     * 
      * @see org.opencms.xml.I_CmsXmlDocument#getFile()
      */
     public CmsFile getFile() {
 
+        if (m_readOnly && (m_file != null)) {
+            return (CmsFile)m_file.clone();
+        }
         return m_file;
     }
 
@@ -568,6 +582,7 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     public void initDocument() {
 
+        checkWritable();
         initDocument(m_document, m_encoding, getContentDefinition());
     }
 
@@ -587,6 +602,14 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
         return hasValue(path, locale, index);
     }
 
+    /**
+     * @see org.opencms.xml.I_CmsXmlDocument#isReadOnly()
+     */
+    public boolean isReadOnly() {
+
+        return m_readOnly;
+    }
+
     /**
      * Marshals (writes) the content of the current XML document 
      * into a byte array using the selected encoding.<p>
@@ -613,6 +636,7 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     public void removeLocale(Locale locale) throws CmsXmlException {
 
+        checkWritable();
         if (!hasLocale(locale)) {
             throw new CmsXmlException(Messages.get().container(Messages.ERR_LOCALE_NOT_AVAILABLE_1, locale));
         }
@@ -642,9 +666,23 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     public void setConversion(String conversion) {
 
+        checkWritable();
         m_conversion = conversion;
     }
 
+    /**
+     * Marks this XML document as read only.<p>
+     * 
+     * This can not be undone, use this only for documents that are shared 
+     * between several threads.<p>
+     * 
+     * @see #isReadOnly()
+     */
+    public void setReadOnly() {
+
+        m_readOnly = true;
+    }
+
     /**
      * @see java.lang.Object#toString()
      */
@@ -727,12 +765,25 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
         m_locales.add(locale);
     }
 
+    /**
+     * Checks that this XML document is not read only.<p>
+     * 
+     * @throws CmsIllegalStateException if this XML document is read only 
+     */
+    protected void checkWritable() throws CmsIllegalStateException {
+
+        if (m_readOnly) {
+            throw new CmsIllegalStateException(Messages.get().container(Messages.ERR_XML_DOCUMENT_READ_ONLY_0));
+        }
+    }
+
     /**
      * Clears the XML document bookmarks.<p>
      */
     protected void clearBookmarks() {
 
-        m_bookmarks.clear();
+        // use a new map, since clearing a map does not shrink it
+        m_bookmarks = new HashMap<String, I_CmsXmlContentValue>();
     }
 
     /**
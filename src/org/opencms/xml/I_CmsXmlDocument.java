@@ -120,6 +120,8 @@ public interface I_CmsXmlDocument {
      * 
      * The file may not be available if the document was generated from a String or a pure XML document.<p>
      * 
+     * If this document is read only, a copy of the file is returned.<p>
+     * 
      * @return the file this document was generated from
      */
     CmsFile getFile();
@@ -363,6 +365,17 @@ public interface I_CmsXmlDocument {
      */
     boolean isEnabled(String path, Locale locale, int index);
 
+    /**
+     * Returns <code>true</code> if this XML document is read only.<p>
+     * 
+     * A read only XML document may be shared between several threads, 
+     * for example if it was read from a cache. Attempts to change the locales or values 
+     * of a read only document will cause a {@link org.opencms.main.CmsIllegalStateException}.<p>
+     * 
+     * @return <code>true</code> if this XML document is read only
+     */
+    boolean isReadOnly();
+
     /**
      * Moves the content of the given source locale to the given destination locale in this XML document.<p>
      * 
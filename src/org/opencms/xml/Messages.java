@@ -136,6 +136,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_WRITE_XML_DOC_TO_STRING_0 = "ERR_WRITE_XML_DOC_TO_STRING_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_XML_DOCUMENT_READ_ONLY_0 = "ERR_XML_DOCUMENT_READ_ONLY_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_XML_VALIDATION_1 = "ERR_XML_VALIDATION_1";
 
@@ -27,15 +27,20 @@
 
 package org.opencms.xml.containerpage;
 
+import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.CmsVfsCache;
+import org.opencms.cache.I_CmsLruCacheObject;
+import org.opencms.file.CmsFile;
 import org.opencms.file.CmsResource;
 import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.main.CmsLog;
 import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsUUID;
+import org.opencms.xml.content.CmsXmlContent;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.commons.logging.Log;
@@ -47,6 +52,117 @@ import org.apache.commons.logging.Log;
  */
 public final class CmsADECache extends CmsVfsCache {
 
+    /**
+     * A cached online XML content, the cache costs are estimated from the size of the file content.<p>
+     */
+    private final class XmlContentEntry implements I_CmsLruCacheObject {
+
+        /** The XML content. */
+        private final CmsXmlContent m_content;
+
+        /** The cache costs. */
+        private final int m_costs;
+
+        /** The cache key. */
+        private final String m_key;
+
+        /** The next object in the LRU list. */
+        private I_CmsLruCacheObject m_next;
+
+        /** The previous object in the LRU list. */
+        private I_CmsLruCacheObject m_previous;
+
+        /**
+         * Creates a new cache entry.<p>
+         * 
+         * @param key the cache key
+         * @param content the XML content
+         * @param fileLength the length of the file the XML content was unmarshalled from
+         */
+        XmlContentEntry(String key, CmsXmlContent content, int fileLength) {
+
+            m_key = key;
+            m_content = content;
+            int factor = content.isCompact() ? XML_CONTENT_COSTS_FACTOR_COMPACT : XML_CONTENT_COSTS_FACTOR;
+            m_costs = factor * fileLength;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+         */
+        public void addToLruCache() {
+
+            // noop
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+         */
+        public int getLruCacheCosts() {
+
+            return m_costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+         */
+        public I_CmsLruCacheObject getNextLruObject() {
+
+            return m_next;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+         */
+        public I_CmsLruCacheObject getPreviousLruObject() {
+
+            return m_previous;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+         */
+        public Object getValue() {
+
+            return m_content;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+         */
+        public void removeFromLruCache() {
+
+            synchronized (m_xmlContentsOnline) {
+                // the entry may already have been replaced by a newer one for the same key
+                if (m_xmlContentsOnline.get(m_key) == this) {
+                    m_xmlContentsOnline.remove(m_key);
+                }
+            }
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+            m_next = theNextObject;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+            m_previous = thePreviousObject;
+        }
+    }
+
+    /** Factor to estimate the memory used by an unmarshalled XML content from the size of its file content. */
+    private static final int XML_CONTENT_COSTS_FACTOR = 10;
+
+    /** Factor to estimate the memory used by a compact XML content from the size of its file content. */
+    private static final int XML_CONTENT_COSTS_FACTOR_COMPACT = 4;
+
     /** The log to use (static for performance reasons).<p> */
     private static final Log LOG = CmsLog.getLog(CmsADECache.class);
 
@@ -62,6 +178,15 @@ public final class CmsADECache extends CmsVfsCache {
     /** Cache for online group containers. */
     private Map<String, CmsXmlGroupContainer> m_groupContainersOnline;
 
+    /** The LRU policy for the online XML contents, bounded by the estimated memory costs. */
+    private CmsLruCache m_xmlContentLruOnline;
+
+    /** Indicates if the online XML contents are cached in the compact representation. */
+    private boolean m_xmlContentsCompact;
+
+    /** Cache for online XML contents. */
+    private Map<String, XmlContentEntry> m_xmlContentsOnline;
+
     /**
      * Initializes the cache. Only intended to be called during startup.<p>
      * 
@@ -104,6 +229,15 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Flushes the online XML contents cache.<p>
+     */
+    public void flushXmlContents() {
+
+        m_xmlContentLruOnline.clear();
+        m_xmlContentsOnline.clear();
+    }
+
     /**
      * Returns the cached container page under the given key and for the given project.<p>
      * 
@@ -206,6 +340,50 @@ public final class CmsADECache extends CmsVfsCache {
         return structureId.toString() + "_" + keepEncoding;
     }
 
+    /**
+     * Returns the cached online XML content under the given key.<p>
+     * 
+     * The returned XML content is read only and shared with other threads.<p>
+     * 
+     * @param key the cache key
+     * 
+     * @return the cached XML content or <code>null</code> if not found
+     * 
+     * @see #getXmlContentCacheKey(CmsResource)
+     */
+    public CmsXmlContent getCacheXmlContent(String key) {
+
+        XmlContentEntry entry = m_xmlContentsOnline.get(key);
+        if (entry == null) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_DEBUG_CACHE_MISSED_ONLINE_1, new Object[] {key}));
+            }
+            return null;
+        }
+        m_xmlContentLruOnline.touch(entry);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_DEBUG_CACHE_MATCHED_ONLINE_2,
+                new Object[] {key, entry.m_content.getFile().getRootPath()}));
+        }
+        return entry.m_content;
+    }
+
+    /**
+     * Returns the key for caching the given XML content resource in the online project.<p>
+     * 
+     * As the key contains the date of last modification, a cached XML content 
+     * never outlives a change of the underlying file.<p>
+     * 
+     * @param resource the XML content resource
+     * 
+     * @return the cache key
+     */
+    public String getXmlContentCacheKey(CmsResource resource) {
+
+        return resource.getStructureId().toString() + "_" + resource.getDateLastModified();
+    }
+
     /**
      * Caches the given container page under the given key and for the given project.<p>
      * 
@@ -260,6 +438,46 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Caches the given online XML content under the given key.<p>
+     * 
+     * The XML content is marked read only, since it will be shared with other threads.
+     * If configured, the XML content is also compacted, see {@link CmsXmlContent#compact()}.<p>
+     * 
+     * @param key the cache key
+     * @param content the XML content to cache
+     * 
+     * @see #getXmlContentCacheKey(CmsResource)
+     */
+    public void setCacheXmlContent(String key, CmsXmlContent content) {
+
+        CmsFile file = content.getFile();
+        if (file == null) {
+            // the costs can not be estimated without the file
+            return;
+        }
+        if (m_xmlContentsCompact) {
+            content.compact();
+        } else {
+            content.setReadOnly();
+        }
+        XmlContentEntry entry = new XmlContentEntry(key, content, file.getLength());
+        XmlContentEntry oldEntry = m_xmlContentsOnline.put(key, entry);
+        if (oldEntry != null) {
+            m_xmlContentLruOnline.remove(oldEntry);
+        }
+        if (!m_xmlContentLruOnline.add(entry)) {
+            // the XML content is too large to be cached
+            entry.removeFromLruCache();
+            return;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_DEBUG_CACHE_SET_ONLINE_2,
+                new Object[] {key, file.getRootPath()}));
+        }
+    }
+
     /**
      * Removes the container page identified by its structure id from the cache.<p>
      * 
@@ -302,6 +520,10 @@ public final class CmsADECache extends CmsVfsCache {
 
         flushContainerPages(online);
         flushGroupContainers(online);
+        if (online) {
+            // a publish may also have changed the schemas the cached XML contents depend on
+            flushXmlContents();
+        }
     }
 
     /**
@@ -348,5 +570,12 @@ public final class CmsADECache extends CmsVfsCache {
         lruMapGroupContainer = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getGroupContainerOnlineSize());
         m_groupContainersOnline = Collections.synchronizedMap(lruMapGroupContainer);
         memMonitor.register(CmsADECache.class.getName() + ".groupContainersOnline", lruMapGroupContainer);
+
+        // online XML content cache
+        long xmlContentSize = cacheSettings.getXmlContentOnlineSize();
+        m_xmlContentLruOnline = new CmsLruCache(xmlContentSize, (xmlContentSize * 3) / 4, (int)(xmlContentSize / 10));
+        m_xmlContentsOnline = Collections.synchronizedMap(new HashMap<String, XmlContentEntry>());
+        m_xmlContentsCompact = cacheSettings.isXmlContentCompact();
+        memMonitor.register(CmsADECache.class.getName() + ".xmlContentsOnline", m_xmlContentLruOnline);
     }
 }
@@ -52,6 +52,15 @@ public class CmsADECacheSettings {
     /** The size of the group container online cache. */
     private int m_groupContainerOnlineSize;
 
+    /** Default size for the online XML content cache, in bytes. */
+    private static final int DEFAULT_XML_CONTENT_SIZE = 16 * 1024 * 1024;
+
+    /** The size of the online XML content cache, in bytes. */
+    private int m_xmlContentOnlineSize;
+
+    /** Indicates if the online XML content cache uses the compact value representation. */
+    private boolean m_xmlContentCompact;
+
     /**
      * Default constructor.<p>
      */
@@ -152,6 +161,53 @@ public class CmsADECacheSettings {
         m_groupContainerOnlineSize = getIntValue(size, DEFAULT_GROUP_CONTAINER_SIZE);
     }
 
+    /**
+     * Returns the size of the online XML content cache in bytes.<p>
+     * 
+     * The memory used by an XML content is estimated from the size of its file content.<p>
+     * 
+     * @return the size of the online XML content cache in bytes
+     */
+    public int getXmlContentOnlineSize() {
+
+        if (m_xmlContentOnlineSize <= 0) {
+            return DEFAULT_XML_CONTENT_SIZE;
+        }
+        return m_xmlContentOnlineSize;
+    }
+
+    /**
+     * Returns <code>true</code> if the online XML content cache uses the compact value representation.<p>
+     * 
+     * @return <code>true</code> if the online XML content cache uses the compact value representation
+     * 
+     * @see org.opencms.xml.content.CmsXmlContent#compact()
+     */
+    public boolean isXmlContentCompact() {
+
+        return m_xmlContentCompact;
+    }
+
+    /**
+     * Sets if the online XML content cache uses the compact value representation.<p>
+     * 
+     * @param compact <code>"true"</code> if the online XML content cache uses the compact value representation
+     */
+    public void setXmlContentCompact(String compact) {
+
+        m_xmlContentCompact = Boolean.valueOf(compact).booleanValue();
+    }
+
+    /**
+     * Sets the size of the cache for online XML contents in bytes.<p>
+     *
+     * @param size the size of the cache for online XML contents in bytes
+     */
+    public void setXmlContentOnlineSize(String size) {
+
+        m_xmlContentOnlineSize = getIntValue(size, DEFAULT_XML_CONTENT_SIZE);
+    }
+
     /**
      * Turns a string into an int.<p>
      * 
@@ -106,6 +106,9 @@ public class CmsXmlContent extends A_CmsXmlDocument {
     /** The XML content definition object (i.e. XML schema) used by this content. */
     protected CmsXmlContentDefinition m_contentDefinition;
 
+    /** The compact value table, replaces the bookmarks if this XML content has been compacted. */
+    private CmsXmlContentValueTable m_valueTable;
+
     /**
      * Hides the public constructor.<p>
      */
@@ -200,6 +203,7 @@ public class CmsXmlContent extends A_CmsXmlDocument {
      */
     public void addLocale(CmsObject cms, Locale locale) throws CmsXmlException {
 
+        checkWritable();
         if (hasLocale(locale)) {
             throw new CmsXmlException(org.opencms.xml.page.Messages.get().container(
                 org.opencms.xml.page.Messages.ERR_XML_PAGE_LOCALE_EXISTS_1,
@@ -229,6 +233,7 @@ public class CmsXmlContent extends A_CmsXmlDocument {
     public I_CmsXmlContentValue addValue(CmsObject cms, String path, Locale locale, int index)
     throws CmsIllegalArgumentException, CmsRuntimeException {
 
+        checkWritable();
         // get the schema type of the requested path           
         I_CmsXmlSchemaType type = m_contentDefinition.getSchemaType(path);
         if (type == null) {
@@ -365,6 +370,28 @@ public class CmsXmlContent extends A_CmsXmlDocument {
         return getBookmark(getBookmarkName(newValue.getPath(), locale));
     }
 
+    /**
+     * Marks this XML content as read only and replaces the value bookmarks with a compact representation.<p>
+     * 
+     * The compact representation stores the values in flat arrays per locale with shared xpath strings,
+     * and creates the value objects on first access only. This reduces the memory used by large 
+     * XML contents that are kept in a cache.<p>
+     * 
+     * @see #isCompact()
+     * @see #isReadOnly()
+     */
+    public void compact() {
+
+        setReadOnly();
+        if (m_valueTable == null) {
+            m_valueTable = new CmsXmlContentValueTable(this);
+            // release the bookmark maps
+            clearBookmarks();
+            m_elementLocales = Collections.emptyMap();
+            m_elementNames = Collections.emptyMap();
+        }
+    }
+
     /**
      * Copies the content of the given source locale to the given destination locale in this XML document.<p>
      * 
@@ -375,6 +402,7 @@ public class CmsXmlContent extends A_CmsXmlDocument {
      */
     public void copyLocale(Locale source, Locale destination, Set<String> elements) throws CmsXmlException {
 
+        checkWritable();
         if (!hasLocale(source)) {
             throw new CmsXmlException(Messages.get().container(
                 org.opencms.xml.Messages.ERR_LOCALE_NOT_AVAILABLE_1,
@@ -486,6 +514,30 @@ public class CmsXmlContent extends A_CmsXmlDocument {
         return new CmsLinkProcessor(cms, linkTable, getEncoding(), relativeRoot);
     }
 
+    /**
+     * @see org.opencms.xml.A_CmsXmlDocument#getLocales(java.lang.String)
+     */
+    @Override
+    public List<Locale> getLocales(String path) {
+
+        if (m_valueTable != null) {
+            return m_valueTable.getLocales(CmsXmlUtils.createXpath(path, 1));
+        }
+        return super.getLocales(path);
+    }
+
+    /**
+     * @see org.opencms.xml.A_CmsXmlDocument#getNames(java.util.Locale)
+     */
+    @Override
+    public List<String> getNames(Locale locale) {
+
+        if (m_valueTable != null) {
+            return m_valueTable.getNames(locale);
+        }
+        return super.getNames(locale);
+    }
+
     /**
      * Returns the list of sub-value for the given xpath in the selected locale.<p>
      * 
@@ -497,14 +549,19 @@ public class CmsXmlContent extends A_CmsXmlDocument {
     @Override
     public List<I_CmsXmlContentValue> getSubValues(String path, Locale locale) {
 
-        List<I_CmsXmlContentValue> result = new ArrayList<I_CmsXmlContentValue>();
-        String bookmark = getBookmarkName(CmsXmlUtils.createXpath(path, 1), locale);
-        int depth = CmsResource.getPathLevel(bookmark) + 1;
-        Iterator<String> i = getBookmarks().iterator();
-        while (i.hasNext()) {
-            String bm = i.next();
-            if (bm.startsWith(bookmark) && (CmsResource.getPathLevel(bm) == depth)) {
-                result.add(getBookmark(bm));
+        List<I_CmsXmlContentValue> result;
+        if (m_valueTable != null) {
+            result = m_valueTable.getSubValues(CmsXmlUtils.createXpath(path, 1), locale);
+        } else {
+            result = new ArrayList<I_CmsXmlContentValue>();
+            String bookmark = getBookmarkName(CmsXmlUtils.createXpath(path, 1), locale);
+            int depth = CmsResource.getPathLevel(bookmark) + 1;
+            Iterator<String> i = getBookmarks().iterator();
+            while (i.hasNext()) {
+                String bm = i.next();
+                if (bm.startsWith(bookmark) && (CmsResource.getPathLevel(bm) == depth)) {
+                    result.add(getBookmark(bm));
+                }
             }
         }
         if (result.size() > 0) {
@@ -539,6 +596,21 @@ public class CmsXmlContent extends A_CmsXmlDocument {
         return result;
     }
 
+    /**
+     * @see org.opencms.xml.A_CmsXmlDocument#getValues(java.util.Locale)
+     */
+    @Override
+    public List<I_CmsXmlContentValue> getValues(Locale locale) {
+
+        if (m_valueTable != null) {
+            List<I_CmsXmlContentValue> result = m_valueTable.getValues(locale);
+            // sort the result in the same way as the bookmarks
+            Collections.sort(result);
+            return result;
+        }
+        return super.getValues(locale);
+    }
+
     /**
      * Returns the value sequence for the selected element xpath in this XML content.<p>
      * 
@@ -579,6 +651,18 @@ public class CmsXmlContent extends A_CmsXmlDocument {
         return true;
     }
 
+    /**
+     * Returns <code>true</code> if the values of this XML content are stored in the compact representation.<p>
+     * 
+     * @return <code>true</code> if the values of this XML content are stored in the compact representation
+     * 
+     * @see #compact()
+     */
+    public boolean isCompact() {
+
+        return m_valueTable != null;
+    }
+
     /**
      * @see org.opencms.xml.A_CmsXmlDocument#isAutoCorrectionEnabled()
      */
@@ -598,6 +682,7 @@ public class CmsXmlContent extends A_CmsXmlDocument {
      */
     public void removeValue(String name, Locale locale, int index) {
 
+        checkWritable();
         // first get the value from the selected locale and index
         I_CmsXmlContentValue value = getValue(name, locale, index);
 
@@ -639,6 +724,7 @@ public class CmsXmlContent extends A_CmsXmlDocument {
      */
     public void setAutoCorrectionEnabled(boolean value) {
 
+        checkWritable();
         m_autoCorrectionEnabled = value;
     }
 
@@ -756,16 +842,34 @@ public class CmsXmlContent extends A_CmsXmlDocument {
     @Override
     protected I_CmsXmlContentValue getBookmark(String bookmark) {
 
+        if (m_valueTable != null) {
+            return m_valueTable.getValue(bookmark);
+        }
         // allows package classes to directly access the bookmark information of the XML content 
         return super.getBookmark(bookmark);
     }
 
+    /**
+     * @see org.opencms.xml.A_CmsXmlDocument#getBookmark(java.lang.String, java.util.Locale)
+     */
+    @Override
+    protected I_CmsXmlContentValue getBookmark(String path, Locale locale) {
+
+        if (m_valueTable != null) {
+            return m_valueTable.getValue(path, locale);
+        }
+        return super.getBookmark(path, locale);
+    }
+
     /**
      * @see org.opencms.xml.A_CmsXmlDocument#getBookmarks()
      */
     @Override
     protected Set<String> getBookmarks() {
 
+        if (m_valueTable != null) {
+            return m_valueTable.getBookmarks();
+        }
         // allows package classes to directly access the bookmark information of the XML content 
         return super.getBookmarks();
     }
@@ -31,6 +31,7 @@ import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
+import org.opencms.file.history.I_CmsHistoryResource;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.loader.CmsLoaderException;
@@ -40,6 +41,7 @@ import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
 import org.opencms.xml.CmsXmlException;
 import org.opencms.xml.CmsXmlUtils;
+import org.opencms.xml.containerpage.CmsADECache;
 
 import java.io.UnsupportedEncodingException;
 import java.util.Locale;
@@ -234,6 +236,9 @@ public final class CmsXmlContentFactory {
      * Factory method to unmarshal (read) a XML content instance from
      * a resource, using the request attributes as cache.<p>
      * 
+     * In the online project, the unmarshalled XML content is also cached across requests.
+     * In this case the returned XML content is read only, see {@link CmsXmlContent#isReadOnly()}.<p>
+     * 
      * @param cms the current OpenCms context object
      * @param resource the resource to unmarshal
      * @param req the current request
@@ -261,8 +266,23 @@ public final class CmsXmlContentFactory {
         CmsXmlContent content = (CmsXmlContent)req.getAttribute(rootPath);
 
         if (content == null) {
-            // unmarshal XML structure from the file content
-            content = unmarshal(cms, cms.readFile(resource));
+            CmsADECache cache = null;
+            String cacheKey = null;
+            if (cms.getRequestContext().getCurrentProject().isOnlineProject()
+                && !(resource instanceof I_CmsHistoryResource)
+                && (OpenCms.getADEManager() != null)) {
+                // try to get the content from the online cache
+                cache = OpenCms.getADEManager().getCache();
+                cacheKey = cache.getXmlContentCacheKey(resource);
+                content = cache.getCacheXmlContent(cacheKey);
+            }
+            if (content == null) {
+                // unmarshal XML structure from the file content
+                content = unmarshal(cms, cms.readFile(resource));
+                if (cache != null) {
+                    cache.setCacheXmlContent(cacheKey, content);
+                }
+            }
             // store the content as request attribute for future read requests
             req.setAttribute(rootPath, content);
         }
@@ -0,0 +1,467 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml.content;
+
+import org.opencms.xml.types.I_CmsXmlContentValue;
+import org.opencms.xml.types.I_CmsXmlSchemaType;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.dom4j.Element;
+
+/**
+ * Compact, read only table of the values of an XML content.<p>
+ * 
+ * The values are stored in flat arrays per locale, sorted by their xpath. The xpath strings are 
+ * interned, so that XML contents of the same type share them. Only the XML element and the schema type 
+ * are kept for each value, the value objects are created on first access.<p>
+ * 
+ * The bookmark names used by this table are the same as in {@link org.opencms.xml.A_CmsXmlDocument}, 
+ * that is the locale surrounded by slashes followed by the xpath of the value, e.g. <code>/en/Title[1]</code>.<p>
+ * 
+ * @since 8.5.0
+ */
+final class CmsXmlContentValueTable {
+
+    /**
+     * The values of one locale.<p>
+     */
+    private static final class LocaleValues {
+
+        /** The XML elements of the values. */
+        final Element[] m_elements;
+
+        /** The locale. */
+        final Locale m_locale;
+
+        /** The xpaths of the values, sorted. */
+        final String[] m_paths;
+
+        /** The bookmark prefix of the locale. */
+        final String m_prefix;
+
+        /** The schema types of the values. */
+        final I_CmsXmlSchemaType[] m_types;
+
+        /** The values, created on first access. */
+        final AtomicReferenceArray<I_CmsXmlContentValue> m_values;
+
+        /**
+         * Creates the values of one locale.<p>
+         * 
+         * @param locale the locale
+         * @param size the number of values
+         */
+        LocaleValues(Locale locale, int size) {
+
+            m_locale = locale;
+            m_prefix = getBookmarkPrefix(locale);
+            m_paths = new String[size];
+            m_elements = new Element[size];
+            m_types = new I_CmsXmlSchemaType[size];
+            m_values = new AtomicReferenceArray<I_CmsXmlContentValue>(size);
+        }
+    }
+
+    /** The pool of interned xpaths shared by all tables. */
+    private static final Map<String, WeakReference<String>> XPATH_POOL;
+
+    static {
+        XPATH_POOL = new WeakHashMap<String, WeakReference<String>>();
+    }
+
+    /** The XML content the values belong to. */
+    private final CmsXmlContent m_content;
+
+    /** The values by locale. */
+    private final LocaleValues[] m_localeValues;
+
+    /** The total number of values. */
+    private final int m_size;
+
+    /**
+     * Creates a compact table from the current bookmarks of the given XML content.<p>
+     * 
+     * @param content the XML content
+     */
+    CmsXmlContentValueTable(CmsXmlContent content) {
+
+        m_content = content;
+        // group the values by locale, sorted by their path
+        Map<Locale, SortedMap<String, I_CmsXmlContentValue>> valuesByLocale;
+        valuesByLocale = new LinkedHashMap<Locale, SortedMap<String, I_CmsXmlContentValue>>();
+        for (String bookmark : content.getBookmarks()) {
+            I_CmsXmlContentValue value = content.getBookmark(bookmark);
+            SortedMap<String, I_CmsXmlContentValue> values = valuesByLocale.get(value.getLocale());
+            if (values == null) {
+                values = new TreeMap<String, I_CmsXmlContentValue>();
+                valuesByLocale.put(value.getLocale(), values);
+            }
+            values.put(bookmark.substring(getBookmarkPrefix(value.getLocale()).length()), value);
+        }
+        m_localeValues = new LocaleValues[valuesByLocale.size()];
+        int size = 0;
+        int i = 0;
+        for (Map.Entry<Locale, SortedMap<String, I_CmsXmlContentValue>> entry : valuesByLocale.entrySet()) {
+            LocaleValues lv = new LocaleValues(entry.getKey(), entry.getValue().size());
+            int j = 0;
+            for (Map.Entry<String, I_CmsXmlContentValue> valueEntry : entry.getValue().entrySet()) {
+                lv.m_paths[j] = internXpath(valueEntry.getKey());
+                lv.m_elements[j] = valueEntry.getValue().getElement();
+                lv.m_types[j] = content.getContentDefinition().getSchemaType(valueEntry.getKey());
+                if (lv.m_types[j] == null) {
+                    // should not happen, but keep the value object in case the type can not be resolved
+                    lv.m_values.set(j, valueEntry.getValue());
+                }
+                j++;
+            }
+            m_localeValues[i++] = lv;
+            size += j;
+        }
+        m_size = size;
+    }
+
+    /**
+     * Returns the bookmark prefix of the given locale.<p>
+     * 
+     * @param locale the locale
+     * 
+     * @return the bookmark prefix of the given locale
+     */
+    static String getBookmarkPrefix(Locale locale) {
+
+        return '/' + locale.toString() + '/';
+    }
+
+    /**
+     * Compares the given path with the region of the bookmark starting at the given offset, 
+     * in the same way as {@link String#compareTo(String)}.<p>
+     * 
+     * @param path the path
+     * @param bookmark the bookmark
+     * @param offset the start of the path in the bookmark
+     * 
+     * @return the comparison result
+     */
+    private static int compare(String path, String bookmark, int offset) {
+
+        int len1 = path.length();
+        int len2 = bookmark.length() - offset;
+        int n = Math.min(len1, len2);
+        for (int i = 0; i < n; i++) {
+            char c1 = path.charAt(i);
+            char c2 = bookmark.charAt(offset + i);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return len1 - len2;
+    }
+
+    /**
+     * Returns the shared instance of the given xpath.<p>
+     * 
+     * @param xpath the xpath
+     * 
+     * @return the shared instance of the xpath 
+     */
+    private static String internXpath(String xpath) {
+
+        synchronized (XPATH_POOL) {
+            WeakReference<String> ref = XPATH_POOL.get(xpath);
+            String result = (ref != null) ? ref.get() : null;
+            if (result == null) {
+                // copy the xpath, since it might be a substring sharing a larger char array
+                result = new String(xpath);
+                XPATH_POOL.put(result, new WeakReference<String>(result));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns the names of all bookmarks in this table.<p>
+     * 
+     * The bookmark names are created when iterating the returned set.<p>
+     * 
+     * @return the names of all bookmarks in this table
+     */
+    public Set<String> getBookmarks() {
+
+        return new AbstractSet<String>() {
+
+            @Override
+            public boolean contains(Object o) {
+
+                return (o instanceof String) && (getValue((String)o) != null);
+            }
+
+            @Override
+            public Iterator<String> iterator() {
+
+                return new Iterator<String>() {
+
+                    private int m_index;
+
+                    private int m_locale;
+
+                    public boolean hasNext() {
+
+                        while ((m_locale < m_localeValues.length)
+                            && (m_index >= m_localeValues[m_locale].m_paths.length)) {
+                            m_locale++;
+                            m_index = 0;
+                        }
+                        return m_locale < m_localeValues.length;
+                    }
+
+                    public String next() {
+
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        LocaleValues lv = m_localeValues[m_locale];
+                        return lv.m_prefix + lv.m_paths[m_index++];
+                    }
+
+                    public void remove() {
+
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+
+                return m_size;
+            }
+        };
+    }
+
+    /**
+     * Returns the locales that contain a value with the given xpath.<p>
+     * 
+     * @param path the xpath, including the indexes
+     * 
+     * @return the locales that contain a value with the given xpath
+     */
+    public List<Locale> getLocales(String path) {
+
+        List<Locale> result = new ArrayList<Locale>(m_localeValues.length);
+        for (int i = 0; i < m_localeValues.length; i++) {
+            if (Arrays.binarySearch(m_localeValues[i].m_paths, path) >= 0) {
+                result.add(m_localeValues[i].m_locale);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the xpaths of all values in the given locale.<p>
+     * 
+     * @param locale the locale
+     * 
+     * @return the xpaths of all values in the given locale
+     */
+    public List<String> getNames(Locale locale) {
+
+        LocaleValues lv = getLocaleValues(locale);
+        if (lv == null) {
+            return new ArrayList<String>();
+        }
+        return new ArrayList<String>(Arrays.asList(lv.m_paths));
+    }
+
+    /**
+     * Returns the values directly below the given xpath in the given locale.<p>
+     * 
+     * @param path the xpath of the parent value, including the indexes
+     * @param locale the locale
+     * 
+     * @return the values directly below the given xpath
+     */
+    public List<I_CmsXmlContentValue> getSubValues(String path, Locale locale) {
+
+        List<I_CmsXmlContentValue> result = new ArrayList<I_CmsXmlContentValue>();
+        LocaleValues lv = getLocaleValues(locale);
+        if (lv == null) {
+            return result;
+        }
+        String prefix = path + '/';
+        int pos = Arrays.binarySearch(lv.m_paths, prefix);
+        for (int i = (pos < 0) ? -(pos + 1) : pos; i < lv.m_paths.length; i++) {
+            String subPath = lv.m_paths[i];
+            if (!subPath.startsWith(prefix)) {
+                break;
+            }
+            if (subPath.indexOf('/', prefix.length()) < 0) {
+                // only values directly below the given path
+                result.add(getValue(lv, i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value for the given bookmark name.<p>
+     * 
+     * @param bookmark the bookmark name
+     * 
+     * @return the value, or <code>null</code> if not found
+     */
+    public I_CmsXmlContentValue getValue(String bookmark) {
+
+        int offset = bookmark.indexOf('/', 1) + 1;
+        if (offset <= 0) {
+            return null;
+        }
+        for (int i = 0; i < m_localeValues.length; i++) {
+            LocaleValues lv = m_localeValues[i];
+            if ((lv.m_prefix.length() == offset) && bookmark.startsWith(lv.m_prefix)) {
+                // binary search on the path part of the bookmark
+                int low = 0;
+                int high = lv.m_paths.length - 1;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    int cmp = compare(lv.m_paths[mid], bookmark, offset);
+                    if (cmp < 0) {
+                        low = mid + 1;
+                    } else if (cmp > 0) {
+                        high = mid - 1;
+                    } else {
+                        return getValue(lv, mid);
+                    }
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value for the given xpath and locale.<p>
+     * 
+     * @param path the xpath, including the indexes
+     * @param locale the locale
+     * 
+     * @return the value, or <code>null</code> if not found
+     */
+    public I_CmsXmlContentValue getValue(String path, Locale locale) {
+
+        LocaleValues lv = getLocaleValues(locale);
+        if (lv == null) {
+            return null;
+        }
+        int pos = Arrays.binarySearch(lv.m_paths, path);
+        return (pos < 0) ? null : getValue(lv, pos);
+    }
+
+    /**
+     * Returns all values of the given locale.<p>
+     * 
+     * @param locale the locale
+     * 
+     * @return all values of the given locale
+     */
+    public List<I_CmsXmlContentValue> getValues(Locale locale) {
+
+        LocaleValues lv = getLocaleValues(locale);
+        if (lv == null) {
+            return new ArrayList<I_CmsXmlContentValue>();
+        }
+        List<I_CmsXmlContentValue> result = new ArrayList<I_CmsXmlContentValue>(lv.m_paths.length);
+        for (int i = 0; i < lv.m_paths.length; i++) {
+            result.add(getValue(lv, i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of values in this table.<p>
+     * 
+     * @return the number of values in this table
+     */
+    public int size() {
+
+        return m_size;
+    }
+
+    /**
+     * Returns the values of the given locale.<p>
+     * 
+     * @param locale the locale
+     * 
+     * @return the values of the given locale, or <code>null</code> if the locale is not available
+     */
+    private LocaleValues getLocaleValues(Locale locale) {
+
+        for (int i = 0; i < m_localeValues.length; i++) {
+            if (m_localeValues[i].m_locale.equals(locale)) {
+                return m_localeValues[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value at the given position, creating the value object if required.<p>
+     * 
+     * @param lv the values of the locale
+     * @param pos the position
+     * 
+     * @return the value
+     */
+    private I_CmsXmlContentValue getValue(LocaleValues lv, int pos) {
+
+        I_CmsXmlContentValue value = lv.m_values.get(pos);
+        if (value == null) {
+            value = lv.m_types[pos].createValue(m_content, lv.m_elements[pos], lv.m_locale);
+            if (!lv.m_values.compareAndSet(pos, null, value)) {
+                // another thread was faster, use the same value object
+                value = lv.m_values.get(pos);
+            }
+        }
+        return value;
+    }
+}
@@ -407,6 +407,7 @@ public class CmsXmlPage extends A_CmsXmlDocument {
      */
     public void setEnabled(String name, Locale locale, boolean isEnabled) {
 
+        checkWritable();
         CmsXmlHtmlValue value = (CmsXmlHtmlValue)getValue(name, locale);
         Element element = value.getElement();
         Attribute enabled = element.attribute(ATTRIBUTE_ENABLED);
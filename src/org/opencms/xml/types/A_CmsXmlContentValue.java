@@ -29,6 +29,7 @@ package org.opencms.xml.types;
 
 import org.opencms.file.CmsObject;
 import org.opencms.i18n.CmsEncoder;
+import org.opencms.main.CmsIllegalStateException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
 import org.opencms.util.CmsFileUtil;
@@ -476,6 +477,7 @@ public abstract class A_CmsXmlContentValue implements I_CmsXmlContentValue, I_Cm
      */
     public void moveDown() {
 
+        checkWritable();
         if (getIndex() > 0) {
             // only move down if this element is not already at the first index position
             moveValue(-1);
@@ -488,6 +490,7 @@ public abstract class A_CmsXmlContentValue implements I_CmsXmlContentValue, I_Cm
      */
     public void moveUp() {
 
+        checkWritable();
         if (getIndex() < (getMaxIndex() - 1)) {
             // only move up if this element is not already at the last index position
             moveValue(1);
@@ -554,6 +557,25 @@ public abstract class A_CmsXmlContentValue implements I_CmsXmlContentValue, I_Cm
         return true;
     }
 
+    /**
+     * Checks that the XML document this value belongs to is not read only.<p>
+     * 
+     * Values of read only documents are shared between threads, so all methods that modify 
+     * the value must call this first.<p>
+     * 
+     * @throws CmsIllegalStateException if the XML document of this value is read only
+     * 
+     * @see I_CmsXmlDocument#isReadOnly()
+     */
+    protected void checkWritable() throws CmsIllegalStateException {
+
+        if ((m_document != null) && m_document.isReadOnly()) {
+            throw new CmsIllegalStateException(Messages.get().container(
+                Messages.ERR_XMLCONTENT_VALUE_READ_ONLY_1,
+                getPath()));
+        }
+    }
+
     /**
      * Moves this XML content element up or down in the XML document.<p> 
      * 
@@ -199,6 +199,7 @@ public class CmsXmlBooleanValue extends A_CmsXmlValueTextBase {
     @Override
     public void setStringValue(CmsObject cms, String value) throws CmsIllegalArgumentException {
 
+        checkWritable();
         m_boolean = getBooleanValue(value);
         super.setStringValue(cms, String.valueOf(m_boolean));
     }
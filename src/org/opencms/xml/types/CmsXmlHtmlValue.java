@@ -216,6 +216,10 @@ public class CmsXmlHtmlValue extends A_CmsXmlContentValue {
      */
     public String getStringValue(CmsObject cms) {
 
+        if ((m_document != null) && m_document.isReadOnly()) {
+            // shared documents are used with different sites, so the processed links must not be cached
+            return createStringValue(cms, m_document);
+        }
         if (m_stringValue == null) {
             m_stringValue = createStringValue(cms, m_document);
         }
@@ -244,6 +248,7 @@ public class CmsXmlHtmlValue extends A_CmsXmlContentValue {
      */
     public void setStringValue(CmsObject cms, String value) {
 
+        checkWritable();
         Element content = m_element.element(CmsXmlPage.NODE_CONTENT);
         Element links = m_element.element(CmsXmlPage.NODE_LINKS);
         CmsLinkProcessor linkProcessor = null;
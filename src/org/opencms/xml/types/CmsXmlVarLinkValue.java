@@ -192,6 +192,10 @@ public class CmsXmlVarLinkValue extends A_CmsXmlContentValue {
      */
     public String getStringValue(CmsObject cms) throws CmsRuntimeException {
 
+        if ((m_document != null) && m_document.isReadOnly()) {
+            // shared documents are used with different sites, so the link must not be cached
+            return createStringValue(cms);
+        }
         if (m_stringValue == null) {
             m_stringValue = createStringValue(cms);
         }
@@ -229,6 +233,7 @@ public class CmsXmlVarLinkValue extends A_CmsXmlContentValue {
      */
     public void setStringValue(CmsObject cms, String value) throws CmsIllegalArgumentException {
 
+        checkWritable();
         // element is rebuild from given String value below
         m_element.clearContent();
         // link value is re-calculated below
@@ -203,6 +203,10 @@ public class CmsXmlVfsFileValue extends A_CmsXmlContentValue {
      */
     public String getStringValue(CmsObject cms) throws CmsRuntimeException {
 
+        if ((m_document != null) && m_document.isReadOnly()) {
+            // shared documents are used with different sites, so the link must not be cached
+            return createStringValue(cms);
+        }
         if (m_stringValue == null) {
             m_stringValue = createStringValue(cms);
         }
@@ -243,6 +247,7 @@ public class CmsXmlVfsFileValue extends A_CmsXmlContentValue {
      */
     public void setIdValue(CmsObject cms, CmsUUID id) {
 
+        checkWritable();
         CmsRelationType type = getContentDefinition().getContentHandler().getRelationType(getPath());
         CmsLink link = new CmsLink(TYPE_VFS_LINK, type, id, "@", true);
         // link management check
@@ -257,6 +262,7 @@ public class CmsXmlVfsFileValue extends A_CmsXmlContentValue {
      */
     public void setStringValue(CmsObject cms, String value) throws CmsIllegalArgumentException {
 
+        checkWritable();
         m_element.clearContent();
         // ensure the String value is re-calculated next time it's needed
         m_stringValue = null;
@@ -158,6 +158,8 @@ public interface I_CmsXmlContentValue extends I_CmsXmlSchemaType {
      * users current OpenCms context. This can be used e.g. for link 
      * extraction and replacement in the content.<p>
      * 
+     * Values of read only XML documents can not be changed, see {@link I_CmsXmlDocument#isReadOnly()}.<p>
+     * 
      * @param cms an initialized instance of a CmsObject
      * @param value the value to set 
      * 
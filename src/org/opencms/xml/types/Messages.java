@@ -61,6 +61,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_XMLCONTENT_LOAD_SCHEMA_1 = "ERR_XMLCONTENT_LOAD_SCHEMA_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_XMLCONTENT_VALUE_READ_ONLY_1 = "ERR_XMLCONTENT_VALUE_READ_ONLY_1";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.xml.types.messages";
 
@@ -57,6 +57,7 @@ public class AllTests {
         //$JUnit-BEGIN$
         suite.addTest(TestConfig.suite());
         suite.addTest(TestLiveConfig.suite());
+        suite.addTest(new TestSuite(TestCmsConfigurationPathIndex.class));
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,98 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.ade.configuration;
+
+import org.opencms.ade.detailpage.CmsDetailPageInfo;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the path index of the sitemap configurations.<p>
+ */
+public class TestCmsConfigurationPathIndex extends TestCase {
+
+    /**
+     * Tests that the configuration with the longest matching base path is found.<p>
+     * 
+     * @throws Exception if the test fails 
+     */
+    public void testLongestPrefixMatch() throws Exception {
+
+        Map<String, CmsADEConfigData> configs = new HashMap<String, CmsADEConfigData>();
+        CmsADEConfigData a = createConfig("/a");
+        CmsADEConfigData abc = createConfig("/a/b/c");
+        CmsADEConfigData abx = createConfig("/a/b/x/");
+        CmsADEConfigData abcde = createConfig("/a/b/c/d/e");
+        configs.put("/a", a);
+        configs.put("/a/b/c", abc);
+        configs.put("/a/b/x/", abx);
+        configs.put("/a/b/c/d/e", abcde);
+        CmsConfigurationPathIndex index = new CmsConfigurationPathIndex(configs);
+
+        assertSame(abc, index.getLongestPrefixMatch("/a/b/c/d"));
+        assertSame(abc, index.getLongestPrefixMatch("/a/b/c/"));
+        assertSame(abc, index.getLongestPrefixMatch("/a/b/c"));
+        assertSame(abcde, index.getLongestPrefixMatch("/a/b/c/d/e/f.html"));
+        assertSame(abx, index.getLongestPrefixMatch("/a/b/x"));
+        assertSame(a, index.getLongestPrefixMatch("/a/b"));
+        assertSame(a, index.getLongestPrefixMatch("/a/b/cd"));
+        assertSame(a, index.getLongestPrefixMatch("/a//b/y/"));
+        assertNull(index.getLongestPrefixMatch("/ab/c"));
+        assertNull(index.getLongestPrefixMatch("/"));
+        assertEquals(4, index.getConfigurations().size());
+
+        configs.put("/", createConfig("/"));
+        index = new CmsConfigurationPathIndex(configs);
+        assertSame(configs.get("/"), index.getLongestPrefixMatch("/ab/c"));
+        assertSame(a, index.getLongestPrefixMatch("/a/"));
+        assertNull(CmsConfigurationPathIndex.EMPTY.getLongestPrefixMatch("/a/b"));
+    }
+
+    /**
+     * Creates a configuration object for the given base path.<p>
+     * 
+     * @param basePath the base path 
+     * 
+     * @return the configuration object 
+     */
+    private CmsADEConfigData createConfig(String basePath) {
+
+        return new CmsTestConfigData(
+            basePath,
+            Collections.<CmsResourceTypeConfig> emptyList(),
+            Collections.<CmsPropertyConfig> emptyList(),
+            Collections.<CmsDetailPageInfo> emptyList(),
+            Collections.<CmsModelPageConfig> emptyList());
+    }
+
+}
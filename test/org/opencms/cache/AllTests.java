@@ -59,6 +59,8 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
          suite.addTest(TestCache.suite());
+        suite.addTest(new TestSuite(TestCmsConcurrentLruMap.class));
+        suite.addTest(new TestSuite(TestCmsVfsDiskCache.class));
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,244 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link CmsConcurrentLruMap}.<p>
+ *
+ * @since 8.5.0
+ */
+public class TestCmsConcurrentLruMap extends TestCase {
+
+    /**
+     * Tests basic map operations.<p>
+     */
+    public void testBasicOperations() {
+
+        CmsConcurrentLruMap<String, String> map = new CmsConcurrentLruMap<String, String>(10);
+        assertTrue(map.isEmpty());
+        assertNull(map.put("a", "1"));
+        assertEquals("1", map.put("a", "2"));
+        assertEquals("2", map.get("a"));
+        assertEquals(1, map.size());
+        assertTrue(map.containsKey("a"));
+        assertTrue(map.containsValue("2"));
+        map.put("b", null);
+        assertTrue(map.containsKey("b"));
+        assertNull(map.get("b"));
+        assertEquals(2, map.size());
+        assertEquals("2", map.remove("a"));
+        assertNull(map.remove("a"));
+        assertEquals(1, map.size());
+        map.clear();
+        assertEquals(0, map.size());
+        assertTrue(map.isEmpty());
+        assertEquals(10, map.maxSize());
+    }
+
+    /**
+     * Tests that the map never grows beyond its maximum size and that referenced entries survive eviction.<p>
+     */
+    public void testEviction() {
+
+        CmsConcurrentLruMap<Integer, Integer> map = new CmsConcurrentLruMap<Integer, Integer>(100);
+        for (int i = 0; i < 100; i++) {
+            map.put(Integer.valueOf(i), Integer.valueOf(i));
+        }
+        assertEquals(100, map.size());
+        // read the first entry, so that it should get a second chance
+        assertEquals(Integer.valueOf(0), map.get(Integer.valueOf(0)));
+        for (int i = 100; i < 150; i++) {
+            map.put(Integer.valueOf(i), Integer.valueOf(i));
+            assertEquals(100, map.size());
+        }
+        assertTrue(map.containsKey(Integer.valueOf(0)));
+        assertFalse(map.containsKey(Integer.valueOf(1)));
+        assertTrue(map.containsKey(Integer.valueOf(149)));
+        assertEquals(100, map.entrySet().size());
+    }
+
+    /**
+     * Tests removing entries through the iterator of the entry set.<p>
+     */
+    public void testIteratorRemove() {
+
+        CmsConcurrentLruMap<Integer, String> map = new CmsConcurrentLruMap<Integer, String>(100);
+        for (int i = 0; i < 20; i++) {
+            map.put(Integer.valueOf(i), "v" + i);
+        }
+        Iterator<Map.Entry<Integer, String>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            if ((it.next().getKey().intValue() % 2) == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(10, map.size());
+        assertFalse(map.containsKey(Integer.valueOf(0)));
+        assertEquals("v1", map.get(Integer.valueOf(1)));
+        assertEquals(10, map.values().size());
+    }
+
+    /**
+     * Tests concurrent reads and writes.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentAccess() throws Exception {
+
+        final CmsConcurrentLruMap<Integer, Integer> map = new CmsConcurrentLruMap<Integer, Integer>(500);
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final int offset = t;
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        for (int i = 0; i < 20000; i++) {
+                            Integer key = Integer.valueOf((i * 7 + offset) % 2000);
+                            Integer value = map.get(key);
+                            if ((value != null) && !value.equals(key)) {
+                                throw new IllegalStateException("Wrong value " + value + " for key " + key);
+                            }
+                            if (value == null) {
+                                map.put(key, key);
+                            }
+                            if ((i % 1000) == 0) {
+                                map.remove(key);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertTrue(map.size() <= 500);
+        assertEquals(map.size(), map.entrySet().size());
+    }
+    /**
+     * Tests that entries put while the map is cleared stay in the eviction order.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentClear() throws Exception {
+
+        final CmsConcurrentLruMap<Integer, Integer> map = new CmsConcurrentLruMap<Integer, Integer>(50);
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t;
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        for (int i = 0; i < 50000; i++) {
+                            if (offset == 0) {
+                                map.clear();
+                            } else {
+                                Integer key = Integer.valueOf((i * 4 + offset) % 200);
+                                map.put(key, key);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertEquals(map.size(), map.entrySet().size());
+        // every remaining entry must still be in the eviction queue, so new entries must replace all of them
+        for (int i = 1000; i < 1100; i++) {
+            map.put(Integer.valueOf(i), Integer.valueOf(i));
+        }
+        assertEquals(50, map.size());
+        for (Integer key : map.keySet()) {
+            assertTrue("Entry " + key + " was not evicted", key.intValue() >= 1000);
+        }
+    }
+
+    /**
+     * Tests that a value put concurrently with the removal of the same key is not lost.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentPutAndRemove() throws Exception {
+
+        final CmsConcurrentLruMap<Integer, Integer> map = new CmsConcurrentLruMap<Integer, Integer>(10);
+        final Integer key = Integer.valueOf(1);
+        final Integer[] removed = new Integer[1];
+        for (int i = 1; i < 5000; i++) {
+            map.put(key, Integer.valueOf(0));
+            Thread remover = new Thread() {
+
+                @Override
+                public void run() {
+
+                    removed[0] = map.remove(key);
+                }
+            };
+            remover.start();
+            map.put(key, Integer.valueOf(i));
+            remover.join();
+            // the new value must either still be in the map, or it must have been removed
+            Integer value = map.get(key);
+            assertTrue(
+                "Lost value in iteration " + i,
+                Integer.valueOf(i).equals(value) || Integer.valueOf(i).equals(removed[0]));
+            assertEquals(map.size(), map.entrySet().size());
+            map.clear();
+        }
+    }
+}
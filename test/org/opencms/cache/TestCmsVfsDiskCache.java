@@ -0,0 +1,145 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link CmsVfsDiskCache}.<p>
+ * 
+ * @since 8.5.0
+ */
+public class TestCmsVfsDiskCache extends TestCase {
+
+    /** The folder used by the tests. */
+    private File m_folder;
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsVfsDiskCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that concurrent readers only see complete files while a file is replaced.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testSaveFileAtomic() throws Exception {
+
+        final File file = new File(m_folder, "sub/folder/file.html");
+        final byte[][] contents = new byte[2][64 * 1024];
+        Arrays.fill(contents[0], (byte)'a');
+        Arrays.fill(contents[1], (byte)'b');
+        CmsVfsDiskCache.saveFile(file.getPath(), contents[0]);
+
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        Thread reader = new Thread() {
+
+            @Override
+            public void run() {
+
+                while (!done.get()) {
+                    try {
+                        byte[] read = CmsFileUtil.readFile(file);
+                        if (!Arrays.equals(contents[0], read) && !Arrays.equals(contents[1], read)) {
+                            errors.incrementAndGet();
+                        }
+                        reads.incrementAndGet();
+                    } catch (Exception e) {
+                        // the file may be missing for a moment on platforms that can not rename over a file
+                        if (File.separatorChar == '/') {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+            }
+        };
+        reader.start();
+        try {
+            for (int i = 0; i < 100; i++) {
+                assertEquals(file, CmsVfsDiskCache.saveFile(file.getPath(), contents[i % 2]));
+            }
+        } finally {
+            done.set(true);
+            reader.join();
+        }
+        assertTrue(reads.get() > 0);
+        assertEquals("Partially written file read", 0, errors.get());
+        assertTrue(Arrays.equals(contents[1], CmsFileUtil.readFile(file)));
+        // no temporary files are left
+        assertEquals(1, file.getParentFile().list().length);
+    }
+
+    /**
+     * Tests saving a file in a folder that does not exist yet.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testSaveFileCreatesFolders() throws Exception {
+
+        File file = new File(m_folder, "a/b/c/file.txt");
+        byte[] content = "content".getBytes("UTF-8");
+        CmsVfsDiskCache.saveFile(file.getPath(), content);
+        assertTrue(Arrays.equals(content, CmsFileUtil.readFile(file)));
+        assertEquals(1, file.getParentFile().list().length);
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        m_folder = File.createTempFile("diskcache", "");
+        m_folder.delete();
+        m_folder.mkdirs();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() {
+
+        CmsFileUtil.purgeDirectory(m_folder);
+    }
+}
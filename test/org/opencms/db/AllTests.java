@@ -63,6 +63,8 @@ public final class AllTests {
         suite.addTest(TestQueryProperties.suite());
         suite.addTest(TestPublishHistory.suite());
         suite.addTest(TestSubscriptionManager.suite());
+        suite.addTest(new TestSuite(TestCmsCompositeCacheKey.class));
+        suite.addTest(new TestSuite(TestCmsSqlManager.class));
         // $JUnit-END$
         return suite;
     }
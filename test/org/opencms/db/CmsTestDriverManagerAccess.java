@@ -0,0 +1,56 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.util.CmsStripedLock;
+
+/**
+ * Gives tests in other packages access to internals of the driver manager.<p>
+ */
+public final class CmsTestDriverManagerAccess {
+
+    /**
+     * Hides the public constructor.<p>
+     */
+    private CmsTestDriverManagerAccess() {
+
+        // noop
+    }
+
+    /**
+     * Returns the locks the driver manager of the given security manager uses to serialize resource creation.<p>
+     * 
+     * @param securityManager the security manager
+     * 
+     * @return the locks the driver manager uses to serialize resource creation
+     */
+    public static CmsStripedLock getCreateResourceLocks(CmsSecurityManager securityManager) {
+
+        return securityManager.m_driverManager.getCreateResourceLocks();
+    }
+}
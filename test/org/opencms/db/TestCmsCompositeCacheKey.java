@@ -0,0 +1,187 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.util.CmsUUID;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link CmsCompositeCacheKey}.<p>
+ */
+public class TestCmsCompositeCacheKey extends TestCase {
+
+    /**
+     * Tests the equality of list keys.<p>
+     */
+    public void testListKeys() {
+
+        CmsUUID userId = new CmsUUID();
+        CmsCompositeCacheKey key = CmsCompositeCacheKey.forList(
+            CmsCacheKey.CACHE_KEY_SUBPROPERTY,
+            userId,
+            true,
+            0,
+            0,
+            "filter",
+            "/sites/default/",
+            "Title",
+            null);
+        assertEquals(key, CmsCompositeCacheKey.forList(
+            CmsCacheKey.CACHE_KEY_SUBPROPERTY,
+            new CmsUUID(userId.toString()),
+            true,
+            0,
+            0,
+            new String("filter"),
+            new String("/sites/default/"),
+            "Title",
+            null));
+        assertFalse(key.equals(CmsCompositeCacheKey.forList(
+            CmsCacheKey.CACHE_KEY_SUBPROPERTY,
+            userId,
+            true,
+            0,
+            0,
+            "filter",
+            "/sites/default/",
+            "Title",
+            "value")));
+        assertFalse(key.equals(CmsCompositeCacheKey.forList(
+            CmsCacheKey.CACHE_KEY_SUBPROPERTY,
+            userId,
+            true,
+            1,
+            0,
+            "filter",
+            "/sites/default/",
+            "Title",
+            null)));
+        assertFalse(key.equals(CmsCompositeCacheKey.forList(
+            CmsCacheKey.CACHE_KEY_SUBPROPERTY,
+            new CmsUUID(),
+            true,
+            0,
+            0,
+            "filter",
+            "/sites/default/",
+            "Title",
+            null)));
+    }
+
+    /**
+     * Tests the equality of path keys.<p>
+     */
+    public void testPathKeys() {
+
+        CmsCompositeCacheKey key = CmsCompositeCacheKey.forPath(null, false, true, "/sites/default/index.html");
+        CmsCompositeCacheKey same = CmsCompositeCacheKey.forPath(null, false, true, "/sites/default/index.html");
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+        assertFalse(key.equals(CmsCompositeCacheKey.forPath(null, false, false, "/sites/default/index.html")));
+        assertFalse(key.equals(CmsCompositeCacheKey.forPath("_CAP_", false, true, "/sites/default/index.html")));
+        assertFalse(CmsCompositeCacheKey.forPath("_CAP_", true, true, "/a").equals(
+            CmsCompositeCacheKey.forPath("_CAP_", false, true, "/a")));
+        assertFalse(key.equals(CmsCompositeCacheKey.EMPTY));
+    }
+
+    /**
+     * Tests the equality of permission keys.<p>
+     */
+    public void testPermissionKeys() {
+
+        CmsUUID userId = new CmsUUID();
+        CmsUUID structureId = new CmsUUID();
+        CmsCompositeCacheKey key = CmsCompositeCacheKey.forPermissions(
+            "11",
+            userId,
+            true,
+            CmsPermissionSet.ACCESS_READ,
+            structureId);
+        assertEquals(key, CmsCompositeCacheKey.forPermissions(
+            "11",
+            userId,
+            true,
+            new CmsPermissionSet(CmsPermissionSet.PERMISSION_READ, 0),
+            structureId));
+        assertFalse(key.equals(CmsCompositeCacheKey.forPermissions(
+            "11",
+            userId,
+            true,
+            CmsPermissionSet.ACCESS_WRITE,
+            structureId)));
+        assertFalse(key.equals(CmsCompositeCacheKey.forPermissions(
+            "11",
+            userId,
+            true,
+            new CmsPermissionSet(CmsPermissionSet.PERMISSION_READ, CmsPermissionSet.PERMISSION_WRITE),
+            structureId)));
+        assertFalse(key.equals(CmsCompositeCacheKey.forPermissions(
+            "10",
+            userId,
+            true,
+            CmsPermissionSet.ACCESS_READ,
+            structureId)));
+        assertFalse(key.equals(CmsCompositeCacheKey.forPermissions(
+            "11",
+            userId,
+            false,
+            CmsPermissionSet.ACCESS_READ,
+            structureId)));
+        assertFalse(key.equals(CmsCompositeCacheKey.forPermissions(
+            "11",
+            userId,
+            true,
+            CmsPermissionSet.ACCESS_READ,
+            new CmsUUID())));
+    }
+
+    /**
+     * Tests the equality of property keys.<p>
+     */
+    public void testPropertyKeys() {
+
+        CmsCompositeCacheKey key = CmsCompositeCacheKey.forProperty("_CAP_", true, true, "/sites/default/", "Title");
+        CmsCompositeCacheKey same = CmsCompositeCacheKey.forProperty(
+            "_CAP_",
+            true,
+            true,
+            new String("/sites/default/"),
+            new String("Title"));
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+        assertFalse(key.equals(CmsCompositeCacheKey.forProperty("_CAP_", false, true, "/sites/default/", "Title")));
+        assertFalse(key.equals(CmsCompositeCacheKey.forProperty("_CAP_", true, false, "/sites/default/", "Title")));
+        assertFalse(key.equals(CmsCompositeCacheKey.forProperty("_CAP_", true, true, "/sites/", "Title")));
+        assertFalse(key.equals(CmsCompositeCacheKey.forProperty("_CAP_", true, true, "/sites/default/", "Keywords")));
+        assertFalse(key.equals(CmsCompositeCacheKey.forPath("_CAP_", true, true, "/sites/default/")));
+    }
+
+}
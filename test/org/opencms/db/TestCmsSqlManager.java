@@ -0,0 +1,118 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.util.CmsUUID;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link CmsSqlManager} of the generic driver.<p>
+ * 
+ * @since 8.5.0
+ */
+public class TestCmsSqlManager extends TestCase {
+
+    /** The number of column reads of the last result set created. */
+    private AtomicInteger m_reads;
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsSqlManager(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests reading UUIDs from String and binary columns.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testGetUUID() throws Exception {
+
+        CmsSqlManager sqlManager = new CmsSqlManager();
+        CmsUUID uuid = new CmsUUID();
+
+        assertEquals(uuid, sqlManager.getUUID(createResultSet(uuid.toString()), "ID"));
+        assertEquals(1, m_reads.get());
+
+        assertEquals(uuid, sqlManager.getUUID(createResultSet(uuid.toByteArray()), "ID"));
+        assertEquals(1, m_reads.get());
+
+        // the String representation in a binary column
+        assertEquals(uuid, sqlManager.getUUID(createResultSet(uuid.toString().getBytes("US-ASCII")), "ID"));
+
+        try {
+            sqlManager.getUUID(createResultSet(null), "ID");
+            fail("SQL NULL value accepted");
+        } catch (NullPointerException e) {
+            // expected, same as new CmsUUID(res.getString(..))
+        }
+    }
+
+    /**
+     * Creates a result set returning the given value for all columns.<p>
+     * 
+     * @param value the value of the columns
+     * 
+     * @return the result set
+     */
+    private ResultSet createResultSet(final Object value) {
+
+        m_reads = new AtomicInteger();
+        final AtomicInteger reads = m_reads;
+        return (ResultSet)Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class[] {ResultSet.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    reads.incrementAndGet();
+                    if (method.getName().equals("getObject")) {
+                        return value;
+                    } else if (method.getName().equals("getBytes")) {
+                        return (value instanceof String) ? ((String)value).getBytes() : value;
+                    } else if (method.getName().equals("getString")) {
+                        return (value instanceof byte[]) ? new String((byte[])value) : value;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+}
@@ -28,7 +28,9 @@
 package org.opencms.file;
 
 import org.opencms.db.CmsPublishList;
+import org.opencms.db.CmsTestDriverManagerAccess;
 import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.OpenCms;
 import org.opencms.publish.CmsPublishJobFinished;
 import org.opencms.report.CmsShellReport;
@@ -37,6 +39,7 @@ import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.test.OpenCmsThreadedTestCase;
 import org.opencms.test.OpenCmsThreadedTestCaseSuite;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsStripedLock;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -79,6 +82,8 @@ public class TestConcurrentOperations extends OpenCmsTestCase {
         suite.addTest(new TestConcurrentOperations("testConcurrentPublishResourceWithRelated"));
         suite.addTest(new TestConcurrentOperations("testConcurrentPublishProject"));
         suite.addTest(new TestConcurrentOperations("testConcurrentCreationIssue"));
+        suite.addTest(new TestConcurrentOperations("testConcurrentCreationInFolders"));
+        suite.addTest(new TestConcurrentOperations("testCreationLockedPerFolder"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -98,6 +103,25 @@ public class TestConcurrentOperations extends OpenCmsTestCase {
         return wrapper;
     }
 
+    /**
+     * Concurrent creation in different folders test method.<p>
+     * 
+     * @param cms the OpenCms user context to use
+     * @param count the count for this test
+     * 
+     * @throws Exception if something goes wrong, unexpected
+     */
+    public void doConcurrentCreationInFoldersOperation(CmsObject cms, Integer count) throws Exception {
+
+        // every thread creates resources in its own folder and one file in a folder shared by all threads
+        String folder = "/testfolder2/folder" + count + "/";
+        cms.createResource(folder, CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+        for (int i = 0; i < 5; i++) {
+            cms.createResource(folder + "file" + i + ".txt", CmsResourceTypePlain.getStaticTypeId());
+        }
+        cms.createResource("/testfolder2/shared/file" + count + ".txt", CmsResourceTypePlain.getStaticTypeId());
+    }
+
     /**
      * Concurrent creation test method.<p>
      * 
@@ -196,6 +220,44 @@ public class TestConcurrentOperations extends OpenCmsTestCase {
         System.out.println("thread " + count + ": finished");
     }
 
+    /**
+     * Tests concurrent creation of resources in different folders and in the same folder.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testConcurrentCreationInFolders() throws Exception {
+
+        int count = 20;
+        echo("Concurrent creation test: Testing concurrent creation in different folders with " + count + " threads");
+
+        CmsObject cms = getCmsObject();
+        cms.createResource("/testfolder2/", CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+        cms.createResource("/testfolder2/shared/", CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+
+        String name = "doConcurrentCreationInFoldersOperation";
+        Object[] parameters = new Object[] {
+            OpenCmsThreadedTestCaseSuite.PARAM_CMSOBJECT,
+            OpenCmsThreadedTestCaseSuite.PARAM_COUNTER};
+        OpenCmsThreadedTestCaseSuite suite = new OpenCmsThreadedTestCaseSuite(count, this, name, parameters);
+        OpenCmsThreadedTestCase[] threads = suite.run();
+
+        if (suite.getThrowable() != null) {
+            throw new Exception(suite.getThrowable());
+        }
+        for (int i = 0; i < count; i++) {
+            if (threads[i].getThrowable() != null) {
+                throw new Exception(threads[i].getThrowable());
+            }
+        }
+
+        // all resources must have been created exactly once
+        assertEquals(count, cms.readResources("/testfolder2/shared/", CmsResourceFilter.ALL, false).size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(5, cms.readResources("/testfolder2/folder" + i + "/", CmsResourceFilter.ALL, false).size());
+        }
+        echo("Total runtime of concurrent test suite: " + CmsStringUtil.formatRuntime(suite.getRuntime()));
+    }
+
     /**
      * Tests concurrent creation a resource with the same name.<p>
      * 
@@ -467,4 +529,85 @@ public class TestConcurrentOperations extends OpenCmsTestCase {
         echo("Concurrent publish resource test success");
         echo("Total runtime of concurrent test suite: " + CmsStringUtil.formatRuntime(suite.getRuntime()));
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the creation of resources in the same folder is serialized, 
+     * while resources in other folders are created in parallel.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testCreationLockedPerFolder() throws Exception {
+
+        echo("Testing that resource creation is serialized per parent folder");
+
+        CmsObject cms = getCmsObject();
+        cms.createResource("/testfolder3/", CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+        CmsStripedLock locks = CmsTestDriverManagerAccess.getCreateResourceLocks(cms.m_securityManager);
+
+        // find two folders that are mapped to different locks
+        String lockedFolder = "/testfolder3/locked/";
+        String otherFolder = "/testfolder3/other0/";
+        for (int i = 1; locks.getStripe(cms.getRequestContext().addSiteRoot(otherFolder)) == locks.getStripe(
+            cms.getRequestContext().addSiteRoot(lockedFolder)); i++) {
+            otherFolder = "/testfolder3/other" + i + "/";
+        }
+        cms.createResource(lockedFolder, CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+        cms.createResource(otherFolder, CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        int[] stripes = locks.lock(cms.getRequestContext().addSiteRoot(lockedFolder));
+        Thread lockedThread;
+        try {
+            lockedThread = createResourceInThread(cms, lockedFolder + "file.txt", errors);
+            Thread otherThread = createResourceInThread(cms, otherFolder + "file.txt", errors);
+            // creation in the other folder must not wait for the locked folder
+            otherThread.join(30000);
+            assertFalse("Creation in another folder was blocked", otherThread.isAlive());
+            assertTrue(errors.toString(), errors.isEmpty());
+            assertTrue(cms.existsResource(otherFolder + "file.txt"));
+            // creation in the locked folder must wait until the lock is released
+            lockedThread.join(1000);
+            assertTrue("Creation in the locked folder was not serialized", lockedThread.isAlive());
+            assertFalse(cms.existsResource(lockedFolder + "file.txt"));
+        } finally {
+            locks.unlock(stripes);
+        }
+        lockedThread.join(30000);
+        assertFalse(lockedThread.isAlive());
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertTrue(cms.existsResource(lockedFolder + "file.txt"));
+    }
+
+    /**
+     * Starts a thread that creates a plain text file.<p>
+     * 
+     * @param cms the OpenCms user context to copy
+     * @param sitePath the site path of the file to create
+     * @param errors the list to collect errors in
+     * 
+     * @return the started thread
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private Thread createResourceInThread(CmsObject cms, final String sitePath, final List<Throwable> errors)
+    throws Exception {
+
+        final CmsObject threadCms = OpenCms.initCmsObject(cms);
+        Thread thread = new Thread() {
+
+            @Override
+            public void run() {
+
+                try {
+                    threadCms.createResource(sitePath, CmsResourceTypePlain.getStaticTypeId());
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            }
+        };
+        thread.start();
+        return thread;
+    }
+}
@@ -27,9 +27,12 @@
 
 package org.opencms.file;
 
+import org.opencms.db.CmsCompositeCacheKey;
+import org.opencms.db.CmsDriverManager;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.CmsRuntimeException;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.report.CmsShellReport;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
@@ -90,6 +93,7 @@ public class TestProperty extends OpenCmsTestCase {
         suite.addTest(new TestProperty("testDefaultPropertyCreation"));
         suite.addTest(new TestProperty("testCaseSensitiveProperties"));
         suite.addTest(new TestProperty("testReadResourcesWithProperty"));
+        suite.addTest(new TestProperty("testPropertyCacheInvalidation"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -700,6 +704,68 @@ public class TestProperty extends OpenCmsTestCase {
             descProperty.isIdentical(resultProperty));
     }
 
+    /**
+     * Tests that writing a property only removes the cached properties of the resource and its sub-tree.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPropertyCacheInvalidation() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the invalidation of the cached properties");
+
+        String folder = "/folder1/";
+        String file = "/folder1/page1.html";
+        String other = "/folder2/page1.html";
+        String title = CmsPropertyDefinition.PROPERTY_TITLE;
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+
+        cms.readPropertyObject(file, title, true);
+        cms.readPropertyObject(file, title, false);
+        cms.readPropertyObject(other, title, true);
+        CmsCompositeCacheKey searchKey = getPropertyCacheKey(cms, file, title, true);
+        CmsCompositeCacheKey directKey = getPropertyCacheKey(cms, file, title, false);
+        CmsCompositeCacheKey otherKey = getPropertyCacheKey(cms, other, title, true);
+        assertNotNull(monitor.getCachedProperty(searchKey));
+        assertNotNull(monitor.getCachedProperty(directKey));
+        assertNotNull(monitor.getCachedProperty(otherKey));
+
+        cms.lockResource(folder);
+        cms.writePropertyObject(folder, new CmsProperty(title, "Cached title", null));
+        cms.unlockResource(folder);
+
+        // the searched property of the file depends on the parent folder
+        assertNull(monitor.getCachedProperty(searchKey));
+        assertNull(monitor.getCachedProperty(directKey));
+        // the properties of other folders must stay cached
+        assertNotNull(monitor.getCachedProperty(otherKey));
+
+        assertEquals("Cached title", cms.readPropertyObject(file, title, true).getValue());
+        assertEquals(
+            cms.readPropertyObject(other, title, true).getValue(),
+            monitor.getCachedProperty(otherKey).getValue());
+    }
+
+    /**
+     * Returns the key of a single property of the given resource in the property cache.<p>
+     * 
+     * @param cms the current users context
+     * @param resourcename the name of the resource
+     * @param name the name of the property
+     * @param search if the property is searched on the parent folders
+     * 
+     * @return the key of the property in the property cache
+     */
+    private CmsCompositeCacheKey getPropertyCacheKey(CmsObject cms, String resourcename, String name, boolean search) {
+
+        return CmsCompositeCacheKey.forProperty(
+            CmsDriverManager.CACHE_ALL_PROPERTIES,
+            search,
+            cms.getRequestContext().getCurrentProject().isOnlineProject(),
+            cms.getRequestContext().addSiteRoot(resourcename),
+            name);
+    }
+
     /**
      * Tests the NULL_PROPERTY.<p>
      * 
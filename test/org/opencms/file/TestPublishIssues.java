@@ -93,6 +93,7 @@ public class TestPublishIssues extends OpenCmsTestCase {
         suite.addTest(new TestPublishIssues("testPublishScenarioF"));
         suite.addTest(new TestPublishIssues("testPublishScenarioG"));
         suite.addTest(new TestPublishIssues("testPublishScenarioH"));
+        suite.addTest(new TestPublishIssues("testPublishScenarioI"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -847,4 +848,44 @@ public class TestPublishIssues extends OpenCmsTestCase {
         assertState(cms, sibX, CmsResource.STATE_UNCHANGED);
         assertState(cms, sibY, CmsResource.STATE_UNCHANGED);
     }
+
+    /**
+     * Tests publish scenario "I".<p>
+     * 
+     * This scenario is described as follows:
+     * 
+     * We have an unlocked new folder with many new files, some of them are unlocked, 
+     * the others are locked by the current user.
+     * All resources have to get a publish lock in one go, and have to be 
+     * published and unlocked afterwards.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishScenarioI() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing publish scenario I");
+
+        String folder = "/publishLocks/";
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        cms.unlockResource(folder);
+        for (int i = 0; i < 50; i++) {
+            String file = folder + "file" + i + ".txt";
+            cms.createResource(file, CmsResourceTypePlain.getStaticTypeId());
+            if ((i % 2) == 0) {
+                cms.unlockResource(file);
+            }
+        }
+
+        OpenCms.getPublishManager().publishResource(cms, folder);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        assertState(cms, folder, CmsResource.STATE_UNCHANGED);
+        assertLock(cms, folder, CmsLockType.UNLOCKED);
+        for (int i = 0; i < 50; i++) {
+            String file = folder + "file" + i + ".txt";
+            assertState(cms, file, CmsResource.STATE_UNCHANGED);
+            assertLock(cms, file, CmsLockType.UNLOCKED);
+        }
+    }
 }
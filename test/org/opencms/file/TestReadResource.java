@@ -31,8 +31,12 @@ import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
+import java.util.Arrays;
+
 import junit.extensions.TestSetup;
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -73,6 +77,7 @@ public class TestReadResource extends OpenCmsTestCase {
         suite.addTest(new TestReadResource("testReadAfterExpirationDateIgnore"));
         suite.addTest(new TestReadResource("testReadWithResourceID"));
         suite.addTest(new TestReadResource("testReadWithWrongResourceID"));
+        suite.addTest(new TestReadResource("testReadContentStream"));
         suite.addTest(new TestReadResource("testReadFileWithResourceID"));
 
         TestSetup wrapper = new TestSetup(suite) {
@@ -373,4 +378,21 @@ public class TestReadResource extends OpenCmsTestCase {
 
     }
 
+    /**
+     * Test reading the content of a file as a stream.<p>
+     *
+     * @throws Throwable if something is wrong
+     */
+    public void testReadContentStream() throws Throwable {
+
+        String path = "/folder1/subfolder11/index.html";
+        CmsObject cms = getCmsObject();
+        CmsFile file = cms.readFile(path);
+        InputStream in = cms.readContentStream(file);
+        try {
+            assertTrue(Arrays.equals(file.getContents(), CmsFileUtil.readFully(in, false)));
+        } finally {
+            in.close();
+        }
+    }
 }
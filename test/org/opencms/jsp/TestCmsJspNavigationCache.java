@@ -0,0 +1,349 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.jsp;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the <code>{@link CmsJspNavigationCache}</code>.<p>
+ * 
+ * @since 8.5.0
+ */
+public class TestCmsJspNavigationCache extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsJspNavigationCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsJspNavigationCache.class.getName());
+
+        suite.addTest(new TestCmsJspNavigationCache("testInvalidationAfterModify"));
+        suite.addTest(new TestCmsJspNavigationCache("testInvalidationAfterMove"));
+        suite.addTest(new TestCmsJspNavigationCache("testInvalidationAfterDelete"));
+        suite.addTest(new TestCmsJspNavigationCache("testInvalidationAfterPublish"));
+        suite.addTest(new TestCmsJspNavigationCache("testPermissions"));
+        suite.addTest(new TestCmsJspNavigationCache("testResourceFilter"));
+        suite.addTest(new TestCmsJspNavigationCache("testPropertiesNotShared"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that a deleted resource is removed from the cached navigation.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testInvalidationAfterDelete() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the navigation cache after deleting a resource");
+        createNavigation(cms, "/navdelete/", new String[] {"a.html", "b.html"});
+        assertNavigation(cms, "/navdelete/", new String[] {"a.html", "b.html"});
+
+        cms.lockResource("/navdelete/a.html");
+        cms.deleteResource("/navdelete/a.html", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        assertNavigation(cms, "/navdelete/", new String[] {"b.html"});
+    }
+
+    /**
+     * Tests that changed navigation properties are visible in the cached navigation.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testInvalidationAfterModify() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the navigation cache after modifying navigation properties");
+        createNavigation(cms, "/navmodify/", new String[] {"a.html", "b.html"});
+        assertNavigation(cms, "/navmodify/", new String[] {"a.html", "b.html"});
+
+        // change the navigation text and move the first element to the end
+        cms.lockResource("/navmodify/a.html");
+        cms.writePropertyObject("/navmodify/a.html", new CmsProperty(
+            CmsPropertyDefinition.PROPERTY_NAVTEXT,
+            "Changed",
+            null));
+        cms.writePropertyObject("/navmodify/a.html", new CmsProperty(
+            CmsPropertyDefinition.PROPERTY_NAVPOS,
+            "10",
+            null));
+        List<CmsJspNavElement> navigation = assertNavigation(cms, "/navmodify/", new String[] {"b.html", "a.html"});
+        assertEquals("Changed", navigation.get(1).getNavText());
+
+        // a new resource is added to the cached navigation
+        createNavElement(cms, "/navmodify/c.html", 5);
+        assertNavigation(cms, "/navmodify/", new String[] {"b.html", "c.html", "a.html"});
+    }
+
+    /**
+     * Tests that a moved resource is removed from the navigation of the source folder 
+     * and added to the navigation of the target folder.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testInvalidationAfterMove() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the navigation cache after moving resources");
+        createNavigation(cms, "/navmove/", new String[] {"a.html", "b.html"});
+        createNavigation(cms, "/navmove/sub/", new String[] {"c.html"});
+        assertNavigation(cms, "/navmove/", new String[] {"a.html", "b.html"});
+        assertNavigation(cms, "/navmove/sub/", new String[] {"c.html"});
+
+        cms.lockResource("/navmove/b.html");
+        cms.moveResource("/navmove/b.html", "/navmove/sub/b.html");
+        assertNavigation(cms, "/navmove/", new String[] {"a.html"});
+        // b.html keeps its NavPos 2, c.html has NavPos 1
+        assertNavigation(cms, "/navmove/sub/", new String[] {"c.html", "b.html"});
+
+        // moving a folder removes its cached sub folders 
+        cms.lockResource("/navmove/sub/");
+        cms.moveResource("/navmove/sub/", "/navmove/moved/");
+        assertNavigation(cms, "/navmove/moved/", new String[] {"c.html", "b.html"});
+        assertFalse(cms.existsResource("/navmove/sub/"));
+    }
+
+    /**
+     * Tests that the online navigation is updated after publishing.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testInvalidationAfterPublish() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the navigation cache after publishing");
+        createNavigation(cms, "/navpublish/", new String[] {"a.html", "b.html"});
+        OpenCms.getPublishManager().publishResource(cms, "/navpublish/");
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsObject onlineCms = OpenCms.initCmsObject(cms);
+        onlineCms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        assertNavigation(onlineCms, "/navpublish/", new String[] {"a.html", "b.html"});
+
+        // the offline change does not affect the online navigation until it is published
+        cms.lockResource("/navpublish/a.html");
+        cms.writePropertyObject("/navpublish/a.html", new CmsProperty(
+            CmsPropertyDefinition.PROPERTY_NAVPOS,
+            "10",
+            null));
+        createNavElement(cms, "/navpublish/c.html", 5);
+        assertNavigation(onlineCms, "/navpublish/", new String[] {"a.html", "b.html"});
+        assertNavigation(cms, "/navpublish/", new String[] {"b.html", "c.html", "a.html"});
+
+        OpenCms.getPublishManager().publishResource(cms, "/navpublish/");
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertNavigation(onlineCms, "/navpublish/", new String[] {"b.html", "c.html", "a.html"});
+    }
+
+    /**
+     * Tests that the cached navigation only contains the resources the current user can read.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testPermissions() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the read permissions of the cached navigation");
+        createNavigation(cms, "/navpermissions/", new String[] {"a.html", "b.html"});
+        cms.createUser("navUser", "secret", "", null);
+        cms.addUserToGroup("navUser", OpenCms.getDefaultUsers().getGroupUsers());
+        cms.lockResource("/navpermissions/b.html");
+        cms.chacc("/navpermissions/b.html", I_CmsPrincipal.PRINCIPAL_USER, "navUser", "-r");
+        cms.unlockResource("/navpermissions/b.html");
+
+        // the administrator fills the cache
+        assertNavigation(cms, "/navpermissions/", new String[] {"a.html", "b.html"});
+
+        CmsObject userCms = OpenCms.initCmsObject(cms);
+        userCms.loginUser("navUser", "secret");
+        userCms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+        assertNavigation(userCms, "/navpermissions/", new String[] {"a.html"});
+        assertNavigation(cms, "/navpermissions/", new String[] {"a.html", "b.html"});
+    }
+
+    /**
+     * Tests that changing the properties of a navigation element does not change the cached properties.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testPropertiesNotShared() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that the properties of the navigation elements are not shared");
+        createNavigation(cms, "/navproperties/", new String[] {"a.html"});
+        CmsJspNavElement element = assertNavigation(cms, "/navproperties/", new String[] {"a.html"}).get(0);
+        element.getProperties().put(CmsPropertyDefinition.PROPERTY_NAVTEXT, "Changed");
+        assertEquals("Changed", element.getNavText());
+
+        element = assertNavigation(cms, "/navproperties/", new String[] {"a.html"}).get(0);
+        assertEquals("a.html", element.getNavText());
+    }
+
+    /**
+     * Tests that the resource filter is applied to the cached navigation.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testResourceFilter() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the resource filter of the cached navigation");
+        createNavigation(cms, "/navfilter/", new String[] {"a.html", "b.html"});
+        cms.lockResource("/navfilter/b.html");
+        cms.setDateExpired("/navfilter/b.html", System.currentTimeMillis() - 100000, false);
+        cms.unlockResource("/navfilter/b.html");
+
+        CmsJspNavBuilder builder = new CmsJspNavBuilder(cms);
+        assertEquals(
+            Arrays.asList(new String[] {"a.html"}),
+            getNames(builder.getNavigationForFolder("/navfilter/", false, CmsResourceFilter.DEFAULT)));
+        assertEquals(
+            Arrays.asList(new String[] {"a.html", "b.html"}),
+            getNames(builder.getNavigationForFolder("/navfilter/", false, CmsResourceFilter.IGNORE_EXPIRATION)));
+        assertEquals(
+            Arrays.asList(new String[] {"a.html"}),
+            getNames(builder.getNavigationForFolder("/navfilter/", false, CmsResourceFilter.DEFAULT)));
+    }
+
+    /**
+     * Asserts that the navigation of the given folder contains the given resources in the given order.<p>
+     * 
+     * @param cms the CMS context
+     * @param folder the folder 
+     * @param names the expected names of the resources
+     * 
+     * @return the navigation of the folder
+     */
+    private List<CmsJspNavElement> assertNavigation(CmsObject cms, String folder, String[] names) {
+
+        List<CmsJspNavElement> navigation = new CmsJspNavBuilder(cms).getNavigationForFolder(folder);
+        assertEquals(Arrays.asList(names), getNames(navigation));
+        return navigation;
+    }
+
+    /**
+     * Creates a resource in the navigation.<p>
+     * 
+     * @param cms the CMS context
+     * @param path the path of the resource 
+     * @param position the navigation position
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void createNavElement(CmsObject cms, String path, int position) throws Exception {
+
+        List<CmsProperty> properties = new ArrayList<CmsProperty>();
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVTEXT, CmsResource.getName(path), null));
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVPOS, String.valueOf(position), null));
+        cms.createResource(path, CmsResourceTypePlain.getStaticTypeId(), "content".getBytes(), properties);
+    }
+
+    /**
+     * Creates a folder with resources in the navigation, in the given order.<p>
+     * 
+     * @param cms the CMS context
+     * @param folder the folder to create
+     * @param names the names of the resources to create in the folder
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void createNavigation(CmsObject cms, String folder, String[] names) throws Exception {
+
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        for (int i = 0; i < names.length; i++) {
+            createNavElement(cms, folder + names[i], i + 1);
+        }
+        cms.unlockResource(folder);
+    }
+
+    /**
+     * Returns the resource names of the given navigation elements.<p>
+     * 
+     * @param navigation the navigation elements
+     * 
+     * @return the resource names
+     */
+    private List<String> getNames(List<CmsJspNavElement> navigation) {
+
+        List<String> result = new ArrayList<String>();
+        for (CmsJspNavElement element : navigation) {
+            result.add(element.getFileName());
+        }
+        return result;
+    }
+}
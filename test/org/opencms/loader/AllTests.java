@@ -59,6 +59,10 @@ public final class AllTests {
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsImageScaler.class));
         suite.addTest(new TestSuite(TestCmsDefaultFileNameGenerator.class));
+        suite.addTest(TestCmsImageLoader.suite());
+        suite.addTest(TestCmsDumpLoader.suite());
+        suite.addTest(TestCmsJspLoader.suite());
+        suite.addTest(TestCmsJspWarmUp.suite());
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,413 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.test.OpenCmsTestServletRequest;
+import org.opencms.test.OpenCmsTestServletResponse;
+import org.opencms.util.CmsRequestUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for streaming and byte ranges in the {@link CmsDumpLoader}.<p>
+ */
+public class TestCmsDumpLoader extends OpenCmsTestCase {
+
+    /**
+     * A request with configurable headers.<p>
+     */
+    static class TestRequest extends OpenCmsTestServletRequest {
+
+        /** The date headers. */
+        Map<String, Long> m_dateHeaders = new HashMap<String, Long>();
+
+        /** The headers. */
+        Map<String, String> m_headers = new HashMap<String, String>();
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#getDateHeader(java.lang.String)
+         */
+        @Override
+        public long getDateHeader(String name) {
+
+            Long value = m_dateHeaders.get(name);
+            return value == null ? -1 : value.longValue();
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#getHeader(java.lang.String)
+         */
+        @Override
+        public String getHeader(String name) {
+
+            if (m_dateHeaders.containsKey(name)) {
+                return String.valueOf(m_dateHeaders.get(name));
+            }
+            return m_headers.get(name);
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#getSession(boolean)
+         */
+        @Override
+        public HttpSession getSession(boolean create) {
+
+            return null;
+        }
+    }
+
+    /**
+     * A response that records the status, the headers and the content.<p>
+     */
+    static class TestResponse extends OpenCmsTestServletResponse {
+
+        /** The content. */
+        ByteArrayOutputStream m_content = new ByteArrayOutputStream();
+
+        /** The content length. */
+        int m_contentLength = -1;
+
+        /** The headers. */
+        Map<String, String> m_headers = new HashMap<String, String>();
+
+        /** The status. */
+        int m_status;
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletResponse#containsHeader(java.lang.String)
+         */
+        @Override
+        public boolean containsHeader(String name) {
+
+            return m_headers.containsKey(name);
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletResponse#getOutputStream()
+         */
+        @Override
+        public ServletOutputStream getOutputStream() {
+
+            return new ServletOutputStream() {
+
+                @Override
+                public void write(int b) {
+
+                    m_content.write(b);
+                }
+            };
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletResponse#setContentLength(int)
+         */
+        @Override
+        public void setContentLength(int length) {
+
+            m_contentLength = length;
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletResponse#setDateHeader(java.lang.String, long)
+         */
+        @Override
+        public void setDateHeader(String name, long date) {
+
+            m_headers.put(name, String.valueOf(date));
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletResponse#setHeader(java.lang.String, java.lang.String)
+         */
+        @Override
+        public void setHeader(String name, String value) {
+
+            m_headers.put(name, value);
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletResponse#setStatus(int)
+         */
+        @Override
+        public void setStatus(int status) {
+
+            m_status = status;
+        }
+    }
+
+    /** The path of the large file, which is streamed. */
+    private static final String LARGE_FILE = "/dumploader/large.bin";
+
+    /** The path of the small file, which is read completely. */
+    private static final String SMALL_FILE = "/dumploader/small.bin";
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsDumpLoader(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsDumpLoader.class.getName());
+
+        suite.addTest(new TestCmsDumpLoader("testCreateFiles"));
+        suite.addTest(new TestCmsDumpLoader("testStreamLargeFile"));
+        suite.addTest(new TestCmsDumpLoader("testRangeOfLargeFile"));
+        suite.addTest(new TestCmsDumpLoader("testRangeOfSmallFile"));
+        suite.addTest(new TestCmsDumpLoader("testUnsatisfiableRange"));
+        suite.addTest(new TestCmsDumpLoader("testIfRange"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/sites/default/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Creates the files used by the other tests.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testCreateFiles() throws Exception {
+
+        echo("Creating the files for the dump loader tests");
+        CmsObject cms = getCmsObject();
+        cms.createResource("/dumploader/", CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+        cms.createResource(
+            LARGE_FILE,
+            CmsResourceTypePlain.getStaticTypeId(),
+            getContent((int)(CmsDumpLoader.DEFAULT_STREAMING_THRESHOLD + 12345)),
+            null);
+        cms.createResource(SMALL_FILE, CmsResourceTypePlain.getStaticTypeId(), getContent(5000), null);
+    }
+
+    /**
+     * Tests requesting a single byte range of a large, streamed file.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testRangeOfLargeFile() throws Exception {
+
+        echo("Testing a byte range of a streamed file");
+        byte[] content = getContent((int)(CmsDumpLoader.DEFAULT_STREAMING_THRESHOLD + 12345));
+        TestRequest req = new TestRequest();
+        req.m_headers.put(CmsRequestUtil.HEADER_RANGE, "bytes=1000000-1048675");
+        TestResponse res = load(LARGE_FILE, req);
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, res.m_status);
+        assertEquals("bytes 1000000-1048675/" + content.length, res.m_headers.get(CmsRequestUtil.HEADER_CONTENT_RANGE));
+        assertEquals(48676, res.m_contentLength);
+        assertTrue(Arrays.equals(getPart(content, 1000000, 1048676), res.m_content.toByteArray()));
+
+        // a suffix range
+        req = new TestRequest();
+        req.m_headers.put(CmsRequestUtil.HEADER_RANGE, "bytes=-100");
+        res = load(LARGE_FILE, req);
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, res.m_status);
+        assertTrue(Arrays.equals(
+            getPart(content, content.length - 100, content.length),
+            res.m_content.toByteArray()));
+    }
+
+    /**
+     * Tests requesting a single byte range of a small file, which is not streamed.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testRangeOfSmallFile() throws Exception {
+
+        echo("Testing a byte range of a small file");
+        byte[] content = getContent(5000);
+        TestRequest req = new TestRequest();
+        req.m_headers.put(CmsRequestUtil.HEADER_RANGE, "bytes=4000-");
+        TestResponse res = load(SMALL_FILE, req);
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, res.m_status);
+        assertEquals("bytes 4000-4999/5000", res.m_headers.get(CmsRequestUtil.HEADER_CONTENT_RANGE));
+        assertTrue(Arrays.equals(getPart(content, 4000, 5000), res.m_content.toByteArray()));
+
+        // without a range the complete content is sent
+        res = load(SMALL_FILE, new TestRequest());
+        assertEquals(HttpServletResponse.SC_OK, res.m_status);
+        assertEquals("bytes", res.m_headers.get(CmsRequestUtil.HEADER_ACCEPT_RANGES));
+        assertTrue(Arrays.equals(content, res.m_content.toByteArray()));
+    }
+
+    /**
+     * Tests that a range is ignored if the "If-Range" date does not match the file.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testIfRange() throws Exception {
+
+        echo("Testing the If-Range header");
+        byte[] content = getContent((int)(CmsDumpLoader.DEFAULT_STREAMING_THRESHOLD + 12345));
+        long dateLastModified = getCmsObject().readResource(LARGE_FILE).getDateLastModified();
+
+        TestRequest req = new TestRequest();
+        req.m_headers.put(CmsRequestUtil.HEADER_RANGE, "bytes=0-9");
+        req.m_dateHeaders.put(CmsRequestUtil.HEADER_IF_RANGE, Long.valueOf(dateLastModified));
+        TestResponse res = load(LARGE_FILE, req);
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, res.m_status);
+        assertEquals(10, res.m_content.size());
+
+        // the file has changed since the client got it, so the complete content is sent
+        req = new TestRequest();
+        req.m_headers.put(CmsRequestUtil.HEADER_RANGE, "bytes=0-9");
+        req.m_dateHeaders.put(CmsRequestUtil.HEADER_IF_RANGE, Long.valueOf(dateLastModified - 60000));
+        res = load(LARGE_FILE, req);
+        assertEquals(HttpServletResponse.SC_OK, res.m_status);
+        assertTrue(Arrays.equals(content, res.m_content.toByteArray()));
+    }
+
+    /**
+     * Tests streaming a large file without range.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testStreamLargeFile() throws Exception {
+
+        echo("Testing streaming a large file");
+        byte[] content = getContent((int)(CmsDumpLoader.DEFAULT_STREAMING_THRESHOLD + 12345));
+        TestResponse res = load(LARGE_FILE, new TestRequest());
+        assertEquals(HttpServletResponse.SC_OK, res.m_status);
+        assertEquals(content.length, res.m_contentLength);
+        assertEquals("bytes", res.m_headers.get(CmsRequestUtil.HEADER_ACCEPT_RANGES));
+        assertTrue(Arrays.equals(content, res.m_content.toByteArray()));
+    }
+
+    /**
+     * Tests requesting a range outside of the content.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testUnsatisfiableRange() throws Exception {
+
+        echo("Testing an unsatisfiable byte range");
+        TestRequest req = new TestRequest();
+        req.m_headers.put(CmsRequestUtil.HEADER_RANGE, "bytes=5000-6000");
+        TestResponse res = load(SMALL_FILE, req);
+        assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, res.m_status);
+        assertEquals("bytes */5000", res.m_headers.get(CmsRequestUtil.HEADER_CONTENT_RANGE));
+        assertEquals(0, res.m_content.size());
+    }
+
+    /**
+     * Returns the test content of the given length.<p>
+     * 
+     * @param length the length
+     * 
+     * @return the test content
+     */
+    private static byte[] getContent(int length) {
+
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte)(i * 31 + (i >> 8));
+        }
+        return content;
+    }
+
+    /**
+     * Returns a part of the given content.<p>
+     * 
+     * @param content the content
+     * @param from the index of the first byte
+     * @param to the index after the last byte
+     * 
+     * @return the part of the content
+     */
+    private static byte[] getPart(byte[] content, int from, int to) {
+
+        byte[] result = new byte[to - from];
+        System.arraycopy(content, from, result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * Loads a file with the dump loader.<p>
+     * 
+     * The resource is read without content, just like by the resource manager for a request.<p>
+     * 
+     * @param path the path of the file
+     * @param req the request
+     * 
+     * @return the response
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private TestResponse load(String path, TestRequest req) throws Exception {
+
+        CmsObject cms = getCmsObject();
+        CmsResource resource = cms.readResource(path);
+        TestResponse res = new TestResponse();
+        OpenCms.getResourceManager().getLoader(CmsDumpLoader.RESOURCE_LOADER_ID).load(cms, resource, req, res);
+        return res;
+    }
+}
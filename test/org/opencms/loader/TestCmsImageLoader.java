@@ -0,0 +1,414 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the image scaling of the {@link CmsImageLoader}.<p>
+ * 
+ * The special configuration of this test uses 2 image scaling threads, a queue size of 1 
+ * and the image variants "w:60,h:40" and "h:30,w:30".<p>
+ */
+public class TestCmsImageLoader extends OpenCmsTestCase {
+
+    /**
+     * An image scaler that counts its invocations and waits until it is released before scaling.<p>
+     */
+    static class BlockingScaler extends CmsImageScaler {
+
+        /** The number of times an image has been scaled. */
+        final AtomicInteger m_count = new AtomicInteger();
+
+        /** Released to let the scaling continue. */
+        final CountDownLatch m_release;
+
+        /** Counted down when the scaling has started. */
+        final CountDownLatch m_started = new CountDownLatch(1);
+
+        /**
+         * Creates a new scaler.<p>
+         * 
+         * @param parameters the scaling parameters
+         * @param release the latch to wait for before scaling
+         */
+        BlockingScaler(String parameters, CountDownLatch release) {
+
+            super(parameters);
+            m_release = release;
+        }
+
+        /**
+         * @see org.opencms.loader.CmsImageScaler#scaleImage(org.opencms.file.CmsFile)
+         */
+        @Override
+        public byte[] scaleImage(CmsFile file) {
+
+            m_count.incrementAndGet();
+            m_started.countDown();
+            try {
+                m_release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.scaleImage(file);
+        }
+    }
+
+    /** The path of the image used in the tests. */
+    private static final String IMAGE = "/folder1/image1.gif";
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsImageLoader(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsImageLoader.class.getName());
+
+        suite.addTest(new TestCmsImageLoader("testScalingDeduplicated"));
+        suite.addTest(new TestCmsImageLoader("testScalingInterruptedOwner"));
+        suite.addTest(new TestCmsImageLoader("testScalingPoolBounded"));
+        suite.addTest(new TestCmsImageLoader("testVariantsScaledOnPublish"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/", "/../org/opencms/loader/imagescaling");
+                // scaled images left over from a previous run must not be found in the cache
+                CmsFileUtil.purgeDirectory(new File(CmsImageLoader.m_vfsDiskCache.getRepositoryPath()));
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that concurrent requests for the same scaled image scale it only once.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testScalingDeduplicated() throws Exception {
+
+        echo("Testing that concurrent requests for the same scaled image scale it only once");
+        final CmsObject cms = getCmsObject();
+        final CmsImageLoader loader = getImageLoader();
+        final CmsResource resource = cms.readResource(IMAGE);
+        CountDownLatch release = new CountDownLatch(1);
+        final BlockingScaler scaler = new BlockingScaler("w:21,h:21", release);
+
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        final List<byte[]> results = new ArrayList<byte[]>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 5; i++) {
+            final CmsObject threadCms = OpenCms.initCmsObject(cms);
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        byte[] content = loader.getScaledImage(threadCms, resource, scaler).getContents();
+                        synchronized (results) {
+                            results.add(content);
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        assertTrue(scaler.m_started.await(30, TimeUnit.SECONDS));
+        // give the other threads time to find the running task
+        Thread.sleep(200);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(30000);
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertEquals(5, results.size());
+        assertEquals(1, scaler.m_count.get());
+        for (byte[] content : results) {
+            assertTrue(Arrays.equals(results.get(0), content));
+        }
+        assertScalingTasksRemoved();
+    }
+
+    /**
+     * Tests that the scaling is not started twice if the thread that started it is interrupted.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testScalingInterruptedOwner() throws Exception {
+
+        echo("Testing that an interrupted request does not cause a second scaling of the same image");
+        CmsObject cms = getCmsObject();
+        final CmsImageLoader loader = getImageLoader();
+        final CmsResource resource = cms.readResource(IMAGE);
+        CountDownLatch release = new CountDownLatch(1);
+        final BlockingScaler scaler = new BlockingScaler("w:22,h:22", release);
+
+        final CmsObject ownerCms = OpenCms.initCmsObject(cms);
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        Thread owner = new Thread() {
+
+            @Override
+            public void run() {
+
+                try {
+                    loader.getScaledImage(ownerCms, resource, scaler);
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            }
+        };
+        owner.start();
+        assertTrue(scaler.m_started.await(30, TimeUnit.SECONDS));
+        owner.interrupt();
+        owner.join(30000);
+        // the request was interrupted while waiting, but the scaling is still running in the pool
+        assertEquals(1, errors.size());
+        assertEquals(1, CmsImageLoader.m_scalingTasks.size());
+
+        final byte[][] result = new byte[1][];
+        final CmsObject waiterCms = OpenCms.initCmsObject(cms);
+        Thread waiter = new Thread() {
+
+            @Override
+            public void run() {
+
+                try {
+                    result[0] = loader.getScaledImage(waiterCms, resource, scaler).getContents();
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            }
+        };
+        waiter.start();
+        Thread.sleep(200);
+        release.countDown();
+        waiter.join(30000);
+        assertEquals(errors.toString(), 1, errors.size());
+        assertNotNull(result[0]);
+        assertEquals(1, scaler.m_count.get());
+        assertScalingTasksRemoved();
+    }
+
+    /**
+     * Tests that the image scaling thread pool is bounded, and that requests which do not want to wait 
+     * are rejected if the pool is saturated.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testScalingPoolBounded() throws Exception {
+
+        echo("Testing the bounded image scaling thread pool");
+        CmsObject cms = getCmsObject();
+        final CmsImageLoader loader = getImageLoader();
+        final CmsResource resource = cms.readResource(IMAGE);
+        assertEquals(2, CmsImageLoader.m_scalingPool.getMaximumPoolSize());
+
+        // occupy both threads and the queue with scalings of different sizes
+        CountDownLatch release = new CountDownLatch(1);
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        List<BlockingScaler> scalers = new ArrayList<BlockingScaler>();
+        for (int i = 0; i < 3; i++) {
+            final BlockingScaler scaler = new BlockingScaler("w:" + (30 + i) + ",h:30", release);
+            scalers.add(scaler);
+            final CmsObject threadCms = OpenCms.initCmsObject(cms);
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        loader.getScaledImage(threadCms, resource, scaler);
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            };
+            threads.add(thread);
+        }
+        try {
+            // start the requests one after the other, since the idle threads of the pool take their tasks 
+            // from the queue, so requests at the same time could find the queue full and scale themselves
+            ThreadPoolExecutor pool = CmsImageLoader.m_scalingPool;
+            for (int i = 0; i < 2; i++) {
+                threads.get(i).start();
+                assertTrue(scalers.get(i).m_started.await(30, TimeUnit.SECONDS));
+            }
+            // wait until the third scaling is queued
+            threads.get(2).start();
+            for (int i = 0; (i < 300) && (pool.getQueue().size() < 1); i++) {
+                Thread.sleep(100);
+            }
+            assertEquals(2, CmsImageLoader.m_scalingPool.getActiveCount());
+            assertEquals(1, CmsImageLoader.m_scalingPool.getQueue().size());
+
+            // the pool is saturated, so a request that does not wait is rejected
+            CmsImageScaler other = new CmsImageScaler("w:40,h:40");
+            assertNull(loader.getScaledImage(OpenCms.initCmsObject(cms), resource, other, false));
+            assertEquals(2, CmsImageLoader.m_scalingPool.getPoolSize());
+        } finally {
+            release.countDown();
+        }
+        for (Thread thread : threads) {
+            thread.join(30000);
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+        for (BlockingScaler scaler : scalers) {
+            assertEquals(1, scaler.m_count.get());
+        }
+    }
+
+    /**
+     * Tests that publishing an image creates the configured variants under the cache names 
+     * that are used when the same scaled versions are requested.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testVariantsScaledOnPublish() throws Exception {
+
+        echo("Testing that the configured image variants are created when an image is published");
+        CmsObject cms = getCmsObject();
+        CmsImageLoader loader = getImageLoader();
+        String path = "/folder1/variant.gif";
+        cms.copyResource(IMAGE, path, CmsResource.COPY_AS_NEW);
+        cms.unlockResource(path);
+        OpenCms.getPublishManager().publishResource(cms, path);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsObject onlineCms = OpenCms.initCmsObject(cms);
+        onlineCms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        CmsResource resource = onlineCms.readResource(path);
+        // the parameters of a request, in the order a client sends them
+        String[] requested = new String[] {"w:60,h:40", "w:30,h:30"};
+        for (int i = 0; i < requested.length; i++) {
+            String cacheName = CmsImageLoader.m_vfsDiskCache.getCacheName(
+                resource,
+                new CmsImageScaler(requested[i]).toString());
+            // the variants are created in the background after publishing
+            File cacheFile = new File(cacheName);
+            for (int j = 0; (j < 300) && !cacheFile.exists(); j++) {
+                Thread.sleep(100);
+            }
+            assertTrue("Variant " + requested[i] + " not created: " + cacheName, cacheFile.exists());
+
+            // the request for the scaled version uses the variant without scaling again
+            CountDownLatch release = new CountDownLatch(0);
+            BlockingScaler scaler = new BlockingScaler(requested[i], release);
+            CmsFile scaled = loader.getScaledImage(onlineCms, resource, scaler);
+            assertEquals(0, scaler.m_count.get());
+            assertTrue(Arrays.equals(CmsFileUtil.readFile(cacheFile), scaled.getContents()));
+        }
+        // no other variants are created
+        CmsImageScaler other = new CmsImageScaler("w:61,h:40");
+        assertFalse(new File(CmsImageLoader.m_vfsDiskCache.getCacheName(resource, other.toString())).exists());
+    }
+
+    /**
+     * Asserts that the running scaling tasks have been removed.<p>
+     * 
+     * A task is removed after the threads waiting for its result have been released,
+     * so this waits for a short time.<p>
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void assertScalingTasksRemoved() throws InterruptedException {
+
+        for (int i = 0; (i < 100) && !CmsImageLoader.m_scalingTasks.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(CmsImageLoader.m_scalingTasks.isEmpty());
+    }
+
+    /**
+     * Returns the configured image loader.<p>
+     * 
+     * @return the configured image loader
+     */
+    private CmsImageLoader getImageLoader() {
+
+        return (CmsImageLoader)OpenCms.getResourceManager().getLoader(
+            CmsImageLoader.RESOURCE_LOADER_ID_IMAGE_LOADER);
+    }
+}
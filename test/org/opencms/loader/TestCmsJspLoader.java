@@ -0,0 +1,456 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypeJsp;
+import org.opencms.flex.CmsFlexController;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.test.OpenCmsTestServletRequest;
+import org.opencms.test.OpenCmsTestServletResponse;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the updates of the JSP repository in the {@link CmsJspLoader}.<p>
+ * 
+ * @since 8.5.0
+ */
+public class TestCmsJspLoader extends OpenCmsTestCase {
+
+    /**
+     * A request that stores the attributes and has no parameters.<p>
+     */
+    static class TestRequest extends OpenCmsTestServletRequest {
+
+        /** The request attributes. */
+        Map<String, Object> m_attributes = new HashMap<String, Object>();
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#getAttribute(java.lang.String)
+         */
+        @Override
+        public Object getAttribute(String name) {
+
+            return m_attributes.get(name);
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#getAttributeNames()
+         */
+        @Override
+        public Enumeration getAttributeNames() {
+
+            return Collections.enumeration(m_attributes.keySet());
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#getParameterMap()
+         */
+        @Override
+        public Map getParameterMap() {
+
+            return new HashMap<String, String[]>();
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#getParameterValues(java.lang.String)
+         */
+        @Override
+        public String[] getParameterValues(String name) {
+
+            return null;
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#removeAttribute(java.lang.String)
+         */
+        @Override
+        public void removeAttribute(String name) {
+
+            m_attributes.remove(name);
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#setAttribute(java.lang.String, java.lang.Object)
+         */
+        @Override
+        public void setAttribute(String name, Object value) {
+
+            m_attributes.put(name, value);
+        }
+    }
+
+    /** The folder of the test JSPs. */
+    private static final String FOLDER = "/jsploader/";
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsJspLoader(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsJspLoader.class.getName());
+
+        suite.addTest(new TestCmsJspLoader("testWriteJspFile"));
+        suite.addTest(new TestCmsJspLoader("testUpToDateWithoutLock"));
+        suite.addTest(new TestCmsJspLoader("testConcurrentUpdates"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that concurrent updates of the same JSP all see the new contents and leave no temporary files.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testConcurrentUpdates() throws Exception {
+
+        final CmsObject cms = getCmsObject();
+        echo("Testing concurrent updates of the same JSP");
+        final CmsResource resource = createJsp(cms, "concurrent.jsp", "version 1");
+        final CmsJspLoader loader = getLoader();
+        updateJsp(cms, resource);
+
+        // change the JSP, then let several threads update the repository at once
+        CmsFile file = cms.readFile(resource);
+        file.setContents("version 2".getBytes());
+        cms.writeFile(file);
+        final CmsResource changed = cms.readResource(resource.getStructureId());
+        File jspFile = getJspFile(loader, changed);
+
+        int count = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(count);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < count; i++) {
+                results.add(pool.submit(new Callable<String>() {
+
+                    public String call() throws Exception {
+
+                        CmsObject threadCms = OpenCms.initCmsObject(cms);
+                        start.await();
+                        return updateJsp(threadCms, changed);
+                    }
+                }));
+            }
+            start.countDown();
+            String target = null;
+            for (Future<String> result : results) {
+                String name = result.get(60, TimeUnit.SECONDS);
+                if (target == null) {
+                    target = name;
+                }
+                assertEquals(target, name);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        String contents = new String(CmsFileUtil.readFile(jspFile));
+        assertTrue(contents, contents.indexOf("version 2") >= 0);
+        assertEquals(0, loader.getFileLocks().size());
+        assertNoTempFiles(jspFile);
+    }
+
+    /**
+     * Tests that an up to date JSP is checked without taking the lock of the file,
+     * and that an outdated JSP waits for the lock.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testUpToDateWithoutLock() throws Exception {
+
+        final CmsObject cms = getCmsObject();
+        echo("Testing that up to date JSPs are checked without a lock");
+        CmsResource resource = createJsp(cms, "uptodate.jsp", "up to date");
+        final CmsJspLoader loader = getLoader();
+        updateJsp(cms, resource);
+        final CmsResource written = cms.readResource(resource.getStructureId());
+        final File jspFile = getJspFile(loader, written);
+        assertTrue(jspFile.exists());
+
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread() {
+
+            @Override
+            public void run() {
+
+                loader.getFileLocks().lock(jspFile.getPath());
+                try {
+                    locked.countDown();
+                    release.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                } finally {
+                    loader.getFileLocks().unlock(jspFile.getPath());
+                }
+            }
+        };
+        holder.start();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+            // the JSP is up to date, so the update returns although the lock is held by another thread
+            pool.submit(new Callable<String>() {
+
+                public String call() throws Exception {
+
+                    return updateJsp(OpenCms.initCmsObject(cms), written);
+                }
+            }).get(10, TimeUnit.SECONDS);
+
+            // a resource that is newer than the repository file must wait for the lock
+            final CmsResource outdated = (CmsResource)written.clone();
+            outdated.setDateLastModified(jspFile.lastModified() + 60000);
+            Future<String> update = pool.submit(new Callable<String>() {
+
+                public String call() throws Exception {
+
+                    return updateJsp(OpenCms.initCmsObject(cms), outdated);
+                }
+            });
+            try {
+                update.get(500, TimeUnit.MILLISECONDS);
+                fail("Updating an outdated JSP must wait for the lock");
+            } catch (TimeoutException e) {
+                // expected
+            }
+            release.countDown();
+            update.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            pool.shutdown();
+            holder.join();
+        }
+        assertEquals(0, loader.getFileLocks().size());
+    }
+
+    /**
+     * Tests that the repository files are replaced atomically, even if they are written concurrently.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testWriteJspFile() throws Exception {
+
+        echo("Testing the atomic replacement of JSP repository files");
+        final CmsJspLoader loader = getLoader();
+        File folder = new File(loader.getJspRepository(), "testWriteJspFile");
+        folder.mkdirs();
+        final File jspFile = new File(folder, "test.jsp");
+        final int size = 64 * 1024;
+        int count = 4;
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> writers = new ArrayList<Thread>();
+        for (int t = 0; t < count; t++) {
+            final byte value = (byte)('a' + t);
+            Thread writer = new Thread() {
+
+                @Override
+                public void run() {
+
+                    byte[] contents = new byte[size];
+                    Arrays.fill(contents, value);
+                    try {
+                        for (int i = 0; i < 50; i++) {
+                            loader.writeJspFile(jspFile, contents);
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            };
+            writers.add(writer);
+            writer.start();
+        }
+        // readers must always see one complete version of the file
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread writer : writers) {
+                running |= writer.isAlive();
+            }
+            if (jspFile.exists()) {
+                byte[] read;
+                try {
+                    read = CmsFileUtil.readFile(jspFile);
+                } catch (FileNotFoundException e) {
+                    // the file was replaced between the check and the read on a file system without atomic rename
+                    continue;
+                }
+                assertEquals(size, read.length);
+                for (int i = 1; i < read.length; i++) {
+                    if (read[i] != read[0]) {
+                        fail("Partially written file read");
+                    }
+                }
+            }
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertEquals(size, jspFile.length());
+        assertNoTempFiles(jspFile);
+    }
+
+    /**
+     * Asserts that the folder of the given repository file contains no temporary files.<p>
+     * 
+     * @param jspFile the repository file
+     */
+    private void assertNoTempFiles(File jspFile) {
+
+        String[] names = jspFile.getParentFile().list();
+        for (int i = 0; i < names.length; i++) {
+            assertFalse(names[i], names[i].endsWith(".tmp"));
+        }
+    }
+
+    /**
+     * Creates a JSP in the test folder, with a date of last modification in the past.<p>
+     * 
+     * @param cms the current users context
+     * @param name the name of the JSP
+     * @param content the content of the JSP
+     * 
+     * @return the JSP
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private CmsResource createJsp(CmsObject cms, String name, String content) throws Exception {
+
+        if (!cms.existsResource(FOLDER)) {
+            cms.createResource(FOLDER, CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+        }
+        String path = FOLDER + name;
+        cms.createResource(path, CmsResourceTypeJsp.getJSPTypeId(), content.getBytes(), null);
+        // make sure the repository file is newer, also on file systems with a coarse time resolution
+        cms.setDateLastModified(path, System.currentTimeMillis() - 10000, false);
+        return cms.readResource(path);
+    }
+
+    /**
+     * Returns the repository file of the given JSP in the offline project.<p>
+     * 
+     * @param loader the JSP loader
+     * @param resource the JSP
+     * 
+     * @return the repository file
+     */
+    private File getJspFile(CmsJspLoader loader, CmsResource resource) {
+
+        return new File(CmsFileUtil.getRepositoryName(loader.getJspRepository(), resource.getRootPath(), false));
+    }
+
+    /**
+     * Returns the JSP loader.<p>
+     * 
+     * @return the JSP loader
+     */
+    private CmsJspLoader getLoader() {
+
+        return (CmsJspLoader)OpenCms.getResourceManager().getLoader(CmsJspLoader.RESOURCE_LOADER_ID);
+    }
+
+    /**
+     * Updates the given JSP in the JSP repository, using a new Flex controller.<p>
+     * 
+     * @param cms the current users context
+     * @param resource the JSP
+     * 
+     * @return the name of the JSP in the repository
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private String updateJsp(CmsObject cms, CmsResource resource) throws Exception {
+
+        CmsJspLoader loader = getLoader();
+        CmsFlexController controller = loader.getController(
+            cms,
+            resource,
+            new TestRequest(),
+            new OpenCmsTestServletResponse(),
+            false,
+            true);
+        return loader.updateJsp(resource, controller, new HashSet<String>());
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypeJsp;
+import org.opencms.flex.CmsFlexRequest;
+import org.opencms.main.OpenCms;
+import org.opencms.publish.CmsPublishJobFinished;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the {@link CmsJspWarmUp}.<p>
+ * 
+ * @since 8.5.0
+ */
+public class TestCmsJspWarmUp extends OpenCmsTestCase {
+
+    /** The configured warm-up paths. */
+    private static final List<String> PATHS = Arrays.asList("/system/warmup", "/sites/default/warmup/");
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsJspWarmUp(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsJspWarmUp.class.getName());
+
+        suite.addTest(new TestCmsJspWarmUp("testIsWarmUpPath"));
+        suite.addTest(new TestCmsJspWarmUp("testGetWarmUpUrl"));
+        suite.addTest(new TestCmsJspWarmUp("testGetPublishedJsps"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the JSPs including a published JSP are warmed up as well.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testGetPublishedJsps() throws Exception {
+
+        CmsObject cms = getRootCmsObject();
+        echo("Testing the JSPs to warm up after publishing");
+        CmsJspWarmUp warmUp = new CmsJspWarmUp(PATHS, null, 1);
+
+        // the include is outside of the warm-up paths, the outer JSP includes it indirectly
+        CmsResource include = createJsp(cms, "/system/includes/include.jsp", "include 1");
+        CmsResource page = createJsp(cms, "/system/warmup/page.jsp", "<%@ include file=\"%(link.strong:"
+            + include.getRootPath()
+            + ")\" %>");
+        CmsResource other = createJsp(cms, "/system/warmup/other.jsp", "other");
+        CmsResource outer = createJsp(cms, "/sites/default/warmup/outer.jsp", "<%@ include file=\"%(link.strong:"
+            + page.getRootPath()
+            + ")\" %>");
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertEquals(
+            getPaths(page, other, outer),
+            getPaths(warmUp.getPublishedJsps(getLastPublishHistoryId()).toArray(new CmsResource[0])));
+
+        // only publish the changed include
+        cms.lockResource(include.getRootPath());
+        CmsFile file = cms.readFile(include);
+        file.setContents("include 2".getBytes());
+        cms.writeFile(file);
+        OpenCms.getPublishManager().publishResource(cms, include.getRootPath());
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertEquals(
+            getPaths(page, outer),
+            getPaths(warmUp.getPublishedJsps(getLastPublishHistoryId()).toArray(new CmsResource[0])));
+    }
+
+    /**
+     * Tests that all JSPs are requested from the configured server.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testGetWarmUpUrl() throws Exception {
+
+        CmsObject cms = getRootCmsObject();
+        echo("Testing the warm-up URLs");
+        CmsResource systemJsp = createJsp(cms, "/system/warmup/url.jsp", "url");
+        CmsResource siteJsp = createJsp(cms, "/sites/default/warmup/url.jsp", "url");
+        try {
+            String suffix = "?" + CmsFlexRequest.PARAMETER_JSP_PRECOMPILE + "=true";
+            String context = OpenCms.getSystemInfo().getOpenCmsContext();
+
+            // JSPs in the site of the server are requested relative to the site root, also from other hosts
+            CmsJspWarmUp warmUp = new CmsJspWarmUp(PATHS, "http://127.0.0.1:9090/", 1);
+            String server = "http://127.0.0.1:9090" + context;
+            assertEquals(server + "/system/warmup/url.jsp" + suffix, warmUp.getWarmUpUrl(systemJsp));
+            assertEquals(server + "/warmup/url.jsp" + suffix, warmUp.getWarmUpUrl(siteJsp));
+
+            // without a configured server, the workplace server is used
+            warmUp = new CmsJspWarmUp(PATHS, " ", 1);
+            server = "http://localhost:8080" + context;
+            assertEquals(server + "/system/warmup/url.jsp" + suffix, warmUp.getWarmUpUrl(systemJsp));
+            assertEquals(server + "/warmup/url.jsp" + suffix, warmUp.getWarmUpUrl(siteJsp));
+        } finally {
+            // the new JSPs must not be published by the following tests
+            cms.deleteResource(systemJsp.getRootPath(), CmsResource.DELETE_PRESERVE_SIBLINGS);
+            cms.deleteResource(siteJsp.getRootPath(), CmsResource.DELETE_PRESERVE_SIBLINGS);
+        }
+    }
+
+    /**
+     * Tests the check for the configured warm-up paths.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testIsWarmUpPath() throws Exception {
+
+        echo("Testing the check for the warm-up paths");
+        CmsJspWarmUp warmUp = new CmsJspWarmUp(PATHS, null, 1);
+        assertTrue(warmUp.isWarmUpPath("/system/warmup/a.jsp"));
+        assertTrue(warmUp.isWarmUpPath("/system/warmup/sub/b.jsp"));
+        assertTrue(warmUp.isWarmUpPath("/sites/default/warmup/c.jsp"));
+        assertFalse(warmUp.isWarmUpPath("/system/warmupx/a.jsp"));
+        assertFalse(warmUp.isWarmUpPath("/system/a.jsp"));
+        assertFalse(warmUp.isWarmUpPath("/sites/default/index.html"));
+    }
+
+    /**
+     * Creates a JSP with the given contents, and the parent folder if required.<p>
+     * 
+     * @param cms the CMS context with the root site
+     * @param rootPath the root path of the JSP
+     * @param contents the contents of the JSP
+     * 
+     * @return the created JSP
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private CmsResource createJsp(CmsObject cms, String rootPath, String contents) throws Exception {
+
+        String folder = CmsResource.getParentFolder(rootPath);
+        if (!cms.existsResource(folder)) {
+            cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        }
+        return cms.createResource(rootPath, CmsResourceTypeJsp.getJSPTypeId(), contents.getBytes(), null);
+    }
+
+    /**
+     * Returns the publish history id of the last publish job.<p>
+     * 
+     * @return the publish history id of the last publish job
+     */
+    private CmsUUID getLastPublishHistoryId() {
+
+        List<CmsPublishJobFinished> history = OpenCms.getPublishManager().getPublishHistory();
+        return history.get(history.size() - 1).getPublishHistoryId();
+    }
+
+    /**
+     * Returns the root paths of the given resources.<p>
+     * 
+     * @param resources the resources
+     * 
+     * @return the root paths of the resources
+     */
+    private Set<String> getPaths(CmsResource... resources) {
+
+        Set<String> result = new HashSet<String>();
+        for (CmsResource resource : resources) {
+            result.add(resource.getRootPath());
+        }
+        return result;
+    }
+
+    /**
+     * Returns a CMS context with the root site.<p>
+     * 
+     * @return a CMS context with the root site
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private CmsObject getRootCmsObject() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        cms.getRequestContext().setSiteRoot("/");
+        return cms;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link CmsLockIndex}.<p>
+ * 
+ * @since 8.5.0
+ */
+public class TestCmsLockIndex extends TestCase {
+
+    /**
+     * Tests the map operations.<p>
+     */
+    public void testMapOperations() {
+
+        CmsLockIndex index = new CmsLockIndex();
+        assertTrue(index.isEmpty());
+        CmsLock lock = createLock("/sites/default/folder/");
+        assertNull(index.put(lock.getResourceName(), lock));
+        assertSame(lock, index.get("/sites/default/folder/"));
+        assertNull(index.get("/sites/default/folder"));
+        assertTrue(index.containsKey("/sites/default/folder/"));
+        assertEquals(1, index.size());
+        assertEquals(1, index.values().size());
+        assertSame(lock, index.remove("/sites/default/folder/"));
+        assertNull(index.remove("/sites/default/folder/"));
+        assertTrue(index.isEmpty());
+        assertTrue(index.getSubtreeLocks("/").isEmpty());
+
+        Map<String, CmsLock> locks = new HashMap<String, CmsLock>();
+        locks.put("/a/", createLock("/a/"));
+        locks.put("/a/b.txt", createLock("/a/b.txt"));
+        index = new CmsLockIndex(locks);
+        assertEquals(locks, index);
+        index.clear();
+        assertTrue(index.isEmpty());
+        assertTrue(index.getSubtreeLocks("/").isEmpty());
+        try {
+            index.entrySet().clear();
+            fail("the entry set should be read only");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests looking up the locks of the parent folders.<p>
+     */
+    public void testParentFolderLocks() {
+
+        CmsLockIndex index = new CmsLockIndex();
+        add(index, "/");
+        add(index, "/sites/default/");
+        add(index, "/sites/default/folder");
+        add(index, "/sites/default/folder/sub/");
+        add(index, "/sites/default/folder/sub/file.txt");
+
+        assertEquals(
+            paths("/", "/sites/default/", "/sites/default/folder/sub/"),
+            paths(index.getParentFolderLocks("/sites/default/folder/sub/file.txt")));
+        // a file with the name of a folder is not a parent
+        assertEquals(paths("/", "/sites/default/"), paths(index.getParentFolderLocks("/sites/default/folder/x")));
+        // the path itself is not included
+        assertEquals(paths("/"), paths(index.getParentFolderLocks("/sites/default/")));
+        assertTrue(index.getParentFolderLocks("/").isEmpty());
+
+        index.remove("/sites/default/");
+        assertEquals(
+            paths("/", "/sites/default/folder/sub/"),
+            paths(index.getParentFolderLocks("/sites/default/folder/sub/file.txt")));
+    }
+
+    /**
+     * Tests looking up the locks of a sub-tree.<p>
+     */
+    public void testSubtreeLocks() {
+
+        CmsLockIndex index = new CmsLockIndex();
+        add(index, "/sites/default/a/");
+        add(index, "/sites/default/a/b/c.txt");
+        add(index, "/sites/default/a/d.txt");
+        add(index, "/sites/default/ab.txt");
+        add(index, "/system/x.txt");
+
+        assertEquals(
+            paths("/sites/default/a/", "/sites/default/a/b/c.txt", "/sites/default/a/d.txt"),
+            paths(index.getSubtreeLocks("/sites/default/a/")));
+        assertEquals(
+            paths("/sites/default/a/", "/sites/default/a/b/c.txt", "/sites/default/a/d.txt", "/sites/default/ab.txt"),
+            paths(index.getSubtreeLocks("/sites/")));
+        assertEquals(5, index.getSubtreeLocks("/").size());
+        assertEquals(paths("/sites/default/ab.txt"), paths(index.getSubtreeLocks("/sites/default/ab.txt")));
+        assertTrue(index.getSubtreeLocks("/sites/other/").isEmpty());
+
+        index.remove("/sites/default/a/b/c.txt");
+        index.remove("/sites/default/a/");
+        assertEquals(paths("/sites/default/a/d.txt"), paths(index.getSubtreeLocks("/sites/default/a/")));
+        assertTrue(index.getSubtreeLocks("/sites/default/a/b/").isEmpty());
+    }
+
+    /**
+     * Adds a lock for the given path to the index.<p>
+     * 
+     * @param index the index
+     * @param path the root path
+     */
+    private void add(CmsLockIndex index, String path) {
+
+        index.put(path, createLock(path));
+    }
+
+    /**
+     * Creates an exclusive lock for the given path.<p>
+     * 
+     * @param path the root path
+     * 
+     * @return the lock
+     */
+    private CmsLock createLock(String path) {
+
+        return new CmsLock(path, new CmsUUID(), null, CmsLockType.EXCLUSIVE);
+    }
+
+    /**
+     * Returns the sorted resource names of the given locks.<p>
+     * 
+     * @param locks the locks
+     * 
+     * @return the sorted resource names
+     */
+    private List<String> paths(List<CmsLock> locks) {
+
+        List<String> result = new ArrayList<String>();
+        for (CmsLock lock : locks) {
+            result.add(lock.getResourceName());
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns the given paths as sorted list.<p>
+     * 
+     * @param paths the paths
+     * 
+     * @return the sorted list
+     */
+    private List<String> paths(String... paths) {
+
+        List<String> result = new ArrayList<String>();
+        Collections.addAll(result, paths);
+        Collections.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the synchronous and asynchronous event delivery of the {@link CmsEventManager}.<p>
+ */
+public class TestCmsEventDelivery extends TestCase {
+
+    /**
+     * Event listener that records the received events and can be blocked.<p>
+     */
+    private static class RecordingListener implements I_CmsEventListener {
+
+        /** The received events. */
+        final List<CmsEvent> m_events = Collections.synchronizedList(new ArrayList<CmsEvent>());
+
+        /** The latch the listener waits for before processing an event. */
+        final CountDownLatch m_release;
+
+        /** The names of the threads the events were delivered on. */
+        final List<String> m_threads = Collections.synchronizedList(new ArrayList<String>());
+
+        /**
+         * Creates a new listener.<p>
+         * 
+         * @param release the latch to wait for, or <code>null</code>
+         */
+        RecordingListener(CountDownLatch release) {
+
+            m_release = release;
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+         */
+        public void cmsEvent(CmsEvent event) {
+
+            if (m_release != null) {
+                try {
+                    m_release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            m_threads.add(Thread.currentThread().getName());
+            m_events.add(event);
+        }
+    }
+
+    /**
+     * Tests the asynchronous delivery of events in order, with coalescing of cache clearing events.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testAsynchronousDelivery() throws Exception {
+
+        CmsEventManager manager = new CmsEventManager();
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(release);
+        manager.addCmsEventListener(listener, null, true);
+
+        // the first event blocks the worker thread, the others are queued
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED);
+        for (int i = 0; i < 5; i++) {
+            manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        }
+        manager.fireEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT);
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        // the firing thread was not blocked
+        assertTrue(listener.m_events.isEmpty());
+        CmsEventListenerStatistics statistics = manager.getListenerStatistics().get(0);
+        assertTrue(statistics.isAsynchronous());
+        // the last event is merged with the cache clearing event still waiting in the queue
+        assertEquals(5, statistics.getCoalescedEvents());
+
+        release.countDown();
+        manager.shutDown();
+        assertEquals(3, listener.m_events.size());
+        assertEquals(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, listener.m_events.get(0).getType());
+        assertEquals(I_CmsEventListener.EVENT_CLEAR_CACHES, listener.m_events.get(1).getType());
+        assertEquals(I_CmsEventListener.EVENT_PUBLISH_PROJECT, listener.m_events.get(2).getType());
+        assertFalse(Thread.currentThread().getName().equals(listener.m_threads.get(0)));
+        assertEquals(3, statistics.getEvents());
+        assertEquals(0, statistics.getQueueSize());
+    }
+
+    /**
+     * Tests that cache clearing events with different data are not coalesced.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testCoalescingRespectsData() throws Exception {
+
+        CmsEventManager manager = new CmsEventManager();
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(release);
+        manager.addCmsEventListener(listener, null, true);
+
+        HashMap<String, Object> data = new HashMap<String, Object>();
+        data.put("key", "value");
+        // the first event blocks the worker thread, the others are queued
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED);
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, data);
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, new HashMap<String, Object>(data));
+        release.countDown();
+        manager.shutDown();
+        assertEquals(3, listener.m_events.size());
+        assertNull(listener.m_events.get(1).getData().get("key"));
+        assertEquals("value", listener.m_events.get(2).getData().get("key"));
+    }
+
+    /**
+     * Tests that the delivery mode is chosen per event type the listener is registered for.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testDeliveryModePerEventType() throws Exception {
+
+        CmsEventManager manager = new CmsEventManager();
+        RecordingListener listener = new RecordingListener(null);
+        String current = Thread.currentThread().getName();
+        manager.addCmsEventListener(listener, new int[] {I_CmsEventListener.EVENT_CLEAR_CACHES});
+        manager.addCmsEventListener(listener, new int[] {
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+            I_CmsEventListener.EVENT_CLEAR_CACHES}, true);
+        assertEquals(1, manager.getListenerStatistics().size());
+
+        // the first registration for the cache clearing event was synchronous and is kept
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        assertEquals(1, listener.m_events.size());
+        assertEquals(current, listener.m_threads.get(0));
+
+        manager.fireEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT);
+        manager.shutDown();
+        assertEquals(2, listener.m_events.size());
+        assertEquals(I_CmsEventListener.EVENT_PUBLISH_PROJECT, listener.m_events.get(1).getType());
+        assertFalse(current.equals(listener.m_threads.get(1)));
+
+        // a listener for all events can still get single event types synchronously
+        manager = new CmsEventManager();
+        listener = new RecordingListener(null);
+        manager.addCmsEventListener(listener, null, true);
+        manager.addCmsEventListener(listener, new int[] {I_CmsEventListener.EVENT_RESOURCE_MODIFIED});
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED);
+        assertEquals(current, listener.m_threads.get(0));
+        manager.shutDown();
+    }
+
+    /**
+     * Tests that the firing thread waits if the queue is full, so the events are still delivered in order.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testFullQueueKeepsOrder() throws Exception {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingListener listener = new RecordingListener(release);
+        final CmsEventDelivery delivery = new CmsEventDelivery(listener, 2);
+        final Integer eventType = Integer.valueOf(I_CmsEventListener.EVENT_RESOURCE_MODIFIED);
+        delivery.addAsynchronousTypes(Collections.singleton(eventType));
+
+        // the first event blocks the worker thread, the next two fill the queue
+        Thread firing = new Thread() {
+
+            @Override
+            public void run() {
+
+                for (int i = 0; i < 5; i++) {
+                    HashMap<String, Object> data = new HashMap<String, Object>();
+                    data.put("index", Integer.valueOf(i));
+                    delivery.deliver(new CmsEvent(eventType.intValue(), data), eventType);
+                }
+            }
+        };
+        firing.start();
+        firing.join(500);
+        assertTrue("The firing thread did not wait for the full queue", firing.isAlive());
+        assertTrue(listener.m_events.isEmpty());
+
+        release.countDown();
+        firing.join(10000);
+        assertFalse(firing.isAlive());
+        delivery.shutDown(10000);
+        assertEquals(5, listener.m_events.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Integer.valueOf(i), listener.m_events.get(i).getData().get("index"));
+            assertFalse(firing.getName().equals(listener.m_threads.get(i)));
+        }
+        assertTrue(delivery.getStatistics().getQueueOverflows() > 0);
+    }
+
+    /**
+     * Tests that listeners can be removed while an event is fired.<p>
+     */
+    public void testRemoveWhileFiring() {
+
+        final CmsEventManager manager = new CmsEventManager();
+        final RecordingListener second = new RecordingListener(null);
+        I_CmsEventListener first = new I_CmsEventListener() {
+
+            public void cmsEvent(CmsEvent event) {
+
+                manager.removeCmsEventListener(this);
+                manager.removeCmsEventListener(second);
+            }
+        };
+        manager.addCmsEventListener(first);
+        manager.addCmsEventListener(second);
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED);
+        // the second listener was registered when the event was fired
+        assertEquals(1, second.m_events.size());
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED);
+        assertEquals(1, second.m_events.size());
+        assertTrue(manager.getListenerStatistics().isEmpty());
+    }
+
+    /**
+     * Tests the synchronous delivery of events.<p>
+     */
+    public void testSynchronousDelivery() {
+
+        CmsEventManager manager = new CmsEventManager();
+        RecordingListener listener = new RecordingListener(null);
+        manager.addCmsEventListener(listener, new int[] {I_CmsEventListener.EVENT_RESOURCE_MODIFIED});
+        manager.addCmsEventListener(listener, new int[] {I_CmsEventListener.EVENT_RESOURCE_MODIFIED});
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED);
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        assertEquals(1, listener.m_events.size());
+        assertEquals(Thread.currentThread().getName(), listener.m_threads.get(0));
+        CmsEventListenerStatistics statistics = manager.getListenerStatistics().get(0);
+        assertFalse(statistics.isAsynchronous());
+        assertEquals(1, statistics.getEvents());
+        assertEquals(0, statistics.getCoalescedEvents());
+    }
+}
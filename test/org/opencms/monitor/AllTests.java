@@ -59,6 +59,8 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(TestMemoryMonitor.suite());
+        suite.addTest(new TestSuite(TestCmsCachePathIndex.class));
+        suite.addTest(new TestSuite(TestCmsCacheStatistics.class));
         //$JUnit-END$
         return suite;
     }
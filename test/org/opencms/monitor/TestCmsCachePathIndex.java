@@ -0,0 +1,113 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.cache.CmsConcurrentLruMap;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link CmsCachePathIndex}.<p>
+ *
+ * @since 8.5.0
+ */
+public class TestCmsCachePathIndex extends TestCase {
+
+    /**
+     * Tests that keys of evicted cache entries are purged from the index.<p>
+     */
+    public void testPurge() {
+
+        Map<String, String> cache = new CmsConcurrentLruMap<String, String>(20);
+        CmsCachePathIndex<String> index = new CmsCachePathIndex<String>(cache, 20);
+        for (int i = 0; i < 100; i++) {
+            String key = "k" + i;
+            index.add(false, "/sites/default/folder" + i + "/index.html", key);
+            cache.put(key, key);
+        }
+        List<String> removed = index.removeSubtree(false, "/");
+        assertTrue(removed.size() < 50);
+        assertTrue(removed.contains("k99"));
+        assertFalse(removed.contains("k0"));
+    }
+
+    /**
+     * Tests removing the keys of the parent folders of a path.<p>
+     */
+    public void testRemoveParents() {
+
+        CmsCachePathIndex<String> index = createIndex();
+        List<String> removed = index.removeParents(false, "/sites/default/a/b/");
+        assertEquals(new HashSet<String>(Arrays.asList("root", "a", "global")), new HashSet<String>(removed));
+        assertFalse(index.contains(false, "/sites/default/a/", "a"));
+        assertTrue(index.contains(false, "/sites/default/a/b/", "b"));
+        assertTrue(index.contains(true, "/sites/default/a/", "a-online"));
+    }
+
+    /**
+     * Tests removing the keys of a sub-tree.<p>
+     */
+    public void testRemoveSubtree() {
+
+        CmsCachePathIndex<String> index = createIndex();
+        List<String> removed = index.removeSubtree(false, "/sites/default/a/b/");
+        assertEquals(new HashSet<String>(Arrays.asList("b", "c", "global")), new HashSet<String>(removed));
+        assertFalse(index.contains(false, "/sites/default/a/b/c.html", "c"));
+        assertFalse(index.contains(false, null, "global"));
+        assertTrue(index.contains(false, "/sites/default/a/", "a"));
+        assertTrue(index.contains(false, "/sites/default/a/bb/", "bb"));
+        assertTrue(index.contains(true, "/sites/default/a/b/", "b-online"));
+        assertTrue(index.removeSubtree(false, "/sites/default/x/").isEmpty());
+        index.clear();
+        assertFalse(index.contains(true, "/sites/default/a/b/", "b-online"));
+    }
+
+    /**
+     * Creates an index with some test keys.<p>
+     *
+     * @return the index
+     */
+    private CmsCachePathIndex<String> createIndex() {
+
+        CmsCachePathIndex<String> index = new CmsCachePathIndex<String>(new CmsConcurrentLruMap<String, String>(1000), 1000);
+        index.add(false, "/", "root");
+        index.add(false, "/sites/default/a/", "a");
+        index.add(false, "/sites/default/a/b/", "b");
+        index.add(false, "/sites/default/a/b/c.html", "c");
+        index.add(false, "/sites/default/a/bb/", "bb");
+        index.add(false, null, "global");
+        index.add(true, "/sites/default/a/", "a-online");
+        index.add(true, "/sites/default/a/b/", "b-online");
+        return index;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link CmsCacheStatistics} and the {@link CmsLatencyHistogram}.<p>
+ *
+ * @since 8.5.0
+ */
+public class TestCmsCacheStatistics extends TestCase {
+
+    /**
+     * Tests the counters of the cache statistics.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testCounters() throws Exception {
+
+        CmsCacheStatistics statistics = new CmsCacheStatistics("RESOURCE");
+        assertEquals(-1, statistics.getSize());
+        Map<String, String> cache = new HashMap<String, String>();
+        cache.put("a", "b");
+        statistics.setCache(cache);
+        assertEquals(1, statistics.getSize());
+        for (int i = 0; i < 3; i++) {
+            statistics.recordAccess(true);
+        }
+        statistics.recordAccess(false);
+        statistics.recordPut();
+        statistics.recordEviction();
+        statistics.recordFlush();
+        statistics.recordLoadTime(2000000);
+        assertEquals(3, statistics.getHits());
+        assertEquals(1, statistics.getMisses());
+        assertEquals(75.0, statistics.getHitRatio(), 0.001);
+        assertEquals(1, statistics.getPuts());
+        assertEquals(1, statistics.getEvictions());
+        assertEquals(1, statistics.getFlushes());
+        assertEquals(1, statistics.getLoadCount());
+        assertEquals(2.0, statistics.getLoadTimeMean(), 0.001);
+
+        JSONObject json = statistics.toJson();
+        assertEquals("RESOURCE", json.getString("name"));
+        assertEquals(3, json.getLong("hits"));
+        assertEquals(1, json.getJSONObject("loadTimeMillis").getLong("count"));
+
+        statistics.reset();
+        assertEquals(0, statistics.getHits());
+        assertEquals(0, statistics.getLoadCount());
+        assertEquals(0.0, statistics.getHitRatio(), 0.001);
+    }
+
+    /**
+     * Tests the counters with concurrent updates.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentUpdates() throws Exception {
+
+        final CmsCacheStatistics statistics = new CmsCacheStatistics("PROPERTY_LIST");
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    for (int i = 0; i < 10000; i++) {
+                        statistics.recordAccess((i % 4) != 0);
+                        statistics.recordLoadTime(i * 1000L);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(60000, statistics.getHits());
+        assertEquals(20000, statistics.getMisses());
+        assertEquals(80000, statistics.getLoadCount());
+    }
+
+    /**
+     * Tests the percentiles of the latency histogram.<p>
+     */
+    public void testHistogram() {
+
+        CmsLatencyHistogram histogram = new CmsLatencyHistogram();
+        assertEquals(0.0, histogram.getPercentileMillis(50), 0.0);
+        // 90 fast operations of 100 microseconds, 10 slow ones of 50 milliseconds
+        for (int i = 0; i < 90; i++) {
+            histogram.record(100000);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(50000000);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.0, histogram.getMaxMillis(), 0.001);
+        // the median is in the bucket up to 128 microseconds
+        assertEquals(0.128, histogram.getPercentileMillis(50), 0.001);
+        // the 99th percentile is in the bucket of the slow operations, but never above the maximum
+        assertEquals(50.0, histogram.getPercentileMillis(99), 0.001);
+        assertEquals(5.09, histogram.getMeanMillis(), 0.001);
+    }
+}
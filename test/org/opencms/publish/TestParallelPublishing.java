@@ -0,0 +1,252 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.Collections;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for publishing the files of a publish job with several threads.<p>
+ * 
+ * The special configuration of this test uses 4 publish threads and a chunk size of 2 files.<p>
+ */
+public class TestParallelPublishing extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestParallelPublishing(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestParallelPublishing.class.getName());
+
+        suite.addTest(new TestParallelPublishing("testParallelConfiguration"));
+        suite.addTest(new TestParallelPublishing("testPublishCollidingPaths"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/", "/../org/opencms/publish/parallel");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the special configuration for parallel publishing is used.<p>
+     */
+    public void testParallelConfiguration() {
+
+        echo("Testing the configuration for parallel publishing");
+        assertEquals(4, OpenCms.getPublishManager().getPublishThreads());
+        assertEquals(2, OpenCms.getPublishManager().getPublishChunkSize());
+    }
+
+    /**
+     * Tests publishing moved and deleted files, new files at the paths of deleted files, 
+     * and siblings with several threads.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testPublishCollidingPaths() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing parallel publishing of files with colliding paths and siblings");
+
+        String folder = "/parallel/";
+        cms.createResource(folder, CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+        cms.createResource(folder + "moved/", CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+        for (int i = 0; i < 8; i++) {
+            createFile(cms, folder + "file" + i + ".txt", "file" + i);
+        }
+        createFile(cms, folder + "a.txt", "old a");
+        createFile(cms, folder + "b.txt", "old b");
+        cms.createSibling(folder + "b.txt", folder + "b_sibling.txt", Collections.<CmsProperty> emptyList());
+        createFile(cms, folder + "c.txt", "old c");
+        createFile(cms, folder + "d.txt", "old d");
+        cms.createSibling(folder + "c.txt", folder + "c_sibling1.txt", Collections.<CmsProperty> emptyList());
+        cms.unlockResource(folder);
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        // delete a file and create a new file at its path
+        cms.lockResource(folder + "a.txt");
+        cms.deleteResource(folder + "a.txt", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        createFile(cms, folder + "a.txt", "new a");
+        // delete a file with a sibling and create a new file at its path
+        cms.lockResource(folder + "b.txt");
+        cms.deleteResource(folder + "b.txt", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        createFile(cms, folder + "b.txt", "new b");
+        // move a file
+        cms.lockResource(folder + "d.txt");
+        cms.moveResource(folder + "d.txt", folder + "moved/d.txt");
+        // change a file with siblings and add another sibling
+        cms.lockResource(folder + "c.txt");
+        writeFile(cms, folder + "c.txt", "new c");
+        cms.createSibling(folder + "c.txt", folder + "c_sibling2.txt", Collections.<CmsProperty> emptyList());
+        // change and delete some other files, so that several chunks are published
+        for (int i = 0; i < 8; i++) {
+            String path = folder + "file" + i + ".txt";
+            cms.lockResource(path);
+            if ((i % 2) == 0) {
+                writeFile(cms, path, "changed" + i);
+            } else {
+                cms.deleteResource(path, CmsResource.DELETE_PRESERVE_SIBLINGS);
+            }
+        }
+
+        // the new files reuse the structure ids of the deleted files, but not their resource ids,
+        // so the new b.txt must be published together with the sibling of the old b.txt
+        CmsResource newB = cms.readResource(folder + "b.txt");
+        CmsResource sibling = cms.readResource(folder + "b_sibling.txt");
+        assertFalse(newB.getResourceId().equals(sibling.getResourceId()));
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        try {
+            CmsResource oldB = cms.readResource(folder + "b.txt");
+            assertEquals(newB.getStructureId(), oldB.getStructureId());
+            assertEquals(sibling.getResourceId(), oldB.getResourceId());
+        } finally {
+            cms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+        }
+
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        // check the online project
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        try {
+            assertContent(cms, folder + "a.txt", "new a");
+            assertContent(cms, folder + "b.txt", "new b");
+            assertContent(cms, folder + "b_sibling.txt", "old b");
+            assertContent(cms, folder + "moved/d.txt", "old d");
+            assertFalse(cms.existsResource(folder + "d.txt", CmsResourceFilter.ALL));
+            assertContent(cms, folder + "c.txt", "new c");
+            assertContent(cms, folder + "c_sibling1.txt", "new c");
+            assertContent(cms, folder + "c_sibling2.txt", "new c");
+            assertEquals(3, cms.readResource(folder + "c.txt").getSiblingCount());
+            for (int i = 0; i < 8; i++) {
+                String path = folder + "file" + i + ".txt";
+                if ((i % 2) == 0) {
+                    assertContent(cms, path, "changed" + i);
+                } else {
+                    assertFalse(cms.existsResource(path, CmsResourceFilter.ALL));
+                }
+            }
+            // exactly the expected files must exist online
+            assertEquals(12, cms.readResources(folder, CmsResourceFilter.ALL, true).size());
+        } finally {
+            cms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+        }
+        // nothing must be left unpublished offline
+        for (CmsResource resource : cms.readResources(folder, CmsResourceFilter.ALL, true)) {
+            assertTrue(resource.getRootPath(), resource.getState().isUnchanged());
+        }
+    }
+
+    /**
+     * Checks the content of a file.<p>
+     * 
+     * @param cms the current user context
+     * @param path the path of the file
+     * @param content the expected content
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void assertContent(CmsObject cms, String path, String content) throws Exception {
+
+        assertEquals(path, content, new String(cms.readFile(path).getContents()));
+    }
+
+    /**
+     * Creates a plain text file.<p>
+     * 
+     * @param cms the current user context
+     * @param path the path of the file
+     * @param content the content of the file
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void createFile(CmsObject cms, String path, String content) throws Exception {
+
+        cms.createResource(path, CmsResourceTypePlain.getStaticTypeId(), content.getBytes(), null);
+    }
+
+    /**
+     * Writes the content of a file.<p>
+     * 
+     * @param cms the current user context
+     * @param path the path of the file
+     * @param content the new content
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void writeFile(CmsObject cms, String path, String content) throws Exception {
+
+        CmsFile file = cms.readFile(path);
+        file.setContents(content.getBytes());
+        cms.writeFile(file);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.report;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link CmsBufferedReport}.<p>
+ *
+ * @since 8.5.0
+ */
+public class TestCmsBufferedReport extends TestCase {
+
+    /**
+     * Tests that the output is only written on flush, in the original order.<p>
+     */
+    public void testFlush() {
+
+        CmsStringBufferReport target = new CmsStringBufferReport(Locale.ENGLISH);
+        CmsBufferedReport report = new CmsBufferedReport(target);
+        report.print(Messages.get().container(Messages.RPT_SUCCESSION_2, "1", "2"), I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_ARGUMENT_1, "/file.txt"));
+        report.print(Messages.get().container(Messages.RPT_DOTS_0));
+        report.println(Messages.get().container(Messages.RPT_OK_0), I_CmsReport.FORMAT_OK);
+        assertEquals("", target.toString());
+        report.flush();
+        assertEquals("( 1 / 2 )  /file.txt ... o.k.\n", target.toString());
+        // the buffer is empty after flushing
+        report.flush();
+        assertEquals("( 1 / 2 )  /file.txt ... o.k.\n", target.toString());
+        // errors are passed to the target report
+        report.println(Messages.get().container(Messages.RPT_ARGUMENT_1, "error"), I_CmsReport.FORMAT_ERROR);
+        assertFalse(target.hasError());
+        report.flush();
+        assertTrue(target.hasError());
+    }
+
+    /**
+     * Tests that the output of concurrent threads is not mixed up.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentOutput() throws Exception {
+
+        final CmsStringBufferReport target = new CmsStringBufferReport(Locale.ENGLISH);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final String name = "t" + t;
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    CmsBufferedReport report = new CmsBufferedReport(target);
+                    for (int i = 0; i < 500; i++) {
+                        report.print(Messages.get().container(Messages.RPT_ARGUMENT_1, name));
+                        Thread.yield();
+                        report.print(Messages.get().container(Messages.RPT_ARGUMENT_1, name));
+                        report.println();
+                        report.flush();
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        String[] lines = target.toString().split("\n");
+        assertEquals(2000, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            String[] parts = lines[i].trim().split("\\s+");
+            assertEquals(lines[i], 2, parts.length);
+            assertEquals(lines[i], parts[0], parts[1]);
+        }
+    }
+}
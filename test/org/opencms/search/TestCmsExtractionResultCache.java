@@ -0,0 +1,169 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.file.CmsResource;
+import org.opencms.search.documents.CmsExtractionResultCache;
+import org.opencms.search.extractors.CmsExtractionResult;
+import org.opencms.search.extractors.I_CmsExtractionResult;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link CmsExtractionResultCache}.<p>
+ * 
+ * @since 8.5.0
+ */
+public class TestCmsExtractionResultCache extends TestCase {
+
+    /** The cache folder used by the tests. */
+    private File m_folder;
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsExtractionResultCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the digest of a known content version is found without the content.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testContentDigest() throws Exception {
+
+        CmsExtractionResultCache cache = new CmsExtractionResultCache(m_folder.getAbsolutePath(), "/test");
+        CmsUUID resourceId = new CmsUUID();
+        CmsResource resource = createResource(resourceId, 1000);
+        byte[] content = "Some content".getBytes("UTF-8");
+
+        assertNull(cache.getContentDigest(resource));
+        String digest = cache.getContentDigest(resource, content);
+        assertEquals(digest, cache.getContentDigest(resource));
+        // a sibling shares the content
+        assertEquals(digest, cache.getContentDigest(createResource(resourceId, 1000)));
+        assertEquals(
+            cache.getCacheName(content, "pdf", Locale.ENGLISH),
+            cache.getCacheName(digest, "pdf", Locale.ENGLISH));
+        // a new content version needs the content again
+        assertNull(cache.getContentDigest(createResource(resourceId, 2000)));
+        assertNull(cache.getContentDigest(createResource(new CmsUUID(), 1000)));
+    }
+
+    /**
+     * Tests that the extraction runs only on a cache miss.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testExtractOnlyOnMiss() throws Exception {
+
+        CmsExtractionResultCache cache = new CmsExtractionResultCache(m_folder.getAbsolutePath(), "/test");
+        final AtomicInteger count = new AtomicInteger();
+        Callable<I_CmsExtractionResult> extraction = new Callable<I_CmsExtractionResult>() {
+
+            public I_CmsExtractionResult call() {
+
+                count.incrementAndGet();
+                return new CmsExtractionResult("Extracted");
+            }
+        };
+        String digest = cache.getContentDigest(createResource(new CmsUUID(), 1000), new byte[] {1, 2, 3});
+        String cacheName = cache.getCacheName(digest, "pdf", null);
+        assertEquals("Extracted", cache.getCacheObject(cacheName, extraction).getContent());
+        assertEquals(1, count.get());
+        assertEquals("Extracted", cache.getCacheObject(cacheName, extraction).getContent());
+        assertEquals(1, count.get());
+        assertTrue(new File(cacheName).exists());
+
+        // another document type extracts again
+        cache.getCacheObject(cache.getCacheName(digest, "html", null), extraction);
+        assertEquals(2, count.get());
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        m_folder = File.createTempFile("extractioncache", "");
+        m_folder.delete();
+        m_folder.mkdirs();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() {
+
+        CmsFileUtil.purgeDirectory(m_folder);
+    }
+
+    /**
+     * Creates a resource with the given resource id and date of the last content modification.<p>
+     * 
+     * @param resourceId the resource id 
+     * @param dateContent the date of the last content modification
+     * 
+     * @return the resource
+     */
+    private CmsResource createResource(CmsUUID resourceId, long dateContent) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            resourceId,
+            "/sites/default/test.pdf",
+            1,
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            dateContent,
+            CmsUUID.getNullUUID(),
+            dateContent,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            3,
+            dateContent,
+            0);
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.search;
+
+import org.opencms.db.CmsResourceState;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.search.documents.CmsExtractionResultCache;
+import org.opencms.search.documents.I_CmsDocumentFactory;
+import org.opencms.search.extractors.I_CmsExtractionResult;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.apache.lucene.document.Document;
+
+/**
+ * Tests for the {@link CmsIndexingThreadManager}.<p>
+ *
+ * @since 8.5.0
+ */
+public class TestCmsIndexingThreadManager extends TestCase {
+
+    /**
+     * Index that creates documents with a configurable delay, without accessing the VFS.<p>
+     */
+    static class TestIndex extends CmsSearchIndex {
+
+        /** Latch the document creation waits for, or <code>null</code>. */
+        volatile CountDownLatch m_block;
+
+        /** The root path of the resource whose document creation hangs. */
+        volatile String m_hangingPath;
+
+        /** The threads that created documents. */
+        final List<Thread> m_workers = Collections.synchronizedList(new ArrayList<Thread>());
+
+        /**
+         * @see org.opencms.search.CmsSearchIndex#getDocumentFactory(org.opencms.file.CmsResource)
+         */
+        @Override
+        public I_CmsDocumentFactory getDocumentFactory(CmsResource res) {
+
+            return new I_CmsDocumentFactory() {
+
+                public Document createDocument(CmsObject cms, CmsResource resource, CmsSearchIndex index) {
+
+                    m_workers.add(Thread.currentThread());
+                    try {
+                        if (resource.getRootPath().equals(m_hangingPath)) {
+                            Thread.sleep(60000);
+                        }
+                        CountDownLatch block = m_block;
+                        if (block != null) {
+                            block.await();
+                        }
+                    } catch (InterruptedException e) {
+                        return null;
+                    }
+                    return new Document();
+                }
+
+                public I_CmsExtractionResult extractContent(CmsObject cms, CmsResource resource, CmsSearchIndex index) {
+
+                    return null;
+                }
+
+                public CmsExtractionResultCache getCache() {
+
+                    return null;
+                }
+
+                public List<String> getDocumentKeys(List<String> resourceTypes, List<String> mimeTypes) {
+
+                    return null;
+                }
+
+                public String getName() {
+
+                    return "test";
+                }
+
+                public boolean isLocaleDependend() {
+
+                    return false;
+                }
+
+                public boolean isUsingCache() {
+
+                    return false;
+                }
+
+                public void setCache(CmsExtractionResultCache cache) {
+
+                    // not used
+                }
+            };
+        }
+
+        /**
+         * @see org.opencms.search.CmsSearchIndex#excludeFromIndex(org.opencms.file.CmsObject, org.opencms.file.CmsResource)
+         */
+        @Override
+        protected boolean excludeFromIndex(CmsObject cms, CmsResource resource) {
+
+            return false;
+        }
+    }
+
+    /**
+     * Indexer that records the written documents.<p>
+     */
+    static class TestIndexer extends CmsVfsIndexer {
+
+        /** The threads that wrote documents. */
+        final List<Thread> m_writers = Collections.synchronizedList(new ArrayList<Thread>());
+
+        /** The root paths of the written documents. */
+        final List<String> m_written = Collections.synchronizedList(new ArrayList<String>());
+
+        /**
+         * Creates a new test indexer.<p>
+         * 
+         * @param index the index
+         */
+        TestIndexer(CmsSearchIndex index) {
+
+            m_index = index;
+        }
+
+        /**
+         * @see org.opencms.search.CmsVfsIndexer#updateResource(org.opencms.search.I_CmsIndexWriter, java.lang.String, org.apache.lucene.document.Document)
+         */
+        @Override
+        protected void updateResource(I_CmsIndexWriter indexWriter, String rootPath, Document doc) {
+
+            m_writers.add(Thread.currentThread());
+            m_written.add(rootPath);
+        }
+    }
+
+    /** Index writer that ignores all operations. */
+    static final I_CmsIndexWriter NOOP_WRITER = new I_CmsIndexWriter() {
+
+        public void close() {
+
+            // noop
+        }
+
+        public void commit() {
+
+            // noop
+        }
+
+        public void deleteDocuments(String rootPath) {
+
+            // noop
+        }
+
+        public void optimize() {
+
+            // noop
+        }
+
+        public void updateDocument(String rootPath, Document document) {
+
+            // noop
+        }
+    };
+
+    /**
+     * Tests that the calling thread is blocked if the pipeline is full.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testBackpressure() throws Exception {
+
+        TestIndex index = new TestIndex();
+        index.m_block = new CountDownLatch(1);
+        final TestIndexer indexer = new TestIndexer(index);
+        final CmsIndexingThreadManager manager = new CmsIndexingThreadManager(60000, 1000, 2);
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread producer = new Thread() {
+
+            @Override
+            public void run() {
+
+                // 2 threads allow 4 jobs in the pipeline, so the 4th call must wait
+                for (int i = 0; i < 4; i++) {
+                    manager.createIndexingThread(indexer, NOOP_WRITER, createResource("/file" + i + ".txt"));
+                }
+                done.countDown();
+            }
+        };
+        producer.start();
+        assertFalse(done.await(300, TimeUnit.MILLISECONDS));
+        assertTrue(indexer.m_written.isEmpty());
+        index.m_block.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        while (manager.isRunning()) {
+            Thread.sleep(10);
+        }
+        assertEquals(4, indexer.m_written.size());
+    }
+
+    /**
+     * Tests that documents are created in parallel, but written by the calling thread in the original order.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testParallelCreation() throws Exception {
+
+        TestIndex index = new TestIndex();
+        TestIndexer indexer = new TestIndexer(index);
+        CmsIndexingThreadManager manager = new CmsIndexingThreadManager(60000, 5, 4);
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 50; i++) {
+            String path = "/file" + i + ".txt";
+            expected.add(path);
+            manager.createIndexingThread(indexer, NOOP_WRITER, createResource(path));
+        }
+        while (manager.isRunning()) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, indexer.m_written);
+        for (Thread writer : indexer.m_writers) {
+            assertSame(Thread.currentThread(), writer);
+        }
+        for (Thread worker : index.m_workers) {
+            assertNotSame(Thread.currentThread(), worker);
+        }
+    }
+
+    /**
+     * Tests that a document creation reaching the timeout is abandoned without blocking the other documents.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testTimeout() throws Exception {
+
+        TestIndex index = new TestIndex();
+        index.m_hangingPath = "/hanging.txt";
+        TestIndexer indexer = new TestIndexer(index);
+        CmsIndexingThreadManager manager = new CmsIndexingThreadManager(200, 1000, 1);
+        manager.createIndexingThread(indexer, NOOP_WRITER, createResource("/hanging.txt"));
+        for (int i = 0; i < 5; i++) {
+            manager.createIndexingThread(indexer, NOOP_WRITER, createResource("/file" + i + ".txt"));
+        }
+        long start = System.currentTimeMillis();
+        while (manager.isRunning()) {
+            assertTrue((System.currentTimeMillis() - start) < 10000);
+            Thread.sleep(10);
+        }
+        assertEquals(5, indexer.m_written.size());
+        assertFalse(indexer.m_written.contains("/hanging.txt"));
+    }
+
+    /**
+     * Creates a file resource for the given path.<p>
+     * 
+     * @param rootPath the root path
+     * 
+     * @return the resource
+     */
+    static CmsResource createResource(String rootPath) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            new CmsUUID(),
+            rootPath,
+            1,
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResourceState.STATE_UNCHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+}
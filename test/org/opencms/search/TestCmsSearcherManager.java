@@ -0,0 +1,183 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.search;
+
+import org.opencms.search.fields.CmsSearchField;
+
+import junit.framework.TestCase;
+
+import org.apache.lucene.analysis.WhitespaceAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.RAMDirectory;
+
+/**
+ * Tests for the {@link CmsSearcherManager}.<p>
+ *
+ * @since 8.5.0
+ */
+public class TestCmsSearcherManager extends TestCase {
+
+    /** The directory of the test index. */
+    private RAMDirectory m_directory;
+
+    /** The writer of the test index. */
+    private IndexWriter m_writer;
+
+    /**
+     * Tests that a replaced searcher stays open until it has been released.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testAcquireRelease() throws Exception {
+
+        CmsSearcherManager manager = new CmsSearcherManager(new CmsSearchIndex(), -1);
+        manager.setSearcher(new IndexSearcher(IndexReader.open(m_directory, true)));
+
+        IndexSearcher searcher = manager.acquire();
+        assertEquals(1, searcher.getIndexReader().numDocs());
+
+        addDocument("/b.txt");
+        m_writer.commit();
+        assertTrue(manager.maybeReopen(null));
+        assertFalse(manager.maybeReopen(null));
+
+        // the old searcher is still usable
+        assertEquals(1, searcher.getIndexReader().numDocs());
+        assertNotSame(searcher, manager.getSearcher());
+        manager.release(searcher);
+        assertEquals(0, searcher.getIndexReader().getRefCount());
+
+        IndexSearcher current = manager.acquire();
+        assertEquals(2, current.getIndexReader().numDocs());
+        manager.release(current);
+
+        manager.close();
+        assertNull(manager.acquire());
+        assertEquals(0, current.getIndexReader().getRefCount());
+    }
+
+    /**
+     * Tests reopening the searcher from the index writer without a commit.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testNearRealTimeReopen() throws Exception {
+
+        CmsSearcherManager manager = new CmsSearcherManager(new CmsSearchIndex(), -1);
+        manager.setSearcher(new IndexSearcher(IndexReader.open(m_directory, true)));
+
+        addDocument("/b.txt");
+        assertFalse(manager.maybeReopen(null));
+        assertTrue(manager.maybeReopen(m_writer));
+        assertFalse(manager.maybeReopen(m_writer));
+
+        IndexSearcher searcher = manager.acquire();
+        assertEquals(2, searcher.getIndexReader().numDocs());
+        manager.release(searcher);
+        manager.close();
+    }
+
+    /**
+     * Tests reopening the searcher by the background thread.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testRefreshThread() throws Exception {
+
+        final CmsSearcherManager[] manager = new CmsSearcherManager[1];
+        CmsSearchIndex index = new CmsSearchIndex() {
+
+            @Override
+            protected void indexSearcherReopen() {
+
+                try {
+                    manager[0].maybeReopen(m_writer);
+                } catch (Exception e) {
+                    fail(e.getMessage());
+                }
+            }
+        };
+        manager[0] = new CmsSearcherManager(index, 50);
+        assertTrue(manager[0].isRefreshing());
+        manager[0].setSearcher(new IndexSearcher(IndexReader.open(m_directory, true)));
+        IndexSearcher searcher = manager[0].getSearcher();
+
+        addDocument("/b.txt");
+        long start = System.currentTimeMillis();
+        while (manager[0].getSearcher() == searcher) {
+            assertTrue((System.currentTimeMillis() - start) < 5000);
+            Thread.sleep(10);
+        }
+        assertEquals(2, manager[0].getSearcher().getIndexReader().numDocs());
+        manager[0].close();
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        m_directory = new RAMDirectory();
+        m_writer = new IndexWriter(m_directory, new IndexWriterConfig(
+            CmsSearchIndex.LUCENE_VERSION,
+            new WhitespaceAnalyzer(CmsSearchIndex.LUCENE_VERSION)));
+        addDocument("/a.txt");
+        m_writer.commit();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        m_writer.close();
+        m_directory.close();
+    }
+
+    /**
+     * Adds a document with the given root path to the test index.<p>
+     * 
+     * @param rootPath the root path of the document
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void addDocument(String rootPath) throws Exception {
+
+        Document doc = new Document();
+        doc.add(new Field(CmsSearchField.FIELD_PATH, rootPath, Field.Store.YES, Field.Index.NOT_ANALYZED));
+        m_writer.addDocument(doc);
+    }
+}
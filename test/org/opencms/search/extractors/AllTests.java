@@ -58,6 +58,7 @@ public final class AllTests {
         TestSuite suite = new TestSuite("Tests for package " + AllTests.class.getPackage().getName());
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
+        suite.addTest(new TestSuite(TestCmsExtractionResult.class));
         suite.addTest(new TestSuite(TestHtmllExtraction.class));
         suite.addTest(new TestSuite(TestMsPowerPointExtraction.class));
         suite.addTest(new TestSuite(TestRtfExtraction.class));
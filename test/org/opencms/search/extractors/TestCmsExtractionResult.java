@@ -0,0 +1,102 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.search.extractors;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the serialization of the {@link CmsExtractionResult}.<p>
+ * 
+ * @since 8.5.0
+ */
+public class TestCmsExtractionResult extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsExtractionResult(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests reading an extraction result serialized by an older version with Java serialization.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testReadJavaSerialization() throws Exception {
+
+        CmsExtractionResult result = new CmsExtractionResult("Some content");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ObjectOutputStream oout = new ObjectOutputStream(out);
+        oout.writeObject(result);
+        oout.close();
+
+        CmsExtractionResult read = CmsExtractionResult.fromBytes(out.toByteArray());
+        assertNotNull(read);
+        assertEquals("Some content", read.getContent());
+        assertEquals(result.getContentItems(), read.getContentItems());
+    }
+
+    /**
+     * Tests writing and reading the compact serialized form.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRoundTrip() throws Exception {
+
+        StringBuffer large = new StringBuffer();
+        for (int i = 0; i < 20000; i++) {
+            // more than 64 KB, with characters that are encoded in several bytes
+            large.append("Gr\u00fc\u00dfe ");
+        }
+        Map<String, String> items = new HashMap<String, String>();
+        items.put(I_CmsExtractionResult.ITEM_TITLE, "Title");
+        items.put("Nested[1]/Text[1]", large.toString());
+        CmsExtractionResult result = new CmsExtractionResult("Content", items);
+
+        byte[] bytes = result.getBytes();
+        assertTrue(bytes.length < large.length());
+        CmsExtractionResult read = CmsExtractionResult.fromBytes(bytes);
+        assertNotNull(read);
+        assertEquals("Content", read.getContent());
+        assertEquals(result.getContentItems(), read.getContentItems());
+        assertSame(bytes, read.getBytes());
+
+        assertNull(CmsExtractionResult.fromBytes(null));
+        assertNull(CmsExtractionResult.fromBytes(new byte[] {1, 2, 3}));
+    }
+}
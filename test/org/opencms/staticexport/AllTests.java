@@ -59,7 +59,9 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(TestCmsLinkManager.suite());
+        suite.addTest(new TestSuite(TestCmsLinkProcessor.class));
         suite.addTest(TestCmsStaticExportManager.suite());
+        suite.addTest(new TestSuite(TestCmsStaticExportDependencies.class));
         suite.addTest(TestExportFile.suite());
         suite.addTest(TestSecure.suite());
         suite.addTest(TestCmsExternalLinksValidator.suite());
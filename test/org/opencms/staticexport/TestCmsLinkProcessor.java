@@ -0,0 +1,267 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.staticexport;
+
+import org.opencms.relations.CmsRelationType;
+
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the single pass link processing against the HTML parser based link processing.<p>
+ * 
+ * @since 8.5.0
+ */
+public class TestCmsLinkProcessor extends TestCase {
+
+    /**
+     * A link processor that also requests the "alt" attribute for the rewritten images and areas,
+     * like the real link processing does for internal links.<p>
+     */
+    private static class AltLinkProcessor extends TestLinkProcessor {
+
+        /**
+         * @see org.opencms.staticexport.TestCmsLinkProcessor.TestLinkProcessor#processLink(java.lang.String, java.lang.String, org.opencms.relations.CmsRelationType)
+         */
+        @Override
+        protected String processLink(String tagName, String value, CmsRelationType type) {
+
+            String result = super.processLink(tagName, value, type);
+            if ((result != null) && (TAG_IMG.equals(tagName) || TAG_AREA.equals(tagName))) {
+                // the internal URI is only set by the real link processing, which requires a database
+                try {
+                    Field altUri = CmsLinkProcessor.class.getDeclaredField("m_altUri");
+                    altUri.setAccessible(true);
+                    altUri.set(this, value);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A link processor that rewrites all relative links with a prefix, and records the processed links.<p>
+     */
+    private static class TestLinkProcessor extends CmsLinkProcessor {
+
+        /** The processed links. */
+        List<String> m_links = new ArrayList<String>();
+
+        /**
+         * Creates a new test link processor.<p>
+         */
+        TestLinkProcessor() {
+
+            super(null, new CmsLinkTable(), "UTF-8", null);
+        }
+
+        /**
+         * @see org.opencms.staticexport.CmsLinkProcessor#processLink(java.lang.String, java.lang.String, org.opencms.relations.CmsRelationType)
+         */
+        @Override
+        protected String processLink(String tagName, String value, CmsRelationType type) {
+
+            m_links.add(tagName + " " + type.getName() + " " + value);
+            return value.startsWith("/") ? "/prefix" + value : null;
+        }
+    }
+
+    /** HTML snippets with images and areas that may require an "alt" attribute. */
+    private static final String[] HTML_ALT = new String[] {
+        "<p><img src=\"/a.png\"></p>",
+        "<p><img src=\"/b.png\" title=\"b\" /><img\nsrc=/c.png/></p>",
+        "<p><img class=\"x\" alt=\"keep\" src=\"/d.png\"><img ALT=keep src=\"/e.png\"></p>",
+        "<p><img src=\"http://www.opencms.org/external.png\"><img alt=\"\"></p>",
+        "<map name=\"m\"><area shape=\"rect\" href=\"/area.html\"><area alt=\"a\" href=\"/area.html\"></map>"};
+
+    /** HTML snippets with link macros. */
+    private static final String[] HTML_MACROS = new String[] {
+        "<p><a href=\"%(link0)\">Link</a> <img src=\"%(link1)\" alt=\"Image\"> <a href=\"/plain.html\">plain</a></p>",
+        "<p><a href='%(link2)'>external</a> <a href=%(link0)>unquoted</a> <a href=\"%(link99)\">unknown</a></p>",
+        "<object data=\"%(link3)\"><param name=\"movie\" value=\"%(link3)\"></object>",
+        "<object data=\"%(link3)\"><param name=\"a\" value=\"%(link4)\"><param name=\"b\" value=\"%(link5)\"></object>",
+        "<embed src=\"%(link3)\" pluginspage=\"%(link2)\"></embed><param name=\"outside\" value=\"%(link3)\">"};
+
+    /** HTML snippets with all kinds of links. */
+    private static final String[] HTML = new String[] {
+        "<p>No links at all, just <b>text</b> &amp; a &lt; sign: a < b</p>",
+        "<p><a href=\"/sites/default/index.html\">Link</a> and <a href='/quoted.html'>single</a></p>",
+        "<p><A HREF=/unquoted.html>upper case</A> <a name=\"anchor\">no href</a> <a href>empty</a></p>",
+        "<p><img src=\"/image.png\" alt=\"Image\" /><img src=/unquoted.png/><img\nsrc=\"/line.png\"></p>",
+        "<p><a href=\"http://www.opencms.org/\" title=\"a > b\">external</a></p>",
+        "<map name=\"m\"><area shape=\"rect\" href=\"/area.html\" coords=\"0,0,1,1\"></map>",
+        "<embed src=\"/movie.swf\" pluginspage=\"/plugin.html\" width=\"10\"></embed>",
+        "<object data=\"/data.swf\" type=\"x\"><param name=\"movie\" value=\"/movie.swf\"></object>",
+        "<object codebase=\"/code/\" data=\"/data.swf\"><param name=\"src\" value=\"/p.swf?\"></object>",
+        "<param name=\"outside\" value=\"/outside.swf\">",
+        "<!-- <a href=\"/comment.html\">comment</a> --><p><a href=\"/after.html\">after</a></p>",
+        "<script type=\"text/javascript\">var s = '<a href=\"/script.html\">';</script><a href=\"/x.html\">x</a>",
+        "<style>a[href=\"/style.html\"] { color: red; }</style><img src=\"/y.png\">",
+        "<div class=\"<a href='/no.html'>\"><a class=x href=\"/z.html\" href=\"/second.html\">z</a></div>"};
+
+    /**
+     * Tests that the "alt" attribute is added to images and areas like the HTML parser does.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testAltAttribute() throws Exception {
+
+        for (String html : HTML_ALT) {
+            String expected = new AltLinkProcessor().replaceLinksWithParser(html);
+            assertEquals(html, expected, new AltLinkProcessor().replaceLinks(html));
+            StringWriter out = new StringWriter();
+            new AltLinkProcessor().replaceLinks(html, out);
+            assertEquals(html, expected, out.toString());
+        }
+        // the title can not be read without a database, so the attribute is empty
+        assertEquals("<p><img alt=\"\" src=\"/prefix/a.png\"></p>", new AltLinkProcessor().replaceLinks(HTML_ALT[0]));
+        assertEquals(
+            "<p><img alt=\"\" src=\"/prefix/b.png\" title=\"b\" /><img alt=\"\"\nsrc=/prefix/c.png/></p>",
+            new AltLinkProcessor().replaceLinks(HTML_ALT[1]));
+        assertSame(HTML_ALT[3], new AltLinkProcessor().replaceLinks(HTML_ALT[3]));
+    }
+
+    /**
+     * Tests that the single pass scan replaces the link macros in the same way as the HTML parser, 
+     * using the link table and the parameter handling of the link processor.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testProcessLinks() throws Exception {
+
+        CmsLinkTable linkTable = new CmsLinkTable();
+        linkTable.addLink(CmsRelationType.HYPERLINK, "/sites/default/index.html", true);
+        linkTable.addLink(CmsRelationType.EMBEDDED_IMAGE, "/sites/default/image.png", true);
+        linkTable.addLink(CmsRelationType.HYPERLINK, "http://www.opencms.org/?a=1&b=2", false);
+        linkTable.addLink(CmsRelationType.EMBEDDED_OBJECT, "/sites/default/movie.swf", true);
+        linkTable.addLink(CmsRelationType.EMBEDDED_OBJECT, "/sites/default/movie.swf?q=1", true);
+        linkTable.addLink(CmsRelationType.EMBEDDED_OBJECT, "/sites/default/p.swf?", true);
+
+        for (String html : HTML_MACROS) {
+            String expected = new CmsLinkProcessor(null, linkTable, "UTF-8", null).processLinksWithParser(html);
+            String result = new CmsLinkProcessor(null, linkTable, "UTF-8", null).processLinks(html);
+            assertEquals(html, expected, result);
+            StringWriter out = new StringWriter();
+            new CmsLinkProcessor(null, linkTable, "UTF-8", null).processLinks(html, out);
+            assertEquals(html, expected, out.toString());
+        }
+        CmsLinkProcessor processor = new CmsLinkProcessor(null, linkTable, "UTF-8", null);
+        assertEquals(
+            "<p><a href='http://www.opencms.org/?a=1&amp;b=2'>external</a> "
+                + "<a href=/sites/default/index.html>unquoted</a> <a href=\"%(link99)\">unknown</a></p>",
+            processor.processLinks(HTML_MACROS[1]));
+        // links in parameters of objects have to end with '?' or '&'
+        assertEquals("<object data=\"/sites/default/movie.swf\">"
+            + "<param name=\"a\" value=\"/sites/default/movie.swf?q=1&amp;\">"
+            + "<param name=\"b\" value=\"/sites/default/p.swf?\"></object>", processor.processLinks(HTML_MACROS[3]));
+        assertEquals(
+            "<object data=\"/sites/default/movie.swf\">"
+                + "<param name=\"movie\" value=\"/sites/default/movie.swf?\"></object>",
+            processor.processLinks(HTML_MACROS[2]));
+    }
+
+    /**
+     * Tests that the single pass scan processes the same links and produces the same output as the HTML parser.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testSameResult() throws Exception {
+
+        for (String html : HTML) {
+            TestLinkProcessor parser = new TestLinkProcessor();
+            String expected = parser.replaceLinksWithParser(html);
+            TestLinkProcessor scanner = new TestLinkProcessor();
+            String result = scanner.replaceLinks(html);
+            assertEquals(html, expected, result);
+            assertEquals(html, parser.m_links, scanner.m_links);
+
+            StringWriter out = new StringWriter();
+            new TestLinkProcessor().replaceLinks(html, out);
+            assertEquals(html, expected, out.toString());
+        }
+    }
+
+    /**
+     * Tests that the original content is returned if no link is changed.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testUnchanged() throws Exception {
+
+        String html = HTML[0] + HTML[4];
+        assertSame(html, new TestLinkProcessor().processLinks(html));
+        assertNull(new TestLinkProcessor().processLinks(null));
+    }
+
+    /**
+     * Compares the performance of the single pass scan and the HTML parser on a large page.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testPerformance() throws Exception {
+
+        StringBuffer buffer = new StringBuffer();
+        while (buffer.length() < 500000) {
+            for (String html : HTML) {
+                buffer.append(html).append('\n');
+            }
+        }
+        String html = buffer.toString();
+        int runs = 20;
+        // warm up
+        long parserTime = 0;
+        long scanTime = 0;
+        for (int i = 0; i < (runs * 2); i++) {
+            long start = System.nanoTime();
+            String expected = new TestLinkProcessor().replaceLinksWithParser(html);
+            long time = System.nanoTime();
+            String result = new TestLinkProcessor().replaceLinks(html);
+            long end = System.nanoTime();
+            if (i >= runs) {
+                parserTime += time - start;
+                scanTime += end - time;
+            } else if (i == 0) {
+                assertEquals(expected, result);
+            }
+        }
+        System.out.println("Processing links in "
+            + html.length()
+            + " chars: HTML parser "
+            + (parserTime / runs / 1000000)
+            + " ms, single pass scan "
+            + (scanTime / runs / 1000000)
+            + " ms");
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.staticexport;
+
+import org.opencms.flex.CmsFlexRequestContextInfo;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the static export dependency index.<p>
+ * 
+ * @since 8.5.0
+ */
+public class TestCmsStaticExportDependencies extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsStaticExportDependencies(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests the paths looked up for changed resources.<p>
+     */
+    public void testChangedPaths() {
+
+        List<String> paths = CmsStaticExportDependencies.getChangedPaths("/sites/default/news/a.html", false);
+        assertEquals(Collections.singletonList("/sites/default/news/a.html"), paths);
+
+        String suffix = CmsFlexRequestContextInfo.DEPENDENCY_LISTING_SUFFIX;
+        String treeSuffix = CmsFlexRequestContextInfo.DEPENDENCY_TREE_LISTING_SUFFIX;
+        paths = CmsStaticExportDependencies.getChangedPaths("/sites/default/news/a.html", true);
+        assertEquals(Arrays.asList(new String[] {
+            "/sites/default/news/a.html",
+            "/sites/default/news/" + suffix,
+            "/sites/default/news/" + treeSuffix,
+            "/sites/default/" + treeSuffix,
+            "/sites/" + treeSuffix,
+            "/" + treeSuffix}), paths);
+    }
+
+    /**
+     * Tests looking up the exported files depending on changed resources.<p>
+     */
+    public void testDependentExports() {
+
+        CmsStaticExportDependencies index = new CmsStaticExportDependencies(null);
+        index.addExport("/index.html", "/sites/default/index.html", Arrays.asList(new String[] {
+            "/system/modules/my.module/templates/main.jsp",
+            "/sites/default/news/" + CmsFlexRequestContextInfo.DEPENDENCY_LISTING_SUFFIX}));
+        index.addExport("/about.html", "/sites/default/about.html", Arrays.asList(new String[] {
+            "/system/modules/my.module/templates/main.jsp",
+            "/sites/default/about.xml"}));
+        assertEquals(2, index.size());
+
+        // the exported resource itself is a dependency
+        Map<String, String> result = index.getDependentExports(Collections.singletonList("/sites/default/about.html"));
+        assertEquals(Collections.singletonMap("/about.html", "/sites/default/about.html"), result);
+
+        // a shared template affects both pages
+        result = index.getDependentExports(Collections.singletonList("/system/modules/my.module/templates/main.jsp"));
+        assertEquals(new HashSet<String>(Arrays.asList(new String[] {"/index.html", "/about.html"})), result.keySet());
+
+        // a new resource in the news folder only affects the page listing the folder
+        result = index.getDependentExports(CmsStaticExportDependencies.getChangedPaths(
+            "/sites/default/news/new.html",
+            true));
+        assertEquals(Collections.singleton("/index.html"), result.keySet());
+
+        // a new resource in a sub folder does not affect the flat listing
+        result = index.getDependentExports(CmsStaticExportDependencies.getChangedPaths(
+            "/sites/default/news/2012/new.html",
+            true));
+        assertTrue(result.isEmpty());
+
+        // but it affects a tree listing of an ancestor folder
+        index.addExport("/sitemap.html", "/sites/default/sitemap.html", Collections.singletonList("/sites/default/"
+            + CmsFlexRequestContextInfo.DEPENDENCY_TREE_LISTING_SUFFIX));
+        result = index.getDependentExports(CmsStaticExportDependencies.getChangedPaths(
+            "/sites/default/news/2012/new.html",
+            true));
+        assertEquals(Collections.singleton("/sitemap.html"), result.keySet());
+        index.removeExport("/sitemap.html");
+
+        // changing the content of a news entry does not affect the listing
+        result = index.getDependentExports(CmsStaticExportDependencies.getChangedPaths(
+            "/sites/default/news/old.html",
+            false));
+        assertTrue(result.isEmpty());
+
+        // exporting a file again replaces the dependencies
+        index.addExport("/about.html", "/sites/default/about.html", Collections.<String> emptyList());
+        result = index.getDependentExports(Collections.singletonList("/sites/default/about.xml"));
+        assertTrue(result.isEmpty());
+
+        index.removeExport("/index.html");
+        result = index.getDependentExports(Collections.singletonList("/system/modules/my.module/templates/main.jsp"));
+        assertTrue(result.isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    /**
+     * Tests storing and reading the index.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testSaveAndLoad() throws Exception {
+
+        File file = File.createTempFile("dependencies", ".gz");
+        try {
+            CmsStaticExportDependencies index = new CmsStaticExportDependencies(file.getAbsolutePath());
+            index.addExport("/index.html", "/sites/default/index.html", Arrays.asList(new String[] {
+                "/sites/default/news/",
+                "/sites/default/\u00e4rger.xml"}));
+            index.addExport("/about.html", "/sites/default/about.html", Collections.<String> emptyList());
+            index.save();
+
+            CmsStaticExportDependencies loaded = new CmsStaticExportDependencies(file.getAbsolutePath());
+            loaded.load();
+            assertEquals(2, loaded.size());
+            assertEquals(index.getDependencies("/index.html"), loaded.getDependencies("/index.html"));
+            assertEquals(
+                Collections.singleton("/sites/default/about.html"),
+                loaded.getDependencies("/about.html"));
+            assertEquals(
+                Collections.singleton("/index.html"),
+                loaded.getDependentExports(Collections.singletonList("/sites/default/\u00e4rger.xml")).keySet());
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -28,6 +28,7 @@
 package org.opencms.staticexport;
 
 import org.opencms.file.CmsObject;
+import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.OpenCms;
 import org.opencms.test.OpenCmsTestCase;
@@ -36,6 +37,17 @@ import org.opencms.util.CmsFileUtil;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.extensions.TestSetup;
 import junit.framework.Test;
@@ -69,6 +81,9 @@ public class TestExportFile extends OpenCmsTestCase {
         suite.setName(TestExportFile.class.getName());
 
         suite.addTest(new TestExportFile("testStaticexportFile"));
+        suite.addTest(new TestExportFile("testExportJobsInParallel"));
+        suite.addTest(new TestExportFile("testExportJobFailure"));
+        suite.addTest(new TestExportFile("testStaticexportFilesInParallel"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -88,6 +103,101 @@ public class TestExportFile extends OpenCmsTestCase {
         return wrapper;
     }
 
+    /**
+     * Tests that a failing export job stops the remaining jobs and its error is thrown.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testExportJobFailure() throws Throwable {
+
+        echo("Testing a failing export job");
+        OpenCms.getStaticExportManager().setExportThreads("2");
+        try {
+            final CountDownLatch failed = new CountDownLatch(1);
+            final AtomicInteger executed = new AtomicInteger();
+            List<Callable<Object>> jobs = new ArrayList<Callable<Object>>();
+            jobs.add(new Callable<Object>() {
+
+                public Object call() throws Exception {
+
+                    failed.countDown();
+                    throw new IOException("Export failed");
+                }
+            });
+            for (int i = 0; i < 10; i++) {
+                jobs.add(new Callable<Object>() {
+
+                    public Object call() throws Exception {
+
+                        // wait until the first job has failed, then only the already running jobs are executed
+                        failed.await(10, TimeUnit.SECONDS);
+                        Thread.sleep(50);
+                        executed.incrementAndGet();
+                        return null;
+                    }
+                });
+            }
+            try {
+                new CmsAfterPublishStaticExportHandler().executeExportJobs(jobs);
+                fail("Error of the export job not thrown");
+            } catch (IOException e) {
+                // the error is thrown unwrapped
+                assertEquals("Export failed", e.getMessage());
+            }
+            assertTrue("Remaining jobs not skipped: " + executed.get(), executed.get() < 10);
+        } finally {
+            OpenCms.getStaticExportManager().setExportThreads("1");
+        }
+    }
+
+    /**
+     * Tests that the export jobs are executed in parallel if several export threads are configured.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testExportJobsInParallel() throws Throwable {
+
+        echo("Testing the export worker pool");
+        CmsAfterPublishStaticExportHandler handler = new CmsAfterPublishStaticExportHandler();
+        final Set<String> threads = Collections.synchronizedSet(new HashSet<String>());
+        // the jobs can only pass the barrier if they all run at the same time
+        final CyclicBarrier barrier = new CyclicBarrier(3);
+        List<Callable<Object>> jobs = new ArrayList<Callable<Object>>();
+        for (int i = 0; i < 6; i++) {
+            jobs.add(new Callable<Object>() {
+
+                public Object call() throws Exception {
+
+                    threads.add(Thread.currentThread().getName());
+                    barrier.await(10, TimeUnit.SECONDS);
+                    return null;
+                }
+            });
+        }
+        OpenCms.getStaticExportManager().setExportThreads("3");
+        try {
+            handler.executeExportJobs(jobs);
+        } finally {
+            OpenCms.getStaticExportManager().setExportThreads("1");
+        }
+        assertEquals(3, threads.size());
+        assertFalse(threads.contains(Thread.currentThread().getName()));
+
+        // with a single thread, the jobs are executed in the current thread
+        threads.clear();
+        jobs.clear();
+        jobs.add(new Callable<Object>() {
+
+            public Object call() {
+
+                threads.add(Thread.currentThread().getName());
+                return null;
+            }
+        });
+        handler.executeExportJobs(jobs);
+        assertEquals(Collections.singleton(Thread.currentThread().getName()), threads);
+    }
+
     /**
      * Tests the file export.<p>
      * 
@@ -130,4 +240,46 @@ public class TestExportFile extends OpenCmsTestCase {
 
         this.assertContent(cms, resourcename, exportContent);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests the export of several files after publishing with several export threads.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testStaticexportFilesInParallel() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing file export with several threads");
+
+        OpenCms.getStaticExportManager().setHandler("org.opencms.staticexport.CmsAfterPublishStaticExportHandler");
+        OpenCms.getStaticExportManager().setExportThreads("4");
+        try {
+            cms.createResource("/parallel/", CmsResourceTypeFolder.getStaticTypeId());
+            for (int i = 0; i < 20; i++) {
+                String content = "this is test content " + i;
+                cms.createResource(
+                    "/parallel/file" + i + ".txt",
+                    CmsResourceTypePlain.getStaticTypeId(),
+                    content.getBytes(),
+                    null);
+            }
+            cms.unlockResource("/parallel/");
+            OpenCms.getPublishManager().publishProject(cms);
+            OpenCms.getPublishManager().waitWhileRunning();
+        } finally {
+            OpenCms.getStaticExportManager().setExportThreads("1");
+        }
+
+        File folder = null;
+        for (int i = 0; i < 20; i++) {
+            String rootPath = cms.getRequestContext().addSiteRoot("/parallel/file" + i + ".txt");
+            File f = new File(CmsFileUtil.normalizePath(OpenCms.getStaticExportManager().getExportPath(rootPath)
+                + rootPath));
+            assertTrue(f.getPath(), f.exists());
+            assertEquals("this is test content " + i, new String(CmsFileUtil.readFile(f)));
+            folder = f.getParentFile();
+        }
+        // the exported files have been renamed from temporary files, none of them are left
+        assertEquals(20, folder.list().length);
+    }
+}
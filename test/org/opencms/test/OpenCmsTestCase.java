@@ -727,6 +727,10 @@ public class OpenCmsTestCase extends TestCase {
         if (path != null) {
             CmsFileUtil.purgeDirectory(new File(path));
         }
+        path = getTestDataPath("WEB-INF/imagecache/");
+        if (path != null) {
+            CmsFileUtil.purgeDirectory(new File(path));
+        }
     }
 
     /**
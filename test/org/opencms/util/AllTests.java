@@ -59,6 +59,7 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsBrowserMatcher.class));
+        suite.addTest(new TestSuite(TestCmsByteRange.class));
         suite.addTest(new TestSuite(TestCmsDateUtil.class));
         suite.addTest(new TestSuite(TestCmsExportFolderMatcher.class));
         suite.addTest(new TestSuite(TestCmsFileUtil.class));
@@ -67,9 +68,11 @@ public final class AllTests {
         suite.addTest(new TestSuite(TestCmsHtmlExtractor.class));
         suite.addTest(new TestSuite(TestCmsHtmlParser.class));
         suite.addTest(new TestSuite(TestCmsHtmlStripper.class));
+        suite.addTest(new TestSuite(TestCmsKeyedLock.class));
         suite.addTest(new TestSuite(TestCmsMacroResolver.class));
         suite.addTest(new TestSuite(TestCmsResourceTranslator.class));
         suite.addTest(new TestSuite(TestCmsStringUtil.class));
+        suite.addTest(new TestSuite(TestCmsStripedLock.class));
         suite.addTest(new TestSuite(TestCmsUriSplitter.class));
         suite.addTest(new TestSuite(TestCmsUUID.class));
         suite.addTest(new TestSuite(TestCmsXmlSaxWriter.class));
@@ -0,0 +1,168 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link CmsKeyedLock}.<p>
+ *
+ * @since 8.5.0
+ */
+public class TestCmsKeyedLock extends TestCase {
+
+    /**
+     * Tests that the locks of different keys can be held by different threads at the same time.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testDifferentKeysInParallel() throws Exception {
+
+        final CmsKeyedLock<String> lock = new CmsKeyedLock<String>();
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread() {
+
+            @Override
+            public void run() {
+
+                lock.lock("/a.jsp");
+                try {
+                    locked.countDown();
+                    release.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                } finally {
+                    lock.unlock("/a.jsp");
+                }
+            }
+        };
+        holder.start();
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+        // the keys of all other files are available, since keys never share a lock
+        for (int i = 0; i < 1000; i++) {
+            String key = "/b" + i + ".jsp";
+            assertTrue(lock.tryLock(key));
+            assertTrue(lock.isHeldByCurrentThread(key));
+            lock.unlock(key);
+        }
+        assertFalse(lock.tryLock("/a.jsp"));
+        assertFalse(lock.isHeldByCurrentThread("/a.jsp"));
+        assertEquals(0, lock.getHoldCount());
+        release.countDown();
+        holder.join();
+        assertEquals(0, lock.size());
+    }
+
+    /**
+     * Tests that the locks are reentrant and removed after the last unlock.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testReentrantAndCleanup() throws Exception {
+
+        CmsKeyedLock<String> lock = new CmsKeyedLock<String>();
+        lock.lock("/a.jsp");
+        lock.lock("/a.jsp");
+        assertTrue(lock.tryLock("/b.jsp"));
+        assertEquals(3, lock.getHoldCount());
+        assertEquals(2, lock.size());
+
+        lock.unlock("/a.jsp");
+        assertTrue(lock.isHeldByCurrentThread("/a.jsp"));
+        lock.unlock("/b.jsp");
+        assertFalse(lock.isHeldByCurrentThread("/b.jsp"));
+        assertEquals(1, lock.size());
+        lock.unlock("/a.jsp");
+        assertEquals(0, lock.getHoldCount());
+        assertEquals(0, lock.size());
+
+        try {
+            lock.unlock("/a.jsp");
+            fail("Unlocking a key that is not locked must fail");
+        } catch (IllegalMonitorStateException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests that threads locking the same key are serialized, and that no lock is left over.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testSameKeySerialized() throws Exception {
+
+        final CmsKeyedLock<String> lock = new CmsKeyedLock<String>();
+        final AtomicInteger[] inside = {new AtomicInteger(), new AtomicInteger()};
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        for (int i = 0; i < 5000; i++) {
+                            // the locks are removed and created again all the time
+                            int k = i % 2;
+                            String key = "/shared" + k + ".jsp";
+                            lock.lock(key);
+                            try {
+                                if (inside[k].incrementAndGet() != 1) {
+                                    throw new IllegalStateException("Lock for the same key held by two threads");
+                                }
+                                inside[k].decrementAndGet();
+                            } finally {
+                                lock.unlock(key);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(60000);
+            assertFalse("Deadlock detected", thread.isAlive());
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertEquals(0, lock.size());
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link CmsStripedLock}.<p>
+ *
+ * @since 8.5.0
+ */
+public class TestCmsStripedLock extends TestCase {
+
+    /**
+     * Tests that keys mapped to different locks can be held by different threads at the same time.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testDifferentKeysInParallel() throws Exception {
+
+        final CmsStripedLock lock = new CmsStripedLock(64);
+        final String key1 = "/sites/default/folder1/";
+        String key2 = "/sites/default/folder2/";
+        for (int i = 3; lock.getStripe(key2) == lock.getStripe(key1); i++) {
+            key2 = "/sites/default/folder" + i + "/";
+        }
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread() {
+
+            @Override
+            public void run() {
+
+                int[] stripes = lock.lock(key1);
+                try {
+                    locked.countDown();
+                    release.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                } finally {
+                    lock.unlock(stripes);
+                }
+            }
+        };
+        holder.start();
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+        // this would block if the locks were not striped
+        int[] stripes = lock.lock(key2);
+        try {
+            assertTrue(lock.isHeldByCurrentThread(key2));
+            assertFalse(lock.isHeldByCurrentThread(key1));
+        } finally {
+            lock.unlock(stripes);
+            release.countDown();
+        }
+        holder.join();
+    }
+
+    /**
+     * Tests that nested calls neither block on their own locks nor deadlock on lower locks held by other threads.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testNestedLocking() throws Exception {
+
+        final CmsStripedLock lock = new CmsStripedLock(16);
+        final Integer key1 = Integer.valueOf(1);
+        Integer candidate = Integer.valueOf(2);
+        while (lock.getStripe(candidate) >= lock.getStripe(key1)) {
+            candidate = Integer.valueOf(candidate.intValue() + 1);
+        }
+        final Integer key2 = candidate;
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread() {
+
+            @Override
+            public void run() {
+
+                int[] stripes = lock.lock(key2);
+                try {
+                    locked.countDown();
+                    release.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                } finally {
+                    lock.unlock(stripes);
+                }
+            }
+        };
+        holder.start();
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+        int[] outer = lock.lock(key1, null, key1);
+        assertEquals(1, outer.length);
+        try {
+            // the lock of key1 is reentered, the lower lock of key2 is held by the other thread and skipped
+            int[] nested = lock.lock(key2, key1);
+            assertEquals(1, nested.length);
+            assertEquals(lock.getStripe(key1), nested[0]);
+            lock.unlock(nested);
+            assertTrue(lock.isHeldByCurrentThread(key1));
+        } finally {
+            lock.unlock(outer);
+            release.countDown();
+        }
+        holder.join();
+        assertFalse(lock.isHeldByCurrentThread(key1));
+        // after the outer call has been unlocked, locking blocks again
+        outer = lock.lock(key2, key1);
+        assertEquals(2, outer.length);
+        assertTrue(outer[0] < outer[1]);
+        lock.unlock(outer);
+    }
+
+    /**
+     * Tests that nested calls wait for locks above the highest lock they already hold.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testNestedLockingWaitsForHigherLocks() throws Exception {
+
+        final CmsStripedLock lock = new CmsStripedLock(16);
+        final Integer key1 = Integer.valueOf(1);
+        Integer candidate = Integer.valueOf(2);
+        while (lock.getStripe(candidate) <= lock.getStripe(key1)) {
+            candidate = Integer.valueOf(candidate.intValue() + 1);
+        }
+        final Integer key2 = candidate;
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger holderDone = new AtomicInteger();
+        Thread holder = new Thread() {
+
+            @Override
+            public void run() {
+
+                int[] stripes = lock.lock(key2);
+                try {
+                    locked.countDown();
+                    release.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                } finally {
+                    holderDone.set(1);
+                    lock.unlock(stripes);
+                }
+            }
+        };
+        holder.start();
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+        int[] outer = lock.lock(key1);
+        try {
+            // release the other thread with a delay, the nested call must wait for it
+            new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                    release.countDown();
+                }
+            }.start();
+            int[] nested = lock.lock(key2);
+            assertEquals(1, holderDone.get());
+            assertEquals(1, nested.length);
+            assertTrue(lock.isHeldByCurrentThread(key2));
+            lock.unlock(nested);
+        } finally {
+            lock.unlock(outer);
+        }
+        holder.join();
+    }
+
+    /**
+     * Tests that threads locking the same key are serialized, 
+     * and that threads locking overlapping key sets do not deadlock.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testSameKeySerialized() throws Exception {
+
+        final CmsStripedLock lock = new CmsStripedLock(8);
+        final AtomicInteger inside = new AtomicInteger();
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final int offset = t;
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        for (int i = 0; i < 2000; i++) {
+                            // all threads share the "/shared/" key, the other key is varied in different order
+                            int[] stripes = (i % 2) == 0
+                            ? lock.lock("/shared/", Integer.valueOf(i + offset))
+                            : lock.lock(Integer.valueOf(i + offset), "/shared/");
+                            try {
+                                if (inside.incrementAndGet() != 1) {
+                                    throw new IllegalStateException("Lock for the same key held by two threads");
+                                }
+                                inside.decrementAndGet();
+                            } finally {
+                                lock.unlock(stripes);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(60000);
+            assertFalse("Deadlock detected", thread.isAlive());
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+    }
+}
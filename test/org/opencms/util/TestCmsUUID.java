@@ -36,6 +36,7 @@ import java.io.FileOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
@@ -191,6 +192,42 @@ public class TestCmsUUID extends OpenCmsTestCase {
         System.out.println("Time for UUID equals() implementation for " + testSize + " UUIDs : " + time1);
     }
 
+    /**
+     * Tests that parsing, formatting and ordering match the "real" UUID implementation.<p> 
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testUUIDCompatibility() throws Exception {
+
+        Random random = new Random(1234);
+        byte[] data1 = new byte[16];
+        byte[] data2 = new byte[16];
+        for (int i = 0; i < 10000; i++) {
+            random.nextBytes(data1);
+            random.nextBytes(data2);
+            if ((i % 2) == 0) {
+                // same version, so that the order is determined by the value
+                data2[6] = data1[6];
+            }
+            UUID uuid1 = new UUID(data1);
+            UUID uuid2 = new UUID(data2);
+            CmsUUID id1 = new CmsUUID(uuid1.toString());
+            CmsUUID id2 = new CmsUUID(data2);
+            assertEquals(uuid1.toString(), id1.toString());
+            assertEquals(uuid2.toString(), id2.toString());
+            assertTrue(Arrays.equals(data1, id1.toByteArray()));
+            assertEquals(id1, new CmsUUID(uuid1.toString().toUpperCase()));
+            assertEquals(id1, new CmsUUID(id1.getMostSignificantBits(), id1.getLeastSignificantBits()));
+            assertEquals(Integer.signum(uuid1.compareTo(uuid2)), Integer.signum(id1.compareTo(id2)));
+        }
+        try {
+            new CmsUUID("00000000-0000-0000-0000-00000000000g");
+            fail("invalid UUID was parsed");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+    }
+
     /**
      * Tests the {@link CmsUUID#isValidUUID(String)} method.<p> 
      * 
@@ -60,11 +60,13 @@ public final class AllTests {
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsXmlContent.class));
         suite.addTest(new TestSuite(TestCmsXmlContentDefinition.class));
+        suite.addTest(new TestSuite(TestCmsXmlContentCompact.class));
         suite.addTest(TestCmsXmlContentWithVfs.suite());
         suite.addTest(TestCmsXmlContentSchemaModifications.suite());
         suite.addTest(TestCmsXmlContentLinks.suite());
         suite.addTest(TestCmsXmlContent75Features.suite());
         suite.addTest(TestCmsXmlContentChoice.suite());
+        suite.addTest(TestCmsXmlContentCache.suite());
         //$JUnit-END$
         return suite;
     }
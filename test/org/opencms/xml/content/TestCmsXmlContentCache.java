@@ -0,0 +1,322 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml.content;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.main.CmsIllegalStateException;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.test.OpenCmsTestServletRequest;
+import org.opencms.xml.containerpage.CmsADECache;
+import org.opencms.xml.types.I_CmsXmlContentValue;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the cache for unmarshalled online XML contents.<p>
+ * 
+ * @since 8.5.0
+ */
+public class TestCmsXmlContentCache extends OpenCmsTestCase {
+
+    /**
+     * Test request that stores the attributes in a map.<p>
+     */
+    private static class TestRequest extends OpenCmsTestServletRequest {
+
+        /** The request attributes. */
+        private Map<String, Object> m_attributes = new HashMap<String, Object>();
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#getAttribute(java.lang.String)
+         */
+        @Override
+        public Object getAttribute(String name) {
+
+            return m_attributes.get(name);
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#setAttribute(java.lang.String, java.lang.Object)
+         */
+        @Override
+        public void setAttribute(String name, Object value) {
+
+            m_attributes.put(name, value);
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsXmlContentCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsXmlContentCache.class.getName());
+
+        suite.addTest(new TestCmsXmlContentCache("testCacheHitAndMiss"));
+        suite.addTest(new TestCmsXmlContentCache("testInvalidationOnPublish"));
+        suite.addTest(new TestCmsXmlContentCache("testNewDateLastModified"));
+        suite.addTest(new TestCmsXmlContentCache("testReadOnly"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that online XML contents are shared across requests, and offline XML contents are not.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testCacheHitAndMiss() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing cache hits and misses of unmarshalled XML contents");
+        String path = "/xmlcontent/article_cache_1.html";
+        createPublishedArticle(cms, path);
+
+        CmsObject onlineCms = getOnlineCmsObject(cms);
+        CmsResource resource = onlineCms.readResource(path);
+        CmsXmlContent content = CmsXmlContentFactory.unmarshal(onlineCms, resource, new TestRequest());
+        assertTrue(content.isReadOnly());
+        // a cache hit returns the same instance for a different request
+        assertSame(content, CmsXmlContentFactory.unmarshal(onlineCms, resource, new TestRequest()));
+        assertSame(content, getCache().getCacheXmlContent(getCache().getXmlContentCacheKey(resource)));
+
+        // offline XML contents are never cached
+        resource = cms.readResource(path);
+        CmsXmlContent offline = CmsXmlContentFactory.unmarshal(cms, resource, new TestRequest());
+        assertFalse(offline.isReadOnly());
+        assertNotSame(offline, content);
+        assertNotSame(offline, CmsXmlContentFactory.unmarshal(cms, resource, new TestRequest()));
+    }
+
+    /**
+     * Tests that publishing removes the cached XML contents.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testInvalidationOnPublish() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that publishing removes the cached XML contents");
+        String path = "/xmlcontent/article_cache_2.html";
+        createPublishedArticle(cms, path);
+
+        CmsObject onlineCms = getOnlineCmsObject(cms);
+        CmsXmlContent content = CmsXmlContentFactory.unmarshal(
+            onlineCms,
+            onlineCms.readResource(path),
+            new TestRequest());
+        assertSame(content, CmsXmlContentFactory.unmarshal(onlineCms, onlineCms.readResource(path), new TestRequest()));
+        String key = getCache().getXmlContentCacheKey(onlineCms.readResource(path));
+
+        cms.lockResource(path);
+        CmsFile file = cms.readFile(path);
+        CmsXmlContent changed = CmsXmlContentFactory.unmarshal(cms, file);
+        changed.getValue("Title", Locale.ENGLISH).setStringValue(cms, "Changed title");
+        file.setContents(changed.marshal());
+        cms.writeFile(file);
+        cms.unlockResource(path);
+        OpenCms.getPublishManager().publishResource(cms, path);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        assertNull(getCache().getCacheXmlContent(key));
+        CmsXmlContent published = CmsXmlContentFactory.unmarshal(
+            onlineCms,
+            onlineCms.readResource(path),
+            new TestRequest());
+        assertNotSame(content, published);
+        assertEquals("Changed title", published.getStringValue(onlineCms, "Title", Locale.ENGLISH));
+    }
+
+    /**
+     * Tests that a resource with a new date of last modification does not hit an old cache entry.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testNewDateLastModified() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that a new date of last modification misses the cached XML content");
+        String path = "/xmlcontent/article_cache_3.html";
+        createPublishedArticle(cms, path);
+
+        CmsObject onlineCms = getOnlineCmsObject(cms);
+        CmsResource online = onlineCms.readResource(path);
+        CmsXmlContent content = CmsXmlContentFactory.unmarshal(onlineCms, online, new TestRequest());
+        assertSame(content, getCache().getCacheXmlContent(getCache().getXmlContentCacheKey(online)));
+
+        // touch the resource in the offline project, this does not publish anything
+        cms.lockResource(path);
+        cms.setDateLastModified(path, online.getDateLastModified() + 1000, false);
+        CmsResource touched = cms.readResource(path, CmsResourceFilter.ALL);
+        String touchedKey = getCache().getXmlContentCacheKey(touched);
+        assertFalse(touchedKey.equals(getCache().getXmlContentCacheKey(online)));
+        assertNull(getCache().getCacheXmlContent(touchedKey));
+
+        // the cache only depends on the given resource, so a resource with the new date is unmarshalled again
+        CmsXmlContent reread = CmsXmlContentFactory.unmarshal(onlineCms, touched, new TestRequest());
+        assertNotSame(content, reread);
+        assertSame(reread, getCache().getCacheXmlContent(touchedKey));
+        // the old entry is still there
+        assertSame(content, getCache().getCacheXmlContent(getCache().getXmlContentCacheKey(online)));
+    }
+
+    /**
+     * Tests that cached XML contents can not be modified.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testReadOnly() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that cached XML contents can not be modified");
+        String path = "/xmlcontent/article_cache_4.html";
+        createPublishedArticle(cms, path);
+
+        CmsObject onlineCms = getOnlineCmsObject(cms);
+        CmsResource resource = onlineCms.readResource(path);
+        CmsXmlContent content = CmsXmlContentFactory.unmarshal(onlineCms, resource, new TestRequest());
+        assertTrue(content.isReadOnly());
+        String title = content.getStringValue(onlineCms, "Title", Locale.ENGLISH);
+
+        I_CmsXmlContentValue value = content.getValue("Title", Locale.ENGLISH);
+        try {
+            value.setStringValue(onlineCms, "Changed title");
+            fail("Changing a value of a cached XML content must fail");
+        } catch (CmsIllegalStateException e) {
+            // expected
+        }
+        try {
+            content.addValue(onlineCms, "Title", Locale.ENGLISH, 1);
+            fail("Adding a value to a cached XML content must fail");
+        } catch (CmsIllegalStateException e) {
+            // expected
+        }
+        try {
+            content.addLocale(onlineCms, Locale.FRENCH);
+            fail("Adding a locale to a cached XML content must fail");
+        } catch (CmsIllegalStateException e) {
+            // expected
+        }
+
+        // the file of a cached XML content is a copy
+        byte[] contents = content.getFile().getContents();
+        content.getFile().setContents("changed".getBytes(CmsEncoder.ENCODING_UTF_8));
+        assertEquals(contents.length, content.getFile().getContents().length);
+
+        CmsXmlContent cached = CmsXmlContentFactory.unmarshal(onlineCms, resource, new TestRequest());
+        assertSame(content, cached);
+        assertEquals(title, cached.getStringValue(onlineCms, "Title", Locale.ENGLISH));
+        assertEquals(1, cached.getIndexCount("Title", Locale.ENGLISH));
+        assertFalse(cached.hasLocale(Locale.FRENCH));
+    }
+
+    /**
+     * Creates and publishes a new article.<p>
+     * 
+     * @param cms the current users context
+     * @param path the path of the article
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void createPublishedArticle(CmsObject cms, String path) throws Exception {
+
+        cms.createResource(path, OpenCmsTestCase.ARTICLE_TYPEID);
+        cms.unlockResource(path);
+        OpenCms.getPublishManager().publishResource(cms, path);
+        OpenCms.getPublishManager().waitWhileRunning();
+    }
+
+    /**
+     * Returns the ADE cache.<p>
+     * 
+     * @return the ADE cache
+     */
+    private CmsADECache getCache() {
+
+        return OpenCms.getADEManager().getCache();
+    }
+
+    /**
+     * Returns a copy of the given context in the online project.<p>
+     * 
+     * @param cms the current users context
+     * 
+     * @return a copy of the given context in the online project
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private CmsObject getOnlineCmsObject(CmsObject cms) throws Exception {
+
+        CmsObject onlineCms = OpenCms.initCmsObject(cms);
+        onlineCms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        return onlineCms;
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml.content;
+
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.main.CmsIllegalStateException;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.xml.CmsXmlContentDefinition;
+import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.types.I_CmsXmlContentValue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the compact representation of read only XML contents.<p>
+ * 
+ * @since 8.5.0
+ */
+public class TestCmsXmlContentCompact extends TestCase {
+
+    /** Schema system id of the flat test content definition. */
+    private static final String SCHEMA_SYSTEM_ID_1 = "http://www.opencms.org/test1.xsd";
+
+    /** Schema system id of the nested test content definition. */
+    private static final String SCHEMA_SYSTEM_ID_COMPACT_1 = "http://www.opencms.org/test-compact-1.xsd";
+
+    /** Schema system id of the nesting test content definition. */
+    private static final String SCHEMA_SYSTEM_ID_COMPACT_2 = "http://www.opencms.org/test-compact-2.xsd";
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsXmlContentCompact(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Compares the heap used by the default and the compact representation of large XML contents.<p>
+     * 
+     * @throws Exception in case something goes wrong
+     */
+    public void testCompactMemory() throws Exception {
+
+        CmsXmlEntityResolver resolver = initSchemas();
+        String xml = createLargeContent(100);
+        int count = 50;
+
+        // make sure all schema related objects are already created
+        unmarshalAll(xml, resolver, 1, true);
+        unmarshalAll(xml, resolver, 1, false);
+
+        long base = getUsedMemory();
+        List<CmsXmlContent> contents = unmarshalAll(xml, resolver, count, false);
+        long defaultSize = (getUsedMemory() - base) / count;
+        int values = contents.get(0).getValues(Locale.ENGLISH).size();
+        contents = null;
+
+        base = getUsedMemory();
+        contents = unmarshalAll(xml, resolver, count, true);
+        long compactSize = (getUsedMemory() - base) / count;
+        contents = null;
+
+        System.out.println("Heap per XML content with "
+            + values
+            + " values in 3 locales (including the DOM): default "
+            + (defaultSize / 1024)
+            + " kB, compact "
+            + (compactSize / 1024)
+            + " kB");
+    }
+
+    /**
+     * Tests that a compact XML content returns the same values as the default representation.<p>
+     * 
+     * @throws Exception in case something goes wrong
+     */
+    public void testCompactValues() throws Exception {
+
+        CmsXmlEntityResolver resolver = initSchemas();
+
+        String xml = CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-1.xml", CmsEncoder.ENCODING_UTF_8);
+        assertSameValues(xml, resolver);
+
+        assertSameValues(createLargeContent(12), resolver);
+    }
+
+    /**
+     * Tests that a compact XML content can not be modified.<p>
+     * 
+     * @throws Exception in case something goes wrong
+     */
+    public void testCompactReadOnly() throws Exception {
+
+        CmsXmlEntityResolver resolver = initSchemas();
+        CmsXmlContent content = CmsXmlContentFactory.unmarshal(
+            createLargeContent(2),
+            CmsEncoder.ENCODING_UTF_8,
+            resolver);
+        assertFalse(content.isCompact());
+        assertFalse(content.isReadOnly());
+
+        content.compact();
+        assertTrue(content.isCompact());
+        assertTrue(content.isReadOnly());
+
+        try {
+            content.addValue(null, "Title", Locale.ENGLISH, 1);
+            fail("Adding a value to a read only XML content must fail");
+        } catch (CmsIllegalStateException e) {
+            // expected
+        }
+        try {
+            content.removeLocale(Locale.GERMAN);
+            fail("Removing a locale from a read only XML content must fail");
+        } catch (CmsIllegalStateException e) {
+            // expected
+        }
+        assertTrue(content.hasLocale(Locale.GERMAN));
+
+        // value objects are created once and then reused
+        I_CmsXmlContentValue value = content.getValue("Paragraph[2]/Text", Locale.GERMAN);
+        assertNotNull(value);
+        assertSame(value, content.getValue("Paragraph[2]/Text", Locale.GERMAN));
+    }
+
+    /**
+     * Tests that the values of a read only XML content can not be modified.<p>
+     * 
+     * @throws Exception in case something goes wrong
+     */
+    public void testReadOnlyValues() throws Exception {
+
+        CmsXmlEntityResolver resolver = initSchemas();
+        String xml = createLargeContent(2);
+        for (int i = 0; i < 2; i++) {
+            CmsXmlContent content = CmsXmlContentFactory.unmarshal(xml, CmsEncoder.ENCODING_UTF_8, resolver);
+            if (i == 0) {
+                content.setReadOnly();
+            } else {
+                content.compact();
+            }
+            // string (CDATA), date (text) and HTML values
+            String[] paths = {"Title", "Paragraph[1]/Date", "Paragraph[1]/Text"};
+            for (int p = 0; p < paths.length; p++) {
+                I_CmsXmlContentValue value = content.getValue(paths[p], Locale.ENGLISH);
+                String expected = value.getStringValue(null);
+                try {
+                    value.setStringValue(null, "changed");
+                    fail("Changing the value " + paths[p] + " of a read only XML content must fail");
+                } catch (CmsIllegalStateException e) {
+                    // expected
+                }
+                assertEquals(expected, content.getValue(paths[p], Locale.ENGLISH).getStringValue(null));
+            }
+            I_CmsXmlContentValue paragraph = content.getValue("Paragraph[1]/Headline", Locale.ENGLISH);
+            try {
+                content.getValue("Paragraph[1]", Locale.ENGLISH).moveUp();
+                fail("Moving a value of a read only XML content must fail");
+            } catch (CmsIllegalStateException e) {
+                // expected
+            }
+            assertEquals(paragraph.getStringValue(null), content.getStringValue(
+                null,
+                "Paragraph[1]/Headline",
+                Locale.ENGLISH));
+        }
+    }
+
+    /**
+     * Unmarshals the given XML twice, compacts one of the contents and compares the values of both.<p>
+     * 
+     * @param xml the XML
+     * @param resolver the entity resolver
+     * 
+     * @throws Exception in case something goes wrong
+     */
+    private void assertSameValues(String xml, CmsXmlEntityResolver resolver) throws Exception {
+
+        CmsXmlContent expected = CmsXmlContentFactory.unmarshal(xml, CmsEncoder.ENCODING_UTF_8, resolver);
+        CmsXmlContent compact = CmsXmlContentFactory.unmarshal(xml, CmsEncoder.ENCODING_UTF_8, resolver);
+        compact.compact();
+
+        assertEquals(new HashSet<Locale>(expected.getLocales()), new HashSet<Locale>(compact.getLocales()));
+        assertEquals(new HashSet<String>(expected.getBookmarks()), new HashSet<String>(compact.getBookmarks()));
+        for (Locale locale : expected.getLocales()) {
+            List<String> names = expected.getNames(locale);
+            assertEquals(new HashSet<String>(names), new HashSet<String>(compact.getNames(locale)));
+            assertEquals(getPaths(expected.getValues(locale)).size(), getPaths(compact.getValues(locale)).size());
+            assertEquals(
+                new HashSet<String>(getPaths(expected.getValues(locale))),
+                new HashSet<String>(getPaths(compact.getValues(locale))));
+            for (String name : names) {
+                I_CmsXmlContentValue value = compact.getValue(name, locale);
+                assertNotNull(name, value);
+                assertEquals(expected.getValue(name, locale).getPath(), value.getPath());
+                assertEquals(expected.getValue(name, locale).getTypeName(), value.getTypeName());
+                assertEquals(expected.getValue(name, locale).getIndex(), value.getIndex());
+                if (value.isSimpleType()) {
+                    assertEquals(
+                        expected.getStringValue(null, name, locale),
+                        compact.getStringValue(null, name, locale));
+                }
+                assertEquals(
+                    new HashSet<Locale>(expected.getLocales(name)),
+                    new HashSet<Locale>(compact.getLocales(name)));
+                // the order of sub values with the same index is not defined
+                assertEquals(
+                    new HashSet<String>(getPaths(expected.getSubValues(name, locale))),
+                    new HashSet<String>(getPaths(compact.getSubValues(name, locale))));
+                assertEquals(getPaths(expected.getValues(name, locale)), getPaths(compact.getValues(name, locale)));
+                assertEquals(expected.getIndexCount(name, locale), compact.getIndexCount(name, locale));
+            }
+        }
+        assertFalse(compact.hasValue("Unknown", Locale.ENGLISH));
+        assertNull(compact.getValue("Unknown", Locale.ENGLISH));
+        assertTrue(compact.getValues(Locale.CHINESE).isEmpty());
+    }
+
+    /**
+     * Creates a large XML content with the nested test schema in 3 locales.<p>
+     * 
+     * @param count the number of nested paragraphs per locale
+     * 
+     * @return the XML
+     */
+    private String createLargeContent(int count) {
+
+        StringBuffer result = new StringBuffer();
+        result.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        result.append("<Articles xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" "
+            + "xsi:noNamespaceSchemaLocation=\""
+            + SCHEMA_SYSTEM_ID_COMPACT_2
+            + "\">\n");
+        String[] locales = {"en", "de", "fr"};
+        for (int l = 0; l < locales.length; l++) {
+            result.append("<Article language=\"").append(locales[l]).append("\">\n");
+            result.append("<Title>Title ").append(locales[l]).append("</Title>\n");
+            result.append("<Title>Subtitle ").append(locales[l]).append("</Title>\n");
+            result.append("<Teaser><links/><content><![CDATA[<p>Teaser</p>]]></content></Teaser>\n");
+            for (int p = 0; p < count; p++) {
+                result.append("<Paragraph>\n");
+                result.append("<Headline>Headline ").append(p).append("</Headline>\n");
+                result.append("<Text><links/><content><![CDATA[<p>Text ").append(p).append(
+                    "</p>]]></content></Text>\n");
+                result.append("<Date>1300000000000</Date>\n");
+                for (int k = 0; k < 5; k++) {
+                    result.append("<Link>/sites/default/").append(k).append(".html</Link>\n");
+                }
+                result.append("</Paragraph>\n");
+            }
+            result.append("</Article>\n");
+        }
+        result.append("</Articles>\n");
+        return result.toString();
+    }
+
+    /**
+     * Returns the paths of the given values.<p>
+     * 
+     * @param values the values
+     * 
+     * @return the paths of the values
+     */
+    private List<String> getPaths(List<I_CmsXmlContentValue> values) {
+
+        List<String> result = new ArrayList<String>();
+        for (I_CmsXmlContentValue value : values) {
+            result.add(value.getPath());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the heap currently in use, after garbage collection.<p>
+     * 
+     * @return the heap currently in use
+     */
+    private long getUsedMemory() {
+
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Caches the test schemas in the entity resolver.<p>
+     * 
+     * @return the entity resolver
+     * 
+     * @throws Exception in case something goes wrong
+     */
+    private CmsXmlEntityResolver initSchemas() throws Exception {
+
+        CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(null);
+        String[][] schemas = {
+            {SCHEMA_SYSTEM_ID_1, "org/opencms/xml/content/xmlcontent-definition-1.xsd"},
+            {SCHEMA_SYSTEM_ID_COMPACT_1, "org/opencms/xml/content/xmlcontent-definition-compact-1.xsd"},
+            {SCHEMA_SYSTEM_ID_COMPACT_2, "org/opencms/xml/content/xmlcontent-definition-compact-2.xsd"}};
+        for (int i = 0; i < schemas.length; i++) {
+            String schema = CmsFileUtil.readFile(schemas[i][1], CmsEncoder.ENCODING_UTF_8);
+            CmsXmlEntityResolver.cacheSystemId(schemas[i][0], schema.getBytes(CmsEncoder.ENCODING_UTF_8));
+            // make sure the content definition can be read
+            CmsXmlContentDefinition.unmarshal(schema, schemas[i][0], resolver);
+        }
+        return resolver;
+    }
+
+    /**
+     * Unmarshals the given XML several times.<p>
+     * 
+     * @param xml the XML
+     * @param resolver the entity resolver
+     * @param count the number of XML contents to create
+     * @param compact if the XML contents should be compacted
+     * 
+     * @return the XML contents
+     * 
+     * @throws Exception in case something goes wrong
+     */
+    private List<CmsXmlContent> unmarshalAll(String xml, CmsXmlEntityResolver resolver, int count, boolean compact)
+    throws Exception {
+
+        List<CmsXmlContent> result = new ArrayList<CmsXmlContent>(count);
+        for (int i = 0; i < count; i++) {
+            CmsXmlContent content = CmsXmlContentFactory.unmarshal(xml, CmsEncoder.ENCODING_UTF_8, resolver);
+            if (compact) {
+                content.compact();
+            }
+            result.add(content);
+        }
+        return result;
+    }
+}